@@ -24,6 +24,7 @@ import org.sonar.ce.log.CeLogging;
 import org.sonar.core.platform.Module;
 import org.sonar.process.systeminfo.ProcessStateSystemInfo;
 import org.sonar.ce.monitoring.CeDatabaseMBeanImpl;
+import org.sonar.ce.monitoring.CeSqlStatisticsMBeanImpl;
 
 public class CeConfigurationModule extends Module {
   @Override
@@ -32,6 +33,7 @@ public class CeConfigurationModule extends Module {
       CeConfigurationImpl.class,
       CeLogging.class,
       CeDatabaseMBeanImpl.class,
+      CeSqlStatisticsMBeanImpl.class,
       new ProcessStateSystemInfo("Compute Engine State"));
   }
 }
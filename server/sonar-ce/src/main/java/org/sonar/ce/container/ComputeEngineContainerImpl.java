@@ -43,8 +43,10 @@ import org.sonar.ce.CeConfigurationModule;
 import org.sonar.ce.CeDistributedInformationImpl;
 import org.sonar.ce.CeHttpModule;
 import org.sonar.ce.CeQueueModule;
+import org.sonar.ce.CeQueueSignalImpl;
 import org.sonar.ce.CeTaskCommonsModule;
 import org.sonar.ce.StandaloneCeDistributedInformation;
+import org.sonar.ce.StandaloneCeQueueSignal;
 import org.sonar.ce.cleaning.CeCleaningModule;
 import org.sonar.ce.cluster.HazelcastClientWrapperImpl;
 import org.sonar.ce.db.ReadOnlyPropertiesDao;
@@ -181,11 +183,13 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
     if (props.valueAsBoolean("sonar.cluster.enabled")) {
       this.level4.add(
         HazelcastClientWrapperImpl.class,
-        CeDistributedInformationImpl.class
+        CeDistributedInformationImpl.class,
+        CeQueueSignalImpl.class
       );
     } else {
       this.level4.add(
-        StandaloneCeDistributedInformation.class
+        StandaloneCeDistributedInformation.class,
+        StandaloneCeQueueSignal.class
       );
     }
     configureFromModules(this.level4);
@@ -19,6 +19,10 @@
  */
 package org.sonar.ce.monitoring;
 
+import java.util.List;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.StepProfileStatistics;
+
 public interface CEQueueStatus {
 
   /**
@@ -85,4 +89,16 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Adds the profiles of the steps of a task which processing ended successfully.
+   *
+   * @see #getStepStatistics()
+   */
+  void addStepProfiles(List<StepProfile> profiles);
+
+  /**
+   * Percentiles of the resources used by each step of the last tasks which processing ended successfully.
+   */
+  List<StepProfileStatistics.Summary> getStepStatistics();
 }
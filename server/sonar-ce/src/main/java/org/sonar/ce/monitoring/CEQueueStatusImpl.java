@@ -19,10 +19,13 @@
  */
 package org.sonar.ce.monitoring;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.StepProfileStatistics;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -33,6 +36,7 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final StepProfileStatistics stepStatistics = new StepProfileStatistics();
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -88,4 +92,18 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public void addStepProfiles(List<StepProfile> profiles) {
+    synchronized (stepStatistics) {
+      stepStatistics.add(profiles);
+    }
+  }
+
+  @Override
+  public List<StepProfileStatistics.Summary> getStepStatistics() {
+    synchronized (stepStatistics) {
+      return stepStatistics.getSummaries();
+    }
+  }
 }
@@ -0,0 +1,119 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.util.Map;
+import javax.sql.DataSource;
+import org.picocontainer.Startable;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+public class CeSqlStatisticsMBeanImpl implements CeSqlStatisticsMBean, Startable, SystemInfoSection {
+  private static final int MOST_EXPENSIVE_LIMIT = 20;
+
+  private final DbClient dbClient;
+
+  public CeSqlStatisticsMBeanImpl(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public long getExecutions() {
+    return sqlStatistics().getExecutions();
+  }
+
+  @Override
+  public long getExecutionTimeMs() {
+    return sqlStatistics().getTotalTimeMs();
+  }
+
+  @Override
+  public long getRows() {
+    return sqlStatistics().getRows();
+  }
+
+  @Override
+  public String[] getMostExpensiveScopes() {
+    return sqlStatistics().getScopes().stream()
+      .limit(MOST_EXPENSIVE_LIMIT)
+      .map(s -> s.getKey() + ": " + s)
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public String[] getMostExpensiveStatements() {
+    return sqlStatistics().getStatements().stream()
+      .limit(MOST_EXPENSIVE_LIMIT)
+      .map(s -> s.getKey() + ": " + s)
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public String[] getSlowestExecutions() {
+    return sqlStatistics().getSlowest().stream()
+      .map(Object::toString)
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public void reset() {
+    sqlStatistics().reset();
+  }
+
+  private SqlStatistics sqlStatistics() {
+    DataSource dataSource = dbClient.getDatabase().getDataSource();
+    if (dataSource instanceof ProfiledDataSource) {
+      return ((ProfiledDataSource) dataSource).getSqlStatistics();
+    }
+    return new SqlStatistics();
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine SQL Statistics");
+    for (Map.Entry<String, Object> attribute : sqlStatistics().toSummary().entrySet()) {
+      ProtobufSystemInfo.Attribute.Builder attributeBuilder = builder.addAttributesBuilder().setKey(attribute.getKey());
+      if (attribute.getValue() instanceof Long) {
+        attributeBuilder.setLongValue((Long) attribute.getValue());
+      } else {
+        attributeBuilder.setStringValue(String.valueOf(attribute.getValue()));
+      }
+    }
+    return builder.build();
+  }
+}
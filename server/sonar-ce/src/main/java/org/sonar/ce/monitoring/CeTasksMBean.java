@@ -52,4 +52,10 @@ public interface CeTasksMBean {
    * Configured number of Workers.
    */
   int getWorkerCount();
+
+  /**
+   * Percentiles (p50/p90/p99/max) of the resources used by each step of the last reports processed successfully
+   * since instance startup, one line per step.
+   */
+  String[] getStepStatistics();
 }
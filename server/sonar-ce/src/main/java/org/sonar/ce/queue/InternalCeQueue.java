@@ -19,10 +19,12 @@
  */
 package org.sonar.ce.queue;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.db.ce.CeActivityDto.Status;
+import org.sonar.server.computation.task.step.StepProfile;
 
 /**
  * Queue of pending Compute Engine tasks. Both producer and consumer actions
@@ -59,12 +61,13 @@ public interface InternalCeQueue extends CeQueue {
 
   /**
    * Removes a task from the queue and registers it to past activities. This method
-   * is called by Compute Engine workers when task is processed and can include an option {@link CeTaskResult} object.
+   * is called by Compute Engine workers when task is processed and can include an option {@link CeTaskResult} object
+   * and the profiles of the steps executed by the task (empty if not profiled).
    *
    * @throws IllegalStateException if the task does not exist in the queue
    * @throws IllegalArgumentException if {@code error} is non {@code null} but {@code status} is not {@link Status#FAILED}
    */
-  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error);
+  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error, List<StepProfile> stepProfiles);
 
   void cancelWornOuts();
 
@@ -33,6 +33,7 @@ import org.apache.log4j.Logger;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.CeQueueSignal;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
@@ -40,6 +41,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.server.computation.task.step.StepProfile;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -55,16 +57,18 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
+  private final CeQueueSignal queueSignal;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    DefaultOrganizationProvider defaultOrganizationProvider, ReportStore reportStore, CeQueueSignal queueSignal) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, reportStore, queueSignal);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.queueSignal = queueSignal;
   }
 
   @Override
@@ -96,7 +100,8 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   }
 
   @Override
-  public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+  public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error,
+    List<StepProfile> stepProfiles) {
     checkArgument(error == null || status == CeActivityDto.Status.FAILED, "Error can be provided only when status is FAILED");
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<CeQueueDto> queueDto = dbClient.ceQueueDao().selectByUuid(dbSession, task.getUuid());
@@ -106,7 +111,19 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateQueueStatus(status, activityDto);
       updateTaskResult(activityDto, taskResult);
       updateError(activityDto, error);
+      updateExecutionProfile(activityDto, stepProfiles);
       remove(dbSession, queueDto.get(), activityDto);
+      announceUnblockedTasks(dbSession, task.getComponentUuid());
+    }
+  }
+
+  /**
+   * Pending tasks of the component of a completed task can now be processed. Other pending tasks have been announced
+   * when they were submitted, and the worker which completed the task polls the queue again without delay.
+   */
+  private void announceUnblockedTasks(DbSession dbSession, @Nullable String componentUuid) {
+    if (componentUuid != null && dbClient.ceQueueDao().countByStatusAndComponentUuid(dbSession, CeQueueDto.Status.PENDING, componentUuid) > 0) {
+      queueSignal.announceChange();
     }
   }
 
@@ -117,6 +134,16 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
   }
 
+  private void updateExecutionProfile(CeActivityDto activityDto, List<StepProfile> stepProfiles) {
+    if (stepProfiles.isEmpty()) {
+      return;
+    }
+    activityDto.setExecutionProfile(StepProfile.format(stepProfiles));
+    if (activityDto.getStatus() == CeActivityDto.Status.SUCCESS) {
+      queueStatus.addStepProfiles(stepProfiles);
+    }
+  }
+
   private static void updateError(CeActivityDto activityDto, @Nullable Throwable error) {
     if (error == null) {
       return;
@@ -176,6 +203,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       dbClient.ceQueueDao().resetTasksWithUnknownWorkerUUIDs(dbSession, knownWorkerUUIDs);
       dbSession.commit();
     }
+    queueSignal.announceChange();
   }
 
   @Override
@@ -38,10 +38,12 @@ public class PurgeCeActivities implements Startable {
 
   private final DbClient dbClient;
   private final System2 system2;
+  private final ReportStore reportStore;
 
-  public PurgeCeActivities(DbClient dbClient, System2 system2) {
+  public PurgeCeActivities(DbClient dbClient, System2 system2, ReportStore reportStore) {
     this.dbClient = dbClient;
     this.system2 = system2;
+    this.reportStore = reportStore;
   }
 
   @Override
@@ -59,6 +61,8 @@ public class PurgeCeActivities implements Startable {
       dbClient.ceActivityDao().deleteByUuids(dbSession, ceActivityUuids);
       dbClient.ceScannerContextDao().deleteByUuids(dbSession, ceActivityUuids);
       dbSession.commit();
+
+      reportStore.purge(dbSession);
     }
   }
 
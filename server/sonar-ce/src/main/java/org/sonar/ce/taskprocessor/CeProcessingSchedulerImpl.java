@@ -22,7 +22,7 @@ package org.sonar.ce.taskprocessor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -30,9 +30,9 @@ import javax.annotation.Nullable;
 import org.picocontainer.Startable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.CeQueueSignal;
 import org.sonar.ce.configuration.CeConfiguration;
 
-import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
@@ -43,10 +43,12 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   private final long delayBetweenTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
+  private final CeQueueSignal queueSignal;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory, CeQueueSignal queueSignal) {
     this.executorService = processingExecutorService;
+    this.queueSignal = queueSignal;
 
     this.delayBetweenTasks = ceConfiguration.getQueuePollingDelay();
     this.timeUnit = MILLISECONDS;
@@ -67,8 +69,21 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   @Override
   public void startScheduling() {
     for (ChainingCallback chainingCallback : chainingCallbacks) {
-      ListenableScheduledFuture<Boolean> future = executorService.schedule(chainingCallback.worker, delayBetweenTasks, timeUnit);
-      addCallback(future, chainingCallback, executorService);
+      // first poll is delayed too, and can be woken up as any other delayed poll
+      chainingCallback.chainWithDelay();
+    }
+    queueSignal.addListener(this::wakeUpWaitingWorker);
+  }
+
+  /**
+   * Wakes up a single worker per announced change, so that idle workers do not all poll the queue for one task.
+   * Other waiting workers poll the queue at the end of their delay.
+   */
+  private void wakeUpWaitingWorker() {
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      if (chainingCallback.wakeUp()) {
+        return;
+      }
     }
   }
 
@@ -81,17 +96,21 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
   private class ChainingCallback implements FutureCallback<Boolean> {
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+    private final AtomicBoolean waiting = new AtomicBoolean(false);
     private final CeWorker worker;
+    private final DelayedPoll delayedPoll;
 
     @CheckForNull
-    private ListenableFuture<Boolean> workerFuture;
+    private volatile ListenableFuture<Boolean> workerFuture;
 
     public ChainingCallback(CeWorker worker) {
       this.worker = worker;
+      this.delayedPoll = new DelayedPoll(worker, waiting);
     }
 
     @Override
     public void onSuccess(@Nullable Boolean result) {
+      waiting.set(false);
       if (result != null && result) {
         chainWithoutDelay();
       } else {
@@ -101,6 +120,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     @Override
     public void onFailure(Throwable t) {
+      waiting.set(false);
       if (t instanceof Error) {
         LOG.error("Compute Engine execution failed. Scheduled processing interrupted.", t);
       } else {
@@ -117,11 +137,31 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     private void chainWithDelay() {
       if (keepRunning()) {
-        workerFuture = executorService.schedule(worker, delayBetweenTasks, timeUnit);
+        // a wake up can't see the waiting flag before the future of the delayed poll is assigned
+        synchronized (this) {
+          waiting.set(true);
+          workerFuture = executorService.schedule(delayedPoll, delayBetweenTasks, timeUnit);
+        }
       }
       addCallback();
     }
 
+    /**
+     * Cancels the delayed execution of the worker, if it's waiting for it and has not started yet. The
+     * {@link java.util.concurrent.CancellationException} received by {@link #onFailure(Throwable)} then chains the worker
+     * without delay.
+     *
+     * @return {@code true} if the worker was waiting
+     */
+    public synchronized boolean wakeUp() {
+      ListenableFuture<Boolean> future = workerFuture;
+      if (future != null && waiting.compareAndSet(true, false)) {
+        future.cancel(false);
+        return true;
+      }
+      return false;
+    }
+
     private void addCallback() {
       if (workerFuture != null && keepRunning()) {
         Futures.addCallback(workerFuture, this, executorService);
@@ -139,4 +179,30 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       }
     }
   }
+
+  /**
+   * Delayed execution of a worker. It is not waiting anymore once it starts, so that a wake up never cancels a running
+   * worker. If the wake up won the race, the worker is not called and is chained again without delay.
+   */
+  static class DelayedPoll implements Callable<Boolean> {
+    private final CeWorker worker;
+    private final AtomicBoolean waiting;
+
+    DelayedPoll(CeWorker worker, AtomicBoolean waiting) {
+      this.worker = worker;
+      this.waiting = waiting;
+    }
+
+    CeWorker getWorker() {
+      return worker;
+    }
+
+    @Override
+    public Boolean call() throws Exception {
+      if (!waiting.compareAndSet(true, false)) {
+        return Boolean.TRUE;
+      }
+      return worker.call();
+    }
+  }
 }
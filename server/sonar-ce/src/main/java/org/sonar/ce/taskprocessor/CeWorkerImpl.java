@@ -19,6 +19,7 @@
  */
 package org.sonar.ce.taskprocessor;
 
+import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
@@ -29,6 +30,8 @@ import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.queue.InternalCeQueue;
 import org.sonar.core.util.logs.Profiler;
 import org.sonar.db.ce.CeActivityDto;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.TaskProfiler;
 
 import static java.lang.String.format;
 
@@ -81,6 +84,7 @@ public class CeWorkerImpl implements CeWorker {
   private void executeTask(CeTask task) {
     ceLogging.initForTask(task);
     Profiler ceProfiler = startActivityProfiler(task);
+    TaskProfiler.start();
 
     CeActivityDto.Status status = CeActivityDto.Status.FAILED;
     CeTaskResult taskResult = null;
@@ -105,8 +109,9 @@ public class CeWorkerImpl implements CeWorker {
 
   private void finalizeTask(CeTask task, Profiler ceProfiler, CeActivityDto.Status status,
     @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+    List<StepProfile> stepProfiles = TaskProfiler.stop();
     try {
-      queue.remove(task, status, taskResult, error);
+      queue.remove(task, status, taskResult, error, stepProfiles);
     } catch (Exception e) {
       LOG.error(format("Failed to finalize task with uuid '%s' and persist its state to db", task.getUuid()), e);
     } finally {
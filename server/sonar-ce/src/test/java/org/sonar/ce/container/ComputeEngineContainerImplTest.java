@@ -37,7 +37,9 @@ import org.sonar.api.database.DatabaseProperties;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.CeDistributedInformationImpl;
+import org.sonar.ce.CeQueueSignalImpl;
 import org.sonar.ce.StandaloneCeDistributedInformation;
+import org.sonar.ce.StandaloneCeQueueSignal;
 import org.sonar.ce.cluster.HazelcastClientWrapperImpl;
 import org.sonar.ce.cluster.HazelcastTestHelper;
 import org.sonar.db.DbTester;
@@ -94,7 +96,7 @@ public class ComputeEngineContainerImplTest {
       picoContainer.getComponentAdapters().stream()
         .map(ComponentAdapter::getComponentImplementation)
         .collect(Collectors.toList())).contains((Class) HazelcastClientWrapperImpl.class,
-          (Class) CeDistributedInformationImpl.class);
+          (Class) CeDistributedInformationImpl.class, (Class) CeQueueSignalImpl.class);
     underTest.stop();
   }
 
@@ -114,14 +116,14 @@ public class ComputeEngineContainerImplTest {
       .hasSize(
         CONTAINER_ITSELF
           + 73 // level 4
-          + 4 // content of CeConfigurationModule
-          + 4 // content of CeQueueModule
+          + 5 // content of CeConfigurationModule
+          + 5 // content of CeQueueModule
           + 3 // content of CeHttpModule
-          + 3 // content of CeTaskCommonsModule
+          + 5 // content of CeTaskCommonsModule
           + 4 // content of ProjectAnalysisTaskModule
           + 4 // content of CeTaskProcessorModule
           + 3 // CeCleaningModule + its content
-          + 1 // CeDistributedInformation
+          + 2 // CeDistributedInformation and CeQueueSignal
     );
     assertThat(picoContainer.getParent().getComponentAdapters()).hasSize(
       CONTAINER_ITSELF
@@ -137,14 +139,14 @@ public class ComputeEngineContainerImplTest {
         + 23 // level 1
         + 46 // content of DaoModule
         + 3 // content of EsSearchModule
-        + 58 // content of CorePropertyDefinitions
+        + 60 // content of CorePropertyDefinitions
     );
     assertThat(
       picoContainer.getComponentAdapters().stream()
         .map(ComponentAdapter::getComponentImplementation)
         .collect(Collectors.toList())).doesNotContain((Class) HazelcastClientWrapperImpl.class,
-          (Class) CeDistributedInformationImpl.class).contains(
-            (Class) StandaloneCeDistributedInformation.class);
+          (Class) CeDistributedInformationImpl.class, (Class) CeQueueSignalImpl.class).contains(
+            (Class) StandaloneCeDistributedInformation.class, (Class) StandaloneCeQueueSignal.class);
     assertThat(picoContainer.getParent().getParent().getParent().getParent()).isNull();
     underTest.stop();
 
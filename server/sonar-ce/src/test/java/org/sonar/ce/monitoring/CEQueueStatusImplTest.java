@@ -27,7 +27,10 @@ import org.mockito.Mockito;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.StepProfileStatistics;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -139,4 +142,16 @@ public class CEQueueStatusImplTest {
 
     assertThat(underTest.getPendingCount()).isEqualTo(42);
   }
+
+  @Test
+  public void addStepProfiles_updates_step_statistics() {
+    assertThat(underTest.getStepStatistics()).isEmpty();
+
+    underTest.addStepProfiles(asList(new StepProfile("Total", 100, 0, 0, 0, 0, 0), new StepProfile("step1", 40, 0, 0, 0, 0, 0)));
+    underTest.addStepProfiles(asList(new StepProfile("Total", 200, 0, 0, 0, 0, 0), new StepProfile("step1", 60, 0, 0, 0, 0, 0)));
+
+    assertThat(underTest.getStepStatistics()).extracting(StepProfileStatistics.Summary::getName).containsExactly("Total", "step1");
+    assertThat(underTest.getStepStatistics().get(0).getSamples()).isEqualTo(2);
+    assertThat(underTest.getStepStatistics().get(1).getWallTimeMs().getMax()).isEqualTo(60);
+  }
 }
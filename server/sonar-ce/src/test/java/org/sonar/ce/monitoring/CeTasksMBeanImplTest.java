@@ -20,6 +20,7 @@
 package org.sonar.ce.monitoring;
 
 import java.lang.management.ManagementFactory;
+import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.management.InstanceNotFoundException;
 import javax.management.ObjectInstance;
@@ -27,7 +28,10 @@ import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.StepProfileStatistics;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class CeTasksMBeanImplTest {
@@ -37,6 +41,8 @@ public class CeTasksMBeanImplTest {
   private static final long SUCCESS_COUNT = 13;
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_COUNT = 56;
+  private static final StepProfileStatistics STEP_STATISTICS = new StepProfileStatistics()
+    .add(asList(new StepProfile("Total", 100, 80, 1000, 10, 20, 3), new StepProfile("step1", 50, 40, 500, 5, 10, 0)));
 
   private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
 
@@ -58,6 +64,9 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getErrorCount()).isEqualTo(ERROR_COUNT);
     assertThat(underTest.getSuccessCount()).isEqualTo(SUCCESS_COUNT);
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
+    assertThat(underTest.getStepStatistics()).containsExactly(
+      "Total | samples=1 | time=100/100/100/100 | cpu=80/80/80/80 | allocated=1000/1000/1000/1000 | sql=10/10/10/10 | sqlTime=20/20/20/20 | es=3/3/3/3",
+      "step1 | samples=1 | time=50/50/50/50 | cpu=40/40/40/40 | allocated=500/500/500/500 | sql=5/5/5/5 | sqlTime=10/10/10/10 | es=0/0/0/0");
   }
 
   @Test
@@ -118,6 +127,16 @@ public class CeTasksMBeanImplTest {
       return PROCESSING_TIME;
     }
 
+    @Override
+    public void addStepProfiles(List<StepProfile> profiles) {
+      methodNotImplemented();
+    }
+
+    @Override
+    public List<StepProfileStatistics.Summary> getStepStatistics() {
+      return STEP_STATISTICS.getSummaries();
+    }
+
     private long methodNotImplemented() {
       throw new UnsupportedOperationException("Not Implemented");
     }
@@ -33,6 +33,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.AlwaysIncreasingSystem2;
+import org.sonar.ce.CeQueueSignal;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
 import org.sonar.core.util.UuidFactory;
@@ -46,12 +47,17 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.organization.DefaultOrganization;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.StepProfileStatistics;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InternalCeQueueImplTest {
@@ -59,6 +65,7 @@ public class InternalCeQueueImplTest {
   private static final String AN_ANALYSIS_UUID = "U1";
   private static final String WORKER_UUID_1 = "worker uuid 1";
   private static final String WORKER_UUID_2 = "worker uuid 2";
+  private static final List<StepProfile> NO_STEP_PROFILES = emptyList();
 
   private System2 system2 = new AlwaysIncreasingSystem2();
 
@@ -72,7 +79,9 @@ public class InternalCeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
   private DefaultOrganizationProvider defaultOrganizationProvider = mock(DefaultOrganizationProvider.class);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider);
+  private CeQueueSignal queueSignal = mock(CeQueueSignal.class);
+  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider,
+    new DatabaseReportStore(dbTester.getDbClient()), queueSignal);
 
   @Before
   public void setUp() throws Exception {
@@ -93,6 +102,7 @@ public class InternalCeQueueImplTest {
 
     verifyCeTask(taskSubmit, task, null);
     verifyCeQueueDtoForTaskSubmit(taskSubmit);
+    verify(queueSignal).announceChange();
   }
 
   @Test
@@ -163,7 +173,7 @@ public class InternalCeQueueImplTest {
   public void test_remove() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
-    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
 
     // queue is empty
     assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(dbTester.getSession(), task.getUuid()).isPresent()).isFalse();
@@ -175,6 +185,31 @@ public class InternalCeQueueImplTest {
     assertThat(history.get().getStatus()).isEqualTo(CeActivityDto.Status.SUCCESS);
     assertThat(history.get().getIsLast()).isTrue();
     assertThat(history.get().getAnalysisUuid()).isNull();
+    // announced by submit only, no pending task is blocked by the removed one
+    verify(queueSignal).announceChange();
+  }
+
+  @Test
+  public void remove_announces_change_if_pending_tasks_of_the_same_component_can_be_processed() {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    submit(CeTaskTypes.REPORT, "PROJECT_2");
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
+
+    // announced by the 3 submits and by remove
+    verify(queueSignal, times(4)).announceChange();
+  }
+
+  @Test
+  public void remove_does_not_announce_change_if_no_pending_task_of_the_same_component() {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+    submit(CeTaskTypes.REPORT, "PROJECT_2");
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
+
+    // announced by the 2 submits only
+    verify(queueSignal, times(2)).announceChange();
   }
 
   @Test
@@ -182,7 +217,7 @@ public class InternalCeQueueImplTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Error can be provided only when status is FAILED");
 
-    underTest.remove(mock(CeTask.class), CeActivityDto.Status.SUCCESS, null, new RuntimeException("Some error"));
+    underTest.remove(mock(CeTask.class), CeActivityDto.Status.SUCCESS, null, new RuntimeException("Some error"), NO_STEP_PROFILES);
   }
 
   @Test
@@ -190,14 +225,14 @@ public class InternalCeQueueImplTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Error can be provided only when status is FAILED");
 
-    underTest.remove(mock(CeTask.class), CeActivityDto.Status.CANCELED, null, new RuntimeException("Some error"));
+    underTest.remove(mock(CeTask.class), CeActivityDto.Status.CANCELED, null, new RuntimeException("Some error"), NO_STEP_PROFILES);
   }
 
   @Test
   public void remove_does_not_set_analysisUuid_in_CeActivity_when_CeTaskResult_has_no_analysis_uuid() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
-    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(null), null);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(null), null, NO_STEP_PROFILES);
 
     // available in history
     Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
@@ -210,7 +245,7 @@ public class InternalCeQueueImplTest {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
 
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_2);
-    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(AN_ANALYSIS_UUID), null);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(AN_ANALYSIS_UUID), null, NO_STEP_PROFILES);
 
     // available in history
     Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
@@ -224,7 +259,7 @@ public class InternalCeQueueImplTest {
 
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
-    underTest.remove(peek.get(), CeActivityDto.Status.FAILED, null, error);
+    underTest.remove(peek.get(), CeActivityDto.Status.FAILED, null, error, NO_STEP_PROFILES);
 
     Optional<CeActivityDto> activityDto = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid());
     assertThat(activityDto).isPresent();
@@ -233,6 +268,29 @@ public class InternalCeQueueImplTest {
     assertThat(activityDto.get().getErrorStacktrace()).isEqualToIgnoringWhitespace(stacktraceToString(error));
   }
 
+  @Test
+  public void remove_saves_execution_profile_and_updates_step_statistics() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+    List<StepProfile> profiles = asList(new StepProfile("Total", 100, 80, 1000, 10, 20, 3), new StepProfile("step1", 50, 40, 500, 5, 10, 0));
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, profiles);
+
+    Optional<CeActivityDto> activityDto = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid());
+    assertThat(activityDto.get().getExecutionProfile()).isEqualTo(StepProfile.format(profiles));
+    assertThat(queueStatus.getStepStatistics()).extracting(StepProfileStatistics.Summary::getName).containsExactly("Total", "step1");
+  }
+
+  @Test
+  public void remove_does_not_save_execution_profile_when_task_is_not_profiled() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
+
+    Optional<CeActivityDto> activityDto = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid());
+    assertThat(activityDto.get().getExecutionProfile()).isNull();
+    assertThat(queueStatus.getStepStatistics()).isEmpty();
+  }
+
   @Test
   public void remove_copies_executionCount_and_workerUuid() {
     dbTester.getDbClient().ceQueueDao().insert(session, new CeQueueDto()
@@ -247,7 +305,7 @@ public class InternalCeQueueImplTest {
       .setOrganizationUuid("foo")
       .setUuid("uuid")
       .setType("bar")
-      .build(), CeActivityDto.Status.SUCCESS, null, null);
+      .build(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
 
     CeActivityDto dto = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), "uuid").get();
     assertThat(dto.getExecutionCount()).isEqualTo(2);
@@ -257,11 +315,11 @@ public class InternalCeQueueImplTest {
   @Test
   public void fail_to_remove_if_not_in_queue() throws Exception {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
-    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
 
     expectedException.expect(IllegalStateException.class);
 
-    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
   }
 
   @Test
@@ -396,7 +454,7 @@ public class InternalCeQueueImplTest {
     assertThat(ceTask.get().getUuid()).isEqualTo("u3");
 
     // remove first task and do another peek: will pick the reset task since it's now the oldest one
-    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
     assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo("u4");
   }
 
@@ -411,7 +469,7 @@ public class InternalCeQueueImplTest {
     assertThat(ceTask.get().getUuid()).isEqualTo("u3");
 
     // remove first task and do another peek: will pick the reset task since it's now the oldest one
-    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null, NO_STEP_PROFILES);
     assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo("u4");
   }
 
@@ -22,13 +22,17 @@ package org.sonar.ce.queue;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PurgeCeActivitiesTest {
@@ -38,7 +42,8 @@ public class PurgeCeActivitiesTest {
   @Rule
   public DbTester dbTester = DbTester.create(system2);
 
-  private PurgeCeActivities underTest = new PurgeCeActivities(dbTester.getDbClient(), system2);
+  private ReportStore reportStore = mock(ReportStore.class);
+  private PurgeCeActivities underTest = new PurgeCeActivities(dbTester.getDbClient(), system2, reportStore);
 
   @Test
   public void delete_older_than_6_months() throws Exception {
@@ -52,6 +57,13 @@ public class PurgeCeActivitiesTest {
     assertThat(dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), "RECENT").isPresent()).isTrue();
   }
 
+  @Test
+  public void purge_report_store() {
+    underTest.start();
+
+    verify(reportStore).purge(any(DbSession.class));
+  }
+
   private void insertWithDate(String uuid, long date) {
     CeQueueDto queueDto = new CeQueueDto();
     queueDto.setUuid(uuid);
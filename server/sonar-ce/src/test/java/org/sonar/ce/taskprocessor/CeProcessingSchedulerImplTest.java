@@ -47,9 +47,13 @@ import org.junit.Test;
 import org.junit.rules.DisableOnDebug;
 import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
+import org.sonar.ce.CeQueueSignal;
+import org.sonar.ce.StandaloneCeQueueSignal;
 import org.sonar.ce.configuration.CeConfigurationRule;
 
 import static com.google.common.collect.ImmutableList.copyOf;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -75,8 +79,9 @@ public class CeProcessingSchedulerImplTest {
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
   private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorker, 2000L, MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorker);
+  private CeQueueSignal queueSignal = new StandaloneCeQueueSignal();
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory);
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, queueSignal);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_true() throws Exception {
@@ -189,6 +194,110 @@ public class CeProcessingSchedulerImplTest {
       );
   }
 
+  @Test
+  public void queue_change_cancels_delayed_polling_and_polls_without_delay() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(false)
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+
+    int cancelledTaskFutureCount = 0;
+    int i = 0;
+    while (processingExecutorService.futures.peek() != null) {
+      Future<?> future = processingExecutorService.futures.poll();
+      if (future.isCancelled()) {
+        cancelledTaskFutureCount++;
+      } else {
+        future.get();
+      }
+      // announce a change while the worker waits for its second delayed polling
+      if (i == 0) {
+        queueSignal.announceChange();
+      }
+      i++;
+    }
+
+    assertThat(cancelledTaskFutureCount).isEqualTo(1);
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll
+      );
+  }
+
+  @Test
+  public void queue_change_cancels_first_delayed_polling() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    queueSignal.announceChange();
+
+    assertThat(runFuturesAndCountCancelled()).isEqualTo(1);
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll
+      );
+  }
+
+  @Test
+  public void queue_change_does_not_cancel_running_worker() throws Exception {
+    when(ceWorker.call())
+      .thenAnswer(invocation -> {
+        queueSignal.announceChange();
+        return false;
+      })
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+
+    assertThat(runFuturesAndCountCancelled()).isEqualTo(0);
+    verify(ceWorker, times(2)).call();
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      regularDelayedPoll
+      );
+  }
+
+  @Test
+  public void queue_change_wakes_up_a_single_waiting_worker() throws Exception {
+    ceConfiguration.setWorkerCount(2);
+    CeWorker worker1 = mock(CeWorker.class);
+    CeWorker worker2 = mock(CeWorker.class);
+    for (CeWorker worker : asList(worker1, worker2)) {
+      when(worker.call())
+        .thenReturn(false)
+        .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+    }
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService,
+      new TestCeWorkerFactory(worker1, worker2), queueSignal);
+
+    underTest.startScheduling();
+    queueSignal.announceChange();
+
+    assertThat(runFuturesAndCountCancelled()).isEqualTo(1);
+    verify(worker1, times(2)).call();
+    verify(worker2, times(2)).call();
+  }
+
+  private int runFuturesAndCountCancelled() throws ExecutionException, InterruptedException {
+    int cancelledTaskFutureCount = 0;
+    while (processingExecutorService.futures.peek() != null) {
+      Future<?> future = processingExecutorService.futures.poll();
+      if (future.isCancelled()) {
+        cancelledTaskFutureCount++;
+      } else {
+        future.get();
+      }
+    }
+    return cancelledTaskFutureCount;
+  }
+
   @Test
   public void when_workerCount_is_more_than_1_as_many_CeWorkerCallable_are_scheduled() throws Exception {
     int workerCount = Math.abs(new Random().nextInt(10)) + 1;
@@ -204,19 +313,19 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    when(processingExecutorService.schedule(any(CeWorker.class), any(Long.class),any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
+    when(processingExecutorService.schedule(any(Callable.class), any(Long.class), any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
 
     CeWorkerFactory ceWorkerFactory = spy(new TestCeWorkerFactory(workers));
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory);
-    when(processingExecutorService.schedule(ceWorker, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
-        .thenReturn(listenableScheduledFuture);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, queueSignal);
 
     underTest.startScheduling();
     // No exception from TestCeWorkerFactory must be thrown
 
     // Verify that schedule has been called on all workers
+    ArgumentCaptor<Callable> scheduled = ArgumentCaptor.forClass(Callable.class);
+    verify(processingExecutorService, times(workerCount)).schedule(scheduled.capture(), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS));
     for (int i = 0; i < workerCount; i++) {
-      verify(processingExecutorService).schedule(workers[i], ceConfiguration.getQueuePollingDelay(), MILLISECONDS);
+      assertThat(((CeProcessingSchedulerImpl.DelayedPoll) scheduled.getAllValues().get(i)).getWorker()).isSameAs(workers[i]);
     }
     verify(listenableScheduledFuture, times(workerCount)).addListener(any(Runnable.class), eq(processingExecutorService));
     verify(ceWorkerFactory, times(workerCount)).create();
@@ -276,7 +385,7 @@ public class CeProcessingSchedulerImplTest {
 
     @Override
     public <V> ListenableScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-      this.schedulerCalls.add(new SchedulerCall(callable, delay, unit));
+      this.schedulerCalls.add(new SchedulerCall(unwrap(callable), delay, unit));
       return delegate.schedule(callable, delay, unit);
     }
 
@@ -286,6 +395,13 @@ public class CeProcessingSchedulerImplTest {
       return delegate.submit(task);
     }
 
+    private static Callable<?> unwrap(Callable<?> callable) {
+      if (callable instanceof CeProcessingSchedulerImpl.DelayedPoll) {
+        return ((CeProcessingSchedulerImpl.DelayedPoll) callable).getWorker();
+      }
+      return callable;
+    }
+
     @Override
     public void stop() {
       throw new UnsupportedOperationException("stop() not implemented");
@@ -32,13 +32,18 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.queue.InternalCeQueue;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.TaskProfiler;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -57,6 +62,8 @@ public class CeWorkerImplTest {
   private ReportTaskProcessor taskProcessor = mock(ReportTaskProcessor.class);
   private CeLogging ceLogging = spy(CeLogging.class);
   private ArgumentCaptor<String> workerUuid = ArgumentCaptor.forClass(String.class);
+  @SuppressWarnings("unchecked")
+  private ArgumentCaptor<List<StepProfile>> stepProfiles = ArgumentCaptor.forClass((Class) List.class);
   private CeWorker underTest = new CeWorkerImpl(queue, ceLogging, taskProcessorRepository, UUID.randomUUID().toString());
   private InOrder inOrder = Mockito.inOrder(ceLogging, taskProcessor, queue);
 
@@ -86,7 +93,7 @@ public class CeWorkerImplTest {
 
     verifyWorkerUuid();
     inOrder.verify(ceLogging).initForTask(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, null);
+    inOrder.verify(queue).remove(eq(task), eq(CeActivityDto.Status.FAILED), isNull(CeTaskResult.class), isNull(Throwable.class), stepProfiles.capture());
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -101,8 +108,9 @@ public class CeWorkerImplTest {
     verifyWorkerUuid();
     inOrder.verify(ceLogging).initForTask(task);
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    inOrder.verify(queue).remove(eq(task), eq(CeActivityDto.Status.SUCCESS), isNull(CeTaskResult.class), isNull(Throwable.class), stepProfiles.capture());
     inOrder.verify(ceLogging).clearForTask();
+    assertThat(stepProfiles.getValue()).extracting(StepProfile::getName).containsExactly(TaskProfiler.TOTAL);
   }
 
   @Test
@@ -117,7 +125,7 @@ public class CeWorkerImplTest {
     verifyWorkerUuid();
     inOrder.verify(ceLogging).initForTask(task);
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, error);
+    inOrder.verify(queue).remove(eq(task), eq(CeActivityDto.Status.FAILED), isNull(CeTaskResult.class), eq(error), stepProfiles.capture());
     inOrder.verify(ceLogging).clearForTask();
   }
 
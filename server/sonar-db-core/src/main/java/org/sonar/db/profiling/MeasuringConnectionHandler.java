@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Wraps the statements created by a connection in order to record their executions in {@link SqlStatistics}.
+ */
+class MeasuringConnectionHandler implements InvocationHandler {
+
+  private final Connection connection;
+  private final SqlStatistics statistics;
+
+  private MeasuringConnectionHandler(Connection connection, SqlStatistics statistics) {
+    this.connection = connection;
+    this.statistics = statistics;
+  }
+
+  static Connection wrap(Connection connection, SqlStatistics statistics) {
+    return (Connection) Proxy.newProxyInstance(MeasuringConnectionHandler.class.getClassLoader(), new Class[] {Connection.class},
+      new MeasuringConnectionHandler(connection, statistics));
+  }
+
+  @Override
+  public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    Object result = InvocationUtils.invokeQuietly(connection, method, args);
+    if ("prepareStatement".equals(method.getName())) {
+      return buildStatementProxy(PreparedStatement.class, new MeasuringStatementHandler((Statement) result, statistics, (String) args[0]));
+    }
+    if ("createStatement".equals(method.getName())) {
+      return buildStatementProxy(Statement.class, new MeasuringStatementHandler((Statement) result, statistics, null));
+    }
+    return result;
+  }
+
+  private static Object buildStatementProxy(Class<? extends Statement> stmtClass, InvocationHandler handler) {
+    return Proxy.newProxyInstance(MeasuringConnectionHandler.class.getClassLoader(), new Class[] {stmtClass}, handler);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.Statement;
+import javax.annotation.Nullable;
+
+class MeasuringStatementHandler implements InvocationHandler {
+
+  private static final String BATCH_WITHOUT_SQL = "<batch>";
+
+  private final Statement statement;
+  private final SqlStatistics statistics;
+  /**
+   * SQL of prepared statement, null for plain statements which receive SQL on execution
+   */
+  @Nullable
+  private final String preparedSql;
+
+  MeasuringStatementHandler(Statement statement, SqlStatistics statistics, @Nullable String preparedSql) {
+    this.statement = statement;
+    this.statistics = statistics;
+    this.preparedSql = preparedSql;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if (!method.getName().startsWith("execute")) {
+      return InvocationUtils.invokeQuietly(statement, method, args);
+    }
+    long start = System.nanoTime();
+    Object result = null;
+    try {
+      result = InvocationUtils.invokeQuietly(statement, method, args);
+      return result;
+    } finally {
+      statistics.recordExecution(sql(args), System.nanoTime() - start, affectedRows(result));
+    }
+  }
+
+  private String sql(@Nullable Object[] args) {
+    if (preparedSql != null) {
+      return preparedSql;
+    }
+    if (args != null && args.length > 0 && args[0] instanceof String) {
+      return (String) args[0];
+    }
+    return BATCH_WITHOUT_SQL;
+  }
+
+  /**
+   * Rows affected by updates. Rows fetched by selects are not known at this level.
+   */
+  private static long affectedRows(@Nullable Object result) {
+    if (result instanceof Number) {
+      return ((Number) result).longValue();
+    }
+    if (result instanceof int[]) {
+      long sum = 0L;
+      for (int count : (int[]) result) {
+        // ignore Statement.SUCCESS_NO_INFO and Statement.EXECUTE_FAILED
+        if (count > 0) {
+          sum += count;
+        }
+      }
+      return sum;
+    }
+    return 0L;
+  }
+}
@@ -33,6 +33,7 @@ public class ProfiledDataSource extends BasicDataSource {
   static final Logger SQL_LOGGER = Loggers.get("sql");
 
   private final BasicDataSource delegate;
+  private final SqlStatistics sqlStatistics = new SqlStatistics();
   private ConnectionInterceptor connectionInterceptor;
 
   public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor) {
@@ -44,6 +45,14 @@ public class ProfiledDataSource extends BasicDataSource {
     return delegate;
   }
 
+  /**
+   * Statistics of the statements executed on the connections of this datasource. Contrary to logging of SQL
+   * (see {@link #setConnectionInterceptor(ConnectionInterceptor)}), they are always collected.
+   */
+  public SqlStatistics getSqlStatistics() {
+    return sqlStatistics;
+  }
+
   public synchronized void setConnectionInterceptor(ConnectionInterceptor ci) {
     this.connectionInterceptor = ci;
   }
@@ -320,12 +329,12 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    return MeasuringConnectionHandler.wrap(connectionInterceptor.getConnection(delegate), sqlStatistics);
   }
 
   @Override
   public Connection getConnection(String login, String password) throws SQLException {
-    return connectionInterceptor.getConnection(this, login, password);
+    return MeasuringConnectionHandler.wrap(connectionInterceptor.getConnection(this, login, password), sqlStatistics);
   }
 
   @Override
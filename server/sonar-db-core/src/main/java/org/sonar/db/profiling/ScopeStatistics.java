@@ -0,0 +1,111 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Statements executed by the invocations of a scope (for example a Compute Engine step or a web service action).
+ * A statement executed many times by a single invocation is usually the sign of a N+1 select.
+ */
+public class ScopeStatistics {
+
+  static final int MAX_STATEMENTS_PER_SCOPE = 200;
+
+  private final String key;
+  private final LongAdder invocations = new LongAdder();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder totalTimeNanos = new LongAdder();
+  private final ConcurrentMap<String, AtomicLong> maxExecutionsPerInvocation = new ConcurrentHashMap<>();
+
+  ScopeStatistics(String key) {
+    this.key = key;
+  }
+
+  void recordInvocation(long durationNanos, Map<String, int[]> executionsByStatement) {
+    invocations.increment();
+    totalTimeNanos.add(durationNanos);
+    executionsByStatement.forEach((statement, count) -> {
+      executions.add(count[0]);
+      AtomicLong max = maxExecutionsPerInvocation.get(statement);
+      if (max == null) {
+        String boundedKey = maxExecutionsPerInvocation.size() < MAX_STATEMENTS_PER_SCOPE ? statement : SqlStatistics.OTHER_STATEMENTS;
+        max = maxExecutionsPerInvocation.computeIfAbsent(boundedKey, k -> new AtomicLong());
+      }
+      max.accumulateAndGet(count[0], Math::max);
+    });
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Number of invocations of the scope which executed at least one statement
+   */
+  public long getInvocations() {
+    return invocations.sum();
+  }
+
+  public long getExecutions() {
+    return executions.sum();
+  }
+
+  public long getTotalTimeNanos() {
+    return totalTimeNanos.sum();
+  }
+
+  public long getTotalTimeMs() {
+    return NANOSECONDS.toMillis(getTotalTimeNanos());
+  }
+
+  /**
+   * The statement executed the greatest number of times by a single invocation of the scope, with this number
+   */
+  public Optional<Map.Entry<String, Long>> getMostRepeatedStatement() {
+    return maxExecutionsPerInvocation.entrySet().stream()
+      .max(Comparator.comparingLong(e -> e.getValue().get()))
+      .map(ScopeStatistics::toEntry);
+  }
+
+  private static Map.Entry<String, Long> toEntry(Map.Entry<String, AtomicLong> entry) {
+    return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder()
+      .append("invocations=").append(getInvocations())
+      .append(", executions=").append(getExecutions())
+      .append(", time=").append(getTotalTimeMs()).append("ms");
+    getMostRepeatedStatement().ifPresent(e -> sb.append(", most repeated=").append(e.getKey())
+      .append(" (").append(e.getValue()).append(" times in one invocation)"));
+    return sb.toString();
+  }
+}
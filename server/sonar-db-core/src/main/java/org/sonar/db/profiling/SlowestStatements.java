@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import static org.apache.commons.lang.StringUtils.abbreviate;
+
+/**
+ * Keeps the N slowest executions. Executions faster than the fastest of the kept ones are rejected without locking,
+ * which is the case of nearly all of them once the buffer is full.
+ */
+public class SlowestStatements {
+
+  static final int MAX_SQL_LENGTH = 1_000;
+  private static final Comparator<Execution> BY_DURATION = Comparator.comparingLong(Execution::getDurationMs);
+
+  private final int size;
+  private final PriorityQueue<Execution> executions;
+  private volatile long threshold = -1L;
+
+  SlowestStatements(int size) {
+    this.size = size;
+    this.executions = new PriorityQueue<>(size, BY_DURATION);
+  }
+
+  void offer(String key, @Nullable String scope, String sql, long durationMs) {
+    if (durationMs <= threshold) {
+      return;
+    }
+    synchronized (this) {
+      if (durationMs <= threshold) {
+        return;
+      }
+      executions.add(new Execution(key, scope, abbreviate(SqlLogFormatter.formatSql(sql), MAX_SQL_LENGTH), durationMs, System.currentTimeMillis()));
+      if (executions.size() > size) {
+        executions.poll();
+      }
+      if (executions.size() == size) {
+        threshold = executions.peek().getDurationMs();
+      }
+    }
+  }
+
+  synchronized List<Execution> get() {
+    List<Execution> result = new ArrayList<>(executions);
+    result.sort(BY_DURATION.reversed());
+    return result;
+  }
+
+  synchronized void clear() {
+    executions.clear();
+    threshold = -1L;
+  }
+
+  public static final class Execution {
+    private final String key;
+    @Nullable
+    private final String scope;
+    private final String sql;
+    private final long durationMs;
+    private final long executedAt;
+
+    private Execution(String key, @Nullable String scope, String sql, long durationMs, long executedAt) {
+      this.key = key;
+      this.scope = scope;
+      this.sql = sql;
+      this.durationMs = durationMs;
+      this.executedAt = executedAt;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    @CheckForNull
+    public String getScope() {
+      return scope;
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public long getDurationMs() {
+      return durationMs;
+    }
+
+    public long getExecutedAt() {
+      return executedAt;
+    }
+
+    @Override
+    public String toString() {
+      return durationMs + "ms " + key + (scope == null ? "" : (" in " + scope)) + ": " + sql;
+    }
+  }
+}
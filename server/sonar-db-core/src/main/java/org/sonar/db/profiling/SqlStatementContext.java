@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Information about the code which executes SQL statements in the current thread, used to attribute executions
+ * in {@link SqlStatistics}:
+ * <ul>
+ *   <li>the id of the MyBatis mapped statement being executed</li>
+ *   <li>the scope, for example a Compute Engine step or a web service action. Scopes can be nested, executions are
+ *   attributed to the innermost one.</li>
+ * </ul>
+ */
+public final class SqlStatementContext {
+
+  private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+  private SqlStatementContext() {
+    // only statics
+  }
+
+  /**
+   * @return the previous statement id, to be restored once statement is executed
+   */
+  @CheckForNull
+  public static String setStatementId(@Nullable String statementId) {
+    State state = STATE.get();
+    String previous = state.statementId;
+    state.statementId = statementId;
+    return previous;
+  }
+
+  /**
+   * Must be followed by a call to {@link #exitScope()}, usually in a finally block.
+   */
+  public static void enterScope(String name) {
+    State state = STATE.get();
+    state.scope = new Scope(name, state.scope);
+  }
+
+  public static void exitScope() {
+    State state = STATE.get();
+    Scope scope = state.scope;
+    checkState(scope != null, "No SQL scope has been entered");
+    state.scope = scope.parent;
+    if (scope.statistics != null) {
+      scope.statistics.recordScope(scope.name, scope.durationNanos, scope.executionsByStatement);
+    }
+  }
+
+  /**
+   * Number of statements executed by the current thread since its start. Differences of values allow to measure
+   * a unit of work, like a step of a Compute Engine task.
+   */
+  public static long getThreadExecutions() {
+    return STATE.get().executions;
+  }
+
+  /**
+   * Cumulated execution time of the statements executed by the current thread since its start
+   */
+  public static long getThreadExecutionTimeNanos() {
+    return STATE.get().executionTimeNanos;
+  }
+
+  static State state() {
+    return STATE.get();
+  }
+
+  static final class State {
+    @Nullable
+    private String statementId;
+    @Nullable
+    private Scope scope;
+    private long executions = 0L;
+    private long executionTimeNanos = 0L;
+
+    @CheckForNull
+    String getStatementId() {
+      return statementId;
+    }
+
+    /**
+     * @return the name of the current scope, if any
+     */
+    @CheckForNull
+    String recordExecution(SqlStatistics statistics, String statementKey, long durationNanos) {
+      executions++;
+      executionTimeNanos += durationNanos;
+      if (scope == null) {
+        return null;
+      }
+      scope.statistics = statistics;
+      scope.durationNanos += durationNanos;
+      scope.executionsByStatement.computeIfAbsent(statementKey, k -> new int[1])[0]++;
+      return scope.name;
+    }
+  }
+
+  private static final class Scope {
+    private final String name;
+    @Nullable
+    private final Scope parent;
+    private final Map<String, int[]> executionsByStatement = new HashMap<>();
+    @Nullable
+    private SqlStatistics statistics;
+    private long durationNanos = 0L;
+
+    private Scope(String name, @Nullable Scope parent) {
+      this.name = name;
+      this.parent = parent;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.lang.StringUtils.abbreviate;
+
+/**
+ * Statistics of the SQL statements executed through a {@link ProfiledDataSource}. They are always collected, whatever
+ * the level of the "sql" logger.
+ * <p>
+ * Statements are identified by the id of the MyBatis mapped statement when it is known (see {@link SqlStatementContext}),
+ * otherwise by their SQL. Executions are also attributed to the current scope of the thread (a Compute Engine step,
+ * a web service action...), which allows to find the statements which are executed many times by a single scope.
+ */
+public class SqlStatistics {
+
+  static final int MAX_STATEMENTS = 2_000;
+  static final int MAX_SCOPES = 1_000;
+  static final int MAX_SQL_KEY_LENGTH = 200;
+  static final String OTHER_STATEMENTS = "<other statements>";
+  static final String OTHER_SCOPES = "<other scopes>";
+  private static final int SLOWEST_SIZE = 20;
+  private static final int SUMMARY_SIZE = 20;
+
+  private final ConcurrentMap<String, StatementStatistics> statements = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ScopeStatistics> scopes = new ConcurrentHashMap<>();
+  private final SlowestStatements slowest = new SlowestStatements(SLOWEST_SIZE);
+
+  void recordExecution(String sql, long durationNanos, long affectedRows) {
+    SqlStatementContext.State state = SqlStatementContext.state();
+    String statementId = state.getStatementId();
+    String key = statementId == null ? abbreviate(SqlLogFormatter.formatSql(sql), MAX_SQL_KEY_LENGTH) : statementId;
+    StatementStatistics statistics = statementStatistics(key);
+    statistics.recordExecution(durationNanos, affectedRows);
+
+    String scope = state.recordExecution(this, statistics.getKey(), durationNanos);
+    slowest.offer(statistics.getKey(), scope, sql, NANOSECONDS.toMillis(durationNanos));
+  }
+
+  /**
+   * Rows fetched or updated by a MyBatis mapped statement. Fetched rows are not known at JDBC level without wrapping
+   * result sets, and MyBatis does not use the JDBC methods which return the number of updated rows.
+   */
+  public void recordRows(String statementId, long rows) {
+    statementStatistics(statementId).recordRows(rows);
+  }
+
+  void recordScope(String scope, long durationNanos, Map<String, int[]> executionsByStatement) {
+    ScopeStatistics statistics = scopes.get(scope);
+    if (statistics == null) {
+      String key = scopes.size() < MAX_SCOPES ? scope : OTHER_SCOPES;
+      statistics = scopes.computeIfAbsent(key, ScopeStatistics::new);
+    }
+    statistics.recordInvocation(durationNanos, executionsByStatement);
+  }
+
+  private StatementStatistics statementStatistics(String key) {
+    StatementStatistics statistics = statements.get(key);
+    if (statistics == null) {
+      // prevent SQL built with literal values from growing the map indefinitely
+      String boundedKey = statements.size() < MAX_STATEMENTS ? key : OTHER_STATEMENTS;
+      statistics = statements.computeIfAbsent(boundedKey, StatementStatistics::new);
+    }
+    return statistics;
+  }
+
+  /**
+   * Statistics of statements, sorted by descending total execution time.
+   */
+  public List<StatementStatistics> getStatements() {
+    List<StatementStatistics> result = new ArrayList<>(statements.values());
+    result.sort(Comparator.comparingLong(StatementStatistics::getTotalTimeNanos).reversed());
+    return result;
+  }
+
+  /**
+   * Statistics of scopes, sorted by descending total execution time of their statements.
+   */
+  public List<ScopeStatistics> getScopes() {
+    List<ScopeStatistics> result = new ArrayList<>(scopes.values());
+    result.sort(Comparator.comparingLong(ScopeStatistics::getTotalTimeNanos).reversed());
+    return result;
+  }
+
+  /**
+   * The slowest executions since startup or last {@link #reset()}, the slowest first.
+   */
+  public List<SlowestStatements.Execution> getSlowest() {
+    return slowest.get();
+  }
+
+  public long getExecutions() {
+    return statements.values().stream().mapToLong(StatementStatistics::getExecutions).sum();
+  }
+
+  public long getTotalTimeMs() {
+    return NANOSECONDS.toMillis(statements.values().stream().mapToLong(StatementStatistics::getTotalTimeNanos).sum());
+  }
+
+  public long getRows() {
+    return statements.values().stream().mapToLong(StatementStatistics::getRows).sum();
+  }
+
+  /**
+   * Flat summary, as displayed by api/system/info: totals, then the most expensive statements and scopes, then
+   * the slowest executions.
+   */
+  public Map<String, Object> toSummary() {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("Executions", getExecutions());
+    summary.put("Execution Time (ms)", getTotalTimeMs());
+    summary.put("Rows", getRows());
+    getStatements().stream().limit(SUMMARY_SIZE).forEach(s -> summary.put("Statement " + s.getKey(), s.toString()));
+    getScopes().stream().limit(SUMMARY_SIZE).forEach(s -> summary.put("Scope " + s.getKey(), s.toString()));
+    List<SlowestStatements.Execution> slowestExecutions = getSlowest();
+    for (int i = 0; i < slowestExecutions.size(); i++) {
+      summary.put("Slowest #" + (i + 1), slowestExecutions.get(i).toString());
+    }
+    return summary;
+  }
+
+  public void reset() {
+    statements.clear();
+    scopes.clear();
+    slowest.clear();
+  }
+
+  @CheckForNull
+  StatementStatistics getStatement(String key) {
+    return statements.get(key);
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.List;
+import java.util.Properties;
+import javax.annotation.Nullable;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * MyBatis plugin which identifies the SQL statements executed through {@link ProfiledDataSource} by the id
+ * of their mapped statement, and which counts the rows they fetch or update.
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class SqlStatisticsInterceptor implements Interceptor {
+
+  private static final int RESULT_HANDLER_ARG_INDEX = 3;
+
+  private final SqlStatistics statistics;
+
+  public SqlStatisticsInterceptor(SqlStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Object[] args = invocation.getArgs();
+    String statementId = ((MappedStatement) args[0]).getId();
+    CountingResultHandler countingHandler = null;
+    if (args.length > RESULT_HANDLER_ARG_INDEX && args[RESULT_HANDLER_ARG_INDEX] != null) {
+      countingHandler = new CountingResultHandler((ResultHandler) args[RESULT_HANDLER_ARG_INDEX]);
+      args[RESULT_HANDLER_ARG_INDEX] = countingHandler;
+    }
+
+    String previousStatementId = SqlStatementContext.setStatementId(statementId);
+    try {
+      Object result = invocation.proceed();
+      long rows = countRows(result, countingHandler);
+      if (rows > 0) {
+        statistics.recordRows(statementId, rows);
+      }
+      return result;
+    } finally {
+      SqlStatementContext.setStatementId(previousStatementId);
+    }
+  }
+
+  private static long countRows(@Nullable Object result, @Nullable CountingResultHandler countingHandler) {
+    if (countingHandler != null) {
+      return countingHandler.count;
+    }
+    if (result instanceof List) {
+      return ((List) result).size();
+    }
+    if (result instanceof Integer) {
+      // negative in batch mode, as rows are updated when statements are flushed
+      return (Integer) result;
+    }
+    return 0L;
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no properties
+  }
+
+  private static class CountingResultHandler implements ResultHandler {
+    private final ResultHandler delegate;
+    private long count = 0L;
+
+    private CountingResultHandler(ResultHandler delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void handleResult(ResultContext context) {
+      count++;
+      delegate.handleResult(context);
+    }
+  }
+}
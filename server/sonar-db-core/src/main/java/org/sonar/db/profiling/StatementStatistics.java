@@ -0,0 +1,139 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Counters and latency histogram of a single statement. Latencies are counted in buckets of fixed upper bounds,
+ * so percentiles are approximated by the upper bound of their bucket.
+ */
+public class StatementStatistics {
+
+  private static final long[] BUCKET_UPPER_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+
+  private final String key;
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder totalTimeNanos = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+  private final AtomicLong maxTimeNanos = new AtomicLong();
+  // last bucket counts the executions slower than the greatest bound
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MS.length + 1);
+
+  StatementStatistics(String key) {
+    this.key = key;
+  }
+
+  void recordExecution(long durationNanos, long affectedRows) {
+    executions.increment();
+    totalTimeNanos.add(durationNanos);
+    if (affectedRows > 0) {
+      rows.add(affectedRows);
+    }
+    maxTimeNanos.accumulateAndGet(durationNanos, Math::max);
+    histogram.incrementAndGet(bucketOf(NANOSECONDS.toMillis(durationNanos)));
+  }
+
+  void recordRows(long count) {
+    rows.add(count);
+  }
+
+  private static int bucketOf(long durationMs) {
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+      if (durationMs < BUCKET_UPPER_BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_UPPER_BOUNDS_MS.length;
+  }
+
+  /**
+   * Id of MyBatis mapped statement, or SQL when statement is not executed through MyBatis
+   */
+  public String getKey() {
+    return key;
+  }
+
+  public long getExecutions() {
+    return executions.sum();
+  }
+
+  public long getTotalTimeNanos() {
+    return totalTimeNanos.sum();
+  }
+
+  public long getTotalTimeMs() {
+    return NANOSECONDS.toMillis(getTotalTimeNanos());
+  }
+
+  public long getMaxTimeMs() {
+    return NANOSECONDS.toMillis(maxTimeNanos.get());
+  }
+
+  public long getMeanTimeMs() {
+    long count = getExecutions();
+    return count == 0 ? 0 : (getTotalTimeMs() / count);
+  }
+
+  /**
+   * Rows fetched by selects and affected by inserts, updates and deletes
+   */
+  public long getRows() {
+    return rows.sum();
+  }
+
+  /**
+   * Upper bound, in milliseconds, of the latency of the given percentage of executions.
+   *
+   * @param percentile between 0 and 100
+   */
+  public long getPercentileMs(double percentile) {
+    long count = 0;
+    long[] buckets = new long[histogram.length()];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = histogram.get(i);
+      count += buckets[i];
+    }
+    long threshold = (long) Math.ceil(count * percentile / 100.0);
+    long cumulated = 0;
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+      cumulated += buckets[i];
+      if (cumulated >= threshold) {
+        return BUCKET_UPPER_BOUNDS_MS[i];
+      }
+    }
+    return getMaxTimeMs();
+  }
+
+  @Override
+  public String toString() {
+    return "executions=" + getExecutions()
+      + ", time=" + getTotalTimeMs() + "ms"
+      + ", mean=" + getMeanTimeMs() + "ms"
+      + ", p50<" + getPercentileMs(50) + "ms"
+      + ", p99<" + getPercentileMs(99) + "ms"
+      + ", max=" + getMaxTimeMs() + "ms"
+      + ", rows=" + getRows();
+  }
+}
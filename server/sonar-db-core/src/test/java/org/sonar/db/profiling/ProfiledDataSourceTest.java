@@ -132,6 +132,29 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void record_statistics_of_statements_even_if_sql_logging_is_disabled() throws Exception {
+    logTester.setLevel(LoggerLevel.DEBUG);
+
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+
+    String sql = "update foo set bar=? where id=?";
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    when(preparedStatement.executeUpdate()).thenReturn(2);
+
+    ProfiledDataSource ds = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+    PreparedStatement preparedStatementProxy = ds.getConnection().prepareStatement(sql);
+    assertThat(preparedStatementProxy.executeUpdate()).isEqualTo(2);
+    assertThat(preparedStatementProxy.executeUpdate()).isEqualTo(2);
+
+    assertThat(logTester.logs()).isEmpty();
+    StatementStatistics statistics = ds.getSqlStatistics().getStatement(sql);
+    assertThat(statistics.getExecutions()).isEqualTo(2);
+    assertThat(statistics.getRows()).isEqualTo(4);
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
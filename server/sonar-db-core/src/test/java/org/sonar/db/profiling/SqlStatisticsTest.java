@@ -0,0 +1,163 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatisticsTest {
+
+  private SqlStatistics underTest = new SqlStatistics();
+
+  @After
+  public void tearDown() {
+    SqlStatementContext.setStatementId(null);
+  }
+
+  @Test
+  public void executions_are_identified_by_sql_when_statement_id_is_unknown() {
+    underTest.recordExecution("select\n*  from foo", MILLISECONDS.toNanos(3), 0);
+    underTest.recordExecution("select\n*  from foo", MILLISECONDS.toNanos(5), 0);
+    underTest.recordExecution("delete from foo", MILLISECONDS.toNanos(20), 2);
+
+    assertThat(underTest.getExecutions()).isEqualTo(3);
+    assertThat(underTest.getTotalTimeMs()).isEqualTo(28);
+    assertThat(underTest.getRows()).isEqualTo(2);
+    List<StatementStatistics> statements = underTest.getStatements();
+    assertThat(statements).extracting(StatementStatistics::getKey).containsExactly("delete from foo", "select *  from foo");
+    StatementStatistics select = statements.get(1);
+    assertThat(select.getExecutions()).isEqualTo(2);
+    assertThat(select.getTotalTimeMs()).isEqualTo(8);
+    assertThat(select.getMeanTimeMs()).isEqualTo(4);
+    assertThat(select.getMaxTimeMs()).isEqualTo(5);
+  }
+
+  @Test
+  public void executions_are_identified_by_statement_id_when_known() {
+    SqlStatementContext.setStatementId("org.sonar.db.FooMapper.selectFoo");
+    underTest.recordExecution("select * from foo where id=?", 10L, 0);
+    underTest.recordRows("org.sonar.db.FooMapper.selectFoo", 12);
+
+    assertThat(underTest.getStatements()).extracting(StatementStatistics::getKey).containsExactly("org.sonar.db.FooMapper.selectFoo");
+    assertThat(underTest.getStatement("org.sonar.db.FooMapper.selectFoo").getRows()).isEqualTo(12);
+  }
+
+  @Test
+  public void number_of_distinct_statements_is_bounded() {
+    for (int i = 0; i < SqlStatistics.MAX_STATEMENTS + 10; i++) {
+      underTest.recordExecution("delete from foo where id=" + i, 10L, 0);
+    }
+
+    assertThat(underTest.getStatements()).hasSize(SqlStatistics.MAX_STATEMENTS + 1);
+    assertThat(underTest.getStatement(SqlStatistics.OTHER_STATEMENTS).getExecutions()).isEqualTo(10);
+  }
+
+  @Test
+  public void percentiles_are_upper_bounds_of_histogram_buckets() {
+    for (int i = 0; i < 98; i++) {
+      underTest.recordExecution("select 1", MILLISECONDS.toNanos(3), 0);
+    }
+    underTest.recordExecution("select 1", MILLISECONDS.toNanos(150), 0);
+    underTest.recordExecution("select 1", MILLISECONDS.toNanos(30_000), 0);
+
+    StatementStatistics statistics = underTest.getStatement("select 1");
+    assertThat(statistics.getPercentileMs(50)).isEqualTo(5);
+    assertThat(statistics.getPercentileMs(99)).isEqualTo(200);
+    assertThat(statistics.getPercentileMs(100)).isEqualTo(30_000);
+  }
+
+  @Test
+  public void executions_are_attributed_to_innermost_scope() {
+    SqlStatementContext.enterScope("WS: api/foo/search");
+    underTest.recordExecution("select 1", 10L, 0);
+    SqlStatementContext.enterScope("WS: api/foo/show");
+    underTest.recordExecution("select 2", 10L, 0);
+    underTest.recordExecution("select 2", 10L, 0);
+    SqlStatementContext.exitScope();
+    SqlStatementContext.exitScope();
+
+    assertThat(underTest.getScopes()).extracting(ScopeStatistics::getKey).containsOnly("WS: api/foo/search", "WS: api/foo/show");
+    ScopeStatistics show = underTest.getScopes().stream().filter(s -> s.getKey().equals("WS: api/foo/show")).findFirst().get();
+    assertThat(show.getInvocations()).isEqualTo(1);
+    assertThat(show.getExecutions()).isEqualTo(2);
+    assertThat(show.getTotalTimeNanos()).isEqualTo(20L);
+  }
+
+  @Test
+  public void scope_reports_the_statement_most_executed_by_a_single_invocation() {
+    for (int invocation = 1; invocation <= 3; invocation++) {
+      SqlStatementContext.enterScope("CE: Persist components");
+      underTest.recordExecution("select 1", 10L, 0);
+      for (int i = 0; i < invocation * 10; i++) {
+        underTest.recordExecution("insert into foo", 10L, 1);
+      }
+      SqlStatementContext.exitScope();
+    }
+
+    ScopeStatistics scope = underTest.getScopes().get(0);
+    assertThat(scope.getInvocations()).isEqualTo(3);
+    assertThat(scope.getExecutions()).isEqualTo(63);
+    assertThat(scope.getMostRepeatedStatement()).contains(new AbstractMap.SimpleImmutableEntry<>("insert into foo", 30L));
+    assertThat(scope.toString()).contains("most repeated=insert into foo (30 times in one invocation)");
+  }
+
+  @Test
+  public void slowest_executions_are_kept() {
+    for (int i = 1; i <= 100; i++) {
+      underTest.recordExecution("select " + i, MILLISECONDS.toNanos(i), 0);
+    }
+
+    List<SlowestStatements.Execution> slowest = underTest.getSlowest();
+    assertThat(slowest).hasSize(20);
+    assertThat(slowest.get(0).getDurationMs()).isEqualTo(100);
+    assertThat(slowest.get(0).getSql()).isEqualTo("select 100");
+    assertThat(slowest.get(19).getDurationMs()).isEqualTo(81);
+  }
+
+  @Test
+  public void summary_lists_totals_statements_scopes_and_slowest_executions() {
+    SqlStatementContext.enterScope("CE: Load quality profiles");
+    underTest.recordExecution("select 1", MILLISECONDS.toNanos(2), 0);
+    SqlStatementContext.exitScope();
+
+    Map<String, Object> summary = underTest.toSummary();
+
+    assertThat(summary.keySet()).containsExactly("Executions", "Execution Time (ms)", "Rows", "Statement select 1", "Scope CE: Load quality profiles", "Slowest #1");
+    assertThat(summary.get("Executions")).isEqualTo(1L);
+    assertThat((String) summary.get("Statement select 1")).startsWith("executions=1, time=2ms");
+  }
+
+  @Test
+  public void reset_clears_statistics() {
+    underTest.recordExecution("select 1", 10L, 0);
+
+    underTest.reset();
+
+    assertThat(underTest.getExecutions()).isEqualTo(0);
+    assertThat(underTest.getStatements()).isEmpty();
+    assertThat(underTest.getSlowest()).isEmpty();
+  }
+}
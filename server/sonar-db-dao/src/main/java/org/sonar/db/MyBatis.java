@@ -81,6 +81,7 @@ import org.sonar.db.permission.template.PermissionTemplateMapper;
 import org.sonar.db.permission.template.PermissionTemplateUserDto;
 import org.sonar.db.property.InternalPropertiesMapper;
 import org.sonar.db.property.InternalPropertyDto;
+import org.sonar.db.property.NotificationSubscriberDto;
 import org.sonar.db.property.PropertiesMapper;
 import org.sonar.db.property.ScrapPropertyDto;
 import org.sonar.db.purge.IdUuidPair;
@@ -155,6 +156,7 @@ public class MyBatis implements Startable {
     confBuilder.loadAlias("LoadedTemplate", LoadedTemplateDto.class);
     confBuilder.loadAlias("Measure", MeasureDto.class);
     confBuilder.loadAlias("NotificationQueue", NotificationQueueDto.class);
+    confBuilder.loadAlias("NotificationSubscriber", NotificationSubscriberDto.class);
     confBuilder.loadAlias("Organization", OrganizationDto.class);
     confBuilder.loadAlias("OrganizationMember", OrganizationMemberDto.class);
     confBuilder.loadAlias("PermissionTemplateCharacteristic", PermissionTemplateCharacteristicDto.class);
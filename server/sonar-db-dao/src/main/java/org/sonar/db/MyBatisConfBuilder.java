@@ -21,6 +21,7 @@ package org.sonar.db;
 
 import com.google.common.io.Closeables;
 import java.io.InputStream;
+import javax.sql.DataSource;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.session.Configuration;
@@ -30,6 +31,8 @@ import org.apache.ibatis.type.JdbcType;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.dialect.Dialect;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatisticsInterceptor;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
@@ -49,6 +52,10 @@ public final class MyBatisConfBuilder {
     this.conf.getVariables().setProperty("_false", dialect.getFalseSqlValue());
     this.conf.getVariables().setProperty("_scrollFetchSize", String.valueOf(dialect.getScrollDefaultFetchSize()));
     this.conf.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    DataSource dataSource = database.getDataSource();
+    if (dataSource instanceof ProfiledDataSource) {
+      this.conf.addInterceptor(new SqlStatisticsInterceptor(((ProfiledDataSource) dataSource).getSqlStatistics()));
+    }
   }
 
   public void loadAlias(String alias, Class dtoClass) {
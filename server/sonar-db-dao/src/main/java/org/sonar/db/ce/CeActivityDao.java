@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.RowBounds;
 import org.sonar.api.utils.System2;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
@@ -74,6 +75,16 @@ public class CeActivityDao implements Dao {
     return mapper(dbSession).selectByQuery(query, pagination);
   }
 
+  /**
+   * Execution profiles of the last tasks of the given type which processing ended successfully,
+   * ordered from newest to oldest.
+   *
+   * @param componentUuid if not {@code null}, only the tasks of this component are considered
+   */
+  public List<String> selectExecutionProfiles(DbSession dbSession, String taskType, @Nullable String componentUuid, int limit) {
+    return mapper(dbSession).selectExecutionProfiles(taskType, componentUuid, new RowBounds(0, limit));
+  }
+
   public int countLastByStatusAndComponentUuid(DbSession dbSession, CeActivityDto.Status status, @Nullable String componentUuid) {
     return mapper(dbSession).countLastByStatusAndComponentUuid(status, componentUuid);
   }
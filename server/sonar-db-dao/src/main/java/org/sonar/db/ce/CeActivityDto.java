@@ -69,6 +69,10 @@ public class CeActivityDto {
    * @see CeActivityDao#selectByUuid(DbSession, String)
    */
   private String errorStacktrace;
+  /**
+   * Resources used by the steps of the task, in the compact form of {@code StepProfile#format(List)}
+   */
+  private String executionProfile;
   /**
    * Flag indicating whether the analysis of the current activity has a scanner context or not.
    * <p>
@@ -269,6 +273,16 @@ public class CeActivityDto {
     return this;
   }
 
+  @CheckForNull
+  public String getExecutionProfile() {
+    return executionProfile;
+  }
+
+  public CeActivityDto setExecutionProfile(@Nullable String executionProfile) {
+    this.executionProfile = executionProfile;
+    return this;
+  }
+
   public boolean isHasScannerContext() {
     return hasScannerContext;
   }
@@ -298,6 +312,7 @@ public class CeActivityDto {
       ", executionTimeMs=" + executionTimeMs +
       ", errorMessage='" + errorMessage + '\'' +
       ", errorStacktrace='" + errorStacktrace + '\'' +
+      ", executionProfile='" + executionProfile + '\'' +
       ", hasScannerContext=" + hasScannerContext +
       '}';
   }
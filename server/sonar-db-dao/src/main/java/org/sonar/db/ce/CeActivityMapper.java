@@ -23,6 +23,7 @@ import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.RowBounds;
 import org.sonar.db.Pagination;
 
 public interface CeActivityMapper {
@@ -34,6 +35,8 @@ public interface CeActivityMapper {
 
   List<CeActivityDto> selectByQuery(@Param("query") CeTaskQuery query, @Param("pagination") Pagination pagination);
 
+  List<String> selectExecutionProfiles(@Param("taskType") String taskType, @Nullable @Param("componentUuid") String componentUuid, RowBounds rowBounds);
+
   List<CeActivityDto> selectOlderThan(@Param("beforeDate") long beforeDate);
 
   int countLastByStatusAndComponentUuid(@Param("status") CeActivityDto.Status status, @Nullable @Param("componentUuid") String componentUuid);
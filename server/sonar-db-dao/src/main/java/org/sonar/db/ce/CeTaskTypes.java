@@ -23,6 +23,11 @@ public final class CeTaskTypes {
   
   public static final String REPORT = "REPORT";
 
+  /**
+   * Purge of the history of a project or a view, when it's deferred after the processing of its analysis report.
+   */
+  public static final String PROJECT_PURGE = "PROJECT_PURGE";
+
   private CeTaskTypes() {
     // only statics
   }
@@ -20,6 +20,8 @@
 package org.sonar.db.property;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -28,6 +30,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.resources.Scopes;
@@ -68,6 +71,28 @@ public class PropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Same as {@link #selectUsersForNotification(String, String, String)} for several channels, in a single request.
+   * Global subscriptions are returned along with the subscriptions specific to the project, if any.
+   *
+   * @return the logins of users, by key of notification channel
+   */
+  public SetMultimap<String, String> selectUsersForNotificationChannels(String notificationDispatcherKey, Collection<String> notificationChannelKeys,
+    @Nullable String projectUuid) {
+    SetMultimap<String, String> loginsByChannel = HashMultimap.create();
+    if (notificationChannelKeys.isEmpty()) {
+      return loginsByChannel;
+    }
+    String dispatcherPrefix = NOTIFICATION_PREFIX + notificationDispatcherKey + ".";
+    List<String> notificationKeys = notificationChannelKeys.stream().map(channelKey -> dispatcherPrefix + channelKey).collect(Collectors.toList());
+    try (DbSession session = mybatis.openSession(false)) {
+      for (NotificationSubscriberDto subscriber : getMapper(session).findUsersForNotifications(notificationKeys, projectUuid)) {
+        loginsByChannel.put(subscriber.getPropertyKey().substring(dispatcherPrefix.length()), subscriber.getLogin());
+      }
+    }
+    return loginsByChannel;
+  }
+
   public List<String> selectNotificationSubscribers(String notificationDispatcherKey, String notificationChannelKey, @Nullable String componentKey) {
     try (DbSession session = mybatis.openSession(false)) {
       return getMapper(session).findNotificationSubscribers(NOTIFICATION_PREFIX + notificationDispatcherKey + "." + notificationChannelKey, componentKey);
@@ -27,6 +27,8 @@ public interface PropertiesMapper {
 
   List<String> findUsersForNotification(@Param("notifKey") String notificationKey, @Nullable @Param("projectUuid") String projectUuid);
 
+  List<NotificationSubscriberDto> findUsersForNotifications(@Param("notifKeys") List<String> notificationKeys, @Nullable @Param("projectUuid") String projectUuid);
+
   List<String> findNotificationSubscribers(@Param("propKey") String propertyKey, @Nullable @Param("componentKey") String componentKey);
 
   List<PropertyDto> selectGlobalProperties();
@@ -22,7 +22,6 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.sonar.db.DbSession;
 
 import static com.google.common.collect.FluentIterable.from;
@@ -48,10 +47,6 @@ class PurgeCommands {
     this(session, session.getMapper(PurgeMapper.class), profiler);
   }
 
-  List<String> selectSnapshotUuids(PurgeSnapshotQuery query) {
-    return purgeMapper.selectAnalysisIdsAndUuids(query).stream().map(IdUuidPair::getUuid).collect(Collectors.toList());
-  }
-
   List<IdUuidPair> selectSnapshotIdUuids(PurgeSnapshotQuery query) {
     return purgeMapper.selectAnalysisIdsAndUuids(query);
   }
@@ -228,20 +223,19 @@ class PurgeCommands {
     profiler.stop();
   }
 
-  void deleteComponentMeasures(List<String> analysisUuids, List<String> componentUuids) {
-    if (analysisUuids.isEmpty() || componentUuids.isEmpty()) {
+  /**
+   * Deletes, with one statement per partition of analyses, the measures of these analyses attached to the components
+   * of the specified root having one of the specified qualifiers. The components are resolved by the database instead of
+   * being loaded and sent back as parameters.
+   */
+  void deleteComponentMeasures(List<String> analysisUuids, String rootUuid, List<String> qualifiers) {
+    if (analysisUuids.isEmpty() || qualifiers.isEmpty()) {
       return;
     }
 
-    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
-    List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, MAX_RESOURCES_PER_QUERY);
-
-    profiler.start("deleteComponentMeasures");
-    for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
-      for (List<String> componentUuidsPartition : componentUuidsPartitions) {
-        purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition);
-      }
-    }
+    profiler.start("deleteComponentMeasures (project_measures)");
+    Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY)
+      .forEach(analysisUuidsPartition -> purgeMapper.deleteComponentMeasuresByQualifiers(analysisUuidsPartition, rootUuid, qualifiers));
     session.commit();
     profiler.stop();
   }
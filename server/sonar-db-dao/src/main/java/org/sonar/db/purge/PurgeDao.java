@@ -33,10 +33,7 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
-import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentDto;
-import org.sonar.db.component.ComponentTreeQuery;
-import org.sonar.db.component.ComponentTreeQuery.Strategy;
 
 import static java.util.Collections.emptyList;
 import static org.sonar.api.utils.DateUtils.dateToLong;
@@ -55,11 +52,9 @@ public class PurgeDao implements Dao {
   private static final String QUALIFIER_FILE = "FIL";
   private static final String QUALIFIER_UNIT_TEST = "UTS";
 
-  private final ComponentDao componentDao;
   private final System2 system2;
 
-  public PurgeDao(ComponentDao componentDao, System2 system2) {
-    this.componentDao = componentDao;
+  public PurgeDao(System2 system2) {
     this.system2 = system2;
   }
 
@@ -68,19 +63,16 @@ public class PurgeDao implements Dao {
     PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     deleteAbortedAnalyses(rootUuid, commands);
-    deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
-    purgeAnalyses(commands, rootUuid);
-    purgeDisabledComponents(session, conf, listener);
-    deleteOldClosedIssues(conf, mapper, listener);
-  }
-
-  private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
-    List<IdUuidPair> analysisUuids = commands.selectSnapshotIdUuids(
+    // analyses to be purged are selected once and shared by the steps below
+    List<IdUuidPair> analysesToPurge = commands.selectSnapshotIdUuids(
       new PurgeSnapshotQuery()
         .setComponentUuid(rootUuid)
         .setIslast(false)
         .setNotPurged(true));
-    commands.purgeAnalyses(analysisUuids);
+    deleteDataOfComponentsWithoutHistoricalData(rootUuid, analysesToPurge, conf.scopesWithoutHistoricalData(), commands);
+    commands.purgeAnalyses(analysesToPurge);
+    purgeDisabledComponents(session, conf, listener);
+    deleteOldClosedIssues(conf, mapper, listener);
   }
 
   private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
@@ -107,31 +99,20 @@ public class PurgeDao implements Dao {
     commands.deleteAnalyses(query);
   }
 
-  private void deleteDataOfComponentsWithoutHistoricalData(DbSession dbSession, String rootUuid, String[] scopesWithoutHistoricalData, PurgeCommands purgeCommands) {
+  private static void deleteDataOfComponentsWithoutHistoricalData(String rootUuid, List<IdUuidPair> analysesToPurge, String[] scopesWithoutHistoricalData,
+    PurgeCommands purgeCommands) {
     if (scopesWithoutHistoricalData.length == 0) {
       return;
     }
 
-    List<String> analysisUuids = purgeCommands.selectSnapshotUuids(
-      new PurgeSnapshotQuery()
-        .setComponentUuid(rootUuid)
-        .setIslast(false)
-        .setNotPurged(true));
-    List<String> componentWithoutHistoricalDataUuids = componentDao
-      .selectDescendants(
-        dbSession,
-        ComponentTreeQuery.builder()
-          .setBaseUuid(rootUuid)
-          .setQualifiers(Arrays.asList(scopesWithoutHistoricalData))
-          .setStrategy(Strategy.LEAVES)
-          .build())
-      .stream().map(ComponentDto::uuid)
-      .collect(MoreCollectors.toList());
-
-    purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
+    purgeCommands.deleteComponentMeasures(IdUuidPairs.uuids(analysesToPurge), rootUuid, Arrays.asList(scopesWithoutHistoricalData));
   }
 
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
+  /**
+   * Resolves the issues and deletes the file sources of the components disabled by the last analysis. Unlike the
+   * rest of {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}, this can't be deferred.
+   */
+  public void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
     executeLargeInputs(conf.getDisabledComponentUuids(),
       input -> {
@@ -42,7 +42,12 @@ public interface PurgeMapper {
 
   void fullDeleteComponentMeasures(@Param("componentUuids") List<String> componentUuids);
 
-  void deleteComponentMeasures(@Param("analysisUuids") List<String> analysisUuids, @Param("componentUuids") List<String> componentUuids);
+  /**
+   * Deletes the measures of the specified analyses which are attached to the enabled components of the specified root
+   * having one of the specified qualifiers.
+   */
+  void deleteComponentMeasuresByQualifiers(@Param("analysisUuids") List<String> analysisUuids, @Param("rootUuid") String rootUuid,
+    @Param("qualifiers") List<String> qualifiers);
 
   List<Long> selectMetricIdsWithoutHistoricalData();
 
@@ -118,6 +118,19 @@ public class RuleDao implements Dao {
     return ensureOrganizationIsSet(organizationUuid, mapper(session).selectByQuery(organizationUuid, ruleQuery));
   }
 
+  /**
+   * Date of the last change of the rules, including their metadata in the specified organization,
+   * or {@code 0} if there are no rules.
+   */
+  public long selectMaxUpdatedAt(DbSession session, String organizationUuid) {
+    RuleMapper mapper = mapper(session);
+    return Math.max(zeroIfNull(mapper.selectMaxUpdatedAt()), zeroIfNull(mapper.selectMaxMetadataUpdatedAt(organizationUuid)));
+  }
+
+  private static long zeroIfNull(@Nullable Long l) {
+    return l == null ? 0L : l;
+  }
+
   private static void ensureOrganizationIsSet(String organizationUuid, @Nullable RuleDto res) {
     if (res != null) {
       res.setOrganizationUuid(organizationUuid);
@@ -20,6 +20,7 @@
 package org.sonar.db.rule;
 
 import java.util.List;
+import javax.annotation.CheckForNull;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.rule.RuleKey;
@@ -59,6 +60,12 @@ public interface RuleMapper {
 
   int countMetadata(RuleMetadataDto ruleMetadataDto);
 
+  @CheckForNull
+  Long selectMaxUpdatedAt();
+
+  @CheckForNull
+  Long selectMaxMetadataUpdatedAt(@Param("organizationUuid") String organizationUuid);
+
   void insertMetadata(RuleMetadataDto ruleMetadataDto);
 
   void updateMetadata(RuleMetadataDto ruleMetadataDto);
@@ -124,6 +124,30 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isNull();
   }
 
+  @Test
+  public void test_insert_execution_profile() {
+    CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS)
+      .setExecutionProfile("10,5,100,2,1,0,Total");
+    underTest.insert(db.getSession(), dto);
+
+    assertThat(underTest.selectByUuid(db.getSession(), "TASK_1").get().getExecutionProfile()).isEqualTo("10,5,100,2,1,0,Total");
+  }
+
+  @Test
+  public void selectExecutionProfiles_returns_profiles_of_successful_tasks_from_newest_to_oldest() {
+    underTest.insert(db.getSession(), createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS).setExecutionProfile("p1"));
+    underTest.insert(db.getSession(), createActivityDto("TASK_2", REPORT, "PROJECT_2", SUCCESS).setExecutionProfile("p2"));
+    underTest.insert(db.getSession(), createActivityDto("TASK_3", REPORT, "PROJECT_1", FAILED).setExecutionProfile("p3"));
+    underTest.insert(db.getSession(), createActivityDto("TASK_4", REPORT, "PROJECT_1", SUCCESS));
+    underTest.insert(db.getSession(), createActivityDto("TASK_5", "OTHER", "PROJECT_1", SUCCESS).setExecutionProfile("p5"));
+    underTest.insert(db.getSession(), createActivityDto("TASK_6", REPORT, "PROJECT_1", SUCCESS).setExecutionProfile("p6"));
+
+    assertThat(underTest.selectExecutionProfiles(db.getSession(), REPORT, null, 10)).containsExactly("p6", "p2", "p1");
+    assertThat(underTest.selectExecutionProfiles(db.getSession(), REPORT, null, 2)).containsExactly("p6", "p2");
+    assertThat(underTest.selectExecutionProfiles(db.getSession(), REPORT, "PROJECT_1", 10)).containsExactly("p6", "p1");
+    assertThat(underTest.selectExecutionProfiles(db.getSession(), REPORT, "PROJECT_3", 10)).isEmpty();
+  }
+
   @Test
   public void insert_must_set_relevant_is_last_field() {
     // only a single task on PROJECT_1 -> is_last=true
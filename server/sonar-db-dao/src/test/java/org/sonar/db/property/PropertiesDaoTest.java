@@ -20,11 +20,13 @@
 package org.sonar.db.property;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.SetMultimap;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -111,6 +113,36 @@ public class PropertiesDaoTest {
       .containsOnly("user1", "user3");
   }
 
+  @Test
+  public void select_users_for_notification_channels() throws SQLException {
+    ComponentDto project1 = insertProject("uuid_45");
+    ComponentDto project2 = insertProject("uuid_56");
+    int userId1 = insertUser("user1");
+    int userId2 = insertUser("user2");
+    int userId3 = insertUser("user3");
+    insertProperty("notification.NewViolations.Email", "true", project1.getId(), userId2);
+    insertProperty("notification.NewViolations.Twitter", "true", null, userId3);
+    insertProperty("notification.NewViolations.Twitter", "true", project2.getId(), userId1);
+    insertProperty("notification.NewViolations.Twitter", "true", project2.getId(), userId3);
+    insertProperty("notification.NewViolations.Sms", "true", null, userId1);
+    insertProperty("notification.NewAlerts.Email", "true", null, userId1);
+
+    SetMultimap<String, String> global = underTest.selectUsersForNotificationChannels("NewViolations", Arrays.asList("Email", "Twitter"), null);
+    assertThat(global.keySet()).containsOnly("Twitter");
+    assertThat(global.get("Twitter")).containsOnly("user3");
+
+    SetMultimap<String, String> onProject1 = underTest.selectUsersForNotificationChannels("NewViolations", Arrays.asList("Email", "Twitter"), "uuid_45");
+    assertThat(onProject1.keySet()).containsOnly("Email", "Twitter");
+    assertThat(onProject1.get("Email")).containsOnly("user2");
+    assertThat(onProject1.get("Twitter")).containsOnly("user3");
+
+    SetMultimap<String, String> onProject2 = underTest.selectUsersForNotificationChannels("NewViolations", Arrays.asList("Email", "Twitter"), "uuid_56");
+    assertThat(onProject2.keySet()).containsOnly("Twitter");
+    assertThat(onProject2.get("Twitter")).containsOnly("user1", "user3");
+
+    assertThat(underTest.selectUsersForNotificationChannels("NewViolations", Collections.emptyList(), "uuid_56").isEmpty()).isTrue();
+  }
+
   @Test
   public void findNotificationSubscribers() throws SQLException {
     int userId1 = insertUser("user1");
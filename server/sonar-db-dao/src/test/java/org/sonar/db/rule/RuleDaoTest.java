@@ -65,6 +65,20 @@ public class RuleDaoTest {
     organization = dbTester.organizations().insert(o -> o.setUuid(ORGANIZATION_UUID));
   }
 
+  @Test
+  public void selectMaxUpdatedAt_returns_last_change_of_definitions_and_metadata_of_organization() {
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession(), ORGANIZATION_UUID)).isEqualTo(0L);
+
+    RuleDefinitionDto rule1 = dbTester.rules().insert(r -> r.setUpdatedAt(1_000L));
+    RuleDefinitionDto rule2 = dbTester.rules().insert(r -> r.setUpdatedAt(2_000L));
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession(), ORGANIZATION_UUID)).isEqualTo(2_000L);
+
+    dbTester.rules().insertOrUpdateMetadata(rule1, organization, m -> m.setUpdatedAt(3_000L));
+    OrganizationDto otherOrganization = dbTester.organizations().insert();
+    dbTester.rules().insertOrUpdateMetadata(rule2, otherOrganization, m -> m.setUpdatedAt(4_000L));
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession(), ORGANIZATION_UUID)).isEqualTo(3_000L);
+  }
+
   @Test
   public void selectByKey() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
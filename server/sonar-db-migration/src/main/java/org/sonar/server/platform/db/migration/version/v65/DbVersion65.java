@@ -60,6 +60,9 @@ public class DbVersion65 implements DbVersion {
       .add(1730, "Add USERS.ONBOARDED", AddUsersOnboarded.class)
       .add(1731, "Populate USERS.ONBOARDED", PopulateUsersOnboarded.class)
       .add(1732, "Make USERS.ONBOARDED not nullable", MakeUsersOnboardedNotNullable.class)
+      .add(1733, "Drop index DUPLICATIONS_INDEX_HASH", DropIndexDuplicationsIndexHash.class)
+      .add(1734, "Recreate index DUPLICATIONS_INDEX_HASH on hash, analysis and component", RecreateIndexDuplicationsIndexHash.class)
+      .add(1735, "Add CE_ACTIVITY.EXECUTION_PROFILE", AddCeActivityExecutionProfile.class)
     ;
   }
 }
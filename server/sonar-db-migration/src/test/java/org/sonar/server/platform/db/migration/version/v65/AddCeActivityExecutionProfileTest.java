@@ -0,0 +1,40 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v65;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.db.CoreDbTester;
+
+public class AddCeActivityExecutionProfileTest {
+  @Rule
+  public CoreDbTester db = CoreDbTester.createForSchema(AddCeActivityExecutionProfileTest.class, "ce_activity_without_execution_profile_column.sql");
+
+  private AddCeActivityExecutionProfile underTest = new AddCeActivityExecutionProfile(db.database());
+
+  @Test
+  public void execute_adds_nullable_clob_column_execution_profile_to_table_CE_ACTIVITY() throws SQLException {
+    underTest.execute();
+
+    db.assertColumnDefinition("ce_activity", "execution_profile", Types.CLOB, null, true);
+  }
+}
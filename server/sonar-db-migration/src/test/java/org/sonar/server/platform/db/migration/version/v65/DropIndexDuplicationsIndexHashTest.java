@@ -0,0 +1,44 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v65;
+
+import java.sql.SQLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.db.CoreDbTester;
+
+public class DropIndexDuplicationsIndexHashTest {
+  private static final String TABLE_DUPLICATIONS_INDEX = "duplications_index";
+  private static final String INDEX_DUPLICATIONS_INDEX_HASH = "duplications_index_hash";
+
+  @Rule
+  public CoreDbTester db = CoreDbTester.createForSchema(DropIndexDuplicationsIndexHashTest.class, "duplications_index.sql");
+
+  private DropIndexDuplicationsIndexHash underTest = new DropIndexDuplicationsIndexHash(db.database());
+
+  @Test
+  public void execute_drops_index_DUPLICATIONS_INDEX_HASH() throws SQLException {
+    db.assertIndex(TABLE_DUPLICATIONS_INDEX, INDEX_DUPLICATIONS_INDEX_HASH, "hash");
+
+    underTest.execute();
+
+    db.assertIndexDoesNotExist(TABLE_DUPLICATIONS_INDEX, INDEX_DUPLICATIONS_INDEX_HASH);
+  }
+}
@@ -59,4 +59,9 @@ public final class ClusterObjectKeys {
    * {@link CeCleaningSchedulerImpl}
    */
   public static final String CE_CLEANING_JOB_LOCK = "CE_CLEANING_JOB_LOCK";
+
+  /**
+   * The key of the topic announcing changes of the CE queue (task submitted or completed)
+   */
+  public static final String CE_QUEUE_CHANGES = "CE_QUEUE_CHANGES";
 }
@@ -0,0 +1,42 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce;
+
+/**
+ * Announces the changes of the CE queue which may allow idle workers to find a task to process: the submission of a
+ * task, the completion of a task (pending tasks of the same component can then be processed) and the reset of tasks
+ * to pending.
+ * <p>
+ * Workers still poll the queue, announcements only wake them up before the end of their polling delay.
+ * </p>
+ */
+public interface CeQueueSignal {
+
+  /**
+   * Announces a change of the queue to the workers of this process and, in a clustered SonarQube instance, to the
+   * workers of all the Compute Engines. Changes are announced by both the web server and the Compute Engine.
+   */
+  void announceChange();
+
+  /**
+   * Registers a listener to be called for each announced change.
+   */
+  void addListener(Runnable listener);
+}
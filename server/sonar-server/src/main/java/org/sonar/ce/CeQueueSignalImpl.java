@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.cluster.HazelcastClientWrapper;
+
+import static org.sonar.process.cluster.ClusterObjectKeys.CE_QUEUE_CHANGES;
+
+/**
+ * Announces the changes of the CE queue to the workers of all the Compute Engines of a clustered SonarQube instance,
+ * through a topic of the Hazelcast cluster
+ */
+public class CeQueueSignalImpl implements CeQueueSignal {
+  private static final Logger LOG = Loggers.get(CeQueueSignalImpl.class);
+
+  private final HazelcastClientWrapper hazelcastClientWrapper;
+
+  public CeQueueSignalImpl(HazelcastClientWrapper hazelcastClientWrapper) {
+    this.hazelcastClientWrapper = hazelcastClientWrapper;
+  }
+
+  @Override
+  public void announceChange() {
+    try {
+      hazelcastClientWrapper.publish(CE_QUEUE_CHANGES, hazelcastClientWrapper.getClientUUID());
+    } catch (RuntimeException e) {
+      // workers will find the task when polling the queue
+      LOG.warn("Failed to announce a change of the queue to the cluster", e);
+    }
+  }
+
+  @Override
+  public void addListener(Runnable listener) {
+    hazelcastClientWrapper.<String>addMessageListener(CE_QUEUE_CHANGES, clientUuid -> listener.run());
+  }
+}
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.ce.CeQueueSignal;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -51,14 +52,19 @@ public class CeQueueImpl implements CeQueue {
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final ReportStore reportStore;
+  private final CeQueueSignal queueSignal;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
-  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider, ReportStore reportStore,
+    CeQueueSignal queueSignal) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.reportStore = reportStore;
+    this.queueSignal = queueSignal;
   }
 
   @Override
@@ -74,6 +80,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = new CeTaskSubmitToInsertedCeQueueDto(dbSession, dbClient).apply(submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      queueSignal.announceChange();
       return task;
     }
   }
@@ -91,6 +98,7 @@ public class CeQueueImpl implements CeQueue {
         .toList();
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      queueSignal.announceChange();
       return tasks;
     }
   }
@@ -160,8 +168,9 @@ public class CeQueueImpl implements CeQueue {
   protected void remove(DbSession dbSession, CeQueueDto queueDto, CeActivityDto activityDto) {
     dbClient.ceActivityDao().insert(dbSession, activityDto);
     dbClient.ceQueueDao().deleteByUuid(dbSession, queueDto.getUuid());
-    dbClient.ceTaskInputDao().deleteByUuids(dbSession, singleton(queueDto.getUuid()));
+    reportStore.delete(dbSession, singleton(queueDto.getUuid()));
     dbSession.commit();
+    reportStore.deleteCommitted(singleton(queueDto.getUuid()));
   }
 
   @Override
@@ -0,0 +1,202 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sonar.core.util.stream.MoreCollectors.toSet;
+
+/**
+ * Stores reports as files of a directory, which can be shared by the nodes of a cluster.
+ * The report of a task is written to {@code <task uuid>.zip} and the SHA-256 of its content
+ * to {@code <task uuid>.sha256}. The checksum is verified when the report is read.
+ * <p>
+ * Reports which are not found on disk, for instance because they have been submitted
+ * before the upgrade, are read from table CE_TASK_INPUT.
+ */
+public class FileSystemReportStore implements ReportStore {
+
+  private static final Logger LOG = Loggers.get(FileSystemReportStore.class);
+  private static final String REPORT_EXTENSION = ".zip";
+  private static final String CHECKSUM_EXTENSION = ".sha256";
+  private static final String TEMP_EXTENSION = ".tmp";
+
+  /**
+   * Reports are stored before the task is inserted in queue, so the files which
+   * are not referenced by queue are kept for a while before being purged.
+   */
+  static final long PURGE_DELAY_MS = TimeUnit.HOURS.toMillis(1);
+
+  private final File dir;
+  private final DbClient dbClient;
+  private final System2 system2;
+  private final DatabaseReportStore databaseStore;
+
+  public FileSystemReportStore(File dir, DbClient dbClient, System2 system2) {
+    this.dir = dir;
+    this.dbClient = dbClient;
+    this.system2 = system2;
+    this.databaseStore = new DatabaseReportStore(dbClient);
+  }
+
+  @Override
+  public void store(DbSession dbSession, String taskUuid, InputStream report) {
+    File tempFile = new File(dir, taskUuid + REPORT_EXTENSION + TEMP_EXTENSION);
+    MessageDigest digest = DigestUtils.getSha256Digest();
+    try {
+      try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)), digest)) {
+        IOUtils.copyLarge(report, out);
+      }
+      FileUtils.write(checksumFile(taskUuid), Hex.encodeHexString(digest.digest()), UTF_8);
+      Files.move(tempFile.toPath(), reportFile(taskUuid).toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(tempFile);
+      FileUtils.deleteQuietly(checksumFile(taskUuid));
+      throw new IllegalStateException("Fail to store report of CE task " + taskUuid + " in " + dir, e);
+    }
+  }
+
+  @Override
+  public Optional<Report> open(DbSession dbSession, String taskUuid) {
+    File reportFile = reportFile(taskUuid);
+    if (!reportFile.exists()) {
+      return databaseStore.open(dbSession, taskUuid);
+    }
+    try {
+      String checksum = FileUtils.readFileToString(checksumFile(taskUuid), UTF_8);
+      return Optional.of(new FileReport(taskUuid, reportFile, checksum));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open report of CE task " + taskUuid, e);
+    }
+  }
+
+  @Override
+  public void delete(DbSession dbSession, Collection<String> taskUuids) {
+    databaseStore.delete(dbSession, taskUuids);
+  }
+
+  /**
+   * Files which can't be deleted are purged later by {@link #purge(DbSession)}.
+   */
+  @Override
+  public void deleteCommitted(Collection<String> taskUuids) {
+    for (String taskUuid : taskUuids) {
+      FileUtils.deleteQuietly(reportFile(taskUuid));
+      FileUtils.deleteQuietly(checksumFile(taskUuid));
+    }
+  }
+
+  @Override
+  public void purge(DbSession dbSession) {
+    File[] files = dir.listFiles();
+    if (files == null || files.length == 0) {
+      return;
+    }
+    Set<String> queuedUuids = dbClient.ceQueueDao().selectAllInAscOrder(dbSession).stream()
+      .map(CeQueueDto::getUuid)
+      .collect(toSet());
+    long purgeBefore = system2.now() - PURGE_DELAY_MS;
+    int deleted = 0;
+    for (File file : files) {
+      String taskUuid = StringUtils.substringBefore(file.getName(), ".");
+      if (!queuedUuids.contains(taskUuid) && file.lastModified() < purgeBefore && FileUtils.deleteQuietly(file)) {
+        deleted++;
+      }
+    }
+    LOG.info("{} orphan files of analysis reports deleted from {}", deleted, dir);
+  }
+
+  private File reportFile(String taskUuid) {
+    return new File(dir, taskUuid + REPORT_EXTENSION);
+  }
+
+  private File checksumFile(String taskUuid) {
+    return new File(dir, taskUuid + CHECKSUM_EXTENSION);
+  }
+
+  private static class FileReport implements Report {
+    private final String taskUuid;
+    private final String expectedChecksum;
+    private final DigestInputStream stream;
+
+    private FileReport(String taskUuid, File file, String expectedChecksum) throws IOException {
+      this.taskUuid = taskUuid;
+      this.expectedChecksum = expectedChecksum;
+      this.stream = new DigestInputStream(new BufferedInputStream(new FileInputStream(file)), DigestUtils.getSha256Digest());
+    }
+
+    /**
+     * Closing the returned stream has no effect, the file is closed by {@link #close()}.
+     */
+    @Override
+    public InputStream getInputStream() {
+      return new CloseShieldInputStream(stream);
+    }
+
+    /**
+     * Consumes the remaining bytes, for example the central directory of the zip file,
+     * then verifies the checksum.
+     */
+    @Override
+    public void close() {
+      try {
+        IOUtils.copyLarge(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read report of CE task " + taskUuid, e);
+      } finally {
+        IOUtils.closeQuietly(stream);
+      }
+      String checksum = Hex.encodeHexString(stream.getMessageDigest().digest());
+      if (!checksum.equals(expectedChecksum)) {
+        throw new IllegalStateException("Report of CE task " + taskUuid + " is corrupted. Checksum " + checksum + " does not match " + expectedChecksum);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import org.sonar.db.DbSession;
+
+/**
+ * Storage of the analysis reports submitted to the Compute Engine. A report is stored
+ * by the web server when the task is submitted and it is deleted as soon as the
+ * task is removed from queue.
+ *
+ * @see ReportStoreProvider
+ */
+public interface ReportStore {
+
+  /**
+   * Stores the report of the task. The stream is consumed but not closed.
+   */
+  void store(DbSession dbSession, String taskUuid, InputStream report);
+
+  /**
+   * Opens the report of the task, if it exists. The returned {@link Report} must be closed.
+   */
+  Optional<Report> open(DbSession dbSession, String taskUuid);
+
+  /**
+   * Deletes the reports stored in database, in the transaction of the session. Reports which
+   * are stored outside the database are kept until {@link #deleteCommitted(Collection)}, so
+   * that they are not lost if the transaction is rolled back.
+   */
+  void delete(DbSession dbSession, Collection<String> taskUuids);
+
+  /**
+   * Deletes the reports stored outside the database. Must be called once the transaction
+   * of {@link #delete(DbSession, Collection)} is committed.
+   */
+  void deleteCommitted(Collection<String> taskUuids);
+
+  /**
+   * Deletes the reports which are not referenced by the queue anymore.
+   */
+  void purge(DbSession dbSession);
+
+  interface Report extends AutoCloseable {
+    InputStream getInputStream();
+
+    @Override
+    void close();
+  }
+}
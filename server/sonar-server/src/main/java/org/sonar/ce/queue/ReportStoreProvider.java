@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.picocontainer.injectors.ProviderAdapter;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.process.ProcessProperties;
+import org.sonar.server.platform.ServerFileSystem;
+
+/**
+ * Reports are stored on file system:
+ * <ul>
+ *   <li>in the directory defined by the property {@link #PATH_PROPERTY}, usually shared by the nodes of a cluster</li>
+ *   <li>or in {@code <data dir>/ce/reports} if cluster is disabled, as web server and Compute Engine then run on the same host</li>
+ * </ul>
+ * Otherwise reports are stored in database.
+ */
+public class ReportStoreProvider extends ProviderAdapter {
+
+  public static final String PATH_PROPERTY = "sonar.ce.reportStore.path";
+
+  private ReportStore reportStore;
+
+  public ReportStore provide(Settings settings, ServerFileSystem fs, DbClient dbClient, System2 system2) {
+    if (reportStore == null) {
+      File dir = getDir(settings, fs);
+      if (dir == null) {
+        reportStore = new DatabaseReportStore(dbClient);
+      } else {
+        try {
+          FileUtils.forceMkdir(dir);
+        } catch (IOException e) {
+          throw new IllegalStateException("Unable to create directory of analysis reports " + dir, e);
+        }
+        reportStore = new FileSystemReportStore(dir, dbClient, system2);
+      }
+      Loggers.get(ReportStoreProvider.class).debug("Analysis reports are stored in {}", dir == null ? "database" : dir);
+    }
+    return reportStore;
+  }
+
+  @CheckForNull
+  private static File getDir(Settings settings, ServerFileSystem fs) {
+    String path = settings.getString(PATH_PROPERTY);
+    if (StringUtils.isNotBlank(path)) {
+      return new File(path);
+    }
+    if (settings.getBoolean(ProcessProperties.CLUSTER_ENABLED)) {
+      return null;
+    }
+    return new File(fs.getDataDir(), "ce/reports");
+  }
+}
@@ -31,6 +31,7 @@ public class CeWsModule extends Module {
       CancelAction.class,
       CancelAllAction.class,
       IsQueueEmptyWs.class,
+      StepStatisticsAction.class,
       ComponentAction.class,
       SubmitAction.class,
       TaskFormatter.class,
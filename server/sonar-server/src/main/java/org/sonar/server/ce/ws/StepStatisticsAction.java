@@ -0,0 +1,140 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.ws;
+
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.computation.task.step.StepProfileStatistics;
+import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.KeyExamples;
+
+import static org.sonar.api.server.ws.WebService.Param.PAGE_SIZE;
+import static org.sonar.server.component.ComponentFinder.ParamNames.COMPONENT_ID_AND_KEY;
+import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_COMPONENT_ID;
+import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_COMPONENT_KEY;
+
+public class StepStatisticsAction implements CeWsAction {
+
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  private final UserSession userSession;
+  private final DbClient dbClient;
+  private final ComponentFinder componentFinder;
+
+  public StepStatisticsAction(UserSession userSession, DbClient dbClient, ComponentFinder componentFinder) {
+    this.userSession = userSession;
+    this.dbClient = dbClient;
+    this.componentFinder = componentFinder;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller
+      .createAction("step_statistics")
+      .setDescription("Return percentiles of the resources used by each step of the last analysis reports processed successfully: " +
+        "wall time, CPU time, allocated bytes, SQL statements and Elasticsearch requests. " +
+        "Values are -1 when not supported by the JVM of the Compute Engine.<br>" +
+        "Requires 'Administer System' permission or 'Administer' rights on the specified project.")
+      .setSince("6.5")
+      .setResponseExample(getClass().getResource("step_statistics-example.json"))
+      .setInternal(true)
+      .setHandler(this);
+
+    action.createParam(PARAM_COMPONENT_ID)
+      .setDescription("Id of the component (project) to filter on")
+      .setExampleValue(Uuids.UUID_EXAMPLE_03);
+    action.createParam(PARAM_COMPONENT_KEY)
+      .setDescription("Key of the component (project) to filter on")
+      .setExampleValue(KeyExamples.KEY_PROJECT_EXAMPLE_001);
+    action.createPageSize(100, MAX_PAGE_SIZE)
+      .setDescription("Number of last processed reports to compute the statistics on");
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    StepProfileStatistics statistics = new StepProfileStatistics(MAX_PAGE_SIZE);
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      ComponentDto component = searchComponent(dbSession, request.param(PARAM_COMPONENT_ID), request.param(PARAM_COMPONENT_KEY));
+      checkPermissions(component);
+      List<String> profiles = dbClient.ceActivityDao().selectExecutionProfiles(dbSession, CeTaskTypes.REPORT,
+        component == null ? null : component.uuid(), request.mandatoryParamAsInt(PAGE_SIZE));
+      profiles.forEach(profile -> statistics.add(StepProfile.parse(profile)));
+    }
+
+    try (JsonWriter json = response.newJsonWriter()) {
+      json.beginObject();
+      json.name("steps").beginArray();
+      statistics.getSummaries().forEach(summary -> writeSummary(json, summary));
+      json.endArray();
+      json.endObject();
+    }
+  }
+
+  @CheckForNull
+  private ComponentDto searchComponent(DbSession dbSession, @Nullable String componentId, @Nullable String componentKey) {
+    if (componentId == null && componentKey == null) {
+      return null;
+    }
+    return componentFinder.getByUuidOrKey(dbSession, componentId, componentKey, COMPONENT_ID_AND_KEY);
+  }
+
+  private void checkPermissions(@Nullable ComponentDto component) {
+    if (component != null) {
+      userSession.checkComponentPermission(UserRole.ADMIN, component);
+    } else {
+      userSession.checkIsSystemAdministrator();
+    }
+  }
+
+  private static void writeSummary(JsonWriter json, StepProfileStatistics.Summary summary) {
+    json.beginObject()
+      .prop("name", summary.getName())
+      .prop("samples", summary.getSamples());
+    writeMetric(json, "wallTimeMs", summary.getWallTimeMs());
+    writeMetric(json, "cpuTimeMs", summary.getCpuTimeMs());
+    writeMetric(json, "allocatedBytes", summary.getAllocatedBytes());
+    writeMetric(json, "sqlExecutions", summary.getSqlExecutions());
+    writeMetric(json, "sqlTimeMs", summary.getSqlTimeMs());
+    writeMetric(json, "esRequests", summary.getEsRequests());
+    json.endObject();
+  }
+
+  private static void writeMetric(JsonWriter json, String name, StepProfileStatistics.Metric metric) {
+    json.name(name).beginObject()
+      .prop("p50", metric.getP50())
+      .prop("p90", metric.getP90())
+      .prop("p99", metric.getP99())
+      .prop("max", metric.getMax())
+      .endObject();
+  }
+}
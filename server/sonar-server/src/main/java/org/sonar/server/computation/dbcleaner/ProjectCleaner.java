@@ -68,6 +68,22 @@ public class ProjectCleaner {
     return this;
   }
 
+  /**
+   * Purges only the data of the specified disabled components, as required right after the processing of an analysis
+   * report when the rest of the purge is deferred (see {@link org.sonar.core.config.PurgeConstants#DEFERRED}).
+   */
+  public ProjectCleaner purgeDisabledComponents(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
+    try {
+      purgeDao.purgeDisabledComponents(session, configuration, purgeListener);
+    } catch (Exception e) {
+      // purge errors must no fail the report analysis
+      LOG.error("Fail to purge disabled components [id=" + idUuidPair.getId() + "]", e);
+    }
+    session.commit();
+    return this;
+  }
+
   private void logProfiling(long start, Settings settings) {
     if (settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
       long duration = System.currentTimeMillis() - start;
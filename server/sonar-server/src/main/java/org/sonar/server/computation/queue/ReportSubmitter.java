@@ -28,6 +28,7 @@ import org.sonar.api.server.ServerSide;
 import org.sonar.ce.queue.CeQueue;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskSubmit;
+import org.sonar.ce.queue.ReportStore;
 import org.sonar.core.component.ComponentKeys;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -55,14 +56,16 @@ public class ReportSubmitter {
   private final ComponentUpdater componentUpdater;
   private final PermissionTemplateService permissionTemplateService;
   private final DbClient dbClient;
+  private final ReportStore reportStore;
 
   public ReportSubmitter(CeQueue queue, UserSession userSession, ComponentUpdater componentUpdater,
-    PermissionTemplateService permissionTemplateService, DbClient dbClient) {
+    PermissionTemplateService permissionTemplateService, DbClient dbClient, ReportStore reportStore) {
     this.queue = queue;
     this.userSession = userSession;
     this.componentUpdater = componentUpdater;
     this.permissionTemplateService = permissionTemplateService;
     this.dbClient = dbClient;
+    this.reportStore = reportStore;
   }
 
   /**
@@ -132,7 +135,7 @@ public class ReportSubmitter {
   private CeTask submitReport(DbSession dbSession, InputStream reportInput, ComponentDto project) {
     // the report file must be saved before submitting the task
     CeTaskSubmit.Builder submit = queue.prepareSubmit();
-    dbClient.ceTaskInputDao().insert(dbSession, submit.getUuid(), reportInput);
+    reportStore.store(dbSession, submit.getUuid(), reportInput);
     dbSession.commit();
 
     submit.setType(CeTaskTypes.REPORT);
@@ -0,0 +1,206 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.stream.MoreCollectors;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+
+/**
+ * In-memory cache, shared by the tasks processed by the Compute Engine, of the components of the projects as they are
+ * persisted at the end of their last analysis. It spares reloading all the components of a project analysed
+ * again and again.
+ * <p>
+ * An entry is valid only if:
+ * <ul>
+ *   <li>it was stored by the task which produced the base analysis of the current task, so that any other analysis
+ *   processed in between (by this node or by another one) or any failure of the task which stored it invalidates it</li>
+ *   <li>the root and modules of the project are unchanged in DB, so that updates of keys or of visibility done from the
+ *   web server invalidate it</li>
+ * </ul>
+ * DTOs are copied in and out of the cache, callers are free to modify them. Note that the tags of the components are
+ * not checked and may be outdated.
+ * </p>
+ * The cache is disabled unless {@link #MAX_COMPONENTS_PROPERTY} is set to a positive value.
+ */
+@ComputeEngineSide
+public class ProjectComponentsCache {
+  public static final String MAX_COMPONENTS_PROPERTY = "sonar.ce.componentsCache.maxComponents";
+
+  private static final Logger LOG = Loggers.get(ProjectComponentsCache.class);
+
+  private final DbClient dbClient;
+  @CheckForNull
+  private final Cache<String, Entry> entriesByProjectUuid;
+
+  public ProjectComponentsCache(DbClient dbClient, Settings settings) {
+    this.dbClient = dbClient;
+    int maxComponents = settings.getInt(MAX_COMPONENTS_PROPERTY);
+    if (maxComponents > 0) {
+      this.entriesByProjectUuid = CacheBuilder.newBuilder()
+        // a single segment, so that the whole weight is available to a single large project
+        .concurrencyLevel(1)
+        .maximumWeight(maxComponents)
+        .weigher((String projectUuid, Entry entry) -> entry.components.size())
+        .build();
+    } else {
+      this.entriesByProjectUuid = null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return entriesByProjectUuid != null;
+  }
+
+  /**
+   * Copies of the components, including the disabled ones, of the specified project if they are cached and still valid.
+   *
+   * @param rootKey key of the project in the analysis report
+   * @param baseAnalysisUuid uuid of the last analysis of the project, if any
+   */
+  public Optional<List<ComponentDto>> get(DbSession dbSession, String projectUuid, String rootKey, @Nullable String baseAnalysisUuid) {
+    if (entriesByProjectUuid == null || baseAnalysisUuid == null) {
+      return Optional.empty();
+    }
+    Entry entry = entriesByProjectUuid.getIfPresent(projectUuid);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (!entry.analysisUuid.equals(baseAnalysisUuid) || !entry.modules.equals(loadModules(dbSession, rootKey))) {
+      LOG.debug("Cached components of project {} are outdated", rootKey);
+      entriesByProjectUuid.invalidate(projectUuid);
+      return Optional.empty();
+    }
+    return Optional.of(entry.components.stream().map(ProjectComponentsCache::copy).collect(MoreCollectors.toList(entry.components.size())));
+  }
+
+  /**
+   * Caches the specified components, including the disabled ones, of the specified project as they will be in DB once
+   * the specified analysis is successfully processed.
+   */
+  public void put(String projectUuid, String analysisUuid, Collection<ComponentDto> components) {
+    if (entriesByProjectUuid == null) {
+      return;
+    }
+    List<ComponentDto> copies = components.stream().map(ProjectComponentsCache::copy).collect(MoreCollectors.toList(components.size()));
+    entriesByProjectUuid.put(projectUuid, new Entry(analysisUuid, copies));
+  }
+
+  public void invalidate(String projectUuid) {
+    if (entriesByProjectUuid != null) {
+      entriesByProjectUuid.invalidate(projectUuid);
+    }
+  }
+
+  private Map<String, ModuleSignature> loadModules(DbSession dbSession, String rootKey) {
+    return toSignatures(dbClient.componentDao().selectEnabledModulesFromProjectKey(dbSession, rootKey));
+  }
+
+  private static Map<String, ModuleSignature> toSignatures(Collection<ComponentDto> components) {
+    return components.stream()
+      .filter(ComponentDto::isEnabled)
+      .filter(dto -> "PRJ".equals(dto.scope()))
+      .collect(MoreCollectors.uniqueIndex(ComponentDto::uuid, ModuleSignature::new));
+  }
+
+  private static ComponentDto copy(ComponentDto dto) {
+    return new ComponentDto()
+      .setId(dto.getId())
+      .setOrganizationUuid(dto.getOrganizationUuid())
+      .setUuid(dto.uuid())
+      .setUuidPath(dto.getUuidPath())
+      .setProjectUuid(dto.projectUuid())
+      .setRootUuid(dto.getRootUuid())
+      .setModuleUuid(dto.moduleUuid())
+      .setModuleUuidPath(dto.moduleUuidPath())
+      .setCopyComponentUuid(dto.getCopyResourceUuid())
+      .setDeveloperUuid(dto.getDeveloperUuid())
+      .setScope(dto.scope())
+      .setQualifier(dto.qualifier())
+      .setPath(dto.path())
+      .setKey(dto.getKey())
+      .setDeprecatedKey(dto.deprecatedKey())
+      .setName(dto.name())
+      .setLongName(dto.longName())
+      .setLanguage(dto.language())
+      .setDescription(dto.description())
+      .setTagsString(dto.getTagsString())
+      .setEnabled(dto.isEnabled())
+      .setPrivate(dto.isPrivate())
+      .setCreatedAt(dto.getCreatedAt())
+      .setAuthorizationUpdatedAt(dto.getAuthorizationUpdatedAt());
+  }
+
+  private static final class Entry {
+    private final String analysisUuid;
+    private final List<ComponentDto> components;
+    private final Map<String, ModuleSignature> modules;
+
+    private Entry(String analysisUuid, List<ComponentDto> components) {
+      this.analysisUuid = analysisUuid;
+      this.components = components;
+      this.modules = toSignatures(components);
+    }
+  }
+
+  /**
+   * The attributes of the root and of the modules of a project which can be changed from the web server.
+   */
+  private static final class ModuleSignature {
+    private final String key;
+    private final boolean isPrivate;
+
+    private ModuleSignature(ComponentDto dto) {
+      this.key = dto.getKey();
+      this.isPrivate = dto.isPrivate();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ModuleSignature that = (ModuleSignature) o;
+      return isPrivate == that.isPrivate && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key, isPrivate);
+    }
+  }
+}
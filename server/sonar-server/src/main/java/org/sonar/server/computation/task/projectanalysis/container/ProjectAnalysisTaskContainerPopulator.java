@@ -101,7 +101,16 @@ import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryIm
 import org.sonar.server.computation.task.projectanalysis.source.LastCommitVisitor;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.step.CommentMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.ComplexityMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.CoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.DuplicationMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.LanguageDistributionMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.NewCoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.NewSizeMeasuresStep;
 import org.sonar.server.computation.task.projectanalysis.step.ReportComputationSteps;
+import org.sonar.server.computation.task.projectanalysis.step.SizeMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.UnitTestMeasuresStep;
 import org.sonar.server.computation.task.projectanalysis.webhook.WebhookModule;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.task.step.ComputationSteps;
@@ -236,6 +245,17 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       // duplication
       IntegrateCrossProjectDuplications.class,
 
+      // measure steps, their formulas are executed in a single crawl by ComputeFormulaMeasuresStep
+      SizeMeasuresStep.class,
+      NewCoverageMeasuresStep.class,
+      CoverageMeasuresStep.class,
+      CommentMeasuresStep.class,
+      DuplicationMeasuresStep.class,
+      NewSizeMeasuresStep.class,
+      LanguageDistributionMeasuresStep.class,
+      UnitTestMeasuresStep.class,
+      ComplexityMeasuresStep.class,
+
       // views
       ViewIndex.class,
 
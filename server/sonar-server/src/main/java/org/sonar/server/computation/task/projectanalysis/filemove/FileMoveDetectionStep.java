@@ -39,6 +39,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
@@ -50,6 +51,7 @@ import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetada
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.ProjectComponentsCache;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
@@ -74,15 +76,18 @@ public class FileMoveDetectionStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final FileSimilarity fileSimilarity;
   private final MutableMovedFilesRepository movedFilesRepository;
+  private final ProjectComponentsCache projectComponentsCache;
 
   public FileMoveDetectionStep(AnalysisMetadataHolder analysisMetadataHolder, TreeRootHolder rootHolder, DbClient dbClient,
-    SourceLinesRepository sourceLinesRepository, FileSimilarity fileSimilarity, MutableMovedFilesRepository movedFilesRepository) {
+    SourceLinesRepository sourceLinesRepository, FileSimilarity fileSimilarity, MutableMovedFilesRepository movedFilesRepository,
+    ProjectComponentsCache projectComponentsCache) {
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.rootHolder = rootHolder;
     this.dbClient = dbClient;
     this.sourceLinesRepository = sourceLinesRepository;
     this.fileSimilarity = fileSimilarity;
     this.movedFilesRepository = movedFilesRepository;
+    this.projectComponentsCache = projectComponentsCache;
   }
 
   @Override
@@ -99,7 +104,7 @@ public class FileMoveDetectionStep implements ComputationStep {
       return;
     }
 
-    Map<String, DbComponent> dbFilesByKey = getDbFilesByKey();
+    Map<String, DbComponent> dbFilesByKey = getDbFilesByKey(baseProjectAnalysis);
     if (dbFilesByKey.isEmpty()) {
       LOG.debug("Previous snapshot has no file. Do nothing.");
       return;
@@ -149,17 +154,22 @@ public class FileMoveDetectionStep implements ComputationStep {
     }
   }
 
-  private Map<String, DbComponent> getDbFilesByKey() {
+  private Map<String, DbComponent> getDbFilesByKey(Analysis baseProjectAnalysis) {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      // FIXME no need to use such a complex query, joining on SNAPSHOTS and retrieving all column of table PROJECTS, replace with dedicated
-      // mapper method
-      List<ComponentDto> componentDtos = dbClient.componentDao().selectDescendants(
-        dbSession,
-        ComponentTreeQuery.builder()
-          .setBaseUuid(rootHolder.getRoot().getUuid())
-          .setQualifiers(FILE_QUALIFIERS)
-          .setStrategy(Strategy.LEAVES)
-          .build());
+      Component root = rootHolder.getRoot();
+      List<ComponentDto> componentDtos = projectComponentsCache.get(dbSession, root.getUuid(), root.getKey(), baseProjectAnalysis.getUuid())
+        .map(dtos -> dtos.stream()
+          .filter(dto -> dto.isEnabled() && FILE_QUALIFIERS.contains(dto.qualifier()))
+          .collect(MoreCollectors.toList()))
+        // FIXME no need to use such a complex query, joining on SNAPSHOTS and retrieving all column of table PROJECTS, replace with dedicated
+        // mapper method
+        .orElseGet(() -> dbClient.componentDao().selectDescendants(
+          dbSession,
+          ComponentTreeQuery.builder()
+            .setBaseUuid(root.getUuid())
+            .setQualifiers(FILE_QUALIFIERS)
+            .setStrategy(Strategy.LEAVES)
+            .build()));
       return from(componentDtos)
         .transform(componentDto -> new DbComponent(componentDto.getId(), componentDto.key(), componentDto.uuid(), componentDto.path()))
         .uniqueIndex(DbComponent::getKey);
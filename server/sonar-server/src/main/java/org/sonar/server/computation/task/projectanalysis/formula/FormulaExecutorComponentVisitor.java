@@ -20,10 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.formula;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import com.google.common.collect.Iterables;
 import javax.annotation.CheckForNull;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
@@ -39,38 +36,35 @@ import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import static java.util.Objects.requireNonNull;
 
 public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<FormulaExecutorComponentVisitor.Counters> {
-  private static final SimpleStackElementFactory<Counters> COUNTERS_FACTORY = new SimpleStackElementFactory<Counters>() {
-
-    @Override
-    public Counters createForAny(Component component) {
-      return new Counters();
-    }
-
-    @Override
-    public Counters createForFile(Component component) {
-      // No need to create a counter on leaf levels
-      return null;
-    }
-
-    @Override
-    public Counters createForProjectView(Component projectView) {
-      // No need to create a counter on leaf levels
-      return null;
-    }
-  };
-
   @CheckForNull
   private final PeriodHolder periodHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
-  private final List<Formula> formulas;
+  private final Formula[] formulas;
+  /**
+   * Output metrics of each formula, resolved once for the whole crawl. Indexes are the ones of {@link #formulas}.
+   */
+  private final Metric[][] outputMetrics;
 
   private FormulaExecutorComponentVisitor(Builder builder, Iterable<Formula> formulas) {
-    super(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.POST_ORDER, COUNTERS_FACTORY);
+    this(builder, Iterables.toArray(formulas, Formula.class));
+  }
+
+  private FormulaExecutorComponentVisitor(Builder builder, Formula[] formulas) {
+    super(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.POST_ORDER, new CountersFactory(formulas.length));
     this.periodHolder = builder.periodHolder;
     this.measureRepository = builder.measureRepository;
     this.metricRepository = builder.metricRepository;
-    this.formulas = ImmutableList.copyOf(formulas);
+    this.formulas = formulas;
+    this.outputMetrics = new Metric[this.formulas.length][];
+    for (int i = 0; i < this.formulas.length; i++) {
+      String[] outputMetricKeys = this.formulas[i].getOutputMetricKeys();
+      Metric[] metrics = new Metric[outputMetricKeys.length];
+      for (int j = 0; j < outputMetricKeys.length; j++) {
+        metrics[j] = metricRepository.getByKey(outputMetricKeys[j]);
+      }
+      this.outputMetrics[i] = metrics;
+    }
   }
 
   public static Builder newBuilder(MetricRepository metricRepository, MeasureRepository measureRepository) {
@@ -146,45 +140,44 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
   }
 
   private void processNotLeaf(Component component, Path<FormulaExecutorComponentVisitor.Counters> path) {
-    for (Formula formula : formulas) {
-      Counter counter = path.current().getCounter(formula);
+    Counters counters = path.current();
+    for (int i = 0; i < formulas.length; i++) {
+      Counter counter = counters.getCounter(i);
       // If there were no file under this node, the counter won't be initialized
       if (counter != null) {
-        for (String metricKey : formula.getOutputMetricKeys()) {
-          addNewMeasure(component, metricKey, formula, counter);
-        }
-        aggregateToParent(path, formula, counter);
+        addNewMeasures(component, i, counter);
+        aggregateToParent(path, i, counter);
       }
     }
   }
 
   private void processLeaf(Component file, Path<FormulaExecutorComponentVisitor.Counters> path) {
     CounterInitializationContext counterContext = new CounterInitializationContextImpl(file);
-    for (Formula formula : formulas) {
-      Counter counter = formula.createNewCounter();
+    for (int i = 0; i < formulas.length; i++) {
+      Counter counter = formulas[i].createNewCounter();
       counter.initialize(counterContext);
-      for (String metricKey : formula.getOutputMetricKeys()) {
-        addNewMeasure(file, metricKey, formula, counter);
-      }
-      aggregateToParent(path, formula, counter);
+      addNewMeasures(file, i, counter);
+      aggregateToParent(path, i, counter);
     }
   }
 
-  private void addNewMeasure(Component component, String metricKey, Formula formula, Counter counter) {
+  private void addNewMeasures(Component component, int formulaIndex, Counter counter) {
     // no new measure can be created by formulas for PROJECT_VIEW components, their measures are the copy
     if (component.getType() == Component.Type.PROJECT_VIEW) {
       return;
     }
-    Metric metric = metricRepository.getByKey(metricKey);
-    Optional<Measure> measure = formula.createMeasure(counter, new CreateMeasureContextImpl(component, metric));
-    if (measure.isPresent()) {
-      measureRepository.add(component, metric, measure.get());
+    Formula formula = formulas[formulaIndex];
+    for (Metric metric : outputMetrics[formulaIndex]) {
+      Optional<Measure> measure = formula.createMeasure(counter, new CreateMeasureContextImpl(component, metric));
+      if (measure.isPresent()) {
+        measureRepository.add(component, metric, measure.get());
+      }
     }
   }
 
-  private static void aggregateToParent(Path<FormulaExecutorComponentVisitor.Counters> path, Formula formula, Counter currentCounter) {
+  private static void aggregateToParent(Path<FormulaExecutorComponentVisitor.Counters> path, int formulaIndex, Counter currentCounter) {
     if (!path.isRoot()) {
-      path.parent().aggregate(formula, currentCounter);
+      path.parent().aggregate(formulaIndex, currentCounter);
     }
   }
 
@@ -216,13 +209,45 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     }
   }
 
+  private static class CountersFactory extends SimpleStackElementFactory<Counters> {
+    private final int formulaCount;
+
+    private CountersFactory(int formulaCount) {
+      this.formulaCount = formulaCount;
+    }
+
+    @Override
+    public Counters createForAny(Component component) {
+      return new Counters(formulaCount);
+    }
+
+    @Override
+    public Counters createForFile(Component component) {
+      // No need to create a counter on leaf levels
+      return null;
+    }
+
+    @Override
+    public Counters createForProjectView(Component projectView) {
+      // No need to create a counter on leaf levels
+      return null;
+    }
+  }
+
+  /**
+   * Counters of a component, indexed by the position of their {@link Formula} in the executed formulas.
+   */
   public static class Counters {
-    Map<Formula, Counter> countersByFormula = new HashMap<>();
+    private final Counter[] counters;
+
+    private Counters(int formulaCount) {
+      this.counters = new Counter[formulaCount];
+    }
 
-    public void aggregate(Formula formula, Counter childCounter) {
-      Counter counter = countersByFormula.get(formula);
+    public void aggregate(int formulaIndex, Counter childCounter) {
+      Counter counter = counters[formulaIndex];
       if (counter == null) {
-        countersByFormula.put(formula, childCounter);
+        counters[formulaIndex] = childCounter;
       } else {
         counter.aggregate(childCounter);
       }
@@ -232,8 +257,8 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
      * Counter can be null on a level when it has not been fed by children levels
      */
     @CheckForNull
-    public Counter getCounter(Formula formula) {
-      return countersByFormula.get(formula);
+    public Counter getCounter(int formulaIndex) {
+      return counters[formulaIndex];
     }
   }
 
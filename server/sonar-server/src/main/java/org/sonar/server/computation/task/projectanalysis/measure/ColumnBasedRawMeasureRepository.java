@@ -0,0 +1,278 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures of components of a report.
+ * <p>
+ * Measures are not stored as {@link Measure} objects but in one column per metric, each column being indexed by the
+ * report ref of the components. Numerical values and variations are stored in arrays of primitives, only data and
+ * QualityGate status are stored as objects. {@link Measure} objects are recreated when read.
+ * </p>
+ * <p>
+ * Measures of developers are stored in a {@link MapBasedRawMeasureRepository}.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ColumnBasedRawMeasureRepository implements MeasureRepository {
+  private final Map<String, MeasureColumn> columnsByMetricKey = new HashMap<>();
+  private final MapBasedRawMeasureRepository<Integer> developerMeasures = new MapBasedRawMeasureRepository<>(toReportRef());
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    MeasureColumn column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return Optional.absent();
+    }
+    return Optional.fromNullable(column.get(refOf(component)));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (exists(component, metric, measure)) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (!exists(component, metric, measure)) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  private boolean exists(Component component, Metric metric, Measure measure) {
+    if (measure.getDeveloper() != null) {
+      // Measure#equals only compares developers
+      return developerMeasures.getRawMeasures(component, metric).contains(measure);
+    }
+    MeasureColumn column = columnsByMetricKey.get(metric.getKey());
+    return column != null && column.contains(refOf(component));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+
+    Set<Measure> measuresOfDevelopers = developerMeasures.getRawMeasures(component, metric);
+    MeasureColumn column = columnsByMetricKey.get(metric.getKey());
+    Measure measure = column == null ? null : column.get(refOf(component));
+    if (measure == null) {
+      return measuresOfDevelopers;
+    }
+    return ImmutableSet.<Measure>builder().add(measure).addAll(measuresOfDevelopers).build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int ref = refOf(component);
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, MeasureColumn> entry : columnsByMetricKey.entrySet()) {
+      Measure measure = entry.getValue().get(ref);
+      if (measure != null) {
+        builder.put(entry.getKey(), measure);
+      }
+    }
+    builder.putAll(developerMeasures.getRawMeasures(component));
+    return builder.build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure, overridePolicy);
+      return;
+    }
+    MeasureColumn column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      column = new MeasureColumn(metric.getType().getValueType());
+      columnsByMetricKey.put(metric.getKey(), column);
+    }
+    int ref = refOf(component);
+    if (!column.contains(ref) || overridePolicy == OverridePolicy.OVERRIDE) {
+      column.set(ref, measure);
+    }
+  }
+
+  private static int refOf(Component component) {
+    return component.getReportAttributes().getRef();
+  }
+
+  /**
+   * Measures of a single metric, indexed by component ref.
+   */
+  private static final class MeasureColumn {
+    private static final double[] EMPTY = new double[0];
+    private static final Measure.Level[] LEVELS = Measure.Level.values();
+
+    private final Measure.ValueType valueType;
+    private final BitSet present = new BitSet();
+    private final BitSet noValue = new BitSet();
+    private final BitSet withVariation = new BitSet();
+    /**
+     * Values of BOOLEAN, INT, LONG and DOUBLE measures, ordinal of the level of LEVEL measures
+     */
+    private double[] values = EMPTY;
+    private double[] variations = EMPTY;
+    private final Map<Integer, String> data = new HashMap<>();
+    private final Map<Integer, QualityGateStatus> qualityGateStatuses = new HashMap<>();
+
+    private MeasureColumn(Measure.ValueType valueType) {
+      this.valueType = valueType;
+    }
+
+    boolean contains(int ref) {
+      return present.get(ref);
+    }
+
+    void set(int ref, Measure measure) {
+      present.set(ref);
+      boolean hasNoValue = measure.getValueType() == Measure.ValueType.NO_VALUE;
+      noValue.set(ref, hasNoValue);
+      if (!hasNoValue && valueType != Measure.ValueType.STRING) {
+        values = ensureCapacity(values, ref);
+        values[ref] = toDouble(measure);
+      }
+      if (measure.hasVariation()) {
+        withVariation.set(ref);
+        variations = ensureCapacity(variations, ref);
+        variations[ref] = measure.getVariation();
+      } else {
+        withVariation.clear(ref);
+      }
+      putOrRemove(data, ref, measure.getData());
+      putOrRemove(qualityGateStatuses, ref, measure.hasQualityGateStatus() ? measure.getQualityGateStatus() : null);
+    }
+
+    @CheckForNull
+    Measure get(int ref) {
+      if (!present.get(ref)) {
+        return null;
+      }
+      Double variation = withVariation.get(ref) ? variations[ref] : null;
+      String measureData = data.get(ref);
+      QualityGateStatus qualityGateStatus = qualityGateStatuses.get(ref);
+      if (noValue.get(ref)) {
+        return Measure.restore(Measure.ValueType.NO_VALUE, null, measureData, null, qualityGateStatus, variation);
+      }
+      switch (valueType) {
+        case STRING:
+          return Measure.restore(valueType, null, measureData, null, qualityGateStatus, variation);
+        case LEVEL:
+          return Measure.restore(valueType, null, measureData, LEVELS[(int) values[ref]], qualityGateStatus, variation);
+        default:
+          return Measure.restore(valueType, values[ref], measureData, null, qualityGateStatus, variation);
+      }
+    }
+
+    private double toDouble(Measure measure) {
+      switch (valueType) {
+        case BOOLEAN:
+          return measure.getBooleanValue() ? 1.0d : 0.0d;
+        case INT:
+          return measure.getIntValue();
+        case LONG:
+          return measure.getLongValue();
+        case DOUBLE:
+          return measure.getDoubleValue();
+        case LEVEL:
+          return measure.getLevelValue().ordinal();
+        default:
+          throw new IllegalArgumentException(format("Unsupported value type %s", valueType));
+      }
+    }
+
+    private static double[] ensureCapacity(double[] array, int index) {
+      if (index < array.length) {
+        return array;
+      }
+      return Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+    }
+
+    private static <V> void putOrRemove(Map<Integer, V> map, int ref, @Nullable V value) {
+      if (value == null) {
+        map.remove(ref);
+      } else {
+        map.put(ref, value);
+      }
+    }
+  }
+}
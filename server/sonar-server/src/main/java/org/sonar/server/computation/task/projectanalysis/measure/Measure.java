@@ -92,6 +92,15 @@ public final class Measure {
     this.variation = variation;
   }
 
+  /**
+   * Recreates a Measure from the fields of a Measure previously created by one of the builders, without any check nor
+   * rounding of the value.
+   */
+  static Measure restore(ValueType valueType, @Nullable Double value, @Nullable String data, @Nullable Level dataLevel,
+    @Nullable QualityGateStatus qualityGateStatus, @Nullable Double variation) {
+    return new Measure(valueType, null, value, data, dataLevel, qualityGateStatus, variation);
+  }
+
   public static NewMeasureBuilder newMeasureBuilder() {
     return new NewMeasureBuilder();
   }
@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import java.util.List;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
@@ -73,6 +74,10 @@ public class CommentMeasuresStep implements ComputationStep {
         .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return formulas;
+  }
+
   private class CommentDensityFormula implements Formula<IntSumCounter> {
 
     private final Metric nclocMetric;
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
+import java.util.List;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.AverageFormula;
@@ -88,6 +89,10 @@ public class ComplexityMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return FORMULAS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute complexity measures";
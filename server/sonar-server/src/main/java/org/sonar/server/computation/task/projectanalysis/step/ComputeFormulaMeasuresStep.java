@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import com.google.common.collect.ImmutableList;
+import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.formula.Formula;
+import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+/**
+ * Executes the formulas of all the measure steps in a single crawl of the component tree.
+ *
+ * Formulas are executed in the order of the steps, so that a formula can read the measures created on the same component
+ * by the formulas of the previous steps (eg. {@link DuplicationMeasuresStep} reads {@link CommentMeasuresStep}'s
+ * comment lines).
+ */
+public class ComputeFormulaMeasuresStep implements ComputationStep {
+
+  private final TreeRootHolder treeRootHolder;
+  private final PeriodHolder periodHolder;
+  private final MetricRepository metricRepository;
+  private final MeasureRepository measureRepository;
+  private final SizeMeasuresStep sizeMeasuresStep;
+  private final Iterable<Formula> formulas;
+
+  public ComputeFormulaMeasuresStep(TreeRootHolder treeRootHolder, PeriodHolder periodHolder, MetricRepository metricRepository,
+    MeasureRepository measureRepository, SizeMeasuresStep sizeMeasuresStep, NewCoverageMeasuresStep newCoverageMeasuresStep,
+    CoverageMeasuresStep coverageMeasuresStep, CommentMeasuresStep commentMeasuresStep, DuplicationMeasuresStep duplicationMeasuresStep,
+    NewSizeMeasuresStep newSizeMeasuresStep, LanguageDistributionMeasuresStep languageDistributionMeasuresStep,
+    UnitTestMeasuresStep unitTestMeasuresStep, ComplexityMeasuresStep complexityMeasuresStep) {
+    this.treeRootHolder = treeRootHolder;
+    this.periodHolder = periodHolder;
+    this.metricRepository = metricRepository;
+    this.measureRepository = measureRepository;
+    this.sizeMeasuresStep = sizeMeasuresStep;
+    this.formulas = ImmutableList.<Formula>builder()
+      .addAll(sizeMeasuresStep.getFormulas())
+      .addAll(newCoverageMeasuresStep.getFormulas())
+      .addAll(coverageMeasuresStep.getFormulas())
+      .addAll(commentMeasuresStep.getFormulas())
+      .addAll(duplicationMeasuresStep.getFormulas())
+      .addAll(newSizeMeasuresStep.getFormulas())
+      .addAll(languageDistributionMeasuresStep.getFormulas())
+      .addAll(unitTestMeasuresStep.getFormulas())
+      .addAll(complexityMeasuresStep.getFormulas())
+      .build();
+  }
+
+  @Override
+  public void execute() {
+    sizeMeasuresStep.computeFileAndDirectoryMeasures();
+    new PathAwareCrawler<>(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
+        .withVariationSupport(periodHolder)
+        .buildFor(formulas))
+          .visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public String getDescription() {
+    return "Compute measures";
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
+import java.util.List;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
@@ -71,6 +72,10 @@ public class CoverageMeasuresStep implements ComputationStep {
         .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return COVERAGE_FORMULAS;
+  }
+
   private static class CodeCoverageFormula extends LinesAndConditionsWithUncoveredFormula {
     public CodeCoverageFormula() {
       super(
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -95,6 +96,10 @@ public class DuplicationMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return formulas;
+  }
+
   private static class DuplicationCounter implements Counter<DuplicationCounter> {
     @CheckForNull
     private final DuplicationRepository duplicationRepository;
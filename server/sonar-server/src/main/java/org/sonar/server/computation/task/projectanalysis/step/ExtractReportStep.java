@@ -28,9 +28,9 @@ import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.ReportStore;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.ce.CeTaskInputDao;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
@@ -41,13 +41,15 @@ import org.sonar.server.computation.task.step.ComputationStep;
 public class ExtractReportStep implements ComputationStep {
 
   private final DbClient dbClient;
+  private final ReportStore reportStore;
   private final CeTask task;
   private final TempFolder tempFolder;
   private final MutableBatchReportDirectoryHolder reportDirectoryHolder;
 
-  public ExtractReportStep(DbClient dbClient, CeTask task, TempFolder tempFolder,
+  public ExtractReportStep(DbClient dbClient, ReportStore reportStore, CeTask task, TempFolder tempFolder,
     MutableBatchReportDirectoryHolder reportDirectoryHolder) {
     this.dbClient = dbClient;
+    this.reportStore = reportStore;
     this.task = task;
     this.tempFolder = tempFolder;
     this.reportDirectoryHolder = reportDirectoryHolder;
@@ -56,18 +58,18 @@ public class ExtractReportStep implements ComputationStep {
   @Override
   public void execute() {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
+      Optional<ReportStore.Report> opt = reportStore.open(dbSession, task.getUuid());
       if (opt.isPresent()) {
         File unzippedDir = tempFolder.newDir();
-        try (CeTaskInputDao.DataStream reportStream = opt.get();
+        try (ReportStore.Report reportStream = opt.get();
              InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
           ZipUtils.unzip(zipStream, unzippedDir);
         } catch (IOException e) {
-          throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
+          throw new IllegalStateException("Fail to extract report " + task.getUuid(), e);
         }
         reportDirectoryHolder.setDirectory(unzippedDir);
       } else {
-        throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
+        throw MessageException.of("Analysis report " + task.getUuid() + " is missing");
       }
     }
   }
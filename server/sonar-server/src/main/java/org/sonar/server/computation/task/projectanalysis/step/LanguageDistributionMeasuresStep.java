@@ -24,6 +24,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.TreeMultiset;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -73,6 +74,10 @@ public class LanguageDistributionMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return FORMULAS;
+  }
+
   private static class LanguageDistributionFormula implements Formula<LanguageDistributionCounter> {
 
     @Override
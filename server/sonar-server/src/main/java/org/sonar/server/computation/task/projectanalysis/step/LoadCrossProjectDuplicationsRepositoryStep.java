@@ -20,11 +20,21 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.duplication.DuplicationUnitDto;
@@ -50,6 +60,9 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 /**
  * Feed the duplications repository from the cross project duplication blocks computed with duplications blocks of the analysis report.
  *
+ * The candidate blocks are loaded for the whole project at once: the distinct hashes of all the files are collected per
+ * language, candidates are selected by sorted batches of hashes, and are then dispatched back to the files by hash.
+ *
  * Blocks can be empty if :
  * - The file is excluded from the analysis using {@link org.sonar.api.CoreProperties#CPD_EXCLUSIONS}
  * - On Java, if the number of statements of the file is too small, nothing will be sent.
@@ -79,7 +92,56 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   @Override
   public void execute() {
     if (crossProjectDuplicationStatusHolder.isEnabled()) {
-      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
+      HashCollectorVisitor hashCollector = new HashCollectorVisitor();
+      new DepthTraversalTypeAwareCrawler(hashCollector).visit(treeRootHolder.getRoot());
+      Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage = selectCandidates(hashCollector.hashesByLanguage);
+      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor(candidatesByLanguage)).visit(treeRootHolder.getRoot());
+    }
+  }
+
+  private Map<String, ListMultimap<String, DuplicationUnitDto>> selectCandidates(Map<String, Set<String>> hashesByLanguage) {
+    Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage = new HashMap<>();
+    if (hashesByLanguage.isEmpty()) {
+      return candidatesByLanguage;
+    }
+    Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
+    String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      for (Map.Entry<String, Set<String>> entry : hashesByLanguage.entrySet()) {
+        ListMultimap<String, DuplicationUnitDto> candidatesByHash = ArrayListMultimap.create();
+        dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, entry.getKey(), entry.getValue())
+          .forEach(dto -> candidatesByHash.put(dto.getHash(), dto));
+        LOGGER.debug("Found {} cross project duplication candidates for {} distinct {} hashes", candidatesByHash.size(), entry.getValue().size(), entry.getKey());
+        candidatesByLanguage.put(entry.getKey(), candidatesByHash);
+      }
+    }
+    return candidatesByLanguage;
+  }
+
+  @CheckForNull
+  private static String languageOf(Component file) {
+    return file.getFileAttributes().getLanguageKey();
+  }
+
+  private class HashCollectorVisitor extends TypeAwareVisitorAdapter {
+    // hashes are sorted so that candidates are selected by batches of contiguous hashes
+    private final Map<String, Set<String>> hashesByLanguage = new HashMap<>();
+
+    private HashCollectorVisitor() {
+      super(CrawlerDepthLimit.FILE, PRE_ORDER);
+    }
+
+    @Override
+    public void visitFile(Component file) {
+      String language = languageOf(file);
+      if (language == null) {
+        return;
+      }
+      try (CloseableIterator<CpdTextBlock> cpdTextBlocks = reportReader.readCpdTextBlocks(file.getReportAttributes().getRef())) {
+        while (cpdTextBlocks.hasNext()) {
+          hashesByLanguage.computeIfAbsent(language, l -> new TreeSet<>()).add(cpdTextBlocks.next().getHash());
+        }
+      }
     }
   }
 
@@ -89,9 +151,11 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   }
 
   private class CrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage;
 
-    private CrossProjectDuplicationVisitor() {
+    private CrossProjectDuplicationVisitor(Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
+      this.candidatesByLanguage = candidatesByLanguage;
     }
 
     @Override
@@ -116,11 +180,13 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
     }
 
     private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
-      try (DbSession dbSession = dbClient.openSession(false)) {
-        Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
-        String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
+      String language = languageOf(file);
+      ListMultimap<String, DuplicationUnitDto> candidatesByHash = language == null ? null : candidatesByLanguage.get(language);
+      List<DuplicationUnitDto> dtos = new ArrayList<>();
+      if (candidatesByHash != null) {
+        new LinkedHashSet<>(hashes).forEach(hash -> dtos.addAll(candidatesByHash.get(hash)));
       }
+      return dtos;
     }
   }
 
@@ -104,11 +104,14 @@ public class NewCoverageMeasuresStep implements ComputationStep {
     new PathAwareCrawler<>(
       FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
         .withVariationSupport(periodHolder)
-        .buildFor(
-          Iterables.concat(NewLinesAndConditionsCoverageFormula.from(scmInfoRepository), FORMULAS)))
+        .buildFor(getFormulas()))
             .visit(treeRootHolder.getRoot());
   }
 
+  Iterable<Formula> getFormulas() {
+    return Iterables.concat(NewLinesAndConditionsCoverageFormula.from(scmInfoRepository), FORMULAS);
+  }
+
   @Override
   public String getDescription() {
     return "Compute new coverage";
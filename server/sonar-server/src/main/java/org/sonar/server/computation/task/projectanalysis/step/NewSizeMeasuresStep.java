@@ -23,6 +23,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
@@ -84,10 +85,14 @@ public class NewSizeMeasuresStep implements ComputationStep {
     new PathAwareCrawler<>(
       FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
         .withVariationSupport(periodHolder)
-        .buildFor(ImmutableList.of(duplicationFormula)))
+        .buildFor(getFormulas()))
           .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return ImmutableList.<Formula>of(duplicationFormula);
+  }
+
   private static class NewSizeCounter implements Counter<NewSizeCounter> {
     private final DuplicationRepository duplicationRepository;
     private final ScmInfoRepository scmInfoRepository;
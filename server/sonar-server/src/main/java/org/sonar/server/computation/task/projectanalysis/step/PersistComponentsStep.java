@@ -20,8 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Predicate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +39,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentUpdateDto;
+import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -46,6 +49,7 @@ import org.sonar.server.computation.task.projectanalysis.component.MutableDisabl
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.component.ProjectComponentsCache;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
@@ -66,16 +70,19 @@ public class PersistComponentsStep implements ComputationStep {
   private final System2 system2;
   private final MutableDisabledComponentsHolder disabledComponentsHolder;
   private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final ProjectComponentsCache projectComponentsCache;
 
   public PersistComponentsStep(DbClient dbClient, TreeRootHolder treeRootHolder,
     MutableDbIdsRepository dbIdsRepository, System2 system2,
-    MutableDisabledComponentsHolder disabledComponentsHolder, AnalysisMetadataHolder analysisMetadataHolder) {
+    MutableDisabledComponentsHolder disabledComponentsHolder, AnalysisMetadataHolder analysisMetadataHolder,
+    ProjectComponentsCache projectComponentsCache) {
     this.dbClient = dbClient;
     this.treeRootHolder = treeRootHolder;
     this.dbIdsRepository = dbIdsRepository;
     this.system2 = system2;
     this.disabledComponentsHolder = disabledComponentsHolder;
     this.analysisMetadataHolder = analysisMetadataHolder;
+    this.projectComponentsCache = projectComponentsCache;
   }
 
   @Override
@@ -95,16 +102,32 @@ public class PersistComponentsStep implements ComputationStep {
       boolean isRootPrivate = isRootPrivate(treeRootHolder.getRoot(), existingDtosByKeys);
       // Insert or update the components in database. They are removed from existingDtosByKeys
       // at the same time.
-      new PathAwareCrawler<>(new PersistComponentStepsVisitor(existingDtosByKeys, dbSession))
-        .visit(treeRootHolder.getRoot());
+      PersistComponentStepsVisitor visitor = new PersistComponentStepsVisitor(existingDtosByKeys, dbSession);
+      new PathAwareCrawler<>(visitor).visit(treeRootHolder.getRoot());
 
       disableRemainingComponents(dbSession, existingDtosByKeys.values());
       ensureConsistentVisibility(dbSession, projectUuid, isRootPrivate);
 
       dbSession.commit();
+      cachePersistedComponents(projectUuid, visitor.persistedDtos, existingDtosByKeys.values(), isRootPrivate);
     }
   }
 
+  /**
+   * The cached components are the ones of the project once the current analysis is processed. The cache entry is
+   * ignored if the processing fails afterwards, as this analysis is then not the base analysis of the next one.
+   */
+  private void cachePersistedComponents(String projectUuid, List<ComponentDto> persistedDtos, Collection<ComponentDto> remainingDtos, boolean isRootPrivate) {
+    if (!projectComponentsCache.isEnabled()) {
+      return;
+    }
+    List<ComponentDto> dtos = new ArrayList<>(persistedDtos.size() + remainingDtos.size());
+    dtos.addAll(persistedDtos);
+    remainingDtos.forEach(dto -> dtos.add(dto.setEnabled(false)));
+    dtos.forEach(dto -> dto.setPrivate(isRootPrivate));
+    projectComponentsCache.put(projectUuid, analysisMetadataHolder.getUuid(), dtos);
+  }
+
   private void disableRemainingComponents(DbSession dbSession, Collection<ComponentDto> dtos) {
     Set<String> uuids = dtos.stream()
       .filter(ComponentDto::isEnabled)
@@ -135,15 +158,27 @@ public class PersistComponentsStep implements ComputationStep {
    * disabled components.
    */
   private Map<String, ComponentDto> indexExistingDtosByKey(DbSession session) {
-    return dbClient.componentDao().selectAllComponentsFromProjectKey(session, treeRootHolder.getRoot().getKey())
+    Component root = treeRootHolder.getRoot();
+    List<ComponentDto> existingDtos = selectCachedDtos(session, root)
+      .orElseGet(() -> dbClient.componentDao().selectAllComponentsFromProjectKey(session, root.getKey()));
+    return existingDtos
       .stream()
       .collect(java.util.stream.Collectors.toMap(ComponentDto::key, Function.identity()));
   }
 
+  private Optional<List<ComponentDto>> selectCachedDtos(DbSession session, Component root) {
+    if (!projectComponentsCache.isEnabled()) {
+      return Optional.empty();
+    }
+    Analysis baseAnalysis = analysisMetadataHolder.getBaseAnalysis();
+    return projectComponentsCache.get(session, root.getUuid(), root.getKey(), baseAnalysis == null ? null : baseAnalysis.getUuid());
+  }
+
   private class PersistComponentStepsVisitor extends PathAwareVisitorAdapter<ComponentDtoHolder> {
 
     private final Map<String, ComponentDto> existingComponentDtosByKey;
     private final DbSession dbSession;
+    private final List<ComponentDto> persistedDtos = new ArrayList<>();
 
     public PersistComponentStepsVisitor(Map<String, ComponentDto> existingComponentDtosByKey, DbSession dbSession) {
       super(
@@ -216,6 +251,7 @@ public class PersistComponentsStep implements ComputationStep {
     private ComponentDto persistAndPopulateCache(Component component, ComponentDto dto) {
       ComponentDto projectDto = persistComponent(dto);
       addToCache(component, projectDto);
+      persistedDtos.add(projectDto);
       return projectDto;
     }
 
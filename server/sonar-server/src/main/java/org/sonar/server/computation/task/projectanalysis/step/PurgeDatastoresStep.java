@@ -19,8 +19,15 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.core.config.PurgeConstants;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.DbIdsRepository;
@@ -39,21 +46,25 @@ import static org.sonar.server.computation.task.projectanalysis.component.Crawle
 
 public class PurgeDatastoresStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(PurgeDatastoresStep.class);
+
   private final ProjectCleaner projectCleaner;
   private final DbClient dbClient;
   private final DbIdsRepository dbIdsRepository;
   private final TreeRootHolder treeRootHolder;
   private final SettingsRepository settingsRepository;
   private final DisabledComponentsHolder disabledComponentsHolder;
+  private final CeQueue ceQueue;
 
   public PurgeDatastoresStep(DbClient dbClient, ProjectCleaner projectCleaner, DbIdsRepository dbIdsRepository, TreeRootHolder treeRootHolder,
-    SettingsRepository settingsRepository, DisabledComponentsHolder disabledComponentsHolder) {
+    SettingsRepository settingsRepository, DisabledComponentsHolder disabledComponentsHolder, CeQueue ceQueue) {
     this.projectCleaner = projectCleaner;
     this.dbClient = dbClient;
     this.dbIdsRepository = dbIdsRepository;
     this.treeRootHolder = treeRootHolder;
     this.settingsRepository = settingsRepository;
     this.disabledComponentsHolder = disabledComponentsHolder;
+    this.ceQueue = ceQueue;
   }
 
   @Override
@@ -73,13 +84,41 @@ public class PurgeDatastoresStep implements ComputationStep {
   }
 
   private void execute(Component root) {
+    Settings settings = settingsRepository.getSettings(root);
     try (DbSession dbSession = dbClient.openSession(true)) {
       IdUuidPair idUuidPair = new IdUuidPair(dbIdsRepository.getComponentId(root), root.getUuid());
-      projectCleaner.purge(dbSession, idUuidPair, settingsRepository.getSettings(root), disabledComponentsHolder.getUuids());
+      if (settings.getBoolean(PurgeConstants.DEFERRED)) {
+        projectCleaner.purgeDisabledComponents(dbSession, idUuidPair, settings, disabledComponentsHolder.getUuids());
+        submitPurgeTask(dbSession, root.getUuid());
+      } else {
+        projectCleaner.purge(dbSession, idUuidPair, settings, disabledComponentsHolder.getUuids());
+      }
       dbSession.commit();
     }
   }
 
+  /**
+   * Queues the purge of the specified root, unless one is already pending: purges of a project which is analyzed more
+   * often than the purges can be processed are coalesced.
+   */
+  private void submitPurgeTask(DbSession dbSession, String rootUuid) {
+    boolean alreadyPending = dbClient.ceQueueDao().selectByComponentUuid(dbSession, rootUuid).stream()
+      .anyMatch(dto -> dto.getStatus() == CeQueueDto.Status.PENDING && CeTaskTypes.PROJECT_PURGE.equals(dto.getTaskType()));
+    if (alreadyPending) {
+      LOG.debug("Purge of component {} is already queued", rootUuid);
+      return;
+    }
+    try {
+      ceQueue.submit(ceQueue.prepareSubmit()
+        .setType(CeTaskTypes.PROJECT_PURGE)
+        .setComponentUuid(rootUuid)
+        .build());
+    } catch (RuntimeException e) {
+      // purge errors must no fail the report analysis
+      LOG.error("Fail to queue purge of component [uuid=" + rootUuid + "]", e);
+    }
+  }
+
   @Override
   public String getDescription() {
     return "Purge db";
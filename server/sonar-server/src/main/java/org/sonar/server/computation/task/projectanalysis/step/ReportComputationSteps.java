@@ -58,17 +58,10 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     LoadCrossProjectDuplicationsRepositoryStep.class,
 
     // data computation
-    SizeMeasuresStep.class,
-    NewCoverageMeasuresStep.class,
-    CoverageMeasuresStep.class,
-    CommentMeasuresStep.class,
     CustomMeasuresCopyStep.class,
-    DuplicationMeasuresStep.class,
     DuplicationDataMeasuresStep.class,
-    NewSizeMeasuresStep.class,
-    LanguageDistributionMeasuresStep.class,
-    UnitTestMeasuresStep.class,
-    ComplexityMeasuresStep.class,
+    // executes the formulas of the measure steps declared in ProjectAnalysisTaskContainerPopulator
+    ComputeFormulaMeasuresStep.class,
 
     LoadMeasureComputersStep.class,
     ExecuteVisitorsStep.class,
@@ -75,14 +75,25 @@ public class SizeMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
+    computeFileAndDirectoryMeasures();
+    new PathAwareCrawler<>(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
+      .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS))
+        .visit(treeRootHolder.getRoot());
+  }
+
+  /**
+   * Computes the measures which are not computed by formulas. They must be computed before any formula is executed.
+   */
+  void computeFileAndDirectoryMeasures() {
     new PathAwareCrawler<>(new FileAndDirectoryMeasureVisitor(
       metricRepository.getByKey(DIRECTORIES_KEY),
       metricRepository.getByKey(FILES_KEY),
       metricRepository.getByKey(LINES_KEY)))
         .visit(treeRootHolder.getRoot());
-    new PathAwareCrawler<>(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
-      .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS))
-        .visit(treeRootHolder.getRoot());
+  }
+
+  List<Formula> getFormulas() {
+    return AGGREGATED_SIZE_MEASURE_FORMULAS;
   }
 
   @Override
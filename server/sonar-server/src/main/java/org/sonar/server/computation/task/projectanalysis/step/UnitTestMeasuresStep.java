@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import java.util.List;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
@@ -74,6 +75,10 @@ public class UnitTestMeasuresStep implements ComputationStep {
         .visit(treeRootHolder.getRoot());
   }
 
+  List<Formula> getFormulas() {
+    return FORMULAS;
+  }
+
   private static class UnitTestsFormula implements Formula<UnitTestsCounter> {
 
     @Override
@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.profiling.SqlStatementContext;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
@@ -60,9 +61,24 @@ public final class ComputationStepExecutor {
 
   private void executeSteps(Profiler stepProfiler) {
     for (ComputationStep step : steps.instances()) {
+      String description = step.getDescription();
       stepProfiler.start();
-      step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      StepProfile.Meter meter = StepProfile.start();
+      SqlStatementContext.enterScope("CE: " + description);
+      try {
+        step.execute();
+      } finally {
+        SqlStatementContext.exitScope();
+      }
+      StepProfile profile = meter.stop(description);
+      TaskProfiler.addStep(profile);
+      stepProfiler
+        .addContext("cpu", profile.getCpuTimeMs() + "ms")
+        .addContext("allocated", profile.getAllocatedBytes() + "B")
+        .addContext("sql", profile.getSqlExecutions())
+        .addContext("sqlTime", profile.getSqlTimeMs() + "ms")
+        .addContext("es", profile.getEsRequests())
+        .stopDebug(description);
     }
   }
 
@@ -0,0 +1,203 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonar.db.profiling.SqlStatementContext;
+import org.sonar.server.es.EsRequestCounter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Resources used by the current thread to execute a step of a Compute Engine task, or the whole task: wall time,
+ * CPU time, allocated bytes, SQL statements and Elasticsearch requests.
+ * <p>
+ * CPU time and allocated bytes are -1 when not supported by the JVM.
+ */
+public final class StepProfile {
+
+  private static final char FIELD_SEPARATOR = ',';
+  private static final int FIELD_COUNT = 7;
+
+  private final String name;
+  private final long wallTimeMs;
+  private final long cpuTimeMs;
+  private final long allocatedBytes;
+  private final long sqlExecutions;
+  private final long sqlTimeMs;
+  private final long esRequests;
+
+  public StepProfile(String name, long wallTimeMs, long cpuTimeMs, long allocatedBytes, long sqlExecutions, long sqlTimeMs, long esRequests) {
+    this.name = name;
+    this.wallTimeMs = wallTimeMs;
+    this.cpuTimeMs = cpuTimeMs;
+    this.allocatedBytes = allocatedBytes;
+    this.sqlExecutions = sqlExecutions;
+    this.sqlTimeMs = sqlTimeMs;
+    this.esRequests = esRequests;
+  }
+
+  /**
+   * Starts measuring the resources used by the current thread
+   */
+  public static Meter start() {
+    return new Meter();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getWallTimeMs() {
+    return wallTimeMs;
+  }
+
+  public long getCpuTimeMs() {
+    return cpuTimeMs;
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public long getSqlExecutions() {
+    return sqlExecutions;
+  }
+
+  public long getSqlTimeMs() {
+    return sqlTimeMs;
+  }
+
+  public long getEsRequests() {
+    return esRequests;
+  }
+
+  /**
+   * Compact form, as persisted with the task: one line per profile, numbers first and name last
+   * (names of steps may contain the separator)
+   */
+  public static String format(List<StepProfile> profiles) {
+    StringBuilder sb = new StringBuilder();
+    for (StepProfile profile : profiles) {
+      if (sb.length() > 0) {
+        sb.append('\n');
+      }
+      sb.append(profile.wallTimeMs).append(FIELD_SEPARATOR)
+        .append(profile.cpuTimeMs).append(FIELD_SEPARATOR)
+        .append(profile.allocatedBytes).append(FIELD_SEPARATOR)
+        .append(profile.sqlExecutions).append(FIELD_SEPARATOR)
+        .append(profile.sqlTimeMs).append(FIELD_SEPARATOR)
+        .append(profile.esRequests).append(FIELD_SEPARATOR)
+        .append(profile.name.replace('\n', ' '));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Reverse of {@link #format(List)}
+   *
+   * @throws IllegalArgumentException if the string is not a valid compact form
+   */
+  public static List<StepProfile> parse(@Nullable String formatted) {
+    List<StepProfile> profiles = new ArrayList<>();
+    if (formatted == null || formatted.isEmpty()) {
+      return profiles;
+    }
+    for (String line : formatted.split("\n")) {
+      String[] fields = line.split(String.valueOf(FIELD_SEPARATOR), FIELD_COUNT);
+      checkArgument(fields.length == FIELD_COUNT, "Invalid step profile: %s", line);
+      try {
+        profiles.add(new StepProfile(fields[6], Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+          Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5])));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid step profile: " + line, e);
+      }
+    }
+    return profiles;
+  }
+
+  @Override
+  public String toString() {
+    return name
+      + " | time=" + wallTimeMs + "ms"
+      + " | cpu=" + cpuTimeMs + "ms"
+      + " | allocated=" + allocatedBytes + "B"
+      + " | sql=" + sqlExecutions
+      + " | sqlTime=" + sqlTimeMs + "ms"
+      + " | es=" + esRequests;
+  }
+
+  public static final class Meter {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private final long startSqlExecutions;
+    private final long startSqlTimeNanos;
+    private final long startEsRequests;
+
+    private Meter() {
+      this.startNanos = System.nanoTime();
+      this.startCpuNanos = currentThreadCpuTime();
+      this.startAllocatedBytes = currentThreadAllocatedBytes();
+      this.startSqlExecutions = SqlStatementContext.getThreadExecutions();
+      this.startSqlTimeNanos = SqlStatementContext.getThreadExecutionTimeNanos();
+      this.startEsRequests = EsRequestCounter.get();
+    }
+
+    public StepProfile stop(String name) {
+      long cpuNanos = currentThreadCpuTime();
+      long allocatedBytes = currentThreadAllocatedBytes();
+      return new StepProfile(name,
+        NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+        (cpuNanos < 0 || startCpuNanos < 0) ? -1L : NANOSECONDS.toMillis(cpuNanos - startCpuNanos),
+        (allocatedBytes < 0 || startAllocatedBytes < 0) ? -1L : (allocatedBytes - startAllocatedBytes),
+        SqlStatementContext.getThreadExecutions() - startSqlExecutions,
+        NANOSECONDS.toMillis(SqlStatementContext.getThreadExecutionTimeNanos() - startSqlTimeNanos),
+        EsRequestCounter.get() - startEsRequests);
+    }
+
+    private static long currentThreadCpuTime() {
+      if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+        return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+      }
+      return -1L;
+    }
+
+    /**
+     * Relies on the extension of the HotSpot JVM, the only one supported by SonarQube
+     */
+    private static long currentThreadAllocatedBytes() {
+      if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+        if (hotspotBean.isThreadAllocatedMemorySupported() && hotspotBean.isThreadAllocatedMemoryEnabled()) {
+          return hotspotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+      }
+      return -1L;
+    }
+  }
+}
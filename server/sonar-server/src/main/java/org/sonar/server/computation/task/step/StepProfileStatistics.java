@@ -0,0 +1,211 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Percentiles of the resources used by the steps of Compute Engine tasks, computed on the last profiles of each step.
+ * Steps are listed in order of first occurrence.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class StepProfileStatistics {
+
+  public static final int DEFAULT_SAMPLES_PER_STEP = 100;
+
+  private final int maxSamplesPerStep;
+  private final Map<String, Samples> samplesByStep = new LinkedHashMap<>();
+
+  public StepProfileStatistics() {
+    this(DEFAULT_SAMPLES_PER_STEP);
+  }
+
+  public StepProfileStatistics(int maxSamplesPerStep) {
+    checkArgument(maxSamplesPerStep > 0, "Max samples per step must be strictly positive");
+    this.maxSamplesPerStep = maxSamplesPerStep;
+  }
+
+  public StepProfileStatistics add(Iterable<StepProfile> profiles) {
+    for (StepProfile profile : profiles) {
+      samplesByStep.computeIfAbsent(profile.getName(), name -> new Samples(maxSamplesPerStep)).add(profile);
+    }
+    return this;
+  }
+
+  public List<Summary> getSummaries() {
+    List<Summary> summaries = new ArrayList<>(samplesByStep.size());
+    samplesByStep.forEach((name, samples) -> summaries.add(samples.summarize(name)));
+    return summaries;
+  }
+
+  private static final class Samples {
+    private final StepProfile[] ring;
+    private int count = 0;
+    private int next = 0;
+
+    private Samples(int capacity) {
+      this.ring = new StepProfile[capacity];
+    }
+
+    private void add(StepProfile profile) {
+      ring[next] = profile;
+      next = (next + 1) % ring.length;
+      count = Math.min(count + 1, ring.length);
+    }
+
+    private Summary summarize(String name) {
+      StepProfile[] profiles = Arrays.copyOf(ring, count);
+      return new Summary(name, count,
+        Metric.of(profiles, StepProfile::getWallTimeMs),
+        Metric.of(profiles, StepProfile::getCpuTimeMs),
+        Metric.of(profiles, StepProfile::getAllocatedBytes),
+        Metric.of(profiles, StepProfile::getSqlExecutions),
+        Metric.of(profiles, StepProfile::getSqlTimeMs),
+        Metric.of(profiles, StepProfile::getEsRequests));
+    }
+  }
+
+  public static final class Summary {
+    private final String name;
+    private final int samples;
+    private final Metric wallTimeMs;
+    private final Metric cpuTimeMs;
+    private final Metric allocatedBytes;
+    private final Metric sqlExecutions;
+    private final Metric sqlTimeMs;
+    private final Metric esRequests;
+
+    private Summary(String name, int samples, Metric wallTimeMs, Metric cpuTimeMs, Metric allocatedBytes, Metric sqlExecutions, Metric sqlTimeMs,
+      Metric esRequests) {
+      this.name = name;
+      this.samples = samples;
+      this.wallTimeMs = wallTimeMs;
+      this.cpuTimeMs = cpuTimeMs;
+      this.allocatedBytes = allocatedBytes;
+      this.sqlExecutions = sqlExecutions;
+      this.sqlTimeMs = sqlTimeMs;
+      this.esRequests = esRequests;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getSamples() {
+      return samples;
+    }
+
+    public Metric getWallTimeMs() {
+      return wallTimeMs;
+    }
+
+    public Metric getCpuTimeMs() {
+      return cpuTimeMs;
+    }
+
+    public Metric getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public Metric getSqlExecutions() {
+      return sqlExecutions;
+    }
+
+    public Metric getSqlTimeMs() {
+      return sqlTimeMs;
+    }
+
+    public Metric getEsRequests() {
+      return esRequests;
+    }
+
+    @Override
+    public String toString() {
+      return name
+        + " | samples=" + samples
+        + " | time=" + wallTimeMs
+        + " | cpu=" + cpuTimeMs
+        + " | allocated=" + allocatedBytes
+        + " | sql=" + sqlExecutions
+        + " | sqlTime=" + sqlTimeMs
+        + " | es=" + esRequests;
+    }
+  }
+
+  /**
+   * Percentiles of a metric, computed with the nearest-rank method. Unknown values (negative, for example CPU time
+   * on JVMs that do not support it) are ignored. All percentiles are -1 if no value is known.
+   */
+  public static final class Metric {
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    private Metric(long p50, long p90, long p99, long max) {
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    private static Metric of(StepProfile[] profiles, ToLongFunction<StepProfile> getter) {
+      long[] values = Arrays.stream(profiles).mapToLong(getter).filter(v -> v >= 0).sorted().toArray();
+      if (values.length == 0) {
+        return new Metric(-1L, -1L, -1L, -1L);
+      }
+      return new Metric(percentile(values, 50), percentile(values, 90), percentile(values, 99), values[values.length - 1]);
+    }
+
+    private static long percentile(long[] sortedValues, int percentile) {
+      int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+      return sortedValues[Math.max(rank, 1) - 1];
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return p50 + "/" + p90 + "/" + p99 + "/" + max;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the profiles of the steps executed by the Compute Engine task running in the current thread. Steps
+ * executed outside of {@link #start()} and {@link #stop()}, for example in tests, are not collected.
+ */
+public final class TaskProfiler {
+
+  /**
+   * Name of the profile of the whole task, including what is executed outside of steps (creation of containers...)
+   */
+  public static final String TOTAL = "Total";
+
+  private static final ThreadLocal<TaskProfile> CURRENT = new ThreadLocal<>();
+
+  private TaskProfiler() {
+    // only statics
+  }
+
+  public static void start() {
+    CURRENT.set(new TaskProfile());
+  }
+
+  static void addStep(StepProfile profile) {
+    TaskProfile taskProfile = CURRENT.get();
+    if (taskProfile != null) {
+      taskProfile.steps.add(profile);
+    }
+  }
+
+  /**
+   * @return the profile of the whole task, named {@link #TOTAL}, followed by the profiles of steps in order
+   * of execution. Empty if {@link #start()} has not been called.
+   */
+  public static List<StepProfile> stop() {
+    TaskProfile taskProfile = CURRENT.get();
+    if (taskProfile == null) {
+      return Collections.emptyList();
+    }
+    CURRENT.remove();
+    List<StepProfile> result = new ArrayList<>(taskProfile.steps.size() + 1);
+    result.add(taskProfile.meter.stop(TOTAL));
+    result.addAll(taskProfile.steps);
+    return result;
+  }
+
+  private static final class TaskProfile {
+    private final StepProfile.Meter meter = StepProfile.start();
+    private final List<StepProfile> steps = new ArrayList<>();
+  }
+}
@@ -164,7 +164,8 @@ public class BulkIndexer implements Startable {
 
     @Override
     public void beforeBulk(long executionId, BulkRequest request) {
-      // no action required
+      // called by the thread which triggers the bulk request
+      EsRequestCounter.increment();
     }
 
     @Override
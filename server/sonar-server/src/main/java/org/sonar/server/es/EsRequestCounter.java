@@ -0,0 +1,45 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+/**
+ * Number of requests sent to Elasticsearch by the current thread since its start. Differences of values allow
+ * to measure a unit of work, like a step of a Compute Engine task.
+ */
+public final class EsRequestCounter {
+
+  private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+  private EsRequestCounter() {
+    // only statics
+  }
+
+  /**
+   * Called once per request actually sent, i.e. when a request builder of {@link org.sonar.server.es.request}
+   * is executed or when a bulk request is flushed. Items of bulk requests are not counted.
+   */
+  public static void increment() {
+    COUNT.get()[0]++;
+  }
+
+  public static long get() {
+    return COUNT.get()[0];
+  }
+}
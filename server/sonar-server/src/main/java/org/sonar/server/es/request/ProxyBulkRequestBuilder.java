@@ -34,6 +34,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsRequestCounter;
 
 public class ProxyBulkRequestBuilder extends BulkRequestBuilder {
 
@@ -43,6 +44,7 @@ public class ProxyBulkRequestBuilder extends BulkRequestBuilder {
 
   @Override
   public BulkResponse get() {
+    EsRequestCounter.increment();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
@@ -27,6 +27,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsRequestCounter;
 
 public class ProxyDeleteRequestBuilder extends DeleteRequestBuilder {
 
@@ -36,6 +37,7 @@ public class ProxyDeleteRequestBuilder extends DeleteRequestBuilder {
 
   @Override
   public DeleteResponse get() {
+    EsRequestCounter.increment();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
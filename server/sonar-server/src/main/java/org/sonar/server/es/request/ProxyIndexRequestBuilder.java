@@ -27,6 +27,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsRequestCounter;
 
 public class ProxyIndexRequestBuilder extends IndexRequestBuilder {
 
@@ -36,6 +37,7 @@ public class ProxyIndexRequestBuilder extends IndexRequestBuilder {
 
   @Override
   public IndexResponse get() {
+    EsRequestCounter.increment();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
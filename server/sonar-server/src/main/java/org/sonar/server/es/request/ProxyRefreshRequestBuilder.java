@@ -28,6 +28,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsRequestCounter;
 
 public class ProxyRefreshRequestBuilder extends RefreshRequestBuilder {
 
@@ -37,6 +38,7 @@ public class ProxyRefreshRequestBuilder extends RefreshRequestBuilder {
 
   @Override
   public RefreshResponse get() {
+    EsRequestCounter.increment();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
@@ -53,6 +53,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.db.measure.MeasureTreeQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
@@ -71,6 +72,8 @@ import static org.sonar.api.utils.Paging.offset;
 import static org.sonar.server.component.ComponentFinder.ParamNames.BASE_COMPONENT_ID_AND_KEY;
 import static org.sonar.server.component.ComponentFinder.ParamNames.DEVELOPER_ID_AND_KEY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.LEAVES_STRATEGY;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_PERIOD_SORT;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.STRATEGIES;
 import static org.sonar.server.measure.ws.ComponentTreeAction.WITH_MEASURES_ONLY_METRIC_SORT_FILTER;
 import static org.sonar.server.measure.ws.SnapshotDtoToWsPeriods.snapshotToWsPeriods;
@@ -106,15 +109,16 @@ public class ComponentTreeDataLoader {
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
       List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
       List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
-        components,
-        metrics, developerId);
+      Table<String, MetricDto, Measure> sortMeasuresByComponentUuidAndMetric = searchSortMeasuresByComponentUuidAndMetric(dbSession, baseComponent,
+        componentTreeQuery, components, metrics, developerId, wsRequest);
 
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
+      components = filterComponents(components, sortMeasuresByComponentUuidAndMetric, metrics, wsRequest);
+      components = sortComponents(components, wsRequest, metrics, sortMeasuresByComponentUuidAndMetric);
 
       int componentCount = components.size();
       components = paginateComponents(components, wsRequest);
+      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, components, metrics,
+        developerId);
 
       return ComponentTreeData.builder()
         .setBaseComponent(baseComponent)
@@ -178,11 +182,20 @@ public class ComponentTreeDataLoader {
     return metrics;
   }
 
-  private Table<String, MetricDto, Measure> searchMeasuresByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent,
-    ComponentTreeQuery componentTreeQuery,
-    List<ComponentDto> components, List<MetricDto> metrics, @Nullable Long developerId) {
+  /**
+   * Measures of the metric used to filter and sort the components. Measures of the other metrics
+   * are loaded only for the requested page, see {@link #searchMeasuresByComponentUuidAndMetric(DbSession, ComponentDto, List, List, Long)}.
+   */
+  private Table<String, MetricDto, Measure> searchSortMeasuresByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent,
+    ComponentTreeQuery componentTreeQuery, List<ComponentDto> components, List<MetricDto> metrics, @Nullable Long developerId, ComponentTreeWsRequest wsRequest) {
+    List<MetricDto> sortMetrics = metrics.stream()
+      .filter(metric -> isMetricUsedToFilterOrSort(metric, wsRequest))
+      .collect(MoreCollectors.toList(1));
+    if (sortMetrics.isEmpty() || components.isEmpty()) {
+      return HashBasedTable.create();
+    }
 
-    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(sortMetrics, MetricDto::getId);
     MeasureTreeQuery measureQuery = MeasureTreeQuery.builder()
       .setStrategy(MeasureTreeQuery.Strategy.valueOf(componentTreeQuery.getStrategy().name()))
       .setNameOrKeyQuery(componentTreeQuery.getNameOrKeyQuery())
@@ -191,7 +204,7 @@ public class ComponentTreeDataLoader {
       .setMetricIds(new ArrayList<>(metricsById.keySet()))
       .build();
 
-    Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(components.size(), metrics.size());
+    Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(components.size(), sortMetrics.size());
     dbClient.measureDao().selectTreeByQuery(dbSession, baseComponent, measureQuery, result -> {
       MeasureDto measureDto = (MeasureDto) result.getResultObject();
       measuresByComponentUuidAndMetric.put(
@@ -200,6 +213,41 @@ public class ComponentTreeDataLoader {
         Measure.createFromMeasureDto(measureDto));
     });
 
+    addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, sortMetrics);
+
+    return measuresByComponentUuidAndMetric;
+  }
+
+  private static boolean isMetricUsedToFilterOrSort(MetricDto metric, ComponentTreeWsRequest wsRequest) {
+    if (!metric.getKey().equals(wsRequest.getMetricSort())) {
+      return false;
+    }
+    List<String> sortParameters = wsRequest.getSort();
+    boolean isSortedByMetric = sortParameters != null && (sortParameters.contains(METRIC_SORT) || sortParameters.contains(METRIC_PERIOD_SORT));
+    return isSortedByMetric || componentWithMeasuresOnly(wsRequest);
+  }
+
+  /**
+   * Measures of the base component and of the components of the requested page
+   */
+  private Table<String, MetricDto, Measure> searchMeasuresByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent,
+    List<ComponentDto> components, List<MetricDto> metrics, @Nullable Long developerId) {
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
+    List<String> componentUuids = new ArrayList<>(components.size() + 1);
+    componentUuids.add(baseComponent.uuid());
+    components.forEach(component -> componentUuids.add(component.uuid()));
+    MeasureQuery measureQuery = MeasureQuery.builder()
+      .setComponentUuids(baseComponent.projectUuid(), componentUuids)
+      .setMetricIds(new ArrayList<>(metricsById.keySet()))
+      .setPersonId(developerId)
+      .build();
+
+    Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(componentUuids.size(), metrics.size());
+    dbClient.measureDao().selectByQuery(dbSession, measureQuery).forEach(measureDto -> measuresByComponentUuidAndMetric.put(
+      measureDto.getComponentUuid(),
+      metricsById.get(measureDto.getMetricId()),
+      Measure.createFromMeasureDto(measureDto)));
+
     addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, metrics);
 
     return measuresByComponentUuidAndMetric;
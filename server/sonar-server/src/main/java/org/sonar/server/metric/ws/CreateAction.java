@@ -142,6 +142,7 @@ public class CreateAction implements MetricsWsAction {
       .setDescription(metricTemplate.getDescription())
       .setEnabled(true);
     dbClient.metricDao().update(dbSession, metricInDb);
+    MetricsVersion.change(dbClient, dbSession);
     dbSession.commit();
   }
 
@@ -161,6 +162,7 @@ public class CreateAction implements MetricsWsAction {
       .setDeleteHistoricalData(false);
 
     dbClient.metricDao().insert(dbSession, metric);
+    MetricsVersion.change(dbClient, dbSession);
     dbSession.commit();
     return metric;
   }
@@ -69,6 +69,7 @@ public class DeleteAction implements MetricsWsAction {
       dbClient.metricDao().disableCustomByIds(dbSession, ids);
       dbClient.customMeasureDao().deleteByMetricIds(dbSession, ids);
       dbClient.gateConditionDao().deleteConditionsWithInvalidMetrics(dbSession);
+      MetricsVersion.change(dbClient, dbSession);
       dbSession.commit();
     }
 
@@ -0,0 +1,46 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.metric.ws;
+
+import org.sonar.core.util.Uuids;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+/**
+ * Version of the metrics, changed by the web services of this package in the same transaction as the metrics.
+ * It is stored in database, so that all the nodes of a cluster see the changes. Metrics registered at startup are
+ * covered by the startup date of server, which is part of the ETags of {@link org.sonar.server.ws.WsPayloadCache}.
+ */
+final class MetricsVersion {
+
+  static final String PROPERTY_KEY = "metrics.version";
+
+  private MetricsVersion() {
+    // only static methods
+  }
+
+  static void change(DbClient dbClient, DbSession dbSession) {
+    dbClient.internalPropertiesDao().save(dbSession, PROPERTY_KEY, Uuids.create());
+  }
+
+  static String read(DbClient dbClient, DbSession dbSession) {
+    return dbClient.internalPropertiesDao().selectByKey(dbSession, PROPERTY_KEY).orElse("");
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.metric.ws;
 
+import java.io.OutputStreamWriter;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -31,11 +32,14 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.ws.WsPayloadCache;
 
 import static com.google.common.collect.Sets.newHashSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sonar.server.es.SearchOptions.MAX_LIMIT;
 import static org.sonar.server.metric.ws.MetricJsonWriter.FIELD_ID;
 import static org.sonar.server.metric.ws.MetricJsonWriter.FIELD_KEY;
+import static org.sonarqube.ws.MediaTypes.JSON;
 
 public class SearchAction implements MetricsWsAction {
 
@@ -46,9 +50,11 @@ public class SearchAction implements MetricsWsAction {
   private final Set<String> allPossibleFields;
 
   private final DbClient dbClient;
+  private final WsPayloadCache payloadCache;
 
-  public SearchAction(DbClient dbClient) {
+  public SearchAction(DbClient dbClient, WsPayloadCache payloadCache) {
     this.dbClient = dbClient;
+    this.payloadCache = payloadCache;
     Set<String> possibleFields = newHashSet(FIELD_ID, FIELD_KEY);
     possibleFields.addAll(MetricJsonWriter.OPTIONAL_FIELDS);
     allPossibleFields = possibleFields;
@@ -80,16 +86,20 @@ public class SearchAction implements MetricsWsAction {
       .setPage(request.mandatoryParamAsInt(Param.PAGE),
         request.mandatoryParamAsInt(Param.PAGE_SIZE));
     Boolean isCustom = request.paramAsBoolean(PARAM_IS_CUSTOM);
+    Set<String> desiredFields = desiredFields(request.paramAsStrings(Param.FIELDS));
     try (DbSession dbSession = dbClient.openSession(false)) {
-      List<MetricDto> metrics = dbClient.metricDao().selectEnabled(dbSession, isCustom, searchOptions.getOffset(), searchOptions.getLimit());
-      int nbMetrics = dbClient.metricDao().countEnabled(dbSession, isCustom);
-      JsonWriter json = response.newJsonWriter();
-      json.beginObject();
-      Set<String> desiredFields = desiredFields(request.paramAsStrings(Param.FIELDS));
-      writeMetrics(json, metrics, desiredFields);
-      searchOptions.writeJson(json, nbMetrics);
-      json.endObject();
-      json.close();
+      // metrics are requested by each analysis but rarely change, so the payload is computed again
+      // only when the version of metrics changes, and is not transferred when the client already has it
+      payloadCache.write(request, response, "metrics", MetricsVersion.read(dbClient, dbSession), JSON, output -> {
+        List<MetricDto> metrics = dbClient.metricDao().selectEnabled(dbSession, isCustom, searchOptions.getOffset(), searchOptions.getLimit());
+        int nbMetrics = dbClient.metricDao().countEnabled(dbSession, isCustom);
+        try (JsonWriter json = JsonWriter.of(new OutputStreamWriter(output, UTF_8))) {
+          json.beginObject();
+          writeMetrics(json, metrics, desiredFields);
+          searchOptions.writeJson(json, nbMetrics);
+          json.endObject();
+        }
+      });
     }
   }
 
@@ -163,6 +163,7 @@ public class UpdateAction implements MetricsWsAction {
       metricInDb.setDescription(description);
     }
     dbClient.metricDao().update(dbSession, metricInDb);
+    MetricsVersion.change(dbClient, dbSession);
     dbSession.commit();
   }
 
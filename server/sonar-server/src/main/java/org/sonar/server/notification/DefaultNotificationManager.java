@@ -20,15 +20,22 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.utils.SonarException;
@@ -45,6 +52,7 @@ public class DefaultNotificationManager implements NotificationManager {
   private static final Logger LOG = Loggers.get(DefaultNotificationManager.class);
 
   private static final String UNABLE_TO_READ_NOTIFICATION = "Unable to read notification";
+  private static final long RECIPIENTS_CACHE_MAX_SIZE = 1_000;
 
   private NotificationChannel[] notificationChannels;
   private NotificationQueueDao notificationQueueDao;
@@ -52,6 +60,17 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private boolean alreadyLoggedDeserializationIssue = false;
 
+  /**
+   * Analyses trigger a notification per issue, which are dispatched to the subscribers of the same
+   * project. Subscribers are kept during a batch of deliveries, so that they are not loaded again for each
+   * of these notifications, and are loaded again by the next batch so that changes of subscriptions are
+   * taken into account.
+   */
+  private final Cache<String, Multimap<String, NotificationChannel>> recipientsCache = CacheBuilder.newBuilder()
+    .maximumSize(RECIPIENTS_CACHE_MAX_SIZE)
+    .build();
+  private volatile boolean deliveryBatchInProgress = false;
+
   /**
    * Default constructor used by Pico
    */
@@ -115,6 +134,18 @@ public class DefaultNotificationManager implements NotificationManager {
     return notificationQueueDao.count();
   }
 
+  /**
+   * Subscribers loaded until {@link #endDeliveryBatch()} are cached.
+   */
+  public void startDeliveryBatch() {
+    deliveryBatchInProgress = true;
+  }
+
+  public void endDeliveryBatch() {
+    deliveryBatchInProgress = false;
+    recipientsCache.invalidateAll();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -122,32 +153,50 @@ public class DefaultNotificationManager implements NotificationManager {
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
     @Nullable String projectUuid) {
     String dispatcherKey = dispatcher.getKey();
+    return cached("project:" + dispatcherKey + ":" + StringUtils.defaultString(projectUuid), () -> loadSubscribedRecipients(dispatcherKey, projectUuid));
+  }
 
-    SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
+  /**
+   * Users subscribed globally to the dispatcher (i.e. not on a specific project) and users subscribed
+   * specifically for the project are loaded for all channels at once.
+   */
+  private Multimap<String, NotificationChannel> loadSubscribedRecipients(String dispatcherKey, @Nullable String projectUuid) {
+    Map<String, NotificationChannel> channelsByKey = new HashMap<>();
     for (NotificationChannel channel : notificationChannels) {
-      String channelKey = channel.getKey();
-
-      // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
-      addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
-
-      if (projectUuid != null) {
-        // Find users subscribed to the dispatcher specifically for the project
-        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
-      }
+      channelsByKey.put(channel.getKey(), channel);
     }
+    SetMultimap<String, String> loginsByChannelKey = propertiesDao.selectUsersForNotificationChannels(dispatcherKey, channelsByKey.keySet(), projectUuid);
 
-    return recipients;
+    ImmutableSetMultimap.Builder<String, NotificationChannel> recipients = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, String> channelKeyAndLogin : loginsByChannelKey.entries()) {
+      recipients.put(channelKeyAndLogin.getValue(), channelsByKey.get(channelKeyAndLogin.getKey()));
+    }
+    return recipients.build();
   }
 
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
+    return cached("component:" + dispatcherKey + ":" + StringUtils.defaultString(componentKey), () -> loadNotificationSubscribers(dispatcherKey, componentKey));
+  }
 
+  private Multimap<String, NotificationChannel> loadNotificationSubscribers(String dispatcherKey, @Nullable String componentKey) {
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
       addUsersToRecipientListForChannel(propertiesDao.selectNotificationSubscribers(dispatcherKey, channel.getKey(), componentKey), recipients, channel);
     }
+    return ImmutableSetMultimap.copyOf(recipients);
+  }
 
+  private Multimap<String, NotificationChannel> cached(String cacheKey, Supplier<Multimap<String, NotificationChannel>> loader) {
+    if (!deliveryBatchInProgress) {
+      return loader.get();
+    }
+    Multimap<String, NotificationChannel> recipients = recipientsCache.getIfPresent(cacheKey);
+    if (recipients == null) {
+      recipients = loader.get();
+      recipientsCache.put(cacheKey, recipients);
+    }
     return recipients;
   }
 
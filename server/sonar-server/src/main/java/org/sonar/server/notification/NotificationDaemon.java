@@ -103,22 +103,35 @@ public class NotificationDaemon implements Startable {
     long start = now();
     long lastLog = start;
     long notifSentCount = 0;
+    long deliveredCountAtStart = service.getDeliveredCount();
+    long failedCountAtStart = service.getFailedCount();
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
-      if (stopping) {
-        break;
-      }
-      long now = now();
-      if (now - lastLog > delayBeforeReportingStatusInSeconds * 1000) {
-        long remainingNotifCount = manager.count();
-        lastLog = now;
-        long spentTimeInMinutes = (now - start) / (60 * 1000);
-        log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
+    manager.startDeliveryBatch();
+    try {
+      Notification notifToSend = manager.getFromQueue();
+      while (notifToSend != null) {
+        service.deliver(notifToSend);
+        notifSentCount++;
+        if (stopping) {
+          break;
+        }
+        long now = now();
+        if (now - lastLog > delayBeforeReportingStatusInSeconds * 1000) {
+          long remainingNotifCount = manager.count();
+          lastLog = now;
+          long spentTimeInMinutes = (now - start) / (60 * 1000);
+          log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
+        }
+        notifToSend = manager.getFromQueue();
       }
-      notifToSend = manager.getFromQueue();
+    } finally {
+      manager.endDeliveryBatch();
+    }
+    if (notifSentCount > 0) {
+      long durationInMs = Math.max(1L, now() - start);
+      long deliveredCount = service.getDeliveredCount() - deliveredCountAtStart;
+      LOG.debug("{} notifications processed in {} ms: {} deliveries ({} per second), {} failures", notifSentCount, durationInMs,
+        deliveredCount, deliveredCount * 1000 / durationInMs, service.getFailedCount() - failedCountAtStart);
     }
   }
 
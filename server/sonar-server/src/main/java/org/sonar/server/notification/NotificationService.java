@@ -24,12 +24,22 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
+import org.picocontainer.Startable;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -38,14 +48,23 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
 
+/**
+ * Dispatches notifications to the subscribed users. Deliveries are executed in parallel, by a pool
+ * of {@link #DELIVERY_THREADS_PER_CHANNEL} threads per channel, so that a slow channel (typically emails)
+ * does not delay the others.
+ */
 @ServerSide
 @ComputeEngineSide
-public class NotificationService {
+public class NotificationService implements Startable {
 
   private static final Logger LOG = Loggers.get(NotificationService.class);
+  private static final int DELIVERY_THREADS_PER_CHANNEL = 4;
 
   private final List<NotificationDispatcher> dispatchers;
   private final DbClient dbClient;
+  private final Map<String, ExecutorService> executorsByChannelKey = new ConcurrentHashMap<>();
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
 
   public NotificationService(DbClient dbClient, NotificationDispatcher[] dispatchers) {
     this.dbClient = dbClient;
@@ -59,6 +78,31 @@ public class NotificationService {
     this(dbClient, new NotificationDispatcher[0]);
   }
 
+  @Override
+  public void start() {
+    // executors are lazily created
+  }
+
+  @Override
+  public void stop() {
+    List<ExecutorService> executors = new ArrayList<>(executorsByChannelKey.values());
+    executorsByChannelKey.clear();
+    for (ExecutorService executor : executors) {
+      executor.shutdown();
+    }
+    try {
+      for (ExecutorService executor : executors) {
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      LOG.error("Error during stop of notification delivery", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Delivers the notification to all its recipients. This method returns when all deliveries are completed.
+   */
   public void deliver(Notification notification) {
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
@@ -73,22 +117,68 @@ public class NotificationService {
     dispatch(notification, recipients);
   }
 
-  private static void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
+  private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
+    List<Future<?>> deliveries = new ArrayList<>(recipients.size());
     for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
       String username = entry.getKey();
       Collection<NotificationChannel> userChannels = entry.getValue();
       LOG.debug("For user {} via {}", username, userChannels);
       for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
+        deliveries.add(executorOf(channel).submit(() -> deliver(notification, username, channel)));
+      }
+    }
+    waitFor(deliveries);
+  }
+
+  private void deliver(Notification notification, String username, NotificationChannel channel) {
+    try {
+      channel.deliver(notification, username);
+      deliveredCount.incrementAndGet();
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      failedCount.incrementAndGet();
+      LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+    }
+  }
+
+  private static void waitFor(List<Future<?>> deliveries) {
+    for (Future<?> delivery : deliveries) {
+      try {
+        delivery.get();
+      } catch (ExecutionException e) {
+        // not expected, failures are logged by deliver(Notification, String, NotificationChannel)
+        LOG.warn("Unable to deliver notification", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       }
     }
   }
 
+  private ExecutorService executorOf(NotificationChannel channel) {
+    return executorsByChannelKey.computeIfAbsent(channel.getKey(), channelKey -> {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(DELIVERY_THREADS_PER_CHANNEL, DELIVERY_THREADS_PER_CHANNEL, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat("sq-notification-" + channelKey + "-%d").setDaemon(true).build());
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    });
+  }
+
+  /**
+   * Number of deliveries executed successfully since startup
+   */
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  /**
+   * Number of deliveries which failed since startup
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
   @VisibleForTesting
   List<NotificationDispatcher> getDispatchers() {
     return dispatchers;
@@ -24,12 +24,14 @@ import java.net.URL;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.mail.EmailException;
 import org.apache.commons.mail.SimpleEmail;
+import org.picocontainer.Startable;
 import org.sonar.api.config.EmailSettings;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.user.User;
 import org.sonar.api.user.UserFinder;
 import org.sonar.api.utils.SonarException;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.emailnotifications.api.EmailMessage;
@@ -43,9 +45,11 @@ import org.sonar.plugins.emailnotifications.api.EmailTemplate;
  * <li><a href="https://github.com/blog/798-threaded-email-notifications">GitHub: Threaded Email Notifications</a></li>
  * </ul>
  *
+ * Emails are sent through a pool of SMTP connections, see {@link SmtpConnectionPool}.
+ *
  * @since 2.10
  */
-public class EmailNotificationChannel extends NotificationChannel {
+public class EmailNotificationChannel extends NotificationChannel implements Startable {
 
   private static final Logger LOG = Loggers.get(EmailNotificationChannel.class);
 
@@ -85,6 +89,7 @@ public class EmailNotificationChannel extends NotificationChannel {
   private EmailSettings configuration;
   private EmailTemplate[] templates;
   private UserFinder userFinder;
+  private final SmtpConnectionPool connectionPool = new SmtpConnectionPool(System2.INSTANCE);
 
   public EmailNotificationChannel(EmailSettings configuration, EmailTemplate[] templates, UserFinder userFinder) {
     this.configuration = configuration;
@@ -92,6 +97,16 @@ public class EmailNotificationChannel extends NotificationChannel {
     this.userFinder = userFinder;
   }
 
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    connectionPool.closeAll();
+  }
+
   @Override
   public void deliver(Notification notification, String username) {
     User user = userFinder.findByLogin(username);
@@ -126,13 +141,13 @@ public class EmailNotificationChannel extends NotificationChannel {
       return;
     }
     try {
-      send(emailMessage);
+      send(emailMessage, true);
     } catch (EmailException e) {
       LOG.error("Unable to send email", e);
     }
   }
 
-  private void send(EmailMessage emailMessage) throws EmailException {
+  private void send(EmailMessage emailMessage, boolean reuseConnection) throws EmailException {
     // Trick to correctly initialize javax.mail library
     ClassLoader classloader = Thread.currentThread().getContextClassLoader();
     Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
@@ -178,13 +193,25 @@ public class EmailNotificationChannel extends NotificationChannel {
       }
       email.setSocketConnectionTimeout(SOCKET_TIMEOUT);
       email.setSocketTimeout(SOCKET_TIMEOUT);
-      email.send();
+      if (reuseConnection) {
+        connectionPool.send(connectionKey(), email);
+      } else {
+        email.send();
+      }
 
     } finally {
       Thread.currentThread().setContextClassLoader(classloader);
     }
   }
 
+  /**
+   * Pooled connections are not reused when SMTP settings are changed
+   */
+  private String connectionKey() {
+    return StringUtils.join(new Object[] {configuration.getSmtpHost(), configuration.getSmtpPort(), configuration.getSecureConnection(),
+      configuration.getSmtpUsername(), configuration.getSmtpPassword()}, '|');
+  }
+
   private void configureSecureConnection(SimpleEmail email) {
     if (StringUtils.equalsIgnoreCase(configuration.getSecureConnection(), "ssl")) {
       email.setSSLOnConnect(true);
@@ -215,7 +242,8 @@ public class EmailNotificationChannel extends NotificationChannel {
       emailMessage.setTo(toAddress);
       emailMessage.setSubject(subject);
       emailMessage.setMessage(message);
-      send(emailMessage);
+      // a new connection is opened, in order to validate the SMTP settings
+      send(emailMessage, false);
     } catch (EmailException e) {
       LOG.debug("Fail to send test email to: " + toAddress, e);
       throw e;
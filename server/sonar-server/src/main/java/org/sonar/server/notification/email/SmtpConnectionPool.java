@@ -0,0 +1,150 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification.email;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import org.apache.commons.mail.Email;
+import org.apache.commons.mail.EmailException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Keeps SMTP connections open between two emails, so that notifications sent in a row do not
+ * pay the TCP, TLS and authentication handshakes for each recipient. Connections idle for more
+ * than {@link #MAX_IDLE_MS} are closed, as SMTP servers usually drop them after a few seconds.
+ * <p/>
+ * Connections are identified by a key which must change when the SMTP configuration changes.
+ */
+class SmtpConnectionPool {
+
+  private static final Logger LOG = Loggers.get(SmtpConnectionPool.class);
+  static final long MAX_IDLE_MS = 10_000L;
+  static final int MAX_IDLE_CONNECTIONS = 8;
+
+  private final System2 system2;
+  private final Deque<Connection> idleConnections = new ArrayDeque<>();
+
+  SmtpConnectionPool(System2 system2) {
+    this.system2 = system2;
+  }
+
+  /**
+   * Sends the email through an idle connection, if any, else through a new connection. Idle connections
+   * closed by the server in the meantime are detected before sending, so the email is never sent twice:
+   * nothing is retried once it has been submitted to the server.
+   */
+  void send(String connectionKey, Email email) throws EmailException {
+    email.buildMimeMessage();
+    MimeMessage message = email.getMimeMessage();
+
+    Connection connection = acquire(connectionKey);
+    try {
+      if (connection == null) {
+        connection = new Connection(connectionKey, email.getMailSession().getTransport());
+        connection.transport.connect();
+      }
+      connection.send(message);
+      release(connection);
+    } catch (MessagingException e) {
+      if (connection != null) {
+        connection.close();
+      }
+      throw new EmailException("Sending the email to the following server failed : " + email.getHostName(), e);
+    }
+  }
+
+  @CheckForNull
+  private Connection acquire(String connectionKey) {
+    Connection connection = pollIdleConnection();
+    while (connection != null) {
+      // isConnected() sends a NOOP command to the server, which detects the connections it closed
+      if (connection.key.equals(connectionKey) && system2.now() - connection.lastUsedAt < MAX_IDLE_MS && connection.transport.isConnected()) {
+        return connection;
+      }
+      connection.close();
+      connection = pollIdleConnection();
+    }
+    return null;
+  }
+
+  @CheckForNull
+  private synchronized Connection pollIdleConnection() {
+    return idleConnections.pollFirst();
+  }
+
+  private void release(Connection connection) {
+    connection.lastUsedAt = system2.now();
+    boolean pooled;
+    synchronized (this) {
+      pooled = idleConnections.size() < MAX_IDLE_CONNECTIONS;
+      if (pooled) {
+        idleConnections.addFirst(connection);
+      }
+    }
+    if (!pooled) {
+      connection.close();
+    }
+  }
+
+  void closeAll() {
+    List<Connection> connections;
+    synchronized (this) {
+      connections = new ArrayList<>(idleConnections);
+      idleConnections.clear();
+    }
+    connections.forEach(Connection::close);
+  }
+
+  synchronized int countIdleConnections() {
+    return idleConnections.size();
+  }
+
+  private static class Connection {
+    private final String key;
+    private final Transport transport;
+    private long lastUsedAt;
+
+    private Connection(String key, Transport transport) {
+      this.key = key;
+      this.transport = transport;
+    }
+
+    private void send(MimeMessage message) throws MessagingException {
+      message.saveChanges();
+      transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    private void close() {
+      try {
+        transport.close();
+      } catch (MessagingException e) {
+        LOG.debug("Fail to close SMTP connection", e);
+      }
+    }
+  }
+}
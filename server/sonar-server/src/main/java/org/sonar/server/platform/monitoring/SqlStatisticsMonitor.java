@@ -0,0 +1,94 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import javax.sql.DataSource;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatistics;
+
+/**
+ * Statistics of the SQL statements executed by the web server
+ */
+public class SqlStatisticsMonitor extends BaseMonitorMBean implements SqlStatisticsMonitorMBean {
+
+  private static final int MOST_EXPENSIVE_STATEMENTS = 20;
+
+  private final DbClient dbClient;
+
+  public SqlStatisticsMonitor(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public String name() {
+    return "SqlStatistics";
+  }
+
+  @Override
+  public long getExecutions() {
+    return sqlStatistics().getExecutions();
+  }
+
+  @Override
+  public long getExecutionTimeMs() {
+    return sqlStatistics().getTotalTimeMs();
+  }
+
+  @Override
+  public long getRows() {
+    return sqlStatistics().getRows();
+  }
+
+  @Override
+  public String[] getMostExpensiveStatements() {
+    return sqlStatistics().getStatements().stream()
+      .limit(MOST_EXPENSIVE_STATEMENTS)
+      .map(s -> s.getKey() + ": " + s)
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public String[] getSlowestExecutions() {
+    return sqlStatistics().getSlowest().stream()
+      .map(Object::toString)
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public void reset() {
+    sqlStatistics().reset();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    return sqlStatistics().toSummary();
+  }
+
+  private SqlStatistics sqlStatistics() {
+    DataSource dataSource = dbClient.getDatabase().getDataSource();
+    if (dataSource instanceof ProfiledDataSource) {
+      return ((ProfiledDataSource) dataSource).getSqlStatistics();
+    }
+    // statistics are not collected, for example by the datasources of tests
+    return new SqlStatistics();
+  }
+}
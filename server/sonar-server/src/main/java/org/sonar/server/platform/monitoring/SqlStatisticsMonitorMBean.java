@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface SqlStatisticsMonitorMBean {
+
+  /**
+   * Number of SQL statements executed since startup or last reset
+   */
+  long getExecutions();
+
+  /**
+   * Cumulated execution time of SQL statements, in milliseconds
+   */
+  long getExecutionTimeMs();
+
+  /**
+   * Number of rows fetched or updated by SQL statements
+   */
+  long getRows();
+
+  /**
+   * Statements which cost the most cumulated execution time, with their counters and latencies
+   */
+  String[] getMostExpensiveStatements();
+
+  /**
+   * Slowest executions of SQL statements, the slowest first
+   */
+  String[] getSlowestExecutions();
+
+  /**
+   * Clears all statistics
+   */
+  void reset();
+}
@@ -30,6 +30,9 @@ import org.sonar.api.rules.AnnotationRuleParser;
 import org.sonar.api.rules.XMLRuleParser;
 import org.sonar.api.server.rule.RulesDefinitionXmlLoader;
 import org.sonar.ce.CeModule;
+import org.sonar.ce.CeQueueSignalImpl;
+import org.sonar.ce.StandaloneCeQueueSignal;
+import org.sonar.ce.cluster.HazelcastClientWrapperImpl;
 import org.sonar.ce.settings.ProjectSettingsFactory;
 import org.sonar.core.component.DefaultResourceTypes;
 import org.sonar.core.timemachine.Periods;
@@ -100,12 +103,14 @@ import org.sonar.server.platform.BackendCleanup;
 import org.sonar.server.platform.PersistentSettings;
 import org.sonar.server.platform.ServerLogging;
 import org.sonar.server.platform.SettingsChangeNotifier;
+import org.sonar.server.platform.cluster.Cluster;
 import org.sonar.server.platform.monitoring.DatabaseMonitor;
 import org.sonar.server.platform.monitoring.EsMonitor;
 import org.sonar.server.platform.monitoring.JvmPropsMonitor;
 import org.sonar.server.platform.monitoring.PluginsMonitor;
 import org.sonar.server.platform.monitoring.SettingsMonitor;
 import org.sonar.server.platform.monitoring.SonarQubeMonitor;
+import org.sonar.server.platform.monitoring.SqlStatisticsMonitor;
 import org.sonar.server.platform.monitoring.SystemMonitor;
 import org.sonar.server.platform.web.WebPagesFilter;
 import org.sonar.server.platform.web.requestid.HttpRequestIdModule;
@@ -216,6 +221,7 @@ import org.sonar.server.ws.DeprecatedPropertiesWsFilter;
 import org.sonar.server.ws.WebServiceEngine;
 import org.sonar.server.ws.WebServiceFilter;
 import org.sonar.server.ws.WebServiceReroutingFilter;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonar.server.ws.ws.WebServicesWsModule;
 
 public class PlatformLevel4 extends PlatformLevel {
@@ -320,6 +326,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // web services
       WebServiceEngine.class,
+      WsPayloadCache.class,
       WebServicesWsModule.class,
       WebServiceFilter.class,
       DeprecatedPropertiesWsFilter.class,
@@ -478,6 +485,7 @@ public class PlatformLevel4 extends PlatformLevel {
       PluginsMonitor.class,
       JvmPropsMonitor.class,
       DatabaseMonitor.class,
+      SqlStatisticsMonitor.class,
       MigrateDbAction.class,
       LogsAction.class,
       ChangeLogLevelAction.class,
@@ -521,6 +529,13 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // Http Request ID
       HttpRequestIdModule.class);
+
+    // tasks submitted by the web server are announced to the Compute Engines of the cluster
+    if (get(Cluster.class).isEnabled()) {
+      add(HazelcastClientWrapperImpl.class, CeQueueSignalImpl.class);
+    } else {
+      add(StandaloneCeQueueSignal.class);
+    }
     addAll(level4AddedComponents);
   }
 
@@ -48,6 +48,7 @@ import org.sonar.db.qualityprofile.QProfileDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.util.LanguageParamUtils;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse.QualityProfile;
 import org.sonarqube.ws.client.component.ComponentsWsParameters;
@@ -59,7 +60,6 @@ import static java.util.function.Function.identity;
 import static org.sonar.api.utils.DateUtils.formatDateTime;
 import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.qualityprofile.QualityProfileWsParameters.ACTION_SEARCH;
 import static org.sonarqube.ws.client.qualityprofile.QualityProfileWsParameters.PARAM_DEFAULTS;
 import static org.sonarqube.ws.client.qualityprofile.QualityProfileWsParameters.PARAM_LANGUAGE;
@@ -76,12 +76,14 @@ public class SearchAction implements QProfileWsAction {
   private final DbClient dbClient;
   private final QProfileWsSupport wsSupport;
   private final ComponentFinder componentFinder;
+  private final WsPayloadCache payloadCache;
 
-  public SearchAction(Languages languages, DbClient dbClient, QProfileWsSupport wsSupport, ComponentFinder componentFinder) {
+  public SearchAction(Languages languages, DbClient dbClient, QProfileWsSupport wsSupport, ComponentFinder componentFinder, WsPayloadCache payloadCache) {
     this.languages = languages;
     this.dbClient = dbClient;
     this.wsSupport = wsSupport;
     this.componentFinder = componentFinder;
+    this.payloadCache = payloadCache;
   }
 
   @Override
@@ -126,7 +128,8 @@ public class SearchAction implements QProfileWsAction {
   @Override
   public void handle(Request request, Response response) throws Exception {
     SearchWsResponse searchWsResponse = doHandle(toSearchWsRequest(request));
-    writeProtobuf(searchWsResponse, request, response);
+    // profiles are requested by each analysis, the payload is not transferred when the client already has it
+    payloadCache.writeProtobuf(request, response, "qualityprofiles", null, () -> searchWsResponse);
   }
 
   private static SearchWsRequest toSearchWsRequest(Request request) {
@@ -47,6 +47,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.QProfileDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
@@ -57,6 +58,7 @@ import org.sonar.server.qualityprofile.ActiveRule;
 import org.sonar.server.rule.index.RuleIndex;
 import org.sonar.server.rule.index.RuleIndexDefinition;
 import org.sonar.server.rule.index.RuleQuery;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonarqube.ws.Common;
 import org.sonarqube.ws.Rules.SearchResponse;
 import org.sonarqube.ws.client.rule.SearchWsRequest;
@@ -79,7 +81,6 @@ import static org.sonar.server.rule.index.RuleIndex.FACET_SEVERITIES;
 import static org.sonar.server.rule.index.RuleIndex.FACET_STATUSES;
 import static org.sonar.server.rule.index.RuleIndex.FACET_TAGS;
 import static org.sonar.server.rule.index.RuleIndex.FACET_TYPES;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.rule.RulesWsParameters.OPTIONAL_FIELDS;
 import static org.sonarqube.ws.client.rule.RulesWsParameters.PARAM_ACTIVATION;
 import static org.sonarqube.ws.client.rule.RulesWsParameters.PARAM_ACTIVE_SEVERITIES;
@@ -99,6 +100,7 @@ import static org.sonarqube.ws.client.rule.RulesWsParameters.PARAM_TYPES;
 
 public class SearchAction implements RulesWsAction {
   public static final String ACTION = "search";
+  private static final String PAYLOAD_NAMESPACE = "rules";
 
   private static final Collection<String> DEFAULT_FACETS = ImmutableSet.of(PARAM_LANGUAGES, PARAM_REPOSITORIES, "tags");
   private static final String[] POSSIBLE_FACETS = new String[] {
@@ -116,13 +118,16 @@ public class SearchAction implements RulesWsAction {
   private final RuleIndex ruleIndex;
   private final ActiveRuleCompleter activeRuleCompleter;
   private final RuleMapper mapper;
+  private final WsPayloadCache payloadCache;
 
-  public SearchAction(RuleIndex ruleIndex, ActiveRuleCompleter activeRuleCompleter, RuleQueryFactory ruleQueryFactory, DbClient dbClient, RuleMapper mapper) {
+  public SearchAction(RuleIndex ruleIndex, ActiveRuleCompleter activeRuleCompleter, RuleQueryFactory ruleQueryFactory, DbClient dbClient, RuleMapper mapper,
+    WsPayloadCache payloadCache) {
     this.ruleIndex = ruleIndex;
     this.activeRuleCompleter = activeRuleCompleter;
     this.ruleQueryFactory = ruleQueryFactory;
     this.dbClient = dbClient;
     this.mapper = mapper;
+    this.payloadCache = payloadCache;
   }
 
   @Override
@@ -158,12 +163,27 @@ public class SearchAction implements RulesWsAction {
       SearchWsRequest searchWsRequest = toSearchWsRequest(request);
       SearchOptions context = buildSearchOptions(searchWsRequest);
       RuleQuery query = ruleQueryFactory.createRuleQuery(dbSession, request);
-      SearchResult searchResult = doSearch(dbSession, query, context);
-      SearchResponse responseBuilder = buildResponse(dbSession, searchWsRequest, context, searchResult, query);
-      writeProtobuf(responseBuilder, request, response);
+      payloadCache.writeProtobuf(request, response, PAYLOAD_NAMESPACE, payloadVersion(dbSession, query), () -> {
+        SearchResult searchResult = doSearch(dbSession, query, context);
+        return buildResponse(dbSession, searchWsRequest, context, searchResult, query);
+      });
     }
   }
 
+  /**
+   * Active rules of a profile, as loaded by each analysis, change only when the profile or the rules are updated,
+   * possibly by another node of the cluster. The response of other searches can't be versioned.
+   */
+  @CheckForNull
+  private String payloadVersion(DbSession dbSession, RuleQuery query) {
+    QProfileDto profile = query.getQProfile();
+    if (profile == null || !Boolean.TRUE.equals(query.getActivation())) {
+      return null;
+    }
+    long rulesUpdatedAt = dbClient.ruleDao().selectMaxUpdatedAt(dbSession, profile.getOrganizationUuid());
+    return format("%s|%s|%s|%d", profile.getKee(), profile.getRulesUpdatedAt(), profile.getUserUpdatedAt(), rulesUpdatedAt);
+  }
+
   private SearchResponse buildResponse(DbSession dbSession, SearchWsRequest request, SearchOptions context, SearchResult result, RuleQuery query) {
     SearchResponse.Builder responseBuilder = SearchResponse.newBuilder();
     writeStatistics(responseBuilder, result, context);
@@ -40,6 +40,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonarqube.ws.Settings;
 import org.sonarqube.ws.Settings.ValuesWsResponse;
 import org.sonarqube.ws.client.setting.ValuesRequest;
@@ -49,6 +50,7 @@ import static java.util.stream.Stream.concat;
 import static org.apache.commons.lang.StringUtils.isEmpty;
 import static org.sonar.api.PropertyType.PROPERTY_SET;
 import static org.sonar.api.web.UserRole.USER;
+import static org.sonar.server.setting.ws.SettingsWsSupport.DOT_SECURED;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.setting.SettingsWsParameters.ACTION_VALUES;
@@ -67,9 +69,10 @@ public class ValuesAction implements SettingsWsAction {
   private final SettingsFinder settingsFinder;
   private final SettingsWsSupport settingsWsSupport;
   private final ScannerSettings scannerSettings;
+  private final WsPayloadCache payloadCache;
 
   public ValuesAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, PropertyDefinitions propertyDefinitions, SettingsFinder settingsFinder,
-    SettingsWsSupport settingsWsSupport, ScannerSettings scannerSettings) {
+    SettingsWsSupport settingsWsSupport, ScannerSettings scannerSettings, WsPayloadCache payloadCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
@@ -77,6 +80,7 @@ public class ValuesAction implements SettingsWsAction {
     this.settingsFinder = settingsFinder;
     this.settingsWsSupport = settingsWsSupport;
     this.scannerSettings = scannerSettings;
+    this.payloadCache = payloadCache;
   }
 
   @Override
@@ -105,7 +109,14 @@ public class ValuesAction implements SettingsWsAction {
 
   @Override
   public void handle(Request request, Response response) throws Exception {
-    writeProtobuf(doHandle(request), request, response);
+    ValuesWsResponse values = doHandle(request);
+    if (values.getSettingsList().stream().anyMatch(setting -> setting.getKey().endsWith(DOT_SECURED))) {
+      // no ETag, so that secured values are never stored by clients
+      writeProtobuf(values, request, response);
+    } else {
+      // settings are requested by each analysis, the payload is not transferred when the client already has it
+      payloadCache.writeProtobuf(request, response, "settings", null, () -> values);
+    }
   }
 
   private ValuesWsResponse doHandle(Request request) {
@@ -36,6 +36,7 @@ import org.sonar.api.server.ws.internal.ValidatingRequest;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.db.profiling.SqlStatementContext;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ServerException;
 import org.sonarqube.ws.MediaTypes;
@@ -100,7 +101,12 @@ public class WebServiceEngine implements LocalConnector, Startable {
       }
       checkActionExtension(actionExtractor.getExtension());
       verifyRequest(action, request);
-      action.handler().handle(request, response);
+      SqlStatementContext.enterScope("WS: " + action.path());
+      try {
+        action.handler().handle(request, response);
+      } finally {
+        SqlStatementContext.exitScope();
+      }
     } catch (IllegalArgumentException e) {
       sendErrors(response, 400, singletonList(e.getMessage()));
     } catch (BadRequestException e) {
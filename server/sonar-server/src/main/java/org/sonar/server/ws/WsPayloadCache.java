@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.platform.Server;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.server.ws.internal.ValidatingRequest;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sonarqube.ws.MediaTypes.JSON;
+import static org.sonarqube.ws.MediaTypes.PROTOBUF;
+
+/**
+ * Cache of the payloads that are requested again and again by scanners (active rules, metrics, ...). Each payload
+ * is identified by an ETag, so that clients sending the header {@code If-None-Match} get a
+ * {@code 304 Not Modified} response without body when their copy is still up-to-date.
+ * <p>
+ * When the caller knows the version of the data (for example the date of last change of a quality profile),
+ * the payload is computed once and then served from memory until the version changes. When the version is
+ * unknown, the payload is computed on each request and the ETag is the hash of its content, which still saves
+ * the transfer.
+ * </p>
+ * This cache is node-local, so versions must be read from the database: data can be changed by another node
+ * of the cluster.
+ */
+@ServerSide
+public class WsPayloadCache {
+
+  static final String ETAG_HEADER = "ETag";
+  static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+  static final int HTTP_NOT_MODIFIED = 304;
+  private static final long MAX_WEIGHT_IN_BYTES = 64L * 1024 * 1024;
+
+  private final Server server;
+  private final Cache<String, Payload> payloadsByETag;
+
+  public WsPayloadCache(Server server) {
+    this(server, MAX_WEIGHT_IN_BYTES);
+  }
+
+  WsPayloadCache(Server server, long maxWeightInBytes) {
+    this.server = server;
+    this.payloadsByETag = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeightInBytes)
+      .weigher((String eTag, Payload payload) -> payload.bytes.length)
+      .build();
+  }
+
+  /**
+   * Writes a protobuf message as protobuf or JSON depending on the requested media type, see
+   * {@link WsUtils#writeProtobuf(Message, Request, Response)}.
+   */
+  public void writeProtobuf(Request request, Response response, String namespace, @Nullable String version, Supplier<? extends Message> msg) {
+    if (PROTOBUF.equals(request.getMediaType())) {
+      write(request, response, namespace, version, PROTOBUF, output -> writeTo(msg.get(), output));
+    } else {
+      write(request, response, namespace, version, JSON, output -> {
+        try (JsonWriter writer = JsonWriter.of(new OutputStreamWriter(output, UTF_8))) {
+          ProtobufJsonFormat.write(msg.get(), writer);
+        }
+      });
+    }
+  }
+
+  /**
+   * @param version the version of data, or {@code null} if unknown. In this case the payload is not cached
+   *                and its ETag is the hash of content.
+   * @param payloadWriter writes the payload. Called only if the payload is not already cached.
+   */
+  public void write(Request request, Response response, String namespace, @Nullable String version, String mediaType,
+    Consumer<OutputStream> payloadWriter) {
+    Payload payload;
+    if (version == null || !(request instanceof ValidatingRequest)) {
+      payload = Payload.compute(mediaType, payloadWriter);
+      if (isNotModified(request, response, payload.eTag)) {
+        return;
+      }
+    } else {
+      // the ETag of versioned payloads is known without computing them
+      String eTag = toETag(cacheKey((ValidatingRequest) request, namespace, version, mediaType));
+      if (isNotModified(request, response, eTag)) {
+        return;
+      }
+      payload = getOrCompute(eTag, mediaType, payloadWriter);
+    }
+
+    response.stream().setMediaType(payload.mediaType);
+    try (OutputStream output = response.stream().output()) {
+      output.write(payload.bytes);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write payload", e);
+    }
+  }
+
+  private static boolean isNotModified(Request request, Response response, String eTag) {
+    response.setHeader(ETAG_HEADER, eTag);
+    Optional<String> clientETag = request.header(IF_NONE_MATCH_HEADER);
+    if (clientETag.isPresent() && clientETag.get().equals(eTag)) {
+      response.stream().setStatus(HTTP_NOT_MODIFIED);
+      return true;
+    }
+    return false;
+  }
+
+  private Payload getOrCompute(String eTag, String mediaType, Consumer<OutputStream> payloadWriter) {
+    try {
+      return payloadsByETag.get(eTag, () -> Payload.compute(mediaType, payloadWriter).withETag(eTag));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to compute payload", e.getCause());
+    }
+  }
+
+  private String cacheKey(ValidatingRequest request, String namespace, String version, String mediaType) {
+    StringBuilder key = new StringBuilder()
+      .append(namespace)
+      .append('|').append(server.getStartedAt().getTime())
+      .append('|').append(version)
+      .append('|').append(mediaType)
+      .append('|').append(request.getPath());
+    // all the parameters, including default values, so that requests returning the same payload share the same key
+    request.action().params().stream()
+      .map(WebService.Param::key)
+      .sorted(Comparator.naturalOrder())
+      .forEach(paramKey -> key.append('|').append(paramKey).append('=').append(request.param(paramKey)));
+    return key.toString();
+  }
+
+  private static String toETag(String s) {
+    return '"' + DigestUtils.sha1Hex(s) + '"';
+  }
+
+  private static void writeTo(Message msg, OutputStream output) {
+    try {
+      msg.writeTo(output);
+    } catch (IOException e) {
+      throw new IllegalStateException("Error while writing protobuf message", e);
+    }
+  }
+
+  private static class Payload {
+    private final String eTag;
+    private final String mediaType;
+    private final byte[] bytes;
+
+    private Payload(String eTag, String mediaType, byte[] bytes) {
+      this.eTag = eTag;
+      this.mediaType = mediaType;
+      this.bytes = bytes;
+    }
+
+    private static Payload compute(String mediaType, Consumer<OutputStream> payloadWriter) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      payloadWriter.accept(output);
+      byte[] bytes = output.toByteArray();
+      return new Payload(toETag(DigestUtils.sha1Hex(bytes)), mediaType, bytes);
+    }
+
+    private Payload withETag(String eTag) {
+      return new Payload(eTag, mediaType, bytes);
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.CeQueueSignal;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DbSession;
@@ -40,8 +41,12 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class CeQueueImplTest {
 
@@ -60,7 +65,10 @@ public class CeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
 
-  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider);
+  private CeQueueSignal queueSignal = mock(CeQueueSignal.class);
+
+  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider,
+    new DatabaseReportStore(dbTester.getDbClient()), queueSignal);
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -69,6 +77,7 @@ public class CeQueueImplTest {
 
     verifyCeTask(taskSubmit, task, null);
     verifyCeQueueDtoForTaskSubmit(taskSubmit);
+    verify(queueSignal).announceChange();
   }
 
   @Test
@@ -112,6 +121,15 @@ public class CeQueueImplTest {
     verifyCeTask(taskSubmit2, tasks.get(1), null);
     verifyCeQueueDtoForTaskSubmit(taskSubmit1);
     verifyCeQueueDtoForTaskSubmit(taskSubmit2);
+    verify(queueSignal).announceChange();
+  }
+
+  @Test
+  public void massSubmit_does_not_announce_change_if_nothing_is_submitted() {
+    List<CeTask> tasks = underTest.massSubmit(emptyList());
+
+    assertThat(tasks).isEmpty();
+    verifyZeroInteractions(queueSignal);
   }
 
   @Test
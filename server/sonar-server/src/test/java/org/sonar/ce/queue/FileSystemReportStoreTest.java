@@ -0,0 +1,159 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileSystemReportStoreTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  private System2 system2 = mock(System2.class);
+  private DbSession dbSession;
+  private File dir;
+  private FileSystemReportStore underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(system2.now()).thenReturn(NOW);
+    dbSession = dbTester.getSession();
+    dir = temp.newFolder();
+    underTest = new FileSystemReportStore(dir, dbTester.getDbClient(), system2);
+  }
+
+  @Test
+  public void store_and_open_report() throws Exception {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("{report}"));
+
+    assertThat(new File(dir, "TASK_1.zip")).hasContent("{report}");
+    assertThat(new File(dir, "TASK_1.sha256")).exists();
+    assertThat(read("TASK_1")).isEqualTo("{report}");
+  }
+
+  @Test
+  public void open_returns_empty_if_report_does_not_exist() {
+    assertThat(underTest.open(dbSession, "TASK_1")).isNotPresent();
+  }
+
+  @Test
+  public void open_report_stored_in_database() throws Exception {
+    dbTester.getDbClient().ceTaskInputDao().insert(dbSession, "TASK_1", IOUtils.toInputStream("{report}"));
+
+    assertThat(read("TASK_1")).isEqualTo("{report}");
+  }
+
+  @Test
+  public void fail_when_closing_corrupted_report() throws Exception {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("{report}"));
+    FileUtils.write(new File(dir, "TASK_1.zip"), "{corrupted}", UTF_8);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Report of CE task TASK_1 is corrupted");
+
+    read("TASK_1");
+  }
+
+  @Test
+  public void delete_reports_from_file_system_and_database() throws Exception {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("{report}"));
+    dbTester.getDbClient().ceTaskInputDao().insert(dbSession, "TASK_2", IOUtils.toInputStream("{report}"));
+
+    underTest.delete(dbSession, asList("TASK_1", "TASK_2"));
+    dbSession.commit();
+    underTest.deleteCommitted(asList("TASK_1", "TASK_2"));
+
+    assertThat(dir.listFiles()).isEmpty();
+    assertThat(underTest.open(dbSession, "TASK_2")).isNotPresent();
+  }
+
+  @Test
+  public void keep_files_until_deletion_is_committed() throws Exception {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("{report}"));
+
+    underTest.delete(dbSession, asList("TASK_1"));
+    dbSession.rollback();
+
+    assertThat(read("TASK_1")).isEqualTo("{report}");
+  }
+
+  @Test
+  public void purge_old_reports_of_tasks_which_are_not_in_queue() throws Exception {
+    insertInQueue("QUEUED");
+    underTest.store(dbSession, "QUEUED", IOUtils.toInputStream("{report}"));
+    underTest.store(dbSession, "ORPHAN", IOUtils.toInputStream("{report}"));
+    underTest.store(dbSession, "RECENT_ORPHAN", IOUtils.toInputStream("{report}"));
+    File tempFile = new File(dir, "CRASHED.zip.tmp");
+    FileUtils.write(tempFile, "{partial}", UTF_8);
+    long old = NOW - FileSystemReportStore.PURGE_DELAY_MS - 1_000L;
+    for (File file : dir.listFiles()) {
+      file.setLastModified(file.getName().startsWith("RECENT_") ? NOW : old);
+    }
+
+    underTest.purge(dbSession);
+
+    assertThat(dir.list()).containsOnly("QUEUED.zip", "QUEUED.sha256", "RECENT_ORPHAN.zip", "RECENT_ORPHAN.sha256");
+  }
+
+  private String read(String taskUuid) throws IOException {
+    Optional<ReportStore.Report> report = underTest.open(dbSession, taskUuid);
+    assertThat(report).isPresent();
+    try (ReportStore.Report r = report.get(); InputStream input = r.getInputStream()) {
+      return IOUtils.toString(input, UTF_8);
+    }
+  }
+
+  private void insertInQueue(String taskUuid) {
+    CeQueueDto dto = new CeQueueDto();
+    dto.setTaskType(CeTaskTypes.REPORT);
+    dto.setComponentUuid("PROJECT_1");
+    dto.setUuid(taskUuid);
+    dto.setStatus(CeQueueDto.Status.PENDING);
+    dbTester.getDbClient().ceQueueDao().insert(dbSession, dto);
+    dbSession.commit();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.process.ProcessProperties;
+import org.sonar.server.platform.ServerFileSystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReportStoreProviderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Settings settings = new MapSettings();
+  private ServerFileSystem fs = mock(ServerFileSystem.class);
+  private DbClient dbClient = mock(DbClient.class);
+  private ReportStoreProvider underTest = new ReportStoreProvider();
+
+  @Test
+  public void store_reports_in_data_dir_by_default() throws Exception {
+    File dataDir = temp.newFolder();
+    when(fs.getDataDir()).thenReturn(dataDir);
+
+    ReportStore store = underTest.provide(settings, fs, dbClient, System2.INSTANCE);
+
+    assertThat(store).isInstanceOf(FileSystemReportStore.class);
+    assertThat(new File(dataDir, "ce/reports")).isDirectory();
+    assertThat(underTest.provide(settings, fs, dbClient, System2.INSTANCE)).isSameAs(store);
+  }
+
+  @Test
+  public void store_reports_in_configured_dir() throws Exception {
+    File dir = new File(temp.newFolder(), "shared");
+    settings.setProperty(ReportStoreProvider.PATH_PROPERTY, dir.getAbsolutePath());
+    settings.setProperty(ProcessProperties.CLUSTER_ENABLED, true);
+
+    ReportStore store = underTest.provide(settings, fs, dbClient, System2.INSTANCE);
+
+    assertThat(store).isInstanceOf(FileSystemReportStore.class);
+    assertThat(dir).isDirectory();
+  }
+
+  @Test
+  public void store_reports_in_database_if_cluster_without_shared_dir() {
+    settings.setProperty(ProcessProperties.CLUSTER_ENABLED, true);
+
+    assertThat(underTest.provide(settings, fs, dbClient, System2.INSTANCE)).isInstanceOf(DatabaseReportStore.class);
+  }
+}
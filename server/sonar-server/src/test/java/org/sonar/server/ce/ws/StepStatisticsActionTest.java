@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.ws;
+
+import javax.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.server.component.TestComponentFinder;
+import org.sonar.server.computation.task.step.StepProfile;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WsActionTester;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.ce.CeQueueTesting.newCeQueueDto;
+import static org.sonar.test.JsonAssert.assertJson;
+import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_COMPONENT_KEY;
+
+public class StepStatisticsActionTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone().logIn().setSystemAdministrator();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbClient dbClient = db.getDbClient();
+  private DbSession dbSession = db.getSession();
+  private WsActionTester ws = new WsActionTester(new StepStatisticsAction(userSession, dbClient, TestComponentFinder.from(db)));
+
+  @Test
+  public void json_example() {
+    insertActivity(CeActivityDto.Status.SUCCESS, null,
+      new StepProfile("Total", 1500, 1200, 45_000_000, 320, 400, 12),
+      new StepProfile("Persist issues", 300, 250, 1_000_000, 100, 80, 0));
+    insertActivity(CeActivityDto.Status.SUCCESS, null,
+      new StepProfile("Total", 2100, 1800, 61_000_000, 410, 520, 14),
+      new StepProfile("Persist issues", 450, 380, 1_500_000, 130, 110, 0));
+
+    String result = ws.newRequest().execute().getInput();
+
+    assertJson(result).isSimilarTo(getClass().getResource("step_statistics-example.json"));
+  }
+
+  @Test
+  public void statistics_of_a_project_as_project_admin() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto anotherProject = db.components().insertPrivateProject();
+    userSession.logIn().addProjectPermission(UserRole.ADMIN, project);
+    insertActivity(CeActivityDto.Status.SUCCESS, project.uuid(), new StepProfile("Total", 10, 0, 0, 0, 0, 0));
+    insertActivity(CeActivityDto.Status.SUCCESS, project.uuid(), new StepProfile("Total", 20, 0, 0, 0, 0, 0));
+    insertActivity(CeActivityDto.Status.FAILED, project.uuid(), new StepProfile("Total", 30, 0, 0, 0, 0, 0));
+    insertActivity(CeActivityDto.Status.SUCCESS, anotherProject.uuid(), new StepProfile("Total", 40, 0, 0, 0, 0, 0));
+
+    String result = ws.newRequest().setParam(PARAM_COMPONENT_KEY, project.key()).execute().getInput();
+
+    assertJson(result).isSimilarTo("{\"steps\": [{\"name\": \"Total\", \"samples\": 2, \"wallTimeMs\": {\"p50\": 10, \"max\": 20}}]}");
+  }
+
+  @Test
+  public void statistics_are_computed_on_the_last_reports() {
+    insertActivity(CeActivityDto.Status.SUCCESS, null, new StepProfile("Total", 10, 0, 0, 0, 0, 0));
+    insertActivity(CeActivityDto.Status.SUCCESS, null, new StepProfile("Total", 20, 0, 0, 0, 0, 0));
+    insertActivity(CeActivityDto.Status.SUCCESS, null, new StepProfile("Total", 30, 0, 0, 0, 0, 0));
+
+    String result = ws.newRequest().setParam("ps", "2").execute().getInput();
+
+    assertJson(result).isSimilarTo("{\"steps\": [{\"name\": \"Total\", \"samples\": 2, \"wallTimeMs\": {\"p50\": 20, \"max\": 30}}]}");
+  }
+
+  @Test
+  public void empty_statistics() {
+    String result = ws.newRequest().execute().getInput();
+
+    assertJson(result).isSimilarTo("{\"steps\": []}");
+  }
+
+  @Test
+  public void definition() {
+    assertThat(ws.getDef().isInternal()).isTrue();
+    assertThat(ws.getDef().since()).isEqualTo("6.5");
+    assertThat(ws.getDef().params()).extracting("key").containsOnly("componentId", "componentKey", "ps");
+  }
+
+  @Test
+  public void throw_ForbiddenException_if_not_system_administrator() {
+    userSession.logIn();
+
+    expectedException.expect(ForbiddenException.class);
+    expectedException.expectMessage("Insufficient privileges");
+
+    ws.newRequest().execute();
+  }
+
+  @Test
+  public void throw_ForbiddenException_if_not_administrator_of_requested_project() {
+    userSession.logIn();
+    ComponentDto project = db.components().insertPrivateProject();
+
+    expectedException.expect(ForbiddenException.class);
+    expectedException.expectMessage("Insufficient privileges");
+
+    ws.newRequest().setParam(PARAM_COMPONENT_KEY, project.key()).execute();
+  }
+
+  private void insertActivity(CeActivityDto.Status status, @Nullable String componentUuid, StepProfile... profiles) {
+    dbClient.ceActivityDao().insert(dbSession, new CeActivityDto(newCeQueueDto(Uuids.createFast())
+      .setComponentUuid(componentUuid))
+        .setStatus(status)
+        .setExecutionProfile(StepProfile.format(asList(profiles))));
+    db.commit();
+  }
+}
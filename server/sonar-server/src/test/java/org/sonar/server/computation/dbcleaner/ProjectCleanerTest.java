@@ -94,6 +94,15 @@ public class ProjectCleanerTest {
     verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
   }
 
+  @Test
+  public void purgeDisabledComponents_only_calls_purge_dao_for_disabled_components() {
+    underTest.purgeDisabledComponents(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+    verify(dao, never()).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(periodCleaner, never()).clean(any(DbSession.class), anyString(), any(Settings.class));
+  }
+
   @Test
   public void if_profiler_cleaning_fails_it_should_not_interrupt_program_execution() {
     doThrow(RuntimeException.class).when(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.settings.ProjectSettingsFactory;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class ProjectPurgeTaskProcessorTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private ProjectSettingsFactory projectSettingsFactory = mock(ProjectSettingsFactory.class);
+
+  private ProjectPurgeTaskProcessor underTest = new ProjectPurgeTaskProcessor(db.getDbClient(), projectCleaner, projectSettingsFactory);
+
+  @Test
+  public void getHandledCeTaskTypes_returns_PROJECT_PURGE() {
+    assertThat(underTest.getHandledCeTaskTypes()).containsOnly(CeTaskTypes.PROJECT_PURGE);
+  }
+
+  @Test
+  public void process_purges_the_component_of_the_task_with_its_settings() {
+    ComponentDto project = db.components().insertPrivateProject();
+    Settings settings = new MapSettings();
+    when(projectSettingsFactory.newProjectSettings(project.getKey())).thenReturn(settings);
+
+    assertThat(underTest.process(newTask(project.uuid()))).isNull();
+
+    ArgumentCaptor<IdUuidPair> idUuidPairCaptor = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner).purge(any(DbSession.class), idUuidPairCaptor.capture(), any(Settings.class), anyList());
+    assertThat(idUuidPairCaptor.getValue().getId()).isEqualTo(project.getId());
+    assertThat(idUuidPairCaptor.getValue().getUuid()).isEqualTo(project.uuid());
+  }
+
+  @Test
+  public void process_does_nothing_if_component_does_not_exist_anymore() {
+    assertThat(underTest.process(newTask("DELETED"))).isNull();
+
+    verifyZeroInteractions(projectCleaner);
+  }
+
+  private static CeTask newTask(String componentUuid) {
+    return new CeTask.Builder()
+      .setOrganizationUuid("org1")
+      .setUuid("TASK_1")
+      .setType(CeTaskTypes.PROJECT_PURGE)
+      .setComponentUuid(componentUuid)
+      .build();
+  }
+}
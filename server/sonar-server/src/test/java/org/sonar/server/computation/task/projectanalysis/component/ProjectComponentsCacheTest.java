@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.ComponentTesting.newModuleDto;
+
+public class ProjectComponentsCacheTest {
+
+  private static final String ANALYSIS_UUID = "A1";
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = db.getSession();
+  private ProjectComponentsCache underTest = new ProjectComponentsCache(db.getDbClient(),
+    new MapSettings().setProperty(ProjectComponentsCache.MAX_COMPONENTS_PROPERTY, 100));
+
+  @Test
+  public void cache_is_disabled_by_default() {
+    ProjectComponentsCache disabled = new ProjectComponentsCache(db.getDbClient(), new MapSettings());
+    ComponentDto project = db.components().insertPrivateProject();
+    disabled.put(project.uuid(), ANALYSIS_UUID, asList(project));
+
+    assertThat(disabled.isEnabled()).isFalse();
+    assertThat(disabled.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID)).isNotPresent();
+  }
+
+  @Test
+  public void get_returns_copies_of_components_cached_by_the_base_analysis() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    ComponentDto file = db.components().insertComponent(newFileDto(module));
+    underTest.put(project.uuid(), ANALYSIS_UUID, asList(project, module, file));
+
+    Optional<List<ComponentDto>> cached = underTest.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID);
+
+    assertThat(cached).isPresent();
+    assertThat(cached.get()).extracting(ComponentDto::uuid).containsExactly(project.uuid(), module.uuid(), file.uuid());
+    assertThat(cached.get()).extracting(ComponentDto::getId).containsExactly(project.getId(), module.getId(), file.getId());
+    assertThat(cached.get().get(2)).isNotSameAs(file);
+    assertThat(cached.get().get(2).path()).isEqualTo(file.path());
+  }
+
+  @Test
+  public void modifying_returned_components_does_not_modify_cache() {
+    ComponentDto project = db.components().insertPrivateProject();
+    underTest.put(project.uuid(), ANALYSIS_UUID, asList(project));
+
+    underTest.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID).get().get(0).setName("changed");
+
+    assertThat(underTest.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID).get().get(0).name()).isEqualTo(project.name());
+  }
+
+  @Test
+  public void get_returns_empty_if_base_analysis_is_not_the_cached_one() {
+    ComponentDto project = db.components().insertPrivateProject();
+    underTest.put(project.uuid(), ANALYSIS_UUID, asList(project));
+
+    assertThat(underTest.get(dbSession, project.uuid(), project.getKey(), "other analysis")).isNotPresent();
+    assertThat(underTest.get(dbSession, project.uuid(), project.getKey(), null)).isNotPresent();
+    // entry has been invalidated
+    assertThat(underTest.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID)).isNotPresent();
+  }
+
+  @Test
+  public void get_returns_empty_if_key_of_a_module_has_been_updated() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    underTest.put(project.uuid(), ANALYSIS_UUID, asList(project, module));
+
+    db.getDbClient().componentKeyUpdaterDao().updateKey(dbSession, module.uuid(), "new_module_key");
+    db.commit();
+
+    assertThat(underTest.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID)).isNotPresent();
+  }
+
+  @Test
+  public void get_returns_empty_if_visibility_has_been_updated() {
+    ComponentDto project = db.components().insertPrivateProject();
+    underTest.put(project.uuid(), ANALYSIS_UUID, asList(project));
+
+    db.getDbClient().componentDao().setPrivateForRootComponentUuid(dbSession, project.uuid(), false);
+    db.commit();
+
+    assertThat(underTest.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID)).isNotPresent();
+  }
+
+  @Test
+  public void components_exceeding_max_size_are_not_cached() {
+    ProjectComponentsCache small = new ProjectComponentsCache(db.getDbClient(),
+      new MapSettings().setProperty(ProjectComponentsCache.MAX_COMPONENTS_PROPERTY, 1));
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    small.put(project.uuid(), ANALYSIS_UUID, asList(project, file));
+
+    assertThat(small.get(dbSession, project.uuid(), project.getKey(), ANALYSIS_UUID)).isNotPresent();
+  }
+}
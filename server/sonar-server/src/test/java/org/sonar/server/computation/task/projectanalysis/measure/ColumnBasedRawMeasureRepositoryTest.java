@@ -0,0 +1,152 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.collect.SetMultimap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class ColumnBasedRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 200).setKey("other key").build();
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private ColumnBasedRawMeasureRepository underTest = new ColumnBasedRawMeasureRepository();
+  private int metricCount = 0;
+
+  @Test
+  public void getRawMeasure_returns_values_of_every_value_type() {
+    assertThat(addAndGet(Metric.MetricType.INT, newMeasureBuilder().create(12)).getIntValue()).isEqualTo(12);
+    assertThat(addAndGet(Metric.MetricType.WORK_DUR, newMeasureBuilder().create(123456789012L)).getLongValue()).isEqualTo(123456789012L);
+    assertThat(addAndGet(Metric.MetricType.FLOAT, newMeasureBuilder().create(1.25d, 2)).getDoubleValue()).isEqualTo(1.25d);
+    assertThat(addAndGet(Metric.MetricType.BOOL, newMeasureBuilder().create(true)).getBooleanValue()).isTrue();
+    assertThat(addAndGet(Metric.MetricType.STRING, newMeasureBuilder().create("foo")).getStringValue()).isEqualTo("foo");
+    assertThat(addAndGet(Metric.MetricType.LEVEL, newMeasureBuilder().create(Measure.Level.WARN)).getLevelValue()).isEqualTo(Measure.Level.WARN);
+    assertThat(addAndGet(Metric.MetricType.INT, newMeasureBuilder().createNoValue()).getValueType()).isEqualTo(Measure.ValueType.NO_VALUE);
+  }
+
+  @Test
+  public void getRawMeasure_returns_data_variation_and_quality_gate_status() {
+    QualityGateStatus qualityGateStatus = new QualityGateStatus(Measure.Level.ERROR, "some text");
+    Measure measure = addAndGet(Metric.MetricType.INT, newMeasureBuilder()
+      .setVariation(3d)
+      .setQualityGateStatus(qualityGateStatus)
+      .create(12, "some data"));
+
+    assertThat(measure.getIntValue()).isEqualTo(12);
+    assertThat(measure.getData()).isEqualTo("some data");
+    assertThat(measure.getVariation()).isEqualTo(3d);
+    assertThat(measure.getQualityGateStatus()).isEqualTo(qualityGateStatus);
+  }
+
+  @Test
+  public void getRawMeasure_does_not_return_measure_of_other_component_or_metric() {
+    Metric metric = newMetric(Metric.MetricType.INT);
+    underTest.add(OTHER_COMPONENT, metric, newMeasureBuilder().create(12));
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric)).isAbsent();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, newMetric(Metric.MetricType.INT))).isAbsent();
+  }
+
+  @Test
+  public void update_replaces_data_and_variation() {
+    Metric metric = newMetric(Metric.MetricType.INT);
+    underTest.add(FILE_COMPONENT, metric, newMeasureBuilder().setVariation(3d).create(12, "some data"));
+
+    underTest.update(FILE_COMPONENT, metric, newMeasureBuilder().create(13));
+
+    Measure measure = underTest.getRawMeasure(FILE_COMPONENT, metric).get();
+    assertThat(measure.getIntValue()).isEqualTo(13);
+    assertThat(measure.getData()).isNull();
+    assertThat(measure.hasVariation()).isFalse();
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_policy_keeps_existing_measure() {
+    Metric metric = newMetric(Metric.MetricType.INT);
+    underTest.add(FILE_COMPONENT, metric, newMeasureBuilder().create(12));
+
+    underTest.add(FILE_COMPONENT, metric, newMeasureBuilder().create(13), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric).get().getIntValue()).isEqualTo(12);
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    Metric metric = newMetric(Metric.MetricType.INT);
+    underTest.add(FILE_COMPONENT, metric, newMeasureBuilder().create(12));
+
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.add(FILE_COMPONENT, metric, newMeasureBuilder().create(13));
+  }
+
+  @Test
+  public void measures_of_developers_are_stored_aside_measure_of_component() {
+    Metric metric = newMetric(Metric.MetricType.INT);
+    Measure developerMeasure = newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(5);
+    underTest.add(FILE_COMPONENT, metric, newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, metric, developerMeasure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric).get().getIntValue()).isEqualTo(12);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, metric)).hasSize(2).contains(developerMeasure);
+  }
+
+  @Test
+  public void getRawMeasures_returns_measures_of_component_by_metric_key() {
+    Metric metric1 = newMetric(Metric.MetricType.INT);
+    Metric metric2 = newMetric(Metric.MetricType.STRING);
+    underTest.add(FILE_COMPONENT, metric1, newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, metric2, newMeasureBuilder().create("foo"));
+    underTest.add(OTHER_COMPONENT, metric2, newMeasureBuilder().create("bar"));
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+
+    assertThat(measures.keySet()).containsOnly(metric1.getKey(), metric2.getKey());
+    assertThat(measures.get(metric1.getKey()).iterator().next().getIntValue()).isEqualTo(12);
+    assertThat(measures.get(metric2.getKey()).iterator().next().getStringValue()).isEqualTo("foo");
+  }
+
+  private Measure addAndGet(Metric.MetricType metricType, Measure measure) {
+    Metric metric = newMetric(metricType);
+    underTest.add(OTHER_COMPONENT, metric, measure);
+    return underTest.getRawMeasure(OTHER_COMPONENT, metric).get();
+  }
+
+  private Metric newMetric(Metric.MetricType metricType) {
+    metricCount++;
+    return new MetricImpl(metricCount, "metric" + metricCount, "name" + metricCount, metricType);
+  }
+}
@@ -26,9 +26,8 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
-import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.core.util.Protobuf;
 import org.sonar.scanner.protocol.output.ScannerReport;
-import org.sonar.scanner.protocol.output.ScannerReportWriter;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -44,15 +43,12 @@ public class ReportIteratorTest {
 
   @Before
   public void setUp() throws Exception {
-    File dir = temp.newFolder();
-    ScannerReportWriter writer = new ScannerReportWriter(dir);
-
-    writer.writeComponentCoverage(1, newArrayList(
+    file = temp.newFile();
+    Protobuf.writeStream(newArrayList(
       ScannerReport.LineCoverage.newBuilder()
         .setLine(1)
-        .build()));
-
-    file = new FileStructure(dir).fileFor(FileStructure.Domain.COVERAGES, 1);
+        .build()),
+      file, false);
   }
 
   @After
@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.formula.Formula;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodHolderRule;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.api.measures.CoreMetrics.COMMENTED_OUT_CODE_LINES;
+import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES;
+import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_DENSITY;
+import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_DENSITY_KEY;
+import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_KEY;
+import static org.sonar.api.measures.CoreMetrics.NCLOC;
+import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
+import static org.sonar.api.measures.CoreMetrics.PUBLIC_API;
+import static org.sonar.api.measures.CoreMetrics.PUBLIC_DOCUMENTED_API_DENSITY;
+import static org.sonar.api.measures.CoreMetrics.PUBLIC_UNDOCUMENTED_API;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+import static org.sonar.server.computation.task.projectanalysis.formula.SumFormula.createIntSumFormula;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class ComputeFormulaMeasuresStepTest {
+
+  private static final int ROOT_REF = 1;
+  private static final int DIRECTORY_REF = 12;
+  private static final int FILE_1_REF = 121;
+  private static final int FILE_2_REF = 122;
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(
+      builder(PROJECT, ROOT_REF)
+        .addChildren(
+          builder(DIRECTORY, DIRECTORY_REF)
+            .addChildren(
+              builder(FILE, FILE_1_REF).build(),
+              builder(FILE, FILE_2_REF).build())
+            .build())
+        .build());
+  @Rule
+  public MetricRepositoryRule metricRepository = new MetricRepositoryRule()
+    .add(NCLOC)
+    .add(COMMENT_LINES)
+    .add(COMMENT_LINES_DENSITY)
+    .add(COMMENTED_OUT_CODE_LINES)
+    .add(PUBLIC_API)
+    .add(PUBLIC_UNDOCUMENTED_API)
+    .add(PUBLIC_DOCUMENTED_API_DENSITY);
+  @Rule
+  public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+  @Rule
+  public PeriodHolderRule periodHolder = new PeriodHolderRule();
+
+  private SizeMeasuresStep sizeMeasuresStep = mock(SizeMeasuresStep.class);
+  private NewCoverageMeasuresStep newCoverageMeasuresStep = mock(NewCoverageMeasuresStep.class);
+  private CoverageMeasuresStep coverageMeasuresStep = mock(CoverageMeasuresStep.class);
+  private DuplicationMeasuresStep duplicationMeasuresStep = mock(DuplicationMeasuresStep.class);
+  private NewSizeMeasuresStep newSizeMeasuresStep = mock(NewSizeMeasuresStep.class);
+  private LanguageDistributionMeasuresStep languageDistributionMeasuresStep = mock(LanguageDistributionMeasuresStep.class);
+  private UnitTestMeasuresStep unitTestMeasuresStep = mock(UnitTestMeasuresStep.class);
+  private ComplexityMeasuresStep complexityMeasuresStep = mock(ComplexityMeasuresStep.class);
+
+  private ComputeFormulaMeasuresStep underTest;
+
+  @Before
+  public void setUp() {
+    when(sizeMeasuresStep.getFormulas()).thenReturn(singletonList((Formula) createIntSumFormula(NCLOC_KEY)));
+    when(newCoverageMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+    when(coverageMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+    when(duplicationMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+    when(newSizeMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+    when(languageDistributionMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+    when(unitTestMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+    when(complexityMeasuresStep.getFormulas()).thenReturn(Collections.<Formula>emptyList());
+
+    underTest = new ComputeFormulaMeasuresStep(treeRootHolder, periodHolder, metricRepository, measureRepository, sizeMeasuresStep,
+      newCoverageMeasuresStep, coverageMeasuresStep, new CommentMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      duplicationMeasuresStep, newSizeMeasuresStep, languageDistributionMeasuresStep, unitTestMeasuresStep, complexityMeasuresStep);
+  }
+
+  @Test
+  public void compute_file_and_directory_measures_before_executing_formulas() {
+    underTest.execute();
+
+    verify(sizeMeasuresStep).computeFileAndDirectoryMeasures();
+  }
+
+  @Test
+  public void formulas_read_measures_computed_on_the_same_component_by_formulas_of_previous_steps() {
+    measureRepository.addRawMeasure(FILE_1_REF, NCLOC_KEY, newMeasureBuilder().create(10));
+    measureRepository.addRawMeasure(FILE_1_REF, COMMENT_LINES_KEY, newMeasureBuilder().create(10));
+    measureRepository.addRawMeasure(FILE_2_REF, NCLOC_KEY, newMeasureBuilder().create(30));
+    measureRepository.addRawMeasure(FILE_2_REF, COMMENT_LINES_KEY, newMeasureBuilder().create(10));
+
+    underTest.execute();
+
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, NCLOC_KEY).get().getIntValue()).isEqualTo(40);
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(33.3d);
+    assertThat(measureRepository.getAddedRawMeasure(ROOT_REF, NCLOC_KEY).get().getIntValue()).isEqualTo(40);
+    assertThat(measureRepository.getAddedRawMeasure(ROOT_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(33.3d);
+  }
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import org.apache.commons.io.FileUtils;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -33,6 +34,8 @@ import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.FileSystemReportStore;
+import org.sonar.ce.queue.ReportStore;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
@@ -59,18 +62,39 @@ public class ExtractReportStepTest {
   private MutableBatchReportDirectoryHolder reportDirectoryHolder = new BatchReportDirectoryHolderImpl();
   private CeTask ceTask = new CeTask.Builder().setOrganizationUuid("org1").setType(CeTaskTypes.REPORT).setUuid(TASK_UUID).build();
 
-  private ExtractReportStep underTest = new ExtractReportStep(dbTester.getDbClient(), ceTask, tempFolder, reportDirectoryHolder);
+  private ReportStore reportStore;
+  private ExtractReportStep underTest;
+
+  @Before
+  public void setUp() {
+    reportStore = new FileSystemReportStore(tempFolder.newDir(), dbTester.getDbClient(), System2.INSTANCE);
+    underTest = new ExtractReportStep(dbTester.getDbClient(), reportStore, ceTask, tempFolder, reportDirectoryHolder);
+  }
 
   @Test
   public void fail_if_report_zip_does_not_exist() throws Exception {
     expectedException.expect(MessageException.class);
-    expectedException.expectMessage("Analysis report 1 is missing in database");
+    expectedException.expectMessage("Analysis report 1 is missing");
 
     underTest.execute();
   }
 
   @Test
   public void unzip_report() throws Exception {
+    File reportFile = generateReport();
+    try (InputStream input = FileUtils.openInputStream(reportFile)) {
+      reportStore.store(dbTester.getSession(), TASK_UUID, input);
+    }
+
+    underTest.execute();
+
+    File unzippedDir = reportDirectoryHolder.getDirectory();
+    assertThat(unzippedDir.listFiles()).hasSize(1);
+    assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
+  }
+
+  @Test
+  public void unzip_report_stored_in_database() throws Exception {
     File reportFile = generateReport();
     try (InputStream input = FileUtils.openInputStream(reportFile)) {
       dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
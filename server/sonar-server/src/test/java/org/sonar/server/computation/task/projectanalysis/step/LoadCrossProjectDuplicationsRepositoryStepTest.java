@@ -55,9 +55,11 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
@@ -259,6 +261,53 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
         .build());
   }
 
+  @Test
+  public void dispatch_candidates_to_every_file_having_their_hash() throws Exception {
+    Component secondFile = ReportComponent.builder(FILE, 3)
+      .setKey("SECOND_FILE_KEY")
+      .setFileAttributes(new FileAttributes(false, XOO_LANGUAGE, 1))
+      .build();
+    Component otherLanguageFile = ReportComponent.builder(FILE, 4)
+      .setKey("OTHER_LANGUAGE_FILE_KEY")
+      .setFileAttributes(new FileAttributes(false, "java", 1))
+      .build();
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, PROJECT_REF).addChildren(CURRENT_FILE, secondFile, otherLanguageFile).build());
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+
+    ComponentDto otherProject = createProject("OTHER_PROJECT_KEY");
+    SnapshotDto otherProjectSnapshot = createProjectSnapshot(otherProject);
+    ComponentDto otherFile = createFile("OTHER_FILE_KEY", otherProject);
+
+    String hash = "a8998353e96320ec";
+    dbClient.duplicationDao().insert(dbSession, new DuplicationUnitDto()
+      .setHash(hash)
+      .setStartLine(40)
+      .setEndLine(55)
+      .setIndexInFile(0)
+      .setAnalysisUuid(otherProjectSnapshot.getUuid())
+      .setComponentUuid(otherFile.uuid()));
+    dbSession.commit();
+
+    ScannerReport.CpdTextBlock originBlock = ScannerReport.CpdTextBlock.newBuilder()
+      .setHash(hash)
+      .setStartLine(30)
+      .setEndLine(45)
+      .setStartTokenIndex(0)
+      .setEndTokenIndex(10)
+      .build();
+    batchReportReader.putDuplicationBlocks(FILE_REF, asList(originBlock));
+    batchReportReader.putDuplicationBlocks(3, asList(originBlock));
+    batchReportReader.putDuplicationBlocks(4, asList(originBlock));
+
+    underTest.execute();
+
+    verify(integrateCrossProjectDuplications).computeCpd(eq(CURRENT_FILE), anyCollection(), anyCollection());
+    verify(integrateCrossProjectDuplications).computeCpd(eq(secondFile), anyCollection(), anyCollection());
+    // the candidate is a xoo file, it can't duplicate a java file
+    verifyNoMoreInteractions(integrateCrossProjectDuplications);
+  }
+
   @Test
   public void nothing_to_do_when_cross_project_duplication_is_disabled() throws Exception {
     when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(false);
@@ -23,6 +23,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -31,6 +32,7 @@ import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetada
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDbIdsRepository;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDisabledComponentsHolder;
+import org.sonar.server.computation.task.projectanalysis.component.ProjectComponentsCache;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 
 import static java.util.Collections.emptyList;
@@ -67,6 +69,7 @@ public class PersistComponentsStepTest {
       mock(MutableDbIdsRepository.class),
       System2.INSTANCE,
       mock(MutableDisabledComponentsHolder.class),
-      mock(AnalysisMetadataHolder.class)).execute();
+      mock(AnalysisMetadataHolder.class),
+      new ProjectComponentsCache(dbClient, new MapSettings())).execute();
   }
 }
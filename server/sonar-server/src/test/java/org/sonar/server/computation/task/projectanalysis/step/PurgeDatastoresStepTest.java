@@ -31,8 +31,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.ce.queue.CeTaskSubmit;
+import org.sonar.core.config.PurgeConstants;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.dbcleaner.ProjectCleaner;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -46,11 +51,15 @@ import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.util.WrapInSingleElementArray;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -71,7 +80,11 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
   private SettingsRepository settingsRepository = mock(SettingsRepository.class);
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
 
-  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS), projectCleaner, dbIdsRepository, treeRootHolder, settingsRepository, disabledComponentsHolder);
+  private DbClient dbClient = mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS);
+  private CeQueue ceQueue = mock(CeQueue.class);
+
+  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(dbClient, projectCleaner, dbIdsRepository, treeRootHolder, settingsRepository, disabledComponentsHolder,
+    ceQueue);
 
   @Test
   public void call_purge_method_of_the_purge_task_for_project() {
@@ -87,6 +100,46 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
     verify_call_purge_method_of_the_purge_task(project);
   }
 
+  @Test
+  public void queue_purge_task_and_only_purge_disabled_components_when_purge_is_deferred() {
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    prepareDeferredPurge(project);
+    when(dbClient.ceQueueDao().selectByComponentUuid(any(DbSession.class), eq(PROJECT_UUID))).thenReturn(emptyList());
+    when(ceQueue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder("TASK_1"));
+
+    underTest.execute();
+
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), any(IdUuidPair.class), any(Settings.class), anyList());
+    verify(projectCleaner, never()).purge(any(DbSession.class), any(IdUuidPair.class), any(Settings.class), anyList());
+    ArgumentCaptor<CeTaskSubmit> submitCaptor = ArgumentCaptor.forClass(CeTaskSubmit.class);
+    verify(ceQueue).submit(submitCaptor.capture());
+    assertThat(submitCaptor.getValue().getType()).isEqualTo(CeTaskTypes.PROJECT_PURGE);
+    assertThat(submitCaptor.getValue().getComponentUuid()).isEqualTo(PROJECT_UUID);
+  }
+
+  @Test
+  public void do_not_queue_purge_task_when_one_is_already_pending() {
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    prepareDeferredPurge(project);
+    CeQueueDto pendingPurge = new CeQueueDto()
+      .setUuid("TASK_0")
+      .setTaskType(CeTaskTypes.PROJECT_PURGE)
+      .setComponentUuid(PROJECT_UUID)
+      .setStatus(CeQueueDto.Status.PENDING);
+    when(dbClient.ceQueueDao().selectByComponentUuid(any(DbSession.class), eq(PROJECT_UUID))).thenReturn(singletonList(pendingPurge));
+
+    underTest.execute();
+
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), any(IdUuidPair.class), any(Settings.class), anyList());
+    verify(ceQueue, never()).submit(any(CeTaskSubmit.class));
+  }
+
+  private void prepareDeferredPurge(Component project) {
+    treeRootHolder.setRoot(project);
+    when(settingsRepository.getSettings(project)).thenReturn(new MapSettings().setProperty(PurgeConstants.DEFERRED, true));
+    dbIdsRepository.setComponentId(project, PROJECT_ID);
+  }
+
   @DataProvider
   public static Object[][] nonRootProjectComponentTypes() {
     return dataproviderFromComponentTypeValues(new Predicate<Component.Type>() {
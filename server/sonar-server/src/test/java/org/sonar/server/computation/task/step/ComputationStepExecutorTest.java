@@ -56,15 +56,36 @@ public class ComputationStepExecutorTest {
       .execute();
 
     InOrder inOrder = inOrder(computationStep1, computationStep2, computationStep3);
-    inOrder.verify(computationStep1).execute();
     inOrder.verify(computationStep1).getDescription();
-    inOrder.verify(computationStep2).execute();
+    inOrder.verify(computationStep1).execute();
     inOrder.verify(computationStep2).getDescription();
-    inOrder.verify(computationStep3).execute();
+    inOrder.verify(computationStep2).execute();
     inOrder.verify(computationStep3).getDescription();
+    inOrder.verify(computationStep3).execute();
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void execute_adds_profile_of_each_ComputationStep_to_the_profile_of_task() {
+    TaskProfiler.start();
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2))
+      .execute();
+    List<StepProfile> profiles = TaskProfiler.stop();
+
+    assertThat(profiles).extracting(StepProfile::getName).containsExactly(TaskProfiler.TOTAL, "step1", "step2");
+    assertThat(profiles.get(1).getWallTimeMs()).isGreaterThanOrEqualTo(0);
+    assertThat(profiles.get(1).getSqlExecutions()).isEqualTo(0);
+    assertThat(profiles.get(1).getEsRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void execute_does_not_collect_profiles_of_steps_if_task_profiler_is_not_started() {
+    new ComputationStepExecutor(mockComputationSteps(computationStep1))
+      .execute();
+
+    assertThat(TaskProfiler.stop()).isEmpty();
+  }
+
   @Test
   public void execute_let_exception_thrown_by_ComputationStep_go_up_as_is() {
     String message = "Exception should go up";
@@ -92,7 +113,7 @@ public class ComputationStepExecutorTest {
   public void execute_logs_end_timing_for_each_ComputationStep_called_when_level_is_DEBUG() {
     List<String> infoLogs = execute_logs_end_timing_for_each_ComputationStep_called_when_(LoggerLevel.DEBUG);
     assertThat(infoLogs).hasSize(2);
-    assertThat(infoLogs.get(0)).contains("step1 | time=");
+    assertThat(infoLogs.get(0)).contains("step1 | time=").contains(" | cpu=").contains(" | sql=").contains(" | es=");
     assertThat(infoLogs.get(1)).contains("step2 | time=");
   }
 
@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StepProfileStatisticsTest {
+
+  @Test
+  public void summaries_are_empty_if_no_profiles() {
+    assertThat(new StepProfileStatistics().getSummaries()).isEmpty();
+  }
+
+  @Test
+  public void compute_percentiles_per_step_in_order_of_first_occurrence() {
+    StepProfileStatistics underTest = new StepProfileStatistics();
+    IntStream.rangeClosed(1, 100).forEach(i -> underTest.add(asList(
+      new StepProfile("Total", i * 10, i, -1, i, i, 0),
+      new StepProfile("Persist issues", i, i, 2 * i, 0, 0, 0))));
+
+    List<StepProfileStatistics.Summary> summaries = underTest.getSummaries();
+
+    assertThat(summaries).extracting(StepProfileStatistics.Summary::getName).containsExactly("Total", "Persist issues");
+    StepProfileStatistics.Summary total = summaries.get(0);
+    assertThat(total.getSamples()).isEqualTo(100);
+    assertThat(total.getWallTimeMs().getP50()).isEqualTo(500);
+    assertThat(total.getWallTimeMs().getP90()).isEqualTo(900);
+    assertThat(total.getWallTimeMs().getP99()).isEqualTo(990);
+    assertThat(total.getWallTimeMs().getMax()).isEqualTo(1000);
+    assertThat(total.getAllocatedBytes().getMax()).isEqualTo(-1);
+    assertThat(total.getEsRequests().getMax()).isEqualTo(0);
+    assertThat(summaries.get(1).getAllocatedBytes().getP90()).isEqualTo(180);
+    assertThat(total.toString()).isEqualTo("Total | samples=100 | time=500/900/990/1000 | cpu=50/90/99/100 | allocated=-1/-1/-1/-1"
+      + " | sql=50/90/99/100 | sqlTime=50/90/99/100 | es=0/0/0/0");
+  }
+
+  @Test
+  public void keep_only_last_profiles_of_each_step() {
+    StepProfileStatistics underTest = new StepProfileStatistics(3);
+    underTest.add(IntStream.rangeClosed(1, 10).mapToObj(i -> new StepProfile("step", i, 0, 0, 0, 0, 0)).collect(toList()));
+
+    StepProfileStatistics.Summary summary = underTest.getSummaries().get(0);
+    assertThat(summary.getSamples()).isEqualTo(3);
+    assertThat(summary.getWallTimeMs().getP50()).isEqualTo(9);
+    assertThat(summary.getWallTimeMs().getMax()).isEqualTo(10);
+  }
+
+  @Test
+  public void percentiles_of_single_profile_are_its_values() {
+    StepProfileStatistics underTest = new StepProfileStatistics().add(singletonList(new StepProfile("step", 42, 0, 0, 0, 0, 0)));
+
+    assertThat(underTest.getSummaries().get(0).getWallTimeMs().toString()).isEqualTo("42/42/42/42");
+  }
+}
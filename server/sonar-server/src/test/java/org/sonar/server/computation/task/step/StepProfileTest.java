@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StepProfileTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void format_and_parse_profiles() {
+    StepProfile total = new StepProfile("Total", 1500, 1200, 45_000_000, 320, 400, 12);
+    StepProfile step = new StepProfile("Persist issues, measures", 300, 250, 1_000_000, 100, 80, 0);
+
+    String formatted = StepProfile.format(asList(total, step));
+    assertThat(formatted).isEqualTo("1500,1200,45000000,320,400,12,Total\n300,250,1000000,100,80,0,Persist issues, measures");
+
+    List<StepProfile> parsed = StepProfile.parse(formatted);
+    assertThat(parsed).extracting(StepProfile::getName).containsExactly("Total", "Persist issues, measures");
+    assertThat(parsed.get(1).getWallTimeMs()).isEqualTo(300);
+    assertThat(parsed.get(1).getCpuTimeMs()).isEqualTo(250);
+    assertThat(parsed.get(1).getAllocatedBytes()).isEqualTo(1_000_000);
+    assertThat(parsed.get(1).getSqlExecutions()).isEqualTo(100);
+    assertThat(parsed.get(1).getSqlTimeMs()).isEqualTo(80);
+    assertThat(parsed.get(1).getEsRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void parse_null_or_empty_string_returns_empty_list() {
+    assertThat(StepProfile.parse(null)).isEmpty();
+    assertThat(StepProfile.parse("")).isEmpty();
+  }
+
+  @Test
+  public void parse_fails_on_invalid_line() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid step profile: 1,2,Total");
+
+    StepProfile.parse("1,2,Total");
+  }
+
+  @Test
+  public void meter_measures_resources_of_current_thread() {
+    StepProfile.Meter meter = StepProfile.start();
+    byte[][] garbage = new byte[100][];
+    for (int i = 0; i < garbage.length; i++) {
+      garbage[i] = new byte[10_000];
+    }
+
+    StepProfile profile = meter.stop("foo");
+
+    assertThat(profile.getName()).isEqualTo("foo");
+    assertThat(profile.getWallTimeMs()).isGreaterThanOrEqualTo(0);
+    if (profile.getAllocatedBytes() != -1L) {
+      assertThat(profile.getAllocatedBytes()).isGreaterThanOrEqualTo(1_000_000L);
+    }
+    assertThat(profile.getSqlExecutions()).isEqualTo(0);
+    assertThat(profile.getEsRequests()).isEqualTo(0);
+  }
+}
@@ -62,6 +62,20 @@ public class BulkIndexerTest {
     assertThat(count()).isEqualTo(2);
   }
 
+  @Test
+  public void count_requests_sent_to_elasticsearch_but_not_items_of_bulk() {
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR);
+    indexer.start();
+    long requests = EsRequestCounter.get();
+    indexer.add(esTester.client().prepareIndex(INDEX_TYPE_FAKE).setSource(ImmutableMap.of(FakeIndexDefinition.INT_FIELD, 42)).request());
+    indexer.add(newIndexRequest(78));
+    indexer.stop();
+
+    // the bulk request and the refresh of index
+    assertThat(EsRequestCounter.get() - requests).isEqualTo(2);
+    assertThat(count()).isEqualTo(2);
+  }
+
   @Test
   public void large_indexing() {
     // index has one replica
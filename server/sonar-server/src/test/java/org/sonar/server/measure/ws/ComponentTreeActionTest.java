@@ -52,6 +52,7 @@ import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.measures.CoreMetrics.NEW_SECURITY_RATING_KEY;
 import static org.sonar.api.measures.Metric.ValueType.DISTRIB;
 import static org.sonar.api.measures.Metric.ValueType.FLOAT;
@@ -318,6 +319,44 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(4);
   }
 
+  @Test
+  public void load_measures_of_all_metrics_on_the_page_sorted_by_metric_value() {
+    ComponentDto project = newPrivateProjectDto(db.getDefaultOrganization(), "project-uuid");
+    SnapshotDto projectSnapshot = componentDb.insertProjectAndSnapshot(project);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3"));
+    MetricDto ncloc = insertNclocMetric();
+    MetricDto complexity = insertComplexityMetric();
+    dbClient.measureDao().insert(dbSession,
+      newMeasureDto(ncloc, project, projectSnapshot).setValue(60.0d),
+      newMeasureDto(ncloc, file1, projectSnapshot).setValue(30.0d),
+      newMeasureDto(ncloc, file2, projectSnapshot).setValue(10.0d),
+      newMeasureDto(ncloc, file3, projectSnapshot).setValue(20.0d),
+      newMeasureDto(complexity, file1, projectSnapshot).setValue(3.0d),
+      newMeasureDto(complexity, file2, projectSnapshot).setValue(1.0d),
+      newMeasureDto(complexity, file3, projectSnapshot).setValue(2.0d));
+    db.commit();
+
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_BASE_COMPONENT_ID, project.uuid())
+      .setParam(Param.SORT, METRIC_SORT)
+      .setParam(Param.ASCENDING, "false")
+      .setParam(PARAM_METRIC_SORT, "ncloc")
+      .setParam(PARAM_METRIC_KEYS, "ncloc,complexity")
+      .setParam(Param.PAGE, "1")
+      .setParam(Param.PAGE_SIZE, "2")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getPaging().getTotal()).isEqualTo(3);
+    assertThat(response.getBaseComponent().getMeasuresList()).extracting("metric", "value").containsExactly(tuple("ncloc", "60"));
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(file1.uuid(), file3.uuid());
+    assertThat(response.getComponents(0).getMeasuresList()).extracting("metric", "value")
+      .containsExactlyInAnyOrder(tuple("ncloc", "30"), tuple("complexity", "3"));
+    assertThat(response.getComponents(1).getMeasuresList()).extracting("metric", "value")
+      .containsExactlyInAnyOrder(tuple("ncloc", "20"), tuple("complexity", "2"));
+  }
+
   @Test
   public void remove_components_without_measure_on_the_metric_sort() {
     ComponentDto project = newPrivateProjectDto(db.getDefaultOrganization(), "project-uuid");
@@ -88,6 +88,7 @@ public class CreateActionTest {
     assertThat(metric.isEnabled()).isTrue();
     assertThat(metric.getDirection()).isEqualTo(0);
     assertThat(metric.isQualitative()).isFalse();
+    assertThat(MetricsVersion.read(dbClient, dbSession)).isNotEmpty();
   }
 
   @Test
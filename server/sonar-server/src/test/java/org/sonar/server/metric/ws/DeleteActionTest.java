@@ -64,6 +64,7 @@ public class DeleteActionTest {
     List<MetricDto> disabledMetrics = db.getDbClient().metricDao().selectByKeys(db.getSession(), asList("key-1", "key-3"));
     assertThat(disabledMetrics).extracting("enabled").containsOnly(false);
     assertThat(db.getDbClient().metricDao().selectByKey(db.getSession(), "key-2").isEnabled()).isTrue();
+    assertThat(MetricsVersion.read(db.getDbClient(), db.getSession())).isNotEmpty();
   }
 
   @Test
@@ -21,9 +21,11 @@ package org.sonar.server.metric.ws;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.platform.Server;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,7 +40,7 @@ public class MetricsWsTest {
     DbClient dbClient = mock(DbClient.class);
     UserSession userSession = mock(UserSession.class);
     ws = new WsTester(new MetricsWs(
-      new SearchAction(dbClient),
+      new SearchAction(dbClient, new WsPayloadCache(mock(Server.class))),
       new CreateAction(dbClient, userSession),
       new UpdateAction(dbClient, userSession),
       new DeleteAction(dbClient, userSession),
@@ -19,19 +19,24 @@
  */
 package org.sonar.server.metric.ws;
 
+import java.util.Date;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.platform.Server;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.db.metric.MetricTesting.newMetricDto;
 import static org.sonar.server.metric.ws.SearchAction.PARAM_IS_CUSTOM;
 
@@ -46,7 +51,9 @@ public class SearchActionTest {
 
   @Before
   public void setUp() {
-    ws = new WsTester(new MetricsWs(new SearchAction(dbClient)));
+    Server server = mock(Server.class);
+    when(server.getStartedAt()).thenReturn(new Date());
+    ws = new WsTester(new MetricsWs(new SearchAction(dbClient, new WsPayloadCache(server))));
   }
 
   @Test
@@ -119,6 +126,19 @@ public class SearchActionTest {
       .doesNotContain("description");
   }
 
+  @Test
+  public void payload_is_computed_again_when_version_of_metrics_changes() throws Exception {
+    insertNewCustomMetric("1");
+    assertThat(newRequest().execute().outputAsString()).contains("custom-key-1").doesNotContain("custom-key-2");
+
+    insertNewCustomMetric("2");
+    assertThat(newRequest().execute().outputAsString()).doesNotContain("custom-key-2");
+
+    MetricsVersion.change(dbClient, dbSession);
+    dbSession.commit();
+    assertThat(newRequest().execute().outputAsString()).contains("custom-key-1", "custom-key-2");
+  }
+
   private void insertNewNonCustomMetric(String... ids) {
     for (String id : ids) {
       dbClient.metricDao().insert(dbSession, newMetricDto()
@@ -19,8 +19,10 @@
  */
 package org.sonar.server.notification;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.SetMultimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
@@ -37,6 +39,8 @@ import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
 
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
@@ -123,16 +127,17 @@ public class DefaultNotificationManagerTest {
 
   @Test
   public void shouldFindNoRecipient() {
+    when(propertiesDao.selectUsersForNotificationChannels(any(String.class), any(Collection.class), any(String.class))).thenReturn(HashMultimap.create());
+
     assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").asMap().entrySet()).hasSize(0);
   }
 
   @Test
   public void shouldFindSubscribedRecipientForGivenResource() {
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user1", "user2"));
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", null)).thenReturn(Lists.newArrayList("user1", "user3"));
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Twitter", "uuid_56")).thenReturn(Lists.newArrayList("user2"));
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Twitter", null)).thenReturn(Lists.newArrayList("user3"));
-    when(propertiesDao.selectUsersForNotification("NewAlerts", "Twitter", null)).thenReturn(Lists.newArrayList("user4"));
+    SetMultimap<String, String> loginsByChannel = HashMultimap.create();
+    loginsByChannel.putAll("Email", asList("user1", "user2", "user3"));
+    loginsByChannel.putAll("Twitter", asList("user3"));
+    when(propertiesDao.selectUsersForNotificationChannels("NewViolations", newHashSet("Email", "Twitter"), "uuid_45")).thenReturn(loginsByChannel);
 
     Multimap<String, NotificationChannel> multiMap = manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
     assertThat(multiMap.entries()).hasSize(4);
@@ -146,11 +151,10 @@ public class DefaultNotificationManagerTest {
 
   @Test
   public void shouldFindSubscribedRecipientForNoResource() {
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user1", "user2"));
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", null)).thenReturn(Lists.newArrayList("user1", "user3"));
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Twitter", "uuid_56")).thenReturn(Lists.newArrayList("user2"));
-    when(propertiesDao.selectUsersForNotification("NewViolations", "Twitter", null)).thenReturn(Lists.newArrayList("user3"));
-    when(propertiesDao.selectUsersForNotification("NewAlerts", "Twitter", null)).thenReturn(Lists.newArrayList("user4"));
+    SetMultimap<String, String> loginsByChannel = HashMultimap.create();
+    loginsByChannel.putAll("Email", asList("user1", "user3"));
+    loginsByChannel.putAll("Twitter", asList("user3"));
+    when(propertiesDao.selectUsersForNotificationChannels("NewViolations", newHashSet("Email", "Twitter"), null)).thenReturn(loginsByChannel);
 
     Multimap<String, NotificationChannel> multiMap = manager.findSubscribedRecipientsForDispatcher(dispatcher, null);
     assertThat(multiMap.entries()).hasSize(3);
@@ -162,6 +166,44 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user4")).isNull();
   }
 
+  @Test
+  public void subscribed_recipients_are_loaded_once_per_dispatcher_and_project_during_a_delivery_batch() {
+    when(propertiesDao.selectUsersForNotificationChannels(any(String.class), any(Collection.class), any(String.class))).thenReturn(HashMultimap.create());
+
+    manager.startDeliveryBatch();
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_56");
+    manager.endDeliveryBatch();
+
+    verify(propertiesDao, times(1)).selectUsersForNotificationChannels("NewViolations", newHashSet("Email", "Twitter"), "uuid_45");
+    verify(propertiesDao, times(1)).selectUsersForNotificationChannels("NewViolations", newHashSet("Email", "Twitter"), "uuid_56");
+  }
+
+  @Test
+  public void subscribed_recipients_are_loaded_again_by_next_delivery_batch() {
+    when(propertiesDao.selectUsersForNotificationChannels(any(String.class), any(Collection.class), any(String.class))).thenReturn(HashMultimap.create());
+
+    manager.startDeliveryBatch();
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.endDeliveryBatch();
+    manager.startDeliveryBatch();
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.endDeliveryBatch();
+
+    verify(propertiesDao, times(2)).selectUsersForNotificationChannels("NewViolations", newHashSet("Email", "Twitter"), "uuid_45");
+  }
+
+  @Test
+  public void subscribed_recipients_are_not_cached_out_of_delivery_batches() {
+    when(propertiesDao.selectUsersForNotificationChannels(any(String.class), any(Collection.class), any(String.class))).thenReturn(HashMultimap.create());
+
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+
+    verify(propertiesDao, times(2)).selectUsersForNotificationChannels("NewViolations", newHashSet("Email", "Twitter"), "uuid_45");
+  }
+
   @Test
   public void findNotificationSubscribers() {
     when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1", "user2"));
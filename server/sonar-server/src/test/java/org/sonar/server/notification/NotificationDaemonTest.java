@@ -34,6 +34,7 @@ import org.sonar.db.property.PropertiesDao;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -93,9 +94,11 @@ public class NotificationDaemonTest {
 
     underTest.start();
     verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(manager, timeout(2000).atLeastOnce()).endDeliveryBatch();
     underTest.stop();
 
     verify(gtalkChannel, never()).deliver(notification, ASSIGNEE_SIMON);
+    verify(manager, atLeastOnce()).startDeliveryBatch();
   }
 
   /**
@@ -157,6 +157,18 @@ public class EmailNotificationChannelTest {
     assertThat((String) email.getContent()).startsWith("Bar");
   }
 
+  @Test
+  public void send_several_emails() throws Exception {
+    configure();
+
+    for (int i = 0; i < 3; i++) {
+      underTest.deliver(new EmailMessage().setTo("user" + i + "@nowhere").setSubject("Foo").setMessage("Bar"));
+    }
+    underTest.stop();
+
+    assertThat(smtpServer.getMessages()).extracting("envelopeReceiver").containsExactly("user0@nowhere", "user1@nowhere", "user2@nowhere");
+  }
+
   @Test
   public void shouldNotThrowAnExceptionWhenUnableToSendEmail() {
     configure();
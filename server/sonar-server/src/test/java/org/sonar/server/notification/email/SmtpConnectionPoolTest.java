@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification.email;
+
+import org.apache.commons.mail.Email;
+import org.apache.commons.mail.EmailException;
+import org.apache.commons.mail.SimpleEmail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.subethamail.wiser.Wiser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SmtpConnectionPoolTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private Wiser smtpServer;
+  private System2 system2 = mock(System2.class);
+  private SmtpConnectionPool underTest = new SmtpConnectionPool(system2);
+
+  @Before
+  public void setUp() {
+    smtpServer = new Wiser(0);
+    smtpServer.start();
+  }
+
+  @After
+  public void tearDown() {
+    underTest.closeAll();
+    smtpServer.stop();
+  }
+
+  @Test
+  public void reuse_connection_to_send_several_emails() throws Exception {
+    when(system2.now()).thenReturn(1_000L);
+
+    underTest.send("key", newEmail("user1@nowhere"));
+    underTest.send("key", newEmail("user2@nowhere"));
+    underTest.send("key", newEmail("user3@nowhere"));
+
+    assertThat(smtpServer.getMessages()).extracting("envelopeReceiver").containsExactly("user1@nowhere", "user2@nowhere", "user3@nowhere");
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void do_not_reuse_connection_if_key_changed() throws Exception {
+    when(system2.now()).thenReturn(1_000L);
+
+    underTest.send("key1", newEmail("user1@nowhere"));
+    underTest.send("key2", newEmail("user2@nowhere"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void open_new_connection_if_idle_for_too_long() throws Exception {
+    when(system2.now()).thenReturn(1_000L);
+    underTest.send("key", newEmail("user1@nowhere"));
+
+    when(system2.now()).thenReturn(1_000L + SmtpConnectionPool.MAX_IDLE_MS);
+    underTest.send("key", newEmail("user2@nowhere"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void open_new_connection_if_idle_one_was_closed_by_server() throws Exception {
+    when(system2.now()).thenReturn(1_000L);
+    underTest.send("key", newEmail("user1@nowhere"));
+
+    int port = smtpServer.getServer().getPort();
+    smtpServer.stop();
+    smtpServer = new Wiser(port);
+    smtpServer.start();
+    underTest.send("key", newEmail("user2@nowhere"));
+
+    assertThat(smtpServer.getMessages()).extracting("envelopeReceiver").containsExactly("user2@nowhere");
+    assertThat(underTest.countIdleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void fail_if_server_is_not_available() throws Exception {
+    smtpServer.stop();
+
+    expectedException.expect(EmailException.class);
+
+    underTest.send("key", newEmail("user1@nowhere"));
+  }
+
+  @Test
+  public void closeAll_closes_idle_connections() throws Exception {
+    underTest.send("key", newEmail("user1@nowhere"));
+
+    underTest.closeAll();
+
+    assertThat(underTest.countIdleConnections()).isZero();
+  }
+
+  private Email newEmail(String to) throws EmailException {
+    SimpleEmail email = new SimpleEmail();
+    email.setHostName("localhost");
+    email.setSmtpPort(smtpServer.getServer().getPort());
+    email.setFrom("server@nowhere");
+    email.addTo(to);
+    email.setSubject("Foo");
+    email.setMsg("Bar");
+    return email;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.db.Database;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.NullConnectionInterceptor;
+import org.sonar.db.profiling.ProfiledDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SqlStatisticsMonitorTest {
+
+  private BasicDataSource originDataSource = mock(BasicDataSource.class);
+  private ProfiledDataSource dataSource = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+  private DbClient dbClient = mock(DbClient.class);
+  private SqlStatisticsMonitor underTest = new SqlStatisticsMonitor(dbClient);
+
+  @Before
+  public void setUp() throws Exception {
+    Database database = mock(Database.class);
+    when(database.getDataSource()).thenReturn(dataSource);
+    when(dbClient.getDatabase()).thenReturn(database);
+
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.executeUpdate("delete from foo")).thenReturn(3);
+  }
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("SqlStatistics");
+  }
+
+  @Test
+  public void attributes_and_mbean_attributes_are_computed_from_statistics_of_datasource() throws Exception {
+    dataSource.getConnection().createStatement().executeUpdate("delete from foo");
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes.get("Executions")).isEqualTo(1L);
+    assertThat(attributes.get("Rows")).isEqualTo(3L);
+    assertThat(attributes).containsKey("Statement delete from foo");
+    assertThat(underTest.getExecutions()).isEqualTo(1L);
+    assertThat(underTest.getRows()).isEqualTo(3L);
+    assertThat(underTest.getMostExpensiveStatements()).hasSize(1);
+    assertThat(underTest.getSlowestExecutions()).hasSize(1);
+  }
+
+  @Test
+  public void reset_clears_statistics() throws Exception {
+    dataSource.getConnection().createStatement().executeUpdate("delete from foo");
+
+    underTest.reset();
+
+    assertThat(underTest.getExecutions()).isEqualTo(0L);
+    assertThat(underTest.getMostExpensiveStatements()).isEmpty();
+    assertThat(underTest.getSlowestExecutions()).isEmpty();
+  }
+
+  @Test
+  public void statistics_are_empty_if_datasource_is_not_profiled() {
+    when(dbClient.getDatabase().getDataSource()).thenReturn(originDataSource);
+
+    assertThat(underTest.getExecutions()).isEqualTo(0L);
+    assertThat(underTest.attributes()).containsOnlyKeys("Executions", "Execution Time (ms)", "Rows");
+  }
+}
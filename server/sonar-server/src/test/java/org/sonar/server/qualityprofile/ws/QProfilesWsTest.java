@@ -23,6 +23,7 @@ import java.io.Reader;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.platform.Server;
 import org.sonar.api.profiles.ProfileImporter;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Language;
@@ -34,6 +35,7 @@ import org.sonar.server.language.LanguageTesting;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -60,7 +62,7 @@ public class QProfilesWsTest {
     controller = new WsTester(new QProfilesWs(
       new CreateAction(null, null, null, languages, wsSupport, userSessionRule, null, importers),
       new ImportersAction(importers),
-      new SearchAction(languages, dbClient, wsSupport, null),
+      new SearchAction(languages, dbClient, wsSupport, null, new WsPayloadCache(mock(Server.class))),
       new SetDefaultAction(languages, null, null, wsSupport),
       new ProjectsAction(null, userSessionRule, wsSupport),
       new ChangelogAction(null, wsSupport, languages, dbClient),
@@ -21,6 +21,7 @@
 package org.sonar.server.rule.ws;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -29,6 +30,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.platform.Server;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
@@ -65,7 +67,9 @@ import org.sonar.server.util.IntegerTypeValidation;
 import org.sonar.server.util.StringTypeValidation;
 import org.sonar.server.util.TypeValidations;
 import org.sonar.server.ws.TestRequest;
+import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
+import org.sonar.server.ws.WsPayloadCache;
 import org.sonarqube.ws.Rules;
 import org.sonarqube.ws.Rules.Rule;
 import org.sonarqube.ws.Rules.SearchResponse;
@@ -79,9 +83,11 @@ import static org.assertj.guava.api.Assertions.entry;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.api.rule.Severity.BLOCKER;
 import static org.sonar.db.rule.RuleTesting.setSystemTags;
 import static org.sonar.db.rule.RuleTesting.setTags;
+import static org.sonarqube.ws.MediaTypes.PROTOBUF;
 import static org.sonarqube.ws.client.rule.RulesWsParameters.PARAM_RULE_KEY;
 
 public class SearchActionTest {
@@ -107,7 +113,8 @@ public class SearchActionTest {
   private RuleQueryFactory ruleQueryFactory = new RuleQueryFactory(dbTester.getDbClient(), wsSupport);
   private MacroInterpreter macroInterpreter = mock(MacroInterpreter.class);
   private RuleMapper ruleMapper = new RuleMapper(languages, macroInterpreter);
-  private SearchAction underTest = new SearchAction(ruleIndex, activeRuleCompleter, ruleQueryFactory, dbTester.getDbClient(), ruleMapper);
+  private SearchAction underTest = new SearchAction(ruleIndex, activeRuleCompleter, ruleQueryFactory, dbTester.getDbClient(), ruleMapper,
+    new WsPayloadCache(newServer()));
 
   private RuleActivatorContextFactory contextFactory = new RuleActivatorContextFactory(dbTester.getDbClient());
   private TypeValidations typeValidations = new TypeValidations(asList(new StringTypeValidation(), new IntegerTypeValidation()));
@@ -568,6 +575,65 @@ public class SearchActionTest {
       .executeProtobuf(SearchResponse.class);
   }
 
+  @Test
+  public void profile_active_rules_are_not_modified_when_profile_is_unchanged() {
+    OrganizationDto organization = dbTester.organizations().insert();
+    QProfileDto profile = dbTester.qualityProfiles().insert(organization, p -> p.setLanguage("java"));
+    RuleDefinitionDto rule = createJavaRule();
+    ruleActivator.activate(dbTester.getSession(), RuleActivation.create(rule.getKey()), profile);
+    dbTester.commit();
+    indexRules();
+    indexActiveRules();
+
+    TestResponse first = ws.newRequest()
+      .setParam("f", "actives")
+      .setParam("activation", "true")
+      .setParam("qprofile", profile.getKee())
+      .setMediaType(PROTOBUF)
+      .execute();
+    TestResponse second = ws.newRequest()
+      .setParam("f", "actives")
+      .setParam("activation", "true")
+      .setParam("qprofile", profile.getKee())
+      .setMediaType(PROTOBUF)
+      .setHeader("If-None-Match", first.getHeader("ETag"))
+      .execute();
+
+    assertThat(first.getInputObject(SearchResponse.class).getRulesCount()).isEqualTo(1);
+    assertThat(second.getStatus()).isEqualTo(304);
+    assertThat(second.getInput()).isEmpty();
+  }
+
+  @Test
+  public void profile_active_rules_are_modified_when_a_rule_is_updated() {
+    OrganizationDto organization = dbTester.organizations().insert();
+    QProfileDto profile = dbTester.qualityProfiles().insert(organization, p -> p.setLanguage("java"));
+    RuleDefinitionDto rule = createJavaRule();
+    ruleActivator.activate(dbTester.getSession(), RuleActivation.create(rule.getKey()), profile);
+    dbTester.commit();
+    indexRules();
+    indexActiveRules();
+    TestResponse first = ws.newRequest()
+      .setParam("f", "actives")
+      .setParam("activation", "true")
+      .setParam("qprofile", profile.getKee())
+      .setMediaType(PROTOBUF)
+      .execute();
+
+    // for example updated by another node of the cluster
+    dbTester.rules().update(rule.setUpdatedAt(rule.getUpdatedAt() + 1_000L));
+    TestResponse second = ws.newRequest()
+      .setParam("f", "actives")
+      .setParam("activation", "true")
+      .setParam("qprofile", profile.getKee())
+      .setMediaType(PROTOBUF)
+      .setHeader("If-None-Match", first.getHeader("ETag"))
+      .execute();
+
+    assertThat(second.getHeader("ETag")).isNotEqualTo(first.getHeader("ETag"));
+    assertThat(second.getInputObject(SearchResponse.class).getRulesCount()).isEqualTo(1);
+  }
+
   @Test
   public void test_SONAR7083() {
     OrganizationDto organization = dbTester.organizations().insert();
@@ -682,4 +748,10 @@ public class SearchActionTest {
   private RuleDefinitionDto createJavaRule() {
     return dbTester.rules().insert(r -> r.setLanguage("java"));
   }
+
+  private static Server newServer() {
+    Server server = mock(Server.class);
+    when(server.getStartedAt()).thenReturn(new Date());
+    return server;
+  }
 }
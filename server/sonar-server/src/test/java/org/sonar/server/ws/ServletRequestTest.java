@@ -75,6 +75,14 @@ public class ServletRequestTest {
     assertThat(underTest.getMediaType()).isEqualTo(MediaTypes.PROTOBUF);
   }
 
+  @Test
+  public void header_returns_the_value_of_source_header() {
+    when(source.getHeader("If-None-Match")).thenReturn("\"abc\"");
+
+    assertThat(underTest.header("If-None-Match")).hasValue("\"abc\"");
+    assertThat(underTest.header("Unknown")).isEmpty();
+  }
+
   @Test
   public void has_param_from_source() {
     when(source.getParameterMap()).thenReturn(ImmutableMap.of("param", new String[] {"value"}));
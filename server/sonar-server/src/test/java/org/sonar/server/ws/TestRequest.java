@@ -27,7 +27,9 @@ import com.google.protobuf.GeneratedMessage;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.server.ws.internal.PartImpl;
 import org.sonar.api.server.ws.internal.ValidatingRequest;
@@ -41,6 +43,7 @@ public class TestRequest extends ValidatingRequest {
   private final ListMultimap<String, String> multiParams = ArrayListMultimap.create();
   private final Map<String, String> params = new HashMap<>();
   private final Map<String, Part> parts = Maps.newHashMap();
+  private final Map<String, String> headers = new HashMap<>();
   private String method = "GET";
   private String mimeType = "application/octet-stream";
   private String path;
@@ -127,6 +130,16 @@ public class TestRequest extends ValidatingRequest {
     return this;
   }
 
+  @Override
+  public Optional<String> header(String name) {
+    return Optional.ofNullable(headers.get(name.toLowerCase(Locale.ENGLISH)));
+  }
+
+  public TestRequest setHeader(String name, String value) {
+    headers.put(name.toLowerCase(Locale.ENGLISH), value);
+    return this;
+  }
+
   public TestResponse execute() {
     try {
       DumbResponse response = new DumbResponse();
@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonar.api.platform.Server;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonarqube.ws.MediaTypes.TXT;
+
+public class WsPayloadCacheTest {
+
+  private Server server = mock(Server.class);
+  private WsPayloadCache underTest = new WsPayloadCache(server);
+  private CountingAction countingAction = new CountingAction();
+  private WsActionTester ws = new WsActionTester(countingAction);
+
+  @Test
+  public void versioned_payload_is_computed_once() {
+    when(server.getStartedAt()).thenReturn(new Date(1_000L));
+    countingAction.version = "v1";
+
+    TestResponse first = ws.newRequest().setParam("p", "1").execute();
+    TestResponse second = ws.newRequest().setParam("p", "1").execute();
+
+    assertThat(first.getInput()).isEqualTo("payload 1");
+    assertThat(first.getMediaType()).isEqualTo(TXT);
+    assertThat(second.getInput()).isEqualTo("payload 1");
+    assertThat(second.getHeader("ETag")).isEqualTo(first.getHeader("ETag"));
+    assertThat(countingAction.counter.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void versioned_payload_depends_on_parameters_version_and_server_startup() {
+    when(server.getStartedAt()).thenReturn(new Date(1_000L));
+    countingAction.version = "v1";
+    String eTag = ws.newRequest().setParam("p", "1").execute().getHeader("ETag");
+
+    assertThat(ws.newRequest().setParam("p", "2").execute().getHeader("ETag")).isNotEqualTo(eTag);
+    countingAction.version = "v2";
+    assertThat(ws.newRequest().setParam("p", "1").execute().getHeader("ETag")).isNotEqualTo(eTag);
+    countingAction.version = "v1";
+    when(server.getStartedAt()).thenReturn(new Date(2_000L));
+    assertThat(ws.newRequest().setParam("p", "1").execute().getInput()).isEqualTo("payload 4");
+  }
+
+  @Test
+  public void return_not_modified_without_computing_versioned_payload() {
+    when(server.getStartedAt()).thenReturn(new Date(1_000L));
+    countingAction.version = "v1";
+    String eTag = ws.newRequest().execute().getHeader("ETag");
+
+    // payload is no more in cache, but its ETag is still valid
+    underTest = new WsPayloadCache(server);
+    TestResponse response = ws.newRequest().setHeader("If-None-Match", eTag).execute();
+
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getInput()).isEmpty();
+    assertThat(countingAction.counter.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void etag_of_unversioned_payload_is_hash_of_content() {
+    TestResponse first = ws.newRequest().execute();
+    TestResponse second = ws.newRequest().setHeader("If-None-Match", first.getHeader("ETag")).execute();
+
+    assertThat(first.getInput()).isEqualTo("payload 1");
+    assertThat(second.getStatus()).isEqualTo(304);
+    assertThat(second.getInput()).isEmpty();
+    assertThat(countingAction.counter.get()).isEqualTo(2);
+
+    TestResponse third = ws.newRequest().setHeader("If-None-Match", first.getHeader("ETag")).execute();
+    assertThat(third.getInput()).isEqualTo("payload 3");
+    assertThat(third.getHeader("ETag")).isNotEqualTo(first.getHeader("ETag"));
+  }
+
+  private class CountingAction implements WsAction {
+    private final AtomicInteger counter = new AtomicInteger();
+    private String version;
+
+    @Override
+    public void define(WebService.NewController controller) {
+      WebService.NewAction action = controller.createAction("search").setHandler(this);
+      action.createParam("p");
+    }
+
+    @Override
+    public void handle(Request request, Response response) {
+      underTest.write(request, response, "test", version, TXT, output -> {
+        try {
+          output.write(("payload " + counter.incrementAndGet()).getBytes(UTF_8));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    }
+  }
+}
@@ -54,6 +54,8 @@ public final class IssueExclusionProperties {
   public static final String PATTERNS_ALLFILE_KEY = EXCLUSION_KEY_PREFIX + ALLFILE_SUFFIX;
   public static final String FILE_REGEXP = "fileRegexp";
 
+  public static final String CONTENT_EXCLUDED_LANGUAGES_KEY = EXCLUSION_KEY_PREFIX + ".content.excludedLanguages";
+
   public static final int LARGE_SIZE = 40;
 
   private IssueExclusionProperties() {
@@ -122,6 +124,17 @@ public final class IssueExclusionProperties {
             .build()
         )
         .build(),
+      PropertyDefinition.builder(CONTENT_EXCLUDED_LANGUAGES_KEY)
+        .category(CoreProperties.CATEGORY_EXCLUSIONS)
+        .subCategory(SUB_CATEGORY_IGNORE_ISSUES)
+        .name("Languages Ignored by Content Patterns")
+        .description("Keys of the languages whose files are not searched for the regular expressions of \"Ignore Issues in Blocks\" "
+          + "and \"Ignore Issues on Files\".")
+        .type(PropertyType.STRING)
+        .multiValues(true)
+        .onQualifiers(Qualifiers.PROJECT)
+        .index(5)
+        .build(),
       PropertyDefinition.builder(PATTERNS_MULTICRITERIA_INCLUSION_KEY)
         .category(CoreProperties.CATEGORY_EXCLUSIONS)
         .subCategory(SUB_CATEGORY_IGNORE_ISSUES)
@@ -100,6 +100,18 @@ public final class PurgeProperties {
         .category(CoreProperties.CATEGORY_GENERAL)
         .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
         .index(6)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.DEFERRED)
+        .defaultValue("false")
+        .name("Defer the purge")
+        .description("If set to true, the history is not purged while processing the analysis report but by a dedicated background task "
+          + "which is queued afterwards. Only one such task is queued at a time per project.")
+        .type(PropertyType.BOOLEAN)
+        .onQualifiers(Qualifiers.PROJECT)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(7)
         .build()
       );
   }
@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.internal.pmd;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Same as a list of {@link TokensLine}, except that the value of each line is replaced by its hash code
+ * and its length. Lines are stored in arrays of primitives, so that their values never have to be materialized.
+ */
+public class PackedTokensLines {
+
+  private static final int FIELDS = 5;
+  private static final int START_UNIT = 0;
+  private static final int END_UNIT = 1;
+  private static final int START_LINE = 2;
+  private static final int HASH_CODE = 3;
+  private static final int LENGTH = 4;
+
+  private int[] data = new int[0];
+  private int size = 0;
+
+  public static PackedTokensLines of(List<TokensLine> lines) {
+    PackedTokensLines packed = new PackedTokensLines();
+    for (TokensLine line : lines) {
+      packed.add(line.getStartUnit(), line.getEndUnit(), line.getStartLine(), line.getHashCode(), line.getValue().length());
+    }
+    return packed;
+  }
+
+  /**
+   * @param hashCode same as {@link String#hashCode()} of the value of the line
+   * @param length length of the value of the line
+   */
+  public PackedTokensLines add(int startUnit, int endUnit, int startLine, int hashCode, int length) {
+    Preconditions.checkArgument(startLine > 0);
+    if ((size + 1) * FIELDS > data.length) {
+      data = Arrays.copyOf(data, Math.max(16 * FIELDS, data.length + (data.length >> 1)));
+    }
+    int i = size * FIELDS;
+    data[i + START_UNIT] = startUnit;
+    data[i + END_UNIT] = endUnit;
+    data[i + START_LINE] = startLine;
+    data[i + HASH_CODE] = hashCode;
+    data[i + LENGTH] = length;
+    size++;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getStartUnit(int index) {
+    return data[index * FIELDS + START_UNIT];
+  }
+
+  public int getEndUnit(int index) {
+    return data[index * FIELDS + END_UNIT];
+  }
+
+  public int getStartLine(int index) {
+    return data[index * FIELDS + START_LINE];
+  }
+
+  public int getHashCode(int index) {
+    return data[index * FIELDS + HASH_CODE];
+  }
+
+  public int getLength(int index) {
+    return data[index * FIELDS + LENGTH];
+  }
+
+  /**
+   * Lines are considered to have the same value when both their hash codes and lengths are equal
+   */
+  public boolean hasSameValue(int index, int otherIndex) {
+    return getHashCode(index) == getHashCode(otherIndex) && getLength(index) == getLength(otherIndex);
+  }
+}
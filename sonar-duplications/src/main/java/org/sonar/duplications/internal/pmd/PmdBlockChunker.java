@@ -20,13 +20,14 @@
 package org.sonar.duplications.internal.pmd;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 
 /**
  * Differences with {@link org.sonar.duplications.block.BlockChunker}:
- * works with {@link TokensLine},
+ * works with {@link TokensLine} or {@link PackedTokensLines},
  * sets {@link Block#getStartUnit() startUnit} and {@link Block#getEndUnit() endUnit} - indexes of first and last token for this block.
  */
 public class PmdBlockChunker {
@@ -50,51 +51,65 @@ public class PmdBlockChunker {
    * @return ArrayList as we need a serializable object
    */
   public List<Block> chunk(String resourceId, List<TokensLine> fragments) {
-    List<TokensLine> filtered = new ArrayList<>();
-    int i = 0;
-    while (i < fragments.size()) {
-      TokensLine first = fragments.get(i);
-      int j = i + 1;
-      while (j < fragments.size() && fragments.get(j).getValue().equals(first.getValue())) {
-        j++;
-      }
-      filtered.add(fragments.get(i));
-      if (i < j - 1) {
-        filtered.add(fragments.get(j - 1));
-      }
-      i = j;
-    }
-    fragments = filtered;
+    return chunk(resourceId, PackedTokensLines.of(fragments));
+  }
 
-    if (fragments.size() < blockSize) {
+  /**
+   * Same as {@link #chunk(String, List)}, the rolling hash being computed from the hash codes of lines.
+   *
+   * @return ArrayList as we need a serializable object
+   */
+  public List<Block> chunk(String resourceId, PackedTokensLines lines) {
+    int[] fragments = filter(lines);
+    if (fragments.length < blockSize) {
       return new ArrayList<>();
     }
-    TokensLine[] fragmentsArr = fragments.toArray(new TokensLine[fragments.size()]);
-    List<Block> blocks = new ArrayList<>(fragmentsArr.length - blockSize + 1);
+    List<Block> blocks = new ArrayList<>(fragments.length - blockSize + 1);
     long hash = 0;
     int first = 0;
     int last = 0;
     for (; last < blockSize - 1; last++) {
-      hash = hash * PRIME_BASE + fragmentsArr[last].getHashCode();
+      hash = hash * PRIME_BASE + lines.getHashCode(fragments[last]);
     }
     Block.Builder blockBuilder = Block.builder().setResourceId(resourceId);
-    for (; last < fragmentsArr.length; last++, first++) {
-      TokensLine firstFragment = fragmentsArr[first];
-      TokensLine lastFragment = fragmentsArr[last];
+    for (; last < fragments.length; last++, first++) {
+      int firstFragment = fragments[first];
+      int lastFragment = fragments[last];
       // add last statement to hash
-      hash = hash * PRIME_BASE + lastFragment.getHashCode();
+      hash = hash * PRIME_BASE + lines.getHashCode(lastFragment);
       // create block
       Block block = blockBuilder
         .setBlockHash(new ByteArray(hash))
         .setIndexInFile(first)
-        .setLines(firstFragment.getStartLine(), lastFragment.getEndLine())
-        .setUnit(firstFragment.getStartUnit(), lastFragment.getEndUnit())
+        .setLines(lines.getStartLine(firstFragment), lines.getStartLine(lastFragment))
+        .setUnit(lines.getStartUnit(firstFragment), lines.getEndUnit(lastFragment))
         .build();
       blocks.add(block);
       // remove first statement from hash
-      hash -= power * firstFragment.getHashCode();
+      hash -= power * lines.getHashCode(firstFragment);
     }
     return blocks;
   }
 
+  /**
+   * Indexes of the lines to be chunked: consecutive lines having the same value are reduced to the first and the last ones.
+   */
+  private static int[] filter(PackedTokensLines lines) {
+    int[] filtered = new int[lines.size()];
+    int size = 0;
+    int i = 0;
+    while (i < lines.size()) {
+      int j = i + 1;
+      while (j < lines.size() && lines.hasSameValue(j, i)) {
+        j++;
+      }
+      filtered[size++] = i;
+      if (i < j - 1) {
+        filtered[size++] = j - 1;
+      }
+      i = j;
+    }
+    return size == filtered.length ? filtered : Arrays.copyOf(filtered, size);
+  }
+
 }
@@ -53,4 +53,42 @@ public class PmdBlockChunkerTest {
     assertThat(block.getBlockHash(), is(new ByteArray(2L * 31 + 3)));
   }
 
+  @Test
+  public void shouldBuildSameBlocksFromPackedLines() {
+    TokensLine line1 = new TokensLine(0, 9, 1, "foo");
+    TokensLine line2 = new TokensLine(10, 19, 2, "bar");
+    TokensLine line3 = new TokensLine(20, 29, 3, "biz");
+    PackedTokensLines packed = new PackedTokensLines()
+      .add(0, 9, 1, "foo".hashCode(), 3)
+      .add(10, 19, 2, "bar".hashCode(), 3)
+      .add(20, 29, 3, "biz".hashCode(), 3);
+
+    List<Block> expected = new PmdBlockChunker(2).chunk("resourceId", Arrays.asList(line1, line2, line3));
+    List<Block> blocks = new PmdBlockChunker(2).chunk("resourceId", packed);
+
+    assertThat(blocks, is(expected));
+    assertThat(blocks.get(1).getStartUnit(), is(10));
+    assertThat(blocks.get(1).getEndUnit(), is(29));
+  }
+
+  @Test
+  public void shouldReduceRepeatedLinesToFirstAndLast() {
+    PackedTokensLines packed = new PackedTokensLines()
+      .add(0, 0, 1, 1, 1)
+      .add(1, 1, 2, 2, 1)
+      .add(2, 2, 3, 2, 1)
+      .add(3, 3, 4, 2, 1)
+      .add(4, 4, 5, 3, 1);
+
+    List<Block> blocks = new PmdBlockChunker(2).chunk("resourceId", packed);
+
+    assertThat(blocks.size(), is(3));
+    assertThat(blocks.get(0).getStartLine(), is(1));
+    assertThat(blocks.get(0).getEndLine(), is(2));
+    assertThat(blocks.get(1).getStartLine(), is(2));
+    assertThat(blocks.get(1).getEndLine(), is(4));
+    assertThat(blocks.get(2).getStartLine(), is(4));
+    assertThat(blocks.get(2).getEndLine(), is(5));
+  }
+
 }
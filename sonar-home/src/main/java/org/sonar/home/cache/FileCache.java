@@ -19,11 +19,18 @@
  */
 package org.sonar.home.cache;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import javax.annotation.CheckForNull;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
  * This class is responsible for managing Sonar batch file cache. You can put file into cache and
  * later try to retrieve them. MD5 is used to differentiate files (name is not secure as files may come
@@ -36,6 +43,7 @@ public class FileCache {
 
   private final File dir;
   private final File tmpDir;
+  private final File taggedDir;
   private final FileHashes hashes;
   private final Logger logger;
 
@@ -45,6 +53,7 @@ public class FileCache {
     this.dir = createDir(dir, "user cache");
     logger.info(String.format("User cache: %s", dir.getAbsolutePath()));
     this.tmpDir = createDir(new File(dir, "_tmp"), "temp dir");
+    this.taggedDir = createDir(new File(dir, "_tagged"), "tagged content dir");
   }
 
   public static FileCache create(File dir, Logger logger) {
@@ -91,6 +100,90 @@ public class FileCache {
     return targetFile;
   }
 
+  /**
+   * Content stored under an arbitrary key, for example the URL of a web service, together with
+   * the opaque version tag (HTTP ETag) returned by the server. Unlike {@link #get(String, String)},
+   * the caller does not know the hash of the expected content, but it can ask the server whether
+   * the cached version is still up-to-date.
+   *
+   * @since 6.5
+   */
+  public static class TaggedContent {
+    private final String tag;
+    private final byte[] content;
+
+    TaggedContent(String tag, byte[] content) {
+      this.tag = tag;
+      this.content = content;
+    }
+
+    public String tag() {
+      return tag;
+    }
+
+    public byte[] content() {
+      return content;
+    }
+  }
+
+  /**
+   * Look for the last content stored with {@link #putTagged(String, String, byte[])}. If there is
+   * no such content or if it can't be read, then return null.
+   *
+   * @since 6.5
+   */
+  @CheckForNull
+  public TaggedContent getTagged(String key) {
+    File file = taggedFile(key);
+    if (!file.exists()) {
+      logger.debug(String.format("No tagged content found in the cache for %s", key));
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+      String tag = input.readUTF();
+      byte[] content = new byte[input.available()];
+      input.readFully(content);
+      return new TaggedContent(tag, content);
+    } catch (IOException e) {
+      logger.warn(String.format("Fail to read tagged content %s: %s", file.getAbsolutePath(), e.getMessage()));
+      return null;
+    }
+  }
+
+  /**
+   * Store content under the given key, replacing any previous version. Tag and content are written
+   * to the same file which is atomically moved into the cache, so that concurrent processes never
+   * read a tag with the content of another version.
+   *
+   * @since 6.5
+   */
+  public void putTagged(String key, String tag, byte[] content) {
+    File tempFile = newTempFile();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length + tag.length() + 2);
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeUTF(tag);
+      output.write(content);
+      output.flush();
+      Files.write(tempFile.toPath(), bytes.toByteArray());
+      Files.move(tempFile.toPath(), taggedFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn(String.format("Fail to store tagged content %s: %s", key, e.getMessage()));
+      deleteQuietly(tempFile);
+    }
+  }
+
+  private File taggedFile(String key) {
+    return new File(taggedDir, hashes.of(new ByteArrayInputStream(key.getBytes(UTF_8))));
+  }
+
+  private static void deleteQuietly(File file) {
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      // ignore
+    }
+  }
+
   private static void download(Downloader downloader, String filename, File tempFile) {
     try {
       downloader.download(filename, tempFile);
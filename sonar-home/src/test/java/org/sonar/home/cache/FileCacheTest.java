@@ -21,6 +21,7 @@ package org.sonar.home.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -56,6 +57,29 @@ public class FileCacheTest {
     assertThat(cache.get("sonar-foo-plugin-1.5.jar", "ABCDE")).isNotNull().exists().isEqualTo(cachedFile);
   }
 
+  @Test
+  public void tagged_content_not_in_cache() throws IOException {
+    FileCache cache = FileCache.create(tempFolder.newFolder(), mock(Logger.class));
+    assertThat(cache.getTagged("http://localhost/api/metrics/search")).isNull();
+  }
+
+  @Test
+  public void put_and_replace_tagged_content() throws IOException {
+    FileCache cache = FileCache.create(tempFolder.newFolder(), mock(Logger.class));
+
+    cache.putTagged("http://localhost/api/metrics/search", "\"v1\"", "body1".getBytes(StandardCharsets.UTF_8));
+    FileCache.TaggedContent content = cache.getTagged("http://localhost/api/metrics/search");
+    assertThat(content.tag()).isEqualTo("\"v1\"");
+    assertThat(content.content()).isEqualTo("body1".getBytes(StandardCharsets.UTF_8));
+
+    cache.putTagged("http://localhost/api/metrics/search", "\"v2\"", new byte[0]);
+    content = cache.getTagged("http://localhost/api/metrics/search");
+    assertThat(content.tag()).isEqualTo("\"v2\"");
+    assertThat(content.content()).isEmpty();
+
+    assertThat(cache.getTagged("http://localhost/api/rules/search")).isNull();
+  }
+
   @Test
   public void download_and_add_to_cache() throws IOException {
     FileHashes hashes = mock(FileHashes.class);
@@ -28,6 +28,8 @@ import java.io.File;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 4.2
@@ -49,7 +51,7 @@ class AbsolutePathPredicate extends AbstractFilePredicate {
 
   @Override
   public Iterable<InputFile> get(Index index) {
-    String relative = PathUtils.sanitize(new PathResolver().relativePath(baseDir.toFile(), new File(path)));
+    String relative = relativePath();
     if (relative == null) {
       return Collections.emptyList();
     }
@@ -57,8 +59,39 @@ class AbsolutePathPredicate extends AbstractFilePredicate {
     return f != null ? Arrays.asList(f) : Collections.<InputFile>emptyList();
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    String relative = relativePath();
+    if (relative == null) {
+      return index.none();
+    }
+    return index.filter(index.relativePath(relative), this);
+  }
+
+  @CheckForNull
+  private String relativePath() {
+    return PathUtils.sanitize(new PathResolver().relativePath(baseDir.toFile(), new File(path)));
+  }
+
   @Override
   public int priority() {
     return USE_INDEX;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    AbsolutePathPredicate that = (AbsolutePathPredicate) o;
+    return Objects.equals(path, that.path) && baseDir.equals(that.baseDir);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path, baseDir);
+  }
 }
@@ -20,6 +20,7 @@
 package org.sonar.api.batch.fs.internal;
 
 import java.util.stream.StreamSupport;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
@@ -44,6 +45,15 @@ public abstract class AbstractFilePredicate implements OptimizedFilePredicate {
     return filter(index.inputFiles());
   }
 
+  /**
+   * Sorted ids of the files of the secondary index matching this predicate, or {@code null} when this predicate
+   * can't be evaluated from the index.
+   */
+  @CheckForNull
+  int[] ids(InputFileIndex index) {
+    return null;
+  }
+
   @Override
   public int priority() {
     return DEFAULT_PRIORITY;
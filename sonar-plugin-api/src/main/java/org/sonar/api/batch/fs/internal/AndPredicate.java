@@ -90,8 +90,48 @@ class AndPredicate extends AbstractFilePredicate {
     return result;
   }
 
+  /**
+   * Intersection of the predicates that can be evaluated from the index, then filtered with the other ones
+   */
+  @Override
+  int[] ids(InputFileIndex index) {
+    int[] result = null;
+    List<OptimizedFilePredicate> others = new ArrayList<>();
+    for (OptimizedFilePredicate predicate : predicates) {
+      int[] ids = index.ids(predicate);
+      if (ids == null) {
+        others.add(predicate);
+      } else {
+        result = result == null ? ids : InputFileIndex.intersection(result, ids);
+      }
+    }
+    if (result == null) {
+      return null;
+    }
+    for (OptimizedFilePredicate other : others) {
+      result = index.filter(result, other);
+    }
+    return result;
+  }
+
   Collection<OptimizedFilePredicate> predicates() {
     return predicates;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    AndPredicate that = (AndPredicate) o;
+    return predicates.equals(that.predicates);
+  }
+
+  @Override
+  public int hashCode() {
+    return predicates.hashCode();
+  }
 }
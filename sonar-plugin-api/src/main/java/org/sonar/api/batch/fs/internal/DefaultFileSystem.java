@@ -157,7 +157,7 @@ public class DefaultFileSystem implements FileSystem {
   @Override
   public Iterable<InputFile> inputFiles(FilePredicate predicate) {
     doPreloadFiles();
-    Iterable<InputFile> iterable = OptimizedFilePredicateAdapter.create(predicate).get(cache);
+    Iterable<InputFile> iterable = select(OptimizedFilePredicateAdapter.create(predicate));
     if (defaultPredicate != null) {
       return StreamSupport.stream(iterable.spliterator(), false)
         .filter(defaultPredicate::test).collect(Collectors.toList());
@@ -165,6 +165,21 @@ public class DefaultFileSystem implements FileSystem {
     return iterable;
   }
 
+  /**
+   * Lookups by path, filename and extension are directly answered by the cache. Other predicates are evaluated
+   * from its secondary index when possible, instead of being applied to all files.
+   */
+  private Iterable<InputFile> select(OptimizedFilePredicate predicate) {
+    if (predicate.priority() < AbstractFilePredicate.USE_INDEX && !(predicate instanceof FilenamePredicate) && !(predicate instanceof FileExtensionPredicate)) {
+      InputFileIndex index = cache.inputFileIndex();
+      int[] ids = index.select(predicate);
+      if (ids != null) {
+        return index.files(ids);
+      }
+    }
+    return predicate.get(cache);
+  }
+
   @Override
   public boolean hasFiles(FilePredicate predicate) {
     return inputFiles(predicate).iterator().hasNext();
@@ -218,12 +233,29 @@ public class DefaultFileSystem implements FileSystem {
 
   public abstract static class Cache implements Index {
 
+    private InputFileIndex inputFileIndex;
+
     protected abstract void doAdd(InputFile inputFile);
 
     protected abstract void doAdd(InputDir inputDir);
 
     final void add(InputFile inputFile) {
       doAdd(inputFile);
+      synchronized (this) {
+        inputFileIndex = null;
+      }
+    }
+
+    /**
+     * Secondary index of {@link #inputFiles()}. It is built on first use and dropped when a file is added to this cache.
+     * Implementations whose files can change by other means must override this method.
+     * @since 6.5
+     */
+    protected synchronized InputFileIndex inputFileIndex() {
+      if (inputFileIndex == null) {
+        inputFileIndex = new InputFileIndex(inputFiles());
+      }
+      return inputFileIndex;
     }
 
     public void add(InputDir inputDir) {
@@ -53,6 +53,8 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
   private Metadata metadata;
   private boolean publish;
   private String contents;
+  // written after all the fields set by metadataGenerator, so that they are visible to other threads
+  private volatile boolean metadataGenerated;
 
   public DefaultInputFile(DefaultIndexedFile indexedFile, Consumer<DefaultInputFile> metadataGenerator) {
     this(indexedFile, metadataGenerator, null);
@@ -68,10 +70,20 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
     this.contents = contents;
   }
 
+  /**
+   * Metadata are lazily generated, once, even if the file is read by several threads.
+   */
   public void checkMetadata() {
+    if (!metadataGenerated) {
+      generateMetadata();
+    }
+  }
+
+  private synchronized void generateMetadata() {
     if (metadata == null) {
       metadataGenerator.accept(this);
     }
+    metadataGenerated = true;
   }
 
   @Override
@@ -267,8 +279,7 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
 
   public TextPointer newPointer(int globalOffset) {
     checkMetadata();
-    Preconditions.checkArgument(globalOffset >= 0, "%s is not a valid offset for a file", globalOffset);
-    Preconditions.checkArgument(globalOffset <= lastValidOffset(), "%s is not a valid offset for file %s. Max offset is %s", globalOffset, this, lastValidOffset());
+    checkValidOffset(globalOffset);
     int line = findLine(globalOffset);
     int startLineOffset = originalLineOffsets()[line - 1];
     return new DefaultTextPointer(line, globalOffset - startLineOffset);
@@ -285,12 +296,36 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
   }
 
   private void checkValid(TextPointer pointer, String owner) {
-    Preconditions.checkArgument(pointer.line() >= 1, "%s is not a valid line for a file", pointer.line());
-    Preconditions.checkArgument(pointer.line() <= this.metadata.lines(), "%s is not a valid line for %s. File %s has %s line(s)", pointer.line(), owner, this, metadata.lines());
-    Preconditions.checkArgument(pointer.lineOffset() >= 0, "%s is not a valid line offset for a file", pointer.lineOffset());
-    int lineLength = lineLength(pointer.line());
-    Preconditions.checkArgument(pointer.lineOffset() <= lineLength,
-      "%s is not a valid line offset for %s. File %s has %s character(s) at line %s", pointer.lineOffset(), owner, this, lineLength, pointer.line());
+    checkValid(pointer.line(), pointer.lineOffset(), owner);
+  }
+
+  /**
+   * Messages are formatted only on failure, so that valid pointers do not box any value
+   */
+  void checkValid(int line, int lineOffset, String owner) {
+    if (line < 1) {
+      throw new IllegalArgumentException(String.format("%s is not a valid line for a file", line));
+    }
+    if (line > this.metadata.lines()) {
+      throw new IllegalArgumentException(String.format("%s is not a valid line for %s. File %s has %s line(s)", line, owner, this, metadata.lines()));
+    }
+    if (lineOffset < 0) {
+      throw new IllegalArgumentException(String.format("%s is not a valid line offset for a file", lineOffset));
+    }
+    int lineLength = lineLength(line);
+    if (lineOffset > lineLength) {
+      throw new IllegalArgumentException(
+        String.format("%s is not a valid line offset for %s. File %s has %s character(s) at line %s", lineOffset, owner, this, lineLength, line));
+    }
+  }
+
+  void checkValidOffset(int globalOffset) {
+    if (globalOffset < 0) {
+      throw new IllegalArgumentException(String.format("%s is not a valid offset for a file", globalOffset));
+    }
+    if (globalOffset > lastValidOffset()) {
+      throw new IllegalArgumentException(String.format("%s is not a valid offset for file %s. Max offset is %s", globalOffset, this, lastValidOffset()));
+    }
   }
 
   private int lineLength(int line) {
@@ -307,7 +342,7 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
     return new DefaultTextRange(start, end);
   }
 
-  private int findLine(int globalOffset) {
+  int findLine(int globalOffset) {
     return Math.abs(Arrays.binarySearch(originalLineOffsets(), globalOffset) + 1);
   }
 
@@ -44,6 +44,11 @@ public class FileExtensionPredicate extends AbstractFilePredicate {
     return index.getFilesByExtension(extension);
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    return index.extension(extension);
+  }
+
   public static String getExtension(InputFile inputFile) {
     return getExtension(FilenamePredicate.getFilename(inputFile));
   }
@@ -59,4 +64,21 @@ public class FileExtensionPredicate extends AbstractFilePredicate {
   private static String lowercase(String extension) {
     return extension.toLowerCase(Locale.ENGLISH);
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FileExtensionPredicate that = (FileExtensionPredicate) o;
+    return extension.equals(that.extension);
+  }
+
+  @Override
+  public int hashCode() {
+    return extension.hashCode();
+  }
 }
@@ -42,7 +42,29 @@ public class FilenamePredicate extends AbstractFilePredicate {
     return index.getFilesByName(filename);
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    return index.filename(filename);
+  }
+
   public static String getFilename(InputFile inputFile) {
     return inputFile.file().getName();
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FilenamePredicate that = (FilenamePredicate) o;
+    return filename.equals(that.filename);
+  }
+
+  @Override
+  public int hashCode() {
+    return filename.hashCode();
+  }
 }
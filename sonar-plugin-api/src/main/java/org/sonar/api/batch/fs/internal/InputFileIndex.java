@@ -0,0 +1,337 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Secondary index of the files of a {@link FileSystem.Index}, used to evaluate predicates without testing every file.
+ * <p>
+ * Files are identified by their position in {@link FileSystem.Index#inputFiles()}. Languages, types, extensions and
+ * filenames are mapped to the sorted ids of their files, and files are also sorted by relative path so that the files
+ * of a directory are a range of this order. Predicates are evaluated by intersecting, merging or complementing sorted
+ * arrays of ids. Results are returned in the order of {@link FileSystem.Index#inputFiles()}.
+ * <p>
+ * Results of predicates only made of built-in predicates are memoized, as they only depend on the indexed files.
+ * The index is immutable otherwise, and must be dropped when files are added or removed.
+ *
+ * @since 6.5
+ */
+public class InputFileIndex {
+
+  private static final int[] NO_IDS = new int[0];
+  private static final int MAX_MEMOIZED_PREDICATES = 1_000;
+
+  private final InputFile[] files;
+  private final int[] allIds;
+  private final String[] sortedPaths;
+  private final int[] idsBySortedPath;
+  private final Map<String, int[]> idsByLanguage;
+  private final Map<String, int[]> idsByExtension;
+  private final Map<String, int[]> idsByFilename;
+  private final int[][] idsByType;
+  private final Map<FilePredicate, int[]> memoizedIds = new ConcurrentHashMap<>();
+
+  public InputFileIndex(Iterable<InputFile> inputFiles) {
+    List<InputFile> list = new ArrayList<>();
+    inputFiles.forEach(list::add);
+    this.files = list.toArray(new InputFile[list.size()]);
+    this.allIds = IntStream.range(0, files.length).toArray();
+
+    Map<String, IntArrayList> byLanguage = new HashMap<>();
+    Map<String, IntArrayList> byExtension = new HashMap<>();
+    Map<String, IntArrayList> byFilename = new HashMap<>();
+    IntArrayList[] byType = new IntArrayList[InputFile.Type.values().length];
+    for (int i = 0; i < byType.length; i++) {
+      byType[i] = new IntArrayList();
+    }
+    for (int id = 0; id < files.length; id++) {
+      InputFile file = files[id];
+      if (file.language() != null) {
+        byLanguage.computeIfAbsent(file.language(), k -> new IntArrayList()).add(id);
+      }
+      if (file.type() != null) {
+        byType[file.type().ordinal()].add(id);
+      }
+      String filename = FilenamePredicate.getFilename(file);
+      byFilename.computeIfAbsent(filename, k -> new IntArrayList()).add(id);
+      byExtension.computeIfAbsent(FileExtensionPredicate.getExtension(filename), k -> new IntArrayList()).add(id);
+    }
+    this.idsByLanguage = toArrays(byLanguage);
+    this.idsByExtension = toArrays(byExtension);
+    this.idsByFilename = toArrays(byFilename);
+    this.idsByType = new int[byType.length][];
+    for (int i = 0; i < byType.length; i++) {
+      idsByType[i] = byType[i].trimAndGet();
+    }
+
+    this.idsBySortedPath = IntStream.range(0, files.length).boxed()
+      .sorted(Comparator.comparing((Integer id) -> files[id].relativePath(), Comparator.nullsFirst(Comparator.<String>naturalOrder())))
+      .mapToInt(Integer::intValue)
+      .toArray();
+    this.sortedPaths = new String[files.length];
+    for (int i = 0; i < idsBySortedPath.length; i++) {
+      sortedPaths[i] = files[idsBySortedPath[i]].relativePath();
+    }
+  }
+
+  private static Map<String, int[]> toArrays(Map<String, IntArrayList> lists) {
+    Map<String, int[]> result = new HashMap<>(lists.size() * 4 / 3 + 1);
+    lists.forEach((key, list) -> result.put(key, list.trimAndGet()));
+    return result;
+  }
+
+  public int size() {
+    return files.length;
+  }
+
+  int[] all() {
+    return allIds;
+  }
+
+  int[] none() {
+    return NO_IDS;
+  }
+
+  int[] language(String language) {
+    return idsByLanguage.getOrDefault(language, NO_IDS);
+  }
+
+  int[] type(InputFile.Type type) {
+    return idsByType[type.ordinal()];
+  }
+
+  int[] extension(String extension) {
+    return idsByExtension.getOrDefault(extension, NO_IDS);
+  }
+
+  int[] filename(String filename) {
+    return idsByFilename.getOrDefault(filename, NO_IDS);
+  }
+
+  /**
+   * Ids of the files having the given relative path. There can be several of them when the index contains the files
+   * of several modules.
+   */
+  int[] relativePath(String relativePath) {
+    int from = lowerBound(relativePath);
+    int to = from;
+    while (to < sortedPaths.length && relativePath.equals(sortedPaths[to])) {
+      to++;
+    }
+    return idsOfSortedPaths(from, to);
+  }
+
+  /**
+   * Ids of the files whose relative path starts with the given prefix, for example all the files of a directory
+   * and of its sub-directories when the prefix ends with a slash.
+   */
+  int[] pathPrefix(String prefix) {
+    int from = lowerBound(prefix);
+    int to = from;
+    while (to < sortedPaths.length && sortedPaths[to].startsWith(prefix)) {
+      to++;
+    }
+    return idsOfSortedPaths(from, to);
+  }
+
+  private int lowerBound(String path) {
+    int low = 0;
+    int high = sortedPaths.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      String middlePath = sortedPaths[middle];
+      if (middlePath == null || middlePath.compareTo(path) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private int[] idsOfSortedPaths(int from, int to) {
+    if (from == to) {
+      return NO_IDS;
+    }
+    int[] ids = Arrays.copyOfRange(idsBySortedPath, from, to);
+    Arrays.sort(ids);
+    return ids;
+  }
+
+  /**
+   * Ids, amongst the given ones, of the files matching the predicate
+   */
+  int[] filter(int[] ids, FilePredicate predicate) {
+    IntArrayList result = new IntArrayList();
+    for (int id : ids) {
+      if (predicate.apply(files[id])) {
+        result.add(id);
+      }
+    }
+    return result.trimAndGet();
+  }
+
+  int[] complement(int[] ids) {
+    int[] result = new int[files.length - ids.length];
+    int next = 0;
+    int i = 0;
+    for (int id = 0; id < files.length; id++) {
+      if (i < ids.length && ids[i] == id) {
+        i++;
+      } else {
+        result[next] = id;
+        next++;
+      }
+    }
+    return result;
+  }
+
+  static int[] intersection(int[] ids1, int[] ids2) {
+    int[] result = new int[Math.min(ids1.length, ids2.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < ids1.length && j < ids2.length) {
+      if (ids1[i] < ids2[j]) {
+        i++;
+      } else if (ids1[i] > ids2[j]) {
+        j++;
+      } else {
+        result[size] = ids1[i];
+        size++;
+        i++;
+        j++;
+      }
+    }
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  static int[] union(int[] ids1, int[] ids2) {
+    int[] result = new int[ids1.length + ids2.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < ids1.length || j < ids2.length) {
+      int id;
+      if (j == ids2.length || (i < ids1.length && ids1[i] < ids2[j])) {
+        id = ids1[i];
+        i++;
+      } else if (i == ids1.length || ids2[j] < ids1[i]) {
+        id = ids2[j];
+        j++;
+      } else {
+        id = ids1[i];
+        i++;
+        j++;
+      }
+      result[size] = id;
+      size++;
+    }
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Ids of the files matching the predicate, or {@code null} when it must be evaluated with {@link OptimizedFilePredicate#get(FileSystem.Index)}.
+   */
+  @CheckForNull
+  int[] select(FilePredicate predicate) {
+    boolean memoizable = isMemoizable(predicate);
+    if (memoizable) {
+      int[] memoized = memoizedIds.get(predicate);
+      if (memoized != null) {
+        return memoized;
+      }
+    }
+    int[] ids = ids(predicate);
+    if (memoizable) {
+      if (ids == null) {
+        ids = filter(allIds, predicate);
+      }
+      if (memoizedIds.size() >= MAX_MEMOIZED_PREDICATES) {
+        memoizedIds.clear();
+      }
+      memoizedIds.put(predicate, ids);
+    }
+    return ids;
+  }
+
+  /**
+   * Ids of the files matching the predicate when it can be evaluated from this index, else {@code null}.
+   */
+  @CheckForNull
+  int[] ids(FilePredicate predicate) {
+    if (predicate instanceof AbstractFilePredicate) {
+      return ((AbstractFilePredicate) predicate).ids(this);
+    }
+    return null;
+  }
+
+  Iterable<InputFile> files(int[] ids) {
+    return new AbstractList<InputFile>() {
+      @Override
+      public InputFile get(int index) {
+        return files[ids[index]];
+      }
+
+      @Override
+      public int size() {
+        return ids.length;
+      }
+    };
+  }
+
+  /**
+   * Whether the predicate only depends on the attributes of the files, so that its result can be reused as long
+   * as the index is not dropped. Custom predicates may depend on anything.
+   */
+  private static boolean isMemoizable(FilePredicate predicate) {
+    if (predicate instanceof AndPredicate) {
+      return ((AndPredicate) predicate).predicates().stream().allMatch(InputFileIndex::isMemoizable);
+    }
+    if (predicate instanceof OrPredicate) {
+      return ((OrPredicate) predicate).predicates().stream().allMatch(InputFileIndex::isMemoizable);
+    }
+    if (predicate instanceof NotPredicate) {
+      return isMemoizable(((NotPredicate) predicate).predicate());
+    }
+    return predicate instanceof TruePredicate
+      || predicate instanceof FalsePredicate
+      || predicate instanceof LanguagePredicate
+      || predicate instanceof TypePredicate
+      || predicate instanceof FileExtensionPredicate
+      || predicate instanceof FilenamePredicate
+      || predicate instanceof RelativePathPredicate
+      || predicate instanceof AbsolutePathPredicate
+      || predicate instanceof PathPatternPredicate;
+  }
+}
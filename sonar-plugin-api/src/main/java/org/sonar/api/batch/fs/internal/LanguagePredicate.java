@@ -35,4 +35,26 @@ class LanguagePredicate extends AbstractFilePredicate {
   public boolean apply(InputFile f) {
     return language.equals(f.language());
   }
+
+  @Override
+  int[] ids(InputFileIndex index) {
+    return index.language(language);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    LanguagePredicate that = (LanguagePredicate) o;
+    return language.equals(that.language);
+  }
+
+  @Override
+  public int hashCode() {
+    return language.hashCode();
+  }
 }
@@ -38,4 +38,30 @@ class NotPredicate extends AbstractFilePredicate {
     return !predicate.apply(f);
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    int[] ids = index.ids(predicate);
+    return ids == null ? null : index.complement(ids);
+  }
+
+  FilePredicate predicate() {
+    return predicate;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    NotPredicate that = (NotPredicate) o;
+    return predicate.equals(that.predicate);
+  }
+
+  @Override
+  public int hashCode() {
+    return predicate.hashCode();
+  }
 }
@@ -65,9 +65,38 @@ class OrPredicate extends AbstractFilePredicate {
     return false;
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    int[] result = index.none();
+    for (FilePredicate predicate : predicates) {
+      int[] ids = index.ids(predicate);
+      if (ids == null) {
+        return null;
+      }
+      result = InputFileIndex.union(result, ids);
+    }
+    return result;
+  }
+
   @VisibleForTesting
   Collection<FilePredicate> predicates() {
     return predicates;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    OrPredicate that = (OrPredicate) o;
+    return predicates.equals(that.predicates);
+  }
+
+  @Override
+  public int hashCode() {
+    return predicates.hashCode();
+  }
 }
@@ -0,0 +1,279 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import org.sonar.api.batch.fs.TextPointer;
+import org.sonar.api.batch.fs.TextRange;
+
+/**
+ * Append-only list of text ranges stored in arrays of primitives, instead of one {@link TextRange} and
+ * two {@link TextPointer} per range. An int value is attached to each range, for example the ordinal of a type.
+ *
+ * @since 6.5
+ */
+public class PackedTextRanges {
+
+  private static final int FIELDS = 4;
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * startLine, startLineOffset, endLine, endLineOffset of each range
+   */
+  private int[] positions = new int[0];
+  private int[] values = new int[0];
+  private int size = 0;
+
+  /**
+   * Adds a range between two global offsets, with the same checks as {@link DefaultInputFile#newRange(int, int)}
+   */
+  public PackedTextRanges add(DefaultInputFile file, int startOffset, int endOffset, int value) {
+    file.checkMetadata();
+    file.checkValidOffset(startOffset);
+    file.checkValidOffset(endOffset);
+    int startLine = file.findLine(startOffset);
+    int endLine = file.findLine(endOffset);
+    int[] lineOffsets = file.originalLineOffsets();
+    return addValid(startLine, startOffset - lineOffsets[startLine - 1], endLine, endOffset - lineOffsets[endLine - 1], value);
+  }
+
+  /**
+   * Adds a range, with the same checks as {@link DefaultInputFile#newRange(int, int, int, int)}
+   */
+  public PackedTextRanges add(DefaultInputFile file, int startLine, int startLineOffset, int endLine, int endLineOffset, int value) {
+    file.checkMetadata();
+    file.checkValid(startLine, startLineOffset, "pointer");
+    file.checkValid(endLine, endLineOffset, "pointer");
+    return addValid(startLine, startLineOffset, endLine, endLineOffset, value);
+  }
+
+  public PackedTextRanges add(TextRange range, int value) {
+    return append(range.start().line(), range.start().lineOffset(), range.end().line(), range.end().lineOffset(), value);
+  }
+
+  private PackedTextRanges addValid(int startLine, int startLineOffset, int endLine, int endLineOffset, int value) {
+    if (compare(startLine, startLineOffset, endLine, endLineOffset) >= 0) {
+      throw new IllegalArgumentException(String.format("Start pointer %s should be before end pointer %s",
+        new DefaultTextPointer(startLine, startLineOffset), new DefaultTextPointer(endLine, endLineOffset)));
+    }
+    return append(startLine, startLineOffset, endLine, endLineOffset, value);
+  }
+
+  private PackedTextRanges append(int startLine, int startLineOffset, int endLine, int endLineOffset, int value) {
+    if (size == values.length) {
+      int newCapacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+      positions = Arrays.copyOf(positions, newCapacity * FIELDS);
+      values = Arrays.copyOf(values, newCapacity);
+    }
+    int i = size * FIELDS;
+    positions[i] = startLine;
+    positions[i + 1] = startLineOffset;
+    positions[i + 2] = endLine;
+    positions[i + 3] = endLineOffset;
+    values[size] = value;
+    size++;
+    return this;
+  }
+
+  public void removeLast() {
+    if (size > 0) {
+      size--;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int startLine(int index) {
+    return positions[index * FIELDS];
+  }
+
+  public int startLineOffset(int index) {
+    return positions[index * FIELDS + 1];
+  }
+
+  public int endLine(int index) {
+    return positions[index * FIELDS + 2];
+  }
+
+  public int endLineOffset(int index) {
+    return positions[index * FIELDS + 3];
+  }
+
+  public int value(int index) {
+    return values[index];
+  }
+
+  /**
+   * Creates a {@link TextRange}. To be used for compatibility or for error messages only.
+   */
+  public TextRange range(int index) {
+    return new DefaultTextRange(new DefaultTextPointer(startLine(index), startLineOffset(index)),
+      new DefaultTextPointer(endLine(index), endLineOffset(index)));
+  }
+
+  public int compareStarts(int index, int otherIndex) {
+    return compare(startLine(index), startLineOffset(index), startLine(otherIndex), startLineOffset(otherIndex));
+  }
+
+  public int compareEnds(int index, int otherIndex) {
+    return compare(endLine(index), endLineOffset(index), endLine(otherIndex), endLineOffset(otherIndex));
+  }
+
+  /**
+   * Compares the end of a range to the start of another one
+   */
+  public int compareEndToStart(int index, int otherIndex) {
+    return compare(endLine(index), endLineOffset(index), startLine(otherIndex), startLineOffset(otherIndex));
+  }
+
+  /**
+   * Same as {@link DefaultTextRange#overlap(TextRange)}
+   */
+  public boolean overlaps(int index, PackedTextRanges other, int otherIndex) {
+    return compare(endLine(index), endLineOffset(index), other.startLine(otherIndex), other.startLineOffset(otherIndex)) > 0
+      && compare(other.endLine(otherIndex), other.endLineOffset(otherIndex), startLine(index), startLineOffset(index)) > 0;
+  }
+
+  /**
+   * Same as {@link TextPointer#compareTo(Object)}
+   */
+  public static int compare(int line, int lineOffset, int otherLine, int otherLineOffset) {
+    if (line == otherLine) {
+      return Integer.compare(lineOffset, otherLineOffset);
+    }
+    return Integer.compare(line, otherLine);
+  }
+
+  /**
+   * Stable sort of the ranges. Nothing is done if ranges are already sorted, which is the most common case
+   * as sensors usually report ranges in the order of the file.
+   */
+  public void sort(IndexComparator comparator) {
+    if (isSorted(comparator)) {
+      return;
+    }
+    int[] order = order(comparator);
+    int[] sortedPositions = new int[size * FIELDS];
+    int[] sortedValues = new int[size];
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(positions, order[i] * FIELDS, sortedPositions, i * FIELDS, FIELDS);
+      sortedValues[i] = values[order[i]];
+    }
+    positions = sortedPositions;
+    values = sortedValues;
+  }
+
+  private boolean isSorted(IndexComparator comparator) {
+    for (int i = 1; i < size; i++) {
+      if (comparator.compare(i - 1, i) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indexes of the ranges in the order defined by the comparator. The sort is stable and ranges are not moved.
+   */
+  public int[] order(IndexComparator comparator) {
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    mergeSort(order, new int[size], 0, size, comparator);
+    return order;
+  }
+
+  private static void mergeSort(int[] order, int[] buffer, int from, int to, IndexComparator comparator) {
+    if (to - from < 2) {
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    mergeSort(order, buffer, from, middle, comparator);
+    mergeSort(order, buffer, middle, to, comparator);
+    if (comparator.compare(order[middle - 1], order[middle]) <= 0) {
+      return;
+    }
+    System.arraycopy(order, from, buffer, from, to - from);
+    int left = from;
+    int right = middle;
+    int i = from;
+    while (left < middle && right < to) {
+      order[i++] = comparator.compare(buffer[right], buffer[left]) < 0 ? buffer[right++] : buffer[left++];
+    }
+    while (left < middle) {
+      order[i++] = buffer[left++];
+    }
+    while (right < to) {
+      order[i++] = buffer[right++];
+    }
+  }
+
+  /**
+   * Removes the ranges equal to the previous one according to the comparator. Ranges must be sorted with the same comparator.
+   */
+  public void removeDuplicates(IndexComparator comparator) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      if (kept == 0 || comparator.compare(kept - 1, i) != 0) {
+        move(i, kept);
+        kept++;
+      }
+    }
+    size = kept;
+  }
+
+  public void removeIf(IntPredicate indexPredicate) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      if (!indexPredicate.test(i)) {
+        move(i, kept);
+        kept++;
+      }
+    }
+    size = kept;
+  }
+
+  public void replaceValues(IntUnaryOperator function) {
+    for (int i = 0; i < size; i++) {
+      values[i] = function.applyAsInt(values[i]);
+    }
+  }
+
+  private void move(int from, int to) {
+    if (from != to) {
+      System.arraycopy(positions, from * FIELDS, positions, to * FIELDS, FIELDS);
+      values[to] = values[from];
+    }
+  }
+
+  @FunctionalInterface
+  public interface IndexComparator {
+    int compare(int index, int otherIndex);
+  }
+}
@@ -36,6 +36,21 @@ public abstract class PathPattern {
 
   public abstract boolean match(IndexedFile inputFile, boolean caseSensitiveFileExtension);
 
+  /**
+   * Directory that contains all the relative paths matching this pattern, for example "src/main/" for
+   * "src/main/**&#47;*.java". Empty if the pattern does not start with a literal directory or is not relative.
+   */
+  String relativePathPrefix() {
+    return "";
+  }
+
+  /**
+   * Whether {@link #pattern} is matched against the absolute path of files rather than their relative path
+   */
+  boolean isAbsolute() {
+    return false;
+  }
+
   public static PathPattern create(String s) {
     String trimmed = StringUtils.trim(s);
     if (StringUtils.startsWithIgnoreCase(trimmed, "file:")) {
@@ -75,6 +90,11 @@ public abstract class PathPattern {
       return pattern.match(path);
     }
 
+    @Override
+    boolean isAbsolute() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "file:" + pattern.toString();
@@ -107,6 +127,24 @@ public abstract class PathPattern {
       return path != null && pattern.match(path);
     }
 
+    @Override
+    String relativePathPrefix() {
+      String s = pattern.toString();
+      // as WildcardPattern, ignore the first slash
+      int start = s.startsWith("/") || s.startsWith("\\") ? 1 : 0;
+      int end = start;
+      for (int i = start; i < s.length(); i++) {
+        char c = s.charAt(i);
+        if (c == '*' || c == '?') {
+          break;
+        }
+        if (c == '/' || c == '\\') {
+          end = i + 1;
+        }
+      }
+      return s.substring(start, end).replace('\\', '/');
+    }
+
     @Override
     public String toString() {
       return pattern.toString();
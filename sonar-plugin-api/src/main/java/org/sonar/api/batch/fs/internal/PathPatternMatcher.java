@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.sonar.api.batch.fs.IndexedFile;
+import org.sonar.api.utils.WildcardPattern;
+
+/**
+ * Group of {@link PathPattern}s evaluated at once against a file, see {@link WildcardPatternMatcher}.
+ * Same as calling {@link PathPattern#match(IndexedFile)} on each pattern.
+ *
+ * @since 6.5
+ */
+public class PathPatternMatcher {
+
+  private final WildcardPatternMatcher relativePatterns;
+  private final WildcardPatternMatcher absolutePatterns;
+
+  public PathPatternMatcher(PathPattern[] patterns) {
+    List<WildcardPattern> relative = new ArrayList<>();
+    List<WildcardPattern> absolute = new ArrayList<>();
+    for (PathPattern pattern : patterns) {
+      if (pattern.isAbsolute()) {
+        absolute.add(pattern.pattern);
+      } else {
+        relative.add(pattern.pattern);
+      }
+    }
+    this.relativePatterns = new WildcardPatternMatcher(relative);
+    this.absolutePatterns = new WildcardPatternMatcher(absolute);
+  }
+
+  public boolean isEmpty() {
+    return relativePatterns.size() == 0 && absolutePatterns.size() == 0;
+  }
+
+  /**
+   * Whether at least one of the patterns matches the file
+   */
+  public boolean matchAny(IndexedFile inputFile) {
+    if (relativePatterns.size() > 0) {
+      String relativePath = inputFile.relativePath();
+      if (relativePath != null && relativePatterns.matchAny(relativePath)) {
+        return true;
+      }
+    }
+    return absolutePatterns.size() > 0 && absolutePatterns.matchAny(inputFile.absolutePath());
+  }
+}
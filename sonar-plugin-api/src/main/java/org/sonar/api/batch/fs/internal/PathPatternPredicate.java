@@ -37,4 +37,33 @@ class PathPatternPredicate extends AbstractFilePredicate {
     return pattern.match(f);
   }
 
+  /**
+   * Only the files of the literal directory prefix of the pattern, if any, are tested
+   */
+  @Override
+  int[] ids(InputFileIndex index) {
+    String prefix = pattern.relativePathPrefix();
+    if (prefix.isEmpty()) {
+      return null;
+    }
+    return index.filter(index.pathPrefix(prefix), this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PathPatternPredicate that = (PathPatternPredicate) o;
+    return pattern.toString().equals(that.pattern.toString());
+  }
+
+  @Override
+  public int hashCode() {
+    return pattern.toString().hashCode();
+  }
+
 }
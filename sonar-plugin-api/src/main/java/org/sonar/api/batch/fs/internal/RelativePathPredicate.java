@@ -25,6 +25,7 @@ import org.sonar.api.utils.PathUtils;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Objects;
 
 /**
  * @since 4.2
@@ -52,9 +53,30 @@ public class RelativePathPredicate extends AbstractFilePredicate {
     return f != null ? Arrays.asList(f) : Collections.<InputFile>emptyList();
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    return path == null ? index.none() : index.relativePath(path);
+  }
+
   @Override
   public int priority() {
     return USE_INDEX;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RelativePathPredicate that = (RelativePathPredicate) o;
+    return Objects.equals(path, that.path);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(path);
+  }
 }
@@ -37,6 +37,11 @@ class TruePredicate extends AbstractFilePredicate {
     return index.inputFiles();
   }
 
+  @Override
+  int[] ids(InputFileIndex index) {
+    return index.all();
+  }
+
   @Override
   public Iterable<InputFile> filter(Iterable<InputFile> target) {
     return target;
@@ -0,0 +1,196 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.WildcardPattern;
+
+/**
+ * Set of {@link WildcardPattern}s, using "/" as directory separator, compiled together so that a value is matched
+ * against all of them at once. Ids of patterns are their positions in the list given at construction.
+ * <p>
+ * The literal prefixes of patterns (up to their first wildcard) are stored in a trie, and the literal suffixes of the
+ * patterns without prefix (after their last wildcard) in a trie of reversed suffixes. Walking both tries along the value
+ * selects the candidate patterns, and only the candidates that are not fully literal are matched by their regular
+ * expression. Patterns without literal prefix nor suffix, like "**&#47;generated/**", are always matched by their
+ * regular expression.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @since 6.5
+ */
+public class WildcardPatternMatcher {
+
+  private final WildcardPattern[] patterns;
+  private final String[] prefixes;
+  private final String[] suffixes;
+  private final boolean[] literals;
+  private final Node prefixTrie = new Node();
+  private final Node reversedSuffixTrie = new Node();
+  private final int[] residualIds;
+
+  public WildcardPatternMatcher(List<WildcardPattern> patterns) {
+    int size = patterns.size();
+    this.patterns = patterns.toArray(new WildcardPattern[size]);
+    this.prefixes = new String[size];
+    this.suffixes = new String[size];
+    this.literals = new boolean[size];
+    IntArrayList residuals = new IntArrayList();
+    for (int id = 0; id < size; id++) {
+      String pattern = this.patterns[id].toString();
+      // as WildcardPattern, ignore the first slash and accept backslashes as directory separators
+      String normalized = (pattern.startsWith("/") || pattern.startsWith("\\") ? pattern.substring(1) : pattern).replace('\\', '/');
+      int firstWildcard = indexOfWildcard(normalized);
+      literals[id] = firstWildcard < 0;
+      prefixes[id] = firstWildcard < 0 ? normalized : normalized.substring(0, firstWildcard);
+      suffixes[id] = firstWildcard < 0 ? "" : literalSuffix(normalized);
+      if (!prefixes[id].isEmpty()) {
+        prefixTrie.add(prefixes[id], false, id);
+      } else if (!suffixes[id].isEmpty()) {
+        reversedSuffixTrie.add(suffixes[id], true, id);
+      } else {
+        residuals.add(id);
+      }
+    }
+    this.residualIds = residuals.trimAndGet();
+  }
+
+  private static int indexOfWildcard(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*' || c == '?') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String literalSuffix(String pattern) {
+    int lastWildcard = Math.max(pattern.lastIndexOf('*'), pattern.lastIndexOf('?'));
+    int start = lastWildcard + 1;
+    if (pattern.charAt(lastWildcard) == '*' && lastWildcard > 0 && pattern.charAt(lastWildcard - 1) == '*'
+      && start < pattern.length() && pattern.charAt(start) == '/') {
+      // "**/" also matches zero directory, so the slash is not required
+      start++;
+    }
+    return pattern.substring(start);
+  }
+
+  public int size() {
+    return patterns.length;
+  }
+
+  /**
+   * Ids of the patterns matching the value
+   */
+  public BitSet match(String value) {
+    BitSet result = new BitSet(patterns.length);
+    collect(value, result, false);
+    return result;
+  }
+
+  /**
+   * Whether at least one pattern matches the value
+   */
+  public boolean matchAny(String value) {
+    return collect(value, new BitSet(patterns.length), true);
+  }
+
+  private boolean collect(String value, BitSet result, boolean stopAtFirstMatch) {
+    String normalized = normalize(value);
+    int length = normalized.length();
+
+    Node node = prefixTrie;
+    for (int i = 0; node != null; i++) {
+      if (collect(node.ids, value, normalized, result, stopAtFirstMatch)) {
+        return true;
+      }
+      node = i < length ? node.child(normalized.charAt(i)) : null;
+    }
+    node = reversedSuffixTrie;
+    for (int i = length - 1; node != null; i--) {
+      if (collect(node.ids, value, normalized, result, stopAtFirstMatch)) {
+        return true;
+      }
+      node = i >= 0 ? node.child(normalized.charAt(i)) : null;
+    }
+    return collect(residualIds, value, normalized, result, stopAtFirstMatch) || !result.isEmpty();
+  }
+
+  private boolean collect(int[] ids, String value, String normalizedValue, BitSet result, boolean stopAtFirstMatch) {
+    for (int id : ids) {
+      if (matches(id, value, normalizedValue)) {
+        result.set(id);
+        if (stopAtFirstMatch) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The literal prefix or suffix of the pattern is already known to match
+   */
+  private boolean matches(int id, String value, String normalizedValue) {
+    if (literals[id]) {
+      return normalizedValue.length() == prefixes[id].length();
+    }
+    return normalizedValue.length() >= prefixes[id].length() + suffixes[id].length()
+      && normalizedValue.startsWith(prefixes[id])
+      && normalizedValue.endsWith(suffixes[id])
+      && patterns[id].match(value);
+  }
+
+  private static String normalize(String value) {
+    // same as WildcardPattern#match(String)
+    int start = value.startsWith("/") ? 1 : 0;
+    int end = value.length() > start && value.endsWith("/") ? (value.length() - 1) : value.length();
+    return value.substring(start, end);
+  }
+
+  private static class Node {
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<Character, Node> children = new HashMap<>();
+    private int[] ids = NO_IDS;
+
+    void add(String key, boolean reversed, int id) {
+      Node node = this;
+      for (int i = 0; i < key.length(); i++) {
+        char c = key.charAt(reversed ? (key.length() - 1 - i) : i);
+        node = node.children.computeIfAbsent(c, k -> new Node());
+      }
+      int[] newIds = new int[node.ids.length + 1];
+      System.arraycopy(node.ids, 0, newIds, 0, node.ids.length);
+      newIds[node.ids.length] = id;
+      node.ids = newIds;
+    }
+
+    @CheckForNull
+    Node child(char c) {
+      return children.get(c);
+    }
+  }
+}
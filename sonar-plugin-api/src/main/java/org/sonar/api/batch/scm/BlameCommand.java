@@ -43,6 +43,16 @@ public abstract class BlameCommand {
    */
   public abstract void blame(BlameInput input, BlameOutput output);
 
+  /**
+   * Whether {@link #blame(BlameInput, BlameOutput)} can be called concurrently by several threads. If true, the scanner
+   * splits the files to blame in batches and blames the batches in parallel, each call receiving only the files of
+   * one batch. Providers that already parallelize blame by themselves should return false.
+   * @since 6.5
+   */
+  public boolean isParallelBlameSupported() {
+    return false;
+  }
+
   /**
    * Callback for the provider to report results of blame per file.
    */
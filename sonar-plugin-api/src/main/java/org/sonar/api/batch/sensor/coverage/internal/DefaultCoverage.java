@@ -19,6 +19,7 @@
  */
 package org.sonar.api.batch.sensor.coverage.internal;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -34,14 +35,25 @@ import static java.util.Objects.requireNonNull;
 
 public class DefaultCoverage extends DefaultStorable implements NewCoverage {
 
+  /**
+   * Value returned by {@link #hitsAt(int)} when no hits are defined on the line
+   */
+  public static final int NO_HITS = -1;
+  private static final int[] EMPTY = new int[0];
+
   private InputFile inputFile;
   private CoverageType type;
   private int totalCoveredLines = 0;
+  private int totalLinesToCover = 0;
   private int totalConditions = 0;
   private int totalCoveredConditions = 0;
-  private SortedMap<Integer, Integer> hitsByLine = new TreeMap<>();
-  private SortedMap<Integer, Integer> conditionsByLine = new TreeMap<>();
-  private SortedMap<Integer, Integer> coveredConditionsByLine = new TreeMap<>();
+  private int maxLine = 0;
+  /**
+   * Indexed by line. Hits are {@link #NO_HITS} when not defined, conditions are 0 when not defined.
+   */
+  private int[] hitsByLine = EMPTY;
+  private int[] conditionsByLine = EMPTY;
+  private int[] coveredConditionsByLine = EMPTY;
 
   public DefaultCoverage() {
     super();
@@ -76,15 +88,33 @@ public class DefaultCoverage extends DefaultStorable implements NewCoverage {
     validateFile();
     validateLine(line);
 
-    if (!hitsByLine.containsKey(line)) {
-      hitsByLine.put(line, hits);
+    ensureCapacity(line);
+    if (hitsByLine[line] == NO_HITS) {
+      hitsByLine[line] = hits;
+      totalLinesToCover += 1;
       if (hits > 0) {
         totalCoveredLines += 1;
       }
+      maxLine = Math.max(maxLine, line);
     }
     return this;
   }
 
+  /**
+   * Arrays are allocated lazily and grow by doubling, up to the number of lines of the file
+   */
+  private void ensureCapacity(int line) {
+    if (line < hitsByLine.length) {
+      return;
+    }
+    int newLength = Math.min(inputFile.lines() + 1, Math.max(line + 1, Math.max(16, hitsByLine.length * 2)));
+    int oldLength = hitsByLine.length;
+    hitsByLine = Arrays.copyOf(hitsByLine, newLength);
+    Arrays.fill(hitsByLine, oldLength, newLength, NO_HITS);
+    conditionsByLine = Arrays.copyOf(conditionsByLine, newLength);
+    coveredConditionsByLine = Arrays.copyOf(coveredConditionsByLine, newLength);
+  }
+
   private void validateLine(int line) {
     checkState(line <= inputFile.lines(), "Line %s is out of range in the file %s (lines: %s)", line, inputFile.relativePath(), inputFile.lines());
     checkState(line > 0, "Line number must be strictly positive: %s", line);
@@ -99,11 +129,15 @@ public class DefaultCoverage extends DefaultStorable implements NewCoverage {
     validateFile();
     validateLine(line);
 
-    if (conditions > 0 && !conditionsByLine.containsKey(line)) {
-      totalConditions += conditions;
-      totalCoveredConditions += coveredConditions;
-      conditionsByLine.put(line, conditions);
-      coveredConditionsByLine.put(line, coveredConditions);
+    if (conditions > 0) {
+      ensureCapacity(line);
+      if (conditionsByLine[line] == 0) {
+        totalConditions += conditions;
+        totalCoveredConditions += coveredConditions;
+        conditionsByLine[line] = conditions;
+        coveredConditionsByLine[line] = coveredConditions;
+        maxLine = Math.max(maxLine, line);
+      }
     }
     return this;
   }
@@ -113,7 +147,7 @@ public class DefaultCoverage extends DefaultStorable implements NewCoverage {
   }
 
   public int linesToCover() {
-    return hitsByLine.size();
+    return totalLinesToCover;
   }
 
   public int conditions() {
@@ -124,16 +158,63 @@ public class DefaultCoverage extends DefaultStorable implements NewCoverage {
     return totalCoveredConditions;
   }
 
+  /**
+   * Greatest line having hits or conditions, 0 if none. Use it with {@link #hitsAt(int)}, {@link #conditionsAt(int)}
+   * and {@link #coveredConditionsAt(int)} to iterate over lines without boxing.
+   */
+  public int maxLine() {
+    return maxLine;
+  }
+
+  /**
+   * @return the hits of the line, or {@link #NO_HITS} if not defined
+   */
+  public int hitsAt(int line) {
+    return line < hitsByLine.length ? hitsByLine[line] : NO_HITS;
+  }
+
+  /**
+   * @return the number of conditions of the line, 0 if not defined
+   */
+  public int conditionsAt(int line) {
+    return line < conditionsByLine.length ? conditionsByLine[line] : 0;
+  }
+
+  /**
+   * @return the number of covered conditions of the line, 0 if not defined
+   */
+  public int coveredConditionsAt(int line) {
+    return line < coveredConditionsByLine.length ? coveredConditionsByLine[line] : 0;
+  }
+
   public SortedMap<Integer, Integer> hitsByLine() {
-    return Collections.unmodifiableSortedMap(hitsByLine);
+    SortedMap<Integer, Integer> result = new TreeMap<>();
+    for (int line = 1; line <= maxLine; line++) {
+      if (hitsAt(line) != NO_HITS) {
+        result.put(line, hitsAt(line));
+      }
+    }
+    return Collections.unmodifiableSortedMap(result);
   }
 
   public SortedMap<Integer, Integer> conditionsByLine() {
-    return Collections.unmodifiableSortedMap(conditionsByLine);
+    SortedMap<Integer, Integer> result = new TreeMap<>();
+    for (int line = 1; line <= maxLine; line++) {
+      if (conditionsAt(line) > 0) {
+        result.put(line, conditionsAt(line));
+      }
+    }
+    return Collections.unmodifiableSortedMap(result);
   }
 
   public SortedMap<Integer, Integer> coveredConditionsByLine() {
-    return Collections.unmodifiableSortedMap(coveredConditionsByLine);
+    SortedMap<Integer, Integer> result = new TreeMap<>();
+    for (int line = 1; line <= maxLine; line++) {
+      if (conditionsAt(line) > 0) {
+        result.put(line, coveredConditionsAt(line));
+      }
+    }
+    return Collections.unmodifiableSortedMap(result);
   }
 
   @Override
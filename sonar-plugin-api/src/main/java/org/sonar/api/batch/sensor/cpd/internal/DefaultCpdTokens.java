@@ -21,6 +21,7 @@ package org.sonar.api.batch.sensor.cpd.internal;
 
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
@@ -29,29 +30,45 @@ import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.internal.DefaultStorable;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.config.Settings;
+import org.sonar.duplications.internal.pmd.PackedTokensLines;
 import org.sonar.duplications.internal.pmd.TokensLine;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Images of tokens are hashed as they are added, so that only the hash code and the length of each line are kept.
+ * Images themselves are kept only if requested, for example by {@link org.sonar.api.batch.sensor.internal.SensorContextTester}.
+ */
 public class DefaultCpdTokens extends DefaultStorable implements NewCpdTokens {
 
   private final Settings settings;
+  private final PackedTokensLines lines = new PackedTokensLines();
   private final ArrayList<TokensLine> result = new ArrayList<>();
+  @Nullable
+  private final StringBuilder sb;
   private InputFile inputFile;
   private int startLine = Integer.MIN_VALUE;
   private int startIndex = 0;
   private int currentIndex = 0;
-  private StringBuilder sb = new StringBuilder();
+  private int lineHashCode = 0;
+  private int lineLength = 0;
   private TextRange lastRange;
   private boolean excluded;
 
   public DefaultCpdTokens(Settings settings, SensorStorage storage) {
+    this(settings, storage, false);
+  }
+
+  /**
+   * @param keepImages whether images of tokens should be kept, to be returned by {@link #getTokenLines()}
+   */
+  public DefaultCpdTokens(Settings settings, SensorStorage storage, boolean keepImages) {
     super(storage);
     this.settings = settings;
+    this.sb = keepImages ? new StringBuilder() : null;
   }
-
   @Override
   public DefaultCpdTokens onFile(InputFile inputFile) {
     this.inputFile = requireNonNull(inputFile, "file can't be null");
@@ -88,32 +105,52 @@ public class DefaultCpdTokens extends DefaultStorable implements NewCpdTokens {
     if (excluded) {
       return this;
     }
-    checkState(lastRange == null || lastRange.end().compareTo(range.start()) <= 0,
-      "Tokens of file %s should be provided in order.\nPrevious token: %s\nLast token: %s", inputFile, lastRange, range);
-
-    String value = image;
+    if (lastRange != null && lastRange.end().compareTo(range.start()) > 0) {
+      // message is formatted only on failure, this method being called for each token
+      throw new IllegalStateException(String.format("Tokens of file %s should be provided in order.\nPrevious token: %s\nLast token: %s", inputFile, lastRange, range));
+    }
 
     int line = range.start().line();
     if (line != startLine) {
-      addNewTokensLine(result, startIndex, currentIndex, startLine, sb);
+      addNewTokensLine();
       startIndex = currentIndex + 1;
       startLine = line;
     }
     currentIndex++;
-    sb.append(value);
+    // same as the hash code of the concatenation of images of the line
+    for (int i = 0; i < image.length(); i++) {
+      lineHashCode = 31 * lineHashCode + image.charAt(i);
+    }
+    lineLength += image.length();
+    if (sb != null) {
+      sb.append(image);
+    }
     lastRange = range;
 
     return this;
   }
 
+  public PackedTokensLines getPackedTokenLines() {
+    return lines;
+  }
+
+  /**
+   * Only available when images are kept
+   */
   public List<TokensLine> getTokenLines() {
+    checkState(sb != null, "Images of tokens are not kept");
     return unmodifiableList(new ArrayList<>(result));
   }
 
-  private static void addNewTokensLine(List<TokensLine> result, int startUnit, int endUnit, int startLine, StringBuilder sb) {
-    if (sb.length() != 0) {
-      result.add(new TokensLine(startUnit, endUnit, startLine, sb.toString()));
-      sb.setLength(0);
+  private void addNewTokensLine() {
+    if (lineLength != 0) {
+      lines.add(startIndex, currentIndex, startLine, lineHashCode, lineLength);
+      if (sb != null) {
+        result.add(new TokensLine(startIndex, currentIndex, startLine, sb.toString()));
+        sb.setLength(0);
+      }
+      lineHashCode = 0;
+      lineLength = 0;
     }
   }
 
@@ -123,7 +160,7 @@ public class DefaultCpdTokens extends DefaultStorable implements NewCpdTokens {
     if (excluded) {
       return;
     }
-    addNewTokensLine(result, startIndex, currentIndex, startLine, sb);
+    addNewTokensLine();
     storage.store(this);
   }
 
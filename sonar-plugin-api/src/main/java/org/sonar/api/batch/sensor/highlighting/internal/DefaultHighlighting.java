@@ -21,12 +21,11 @@ package org.sonar.api.batch.sensor.highlighting.internal;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.PackedTextRanges;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.internal.DefaultStorable;
@@ -34,32 +33,50 @@ import org.sonar.api.batch.sensor.internal.SensorStorage;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Rules are packed in arrays of primitives, the value of each range being the ordinal of its {@link TypeOfText}.
+ */
 public class DefaultHighlighting extends DefaultStorable implements NewHighlighting {
 
-  private final List<SyntaxHighlightingRule> syntaxHighlightingRules;
+  private static final TypeOfText[] TYPES = TypeOfText.values();
+
+  private final PackedTextRanges rules;
   private DefaultInputFile inputFile;
 
   public DefaultHighlighting(SensorStorage storage) {
     super(storage);
-    syntaxHighlightingRules = new ArrayList<>();
+    rules = new PackedTextRanges();
   }
 
+  /**
+   * Rules sorted by start then by end in descending order, once saved. Use {@link #typeOfText(int)} to get the type of a rule.
+   */
+  public PackedTextRanges rules() {
+    return rules;
+  }
+
+  public static TypeOfText typeOfText(int ordinal) {
+    return TYPES[ordinal];
+  }
+
+  /**
+   * Creates one object per rule, prefer {@link #rules()}
+   */
   public List<SyntaxHighlightingRule> getSyntaxHighlightingRuleSet() {
-    return syntaxHighlightingRules;
+    List<SyntaxHighlightingRule> result = new ArrayList<>(rules.size());
+    for (int i = 0; i < rules.size(); i++) {
+      result.add(SyntaxHighlightingRule.create(rules.range(i), typeOfText(rules.value(i))));
+    }
+    return result;
   }
 
   private void checkOverlappingBoudaries() {
-    if (syntaxHighlightingRules.size() > 1) {
-      Iterator<SyntaxHighlightingRule> it = syntaxHighlightingRules.iterator();
-      SyntaxHighlightingRule previous = it.next();
-      while (it.hasNext()) {
-        SyntaxHighlightingRule current = it.next();
-        if (previous.range().end().compareTo(current.range().start()) > 0 && (previous.range().end().compareTo(current.range().end()) < 0)) {
-          String errorMsg = String.format("Cannot register highlighting rule for characters at %s as it " +
-            "overlaps at least one existing rule", current.range());
-          throw new IllegalStateException(errorMsg);
-        }
-        previous = current;
+    for (int i = 1; i < rules.size(); i++) {
+      int previous = i - 1;
+      if (rules.compareEndToStart(previous, i) > 0 && rules.compareEnds(previous, i) < 0) {
+        String errorMsg = String.format("Cannot register highlighting rule for characters at %s as it " +
+          "overlaps at least one existing rule", rules.range(i));
+        throw new IllegalStateException(errorMsg);
       }
     }
   }
@@ -78,31 +95,28 @@ public class DefaultHighlighting extends DefaultStorable implements NewHighlight
   @Override
   public DefaultHighlighting highlight(int startOffset, int endOffset, TypeOfText typeOfText) {
     checkInputFileNotNull();
-    TextRange newRange;
     try {
-      newRange = inputFile.newRange(startOffset, endOffset);
+      rules.add(inputFile, startOffset, endOffset, typeOfText.ordinal());
     } catch (Exception e) {
       throw new IllegalArgumentException("Unable to highlight file " + inputFile, e);
     }
-    return highlight(newRange, typeOfText);
+    return this;
   }
 
   @Override
   public DefaultHighlighting highlight(int startLine, int startLineOffset, int endLine, int endLineOffset, TypeOfText typeOfText) {
     checkInputFileNotNull();
-    TextRange newRange;
     try {
-      newRange = inputFile.newRange(startLine, startLineOffset, endLine, endLineOffset);
+      rules.add(inputFile, startLine, startLineOffset, endLine, endLineOffset, typeOfText.ordinal());
     } catch (Exception e) {
       throw new IllegalArgumentException("Unable to highlight file " + inputFile, e);
     }
-    return highlight(newRange, typeOfText);
+    return this;
   }
 
   @Override
   public DefaultHighlighting highlight(TextRange range, TypeOfText typeOfText) {
-    SyntaxHighlightingRule syntaxHighlightingRule = SyntaxHighlightingRule.create(range, typeOfText);
-    this.syntaxHighlightingRules.add(syntaxHighlightingRule);
+    rules.add(range, typeOfText.ordinal());
     return this;
   }
 
@@ -110,10 +124,10 @@ public class DefaultHighlighting extends DefaultStorable implements NewHighlight
   protected void doSave() {
     checkInputFileNotNull();
     // Sort rules to avoid variation during consecutive runs
-    Collections.sort(syntaxHighlightingRules, (left, right) -> {
-      int result = left.range().start().compareTo(right.range().start());
+    rules.sort((left, right) -> {
+      int result = rules.compareStarts(left, right);
       if (result == 0) {
-        result = right.range().end().compareTo(left.range().end());
+        result = rules.compareEnds(right, left);
       }
       return result;
     });
@@ -41,6 +41,7 @@ import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.DefaultTextPointer;
+import org.sonar.api.batch.fs.internal.PackedTextRanges;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.sensor.Sensor;
@@ -55,7 +56,6 @@ import org.sonar.api.batch.sensor.error.internal.DefaultAnalysisError;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
-import org.sonar.api.batch.sensor.highlighting.internal.SyntaxHighlightingRule;
 import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.internal.DefaultIssue;
@@ -217,7 +217,7 @@ public class SensorContextTester implements SensorContext {
   @CheckForNull
   public Integer lineHits(String fileKey, int line) {
     return sensorStorage.coverageByComponent.get(fileKey).stream()
-      .map(c -> c.hitsByLine().get(line))
+      .map(c -> c.hitsAt(line) == DefaultCoverage.NO_HITS ? null : c.hitsAt(line))
       .flatMap(Stream::of)
       .filter(Objects::nonNull)
       .reduce(null, SensorContextTester::sumOrNull);
@@ -231,7 +231,7 @@ public class SensorContextTester implements SensorContext {
   @CheckForNull
   public Integer conditions(String fileKey, int line) {
     return sensorStorage.coverageByComponent.get(fileKey).stream()
-      .map(c -> c.conditionsByLine().get(line))
+      .map(c -> c.conditionsAt(line) == 0 ? null : c.conditionsAt(line))
       .flatMap(Stream::of)
       .filter(Objects::nonNull)
       .reduce(null, SensorContextTester::maxOrNull);
@@ -240,7 +240,7 @@ public class SensorContextTester implements SensorContext {
   @CheckForNull
   public Integer coveredConditions(String fileKey, int line) {
     return sensorStorage.coverageByComponent.get(fileKey).stream()
-      .map(c -> c.coveredConditionsByLine().get(line))
+      .map(c -> c.conditionsAt(line) == 0 ? null : c.coveredConditionsAt(line))
       .flatMap(Stream::of)
       .filter(Objects::nonNull)
       .reduce(null, SensorContextTester::maxOrNull);
@@ -269,7 +269,7 @@ public class SensorContextTester implements SensorContext {
 
   @Override
   public NewCpdTokens newCpdTokens() {
-    return new DefaultCpdTokens(settings, sensorStorage);
+    return new DefaultCpdTokens(settings, sensorStorage, true);
   }
 
   @Override
@@ -296,10 +296,11 @@ public class SensorContextTester implements SensorContext {
       return Collections.emptyList();
     }
     List<TypeOfText> result = new ArrayList<>();
-    DefaultTextPointer location = new DefaultTextPointer(line, lineOffset);
-    for (SyntaxHighlightingRule sortedRule : syntaxHighlightingData.getSyntaxHighlightingRuleSet()) {
-      if (sortedRule.range().start().compareTo(location) <= 0 && sortedRule.range().end().compareTo(location) > 0) {
-        result.add(sortedRule.getTextType());
+    PackedTextRanges sortedRules = syntaxHighlightingData.rules();
+    for (int i = 0; i < sortedRules.size(); i++) {
+      if (PackedTextRanges.compare(sortedRules.startLine(i), sortedRules.startLineOffset(i), line, lineOffset) <= 0
+        && PackedTextRanges.compare(sortedRules.endLine(i), sortedRules.endLineOffset(i), line, lineOffset) > 0) {
+        result.add(DefaultHighlighting.typeOfText(sortedRules.value(i)));
       }
     }
     return result;
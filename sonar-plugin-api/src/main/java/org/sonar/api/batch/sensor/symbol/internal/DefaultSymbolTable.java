@@ -20,7 +20,6 @@
 package org.sonar.api.batch.sensor.symbol.internal;
 
 import com.google.common.base.Preconditions;
-import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -28,6 +27,7 @@ import java.util.TreeSet;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.PackedTextRanges;
 import org.sonar.api.batch.sensor.internal.DefaultStorable;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.batch.sensor.symbol.NewSymbol;
@@ -35,17 +35,51 @@ import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Declarations and references are packed in arrays of primitives. The value of a reference is the index
+ * of the declaration of its symbol.
+ */
 public class DefaultSymbolTable extends DefaultStorable implements NewSymbolTable {
 
-  private final Map<TextRange, Set<TextRange>> referencesBySymbol;
+  private final PackedTextRanges declarations;
+  private final PackedTextRanges references;
   private DefaultInputFile inputFile;
 
   public DefaultSymbolTable(SensorStorage storage) {
     super(storage);
-    referencesBySymbol = new LinkedHashMap<>();
+    declarations = new PackedTextRanges();
+    references = new PackedTextRanges();
+  }
+
+  /**
+   * Declarations of symbols, in the order they were created
+   */
+  public PackedTextRanges declarations() {
+    return declarations;
+  }
+
+  /**
+   * References of symbols, sorted by symbol then by start once saved
+   */
+  public PackedTextRanges references() {
+    return references;
   }
 
+  /**
+   * Creates one object per declaration and reference, prefer {@link #declarations()} and {@link #references()}
+   */
+  @SuppressWarnings("unchecked")
   public Map<TextRange, Set<TextRange>> getReferencesBySymbol() {
+    Map<TextRange, Set<TextRange>> referencesBySymbol = new LinkedHashMap<>();
+    Set<TextRange>[] referencesByIndex = new Set[declarations.size()];
+    for (int i = 0; i < declarations.size(); i++) {
+      Set<TextRange> symbolReferences = new TreeSet<>((o1, o2) -> o1.start().compareTo(o2.start()));
+      referencesBySymbol.put(declarations.range(i), symbolReferences);
+      referencesByIndex[i] = symbolReferences;
+    }
+    for (int i = 0; i < references.size(); i++) {
+      referencesByIndex[references.value(i)].add(references.range(i));
+    }
     return referencesBySymbol;
   }
 
@@ -63,74 +97,72 @@ public class DefaultSymbolTable extends DefaultStorable implements NewSymbolTabl
   @Override
   public NewSymbol newSymbol(int startLine, int startLineOffset, int endLine, int endLineOffset) {
     checkInputFileNotNull();
-    TextRange declarationRange;
     try {
-      declarationRange = inputFile.newRange(startLine, startLineOffset, endLine, endLineOffset);
+      declarations.add(inputFile, startLine, startLineOffset, endLine, endLineOffset, 0);
     } catch (Exception e) {
       throw new IllegalArgumentException("Unable to create symbol on file " + inputFile, e);
     }
-    return newSymbol(declarationRange);
+    return new DefaultSymbol(declarations.size() - 1);
   }
 
   @Override
   public NewSymbol newSymbol(int startOffset, int endOffset) {
     checkInputFileNotNull();
-    TextRange declarationRange;
     try {
-      declarationRange = inputFile.newRange(startOffset, endOffset);
+      declarations.add(inputFile, startOffset, endOffset, 0);
     } catch (Exception e) {
       throw new IllegalArgumentException("Unable to create symbol on file " + inputFile, e);
     }
-    return newSymbol(declarationRange);
+    return new DefaultSymbol(declarations.size() - 1);
   }
 
   @Override
   public NewSymbol newSymbol(TextRange range) {
     checkInputFileNotNull();
-    TreeSet<TextRange> references = new TreeSet<>((o1, o2) -> o1.start().compareTo(o2.start()));
-    referencesBySymbol.put(range, references);
-    return new DefaultSymbol(inputFile, range, references);
+    declarations.add(range, 0);
+    return new DefaultSymbol(declarations.size() - 1);
   }
 
-  private static class DefaultSymbol implements NewSymbol {
+  private class DefaultSymbol implements NewSymbol {
 
-    private final Collection<TextRange> references;
-    private final DefaultInputFile inputFile;
-    private final TextRange declaration;
+    private final int declaration;
 
-    public DefaultSymbol(DefaultInputFile inputFile, TextRange declaration, Collection<TextRange> references) {
-      this.inputFile = inputFile;
+    public DefaultSymbol(int declaration) {
       this.declaration = declaration;
-      this.references = references;
     }
 
     @Override
     public NewSymbol newReference(int startOffset, int endOffset) {
-      TextRange referenceRange;
       try {
-        referenceRange = inputFile.newRange(startOffset, endOffset);
+        references.add(inputFile, startOffset, endOffset, declaration);
       } catch (Exception e) {
         throw new IllegalArgumentException("Unable to create symbol reference on file " + inputFile, e);
       }
-      return newReference(referenceRange);
+      return checkLastReference();
     }
 
     @Override
     public NewSymbol newReference(int startLine, int startLineOffset, int endLine, int endLineOffset) {
-      TextRange referenceRange;
       try {
-        referenceRange = inputFile.newRange(startLine, startLineOffset, endLine, endLineOffset);
+        references.add(inputFile, startLine, startLineOffset, endLine, endLineOffset, declaration);
       } catch (Exception e) {
         throw new IllegalArgumentException("Unable to create symbol reference on file " + inputFile, e);
       }
-      return newReference(referenceRange);
+      return checkLastReference();
     }
 
     @Override
     public NewSymbol newReference(TextRange range) {
       requireNonNull(range, "Provided range is null");
-      Preconditions.checkArgument(!declaration.overlap(range), "Overlapping symbol declaration and reference for symbol at %s", declaration);
-      references.add(range);
+      references.add(range, declaration);
+      return checkLastReference();
+    }
+
+    private NewSymbol checkLastReference() {
+      if (declarations.overlaps(declaration, references, references.size() - 1)) {
+        references.removeLast();
+        throw new IllegalArgumentException(String.format("Overlapping symbol declaration and reference for symbol at %s", declarations.range(declaration)));
+      }
       return this;
     }
 
@@ -139,9 +171,67 @@ public class DefaultSymbolTable extends DefaultStorable implements NewSymbolTabl
   @Override
   protected void doSave() {
     checkInputFileNotNull();
+    removeRedeclaredSymbols();
+    // a symbol can't have two references starting at the same position
+    PackedTextRanges.IndexComparator bySymbolThenStart = (left, right) -> {
+      int result = Integer.compare(references.value(left), references.value(right));
+      return result == 0 ? references.compareStarts(left, right) : result;
+    };
+    references.sort(bySymbolThenStart);
+    references.removeDuplicates(bySymbolThenStart);
     storage.store(this);
   }
 
+  /**
+   * A symbol declared again on the same range replaces the previous one, but keeps its position
+   */
+  private void removeRedeclaredSymbols() {
+    int size = declarations.size();
+    int[] byRange = declarations.order((left, right) -> {
+      int result = declarations.compareStarts(left, right);
+      return result == 0 ? declarations.compareEnds(left, right) : result;
+    });
+    boolean[] removed = new boolean[size];
+    int[] referenceTarget = new int[size];
+    boolean redeclared = false;
+    int groupStart = 0;
+    for (int i = 0; i < size; i++) {
+      referenceTarget[i] = i;
+    }
+    for (int i = 1; i <= size; i++) {
+      if (i < size && sameRange(byRange[groupStart], byRange[i])) {
+        continue;
+      }
+      if (i - groupStart > 1) {
+        // sort is stable: the group is in the order of creation
+        redeclared = true;
+        for (int j = groupStart; j < i - 1; j++) {
+          referenceTarget[byRange[j]] = -1;
+        }
+        referenceTarget[byRange[i - 1]] = byRange[groupStart];
+        for (int j = groupStart + 1; j < i; j++) {
+          removed[byRange[j]] = true;
+        }
+      }
+      groupStart = i;
+    }
+    if (!redeclared) {
+      return;
+    }
+    int[] newIndex = new int[size];
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      newIndex[i] = removed[i] ? -1 : kept++;
+    }
+    references.replaceValues(declaration -> referenceTarget[declaration] < 0 ? -1 : newIndex[referenceTarget[declaration]]);
+    references.removeIf(index -> references.value(index) < 0);
+    declarations.removeIf(index -> removed[index]);
+  }
+
+  private boolean sameRange(int declaration, int otherDeclaration) {
+    return declarations.compareStarts(declaration, otherDeclaration) == 0 && declarations.compareEnds(declaration, otherDeclaration) == 0;
+  }
+
   private void checkInputFileNotNull() {
     Preconditions.checkState(inputFile != null, "Call onFile() first");
   }
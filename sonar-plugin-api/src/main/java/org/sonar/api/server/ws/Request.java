@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -319,6 +320,16 @@ public abstract class Request {
    */
   public abstract String getPath();
 
+  /**
+   * Returns value of a header. Header names are case-insensitive. An empty value is returned
+   * if the header is missing or if the request implementation does not support headers.
+   *
+   * @since 6.5
+   */
+  public Optional<String> header(String name) {
+    return Optional.empty();
+  }
+
   /**
    * @since 6.0
    */
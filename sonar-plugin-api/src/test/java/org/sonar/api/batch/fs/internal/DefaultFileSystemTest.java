@@ -24,6 +24,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicate;
 
 import java.io.File;
 import java.nio.charset.Charset;
@@ -148,4 +149,15 @@ public class DefaultFileSystemTest {
     // it would fail if more than one java file
     assertThat(fs.inputFile(fs.predicates().hasLanguage("java"))).isNotNull();
   }
+
+  @Test
+  public void predicates_are_evaluated_again_when_files_are_added() {
+    fs.add(new TestInputFileBuilder("foo", "src/main/Foo.java").setLanguage("java").build());
+    FilePredicate mainJavaFiles = fs.predicates().and(fs.predicates().hasLanguage("java"), fs.predicates().matchesPathPattern("src/main/**"));
+    assertThat(fs.inputFiles(mainJavaFiles)).hasSize(1);
+
+    fs.add(new TestInputFileBuilder("foo", "src/main/Bar.java").setLanguage("java").build());
+    fs.add(new TestInputFileBuilder("foo", "src/test/BarTest.java").setLanguage("java").build());
+    assertThat(fs.inputFiles(mainJavaFiles)).extracting("relativePath").containsOnly("src/main/Foo.java", "src/main/Bar.java");
+  }
 }
@@ -32,6 +32,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.junit.Rule;
 import org.junit.Test;
@@ -69,6 +76,31 @@ public class DefaultInputFileTest {
     assertThat(inputFile.charset()).isEqualTo(StandardCharsets.ISO_8859_1);
   }
 
+  @Test
+  public void metadata_are_generated_once_when_file_is_read_by_several_threads() throws Exception {
+    Path baseDir = temp.newFolder().toPath();
+    AtomicInteger generations = new AtomicInteger();
+    DefaultInputFile inputFile = new DefaultInputFile(new DefaultIndexedFile("ABCDE", baseDir, "src/Foo.php", InputFile.Type.MAIN, 0), f -> {
+      generations.incrementAndGet();
+      f.setCharset(StandardCharsets.UTF_8);
+      f.setMetadata(new Metadata(42, 42, "", new int[0], 0));
+      f.setStatus(InputFile.Status.SAME);
+    });
+
+    Callable<Integer> readLines = inputFile::lines;
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> lines = executor.invokeAll(Collections.nCopies(10, readLines));
+      for (Future<Integer> line : lines) {
+        assertThat(line.get()).isEqualTo(42);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(generations.get()).isEqualTo(1);
+    assertThat(inputFile.status()).isEqualTo(InputFile.Status.SAME);
+  }
+
   @Test
   public void test_content() throws IOException {
     Path baseDir = temp.newFolder().toPath();
@@ -0,0 +1,127 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputFileIndexTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path baseDir;
+  private FilePredicates p;
+  private List<InputFile> files = new ArrayList<>();
+  private InputFileIndex index;
+
+  @Before
+  public void prepare() throws Exception {
+    baseDir = temp.newFolder().toPath().toRealPath();
+    p = new DefaultFilePredicates(baseDir);
+    addFile("src/main/java/Foo.java", "java", InputFile.Type.MAIN);
+    addFile("src/main/java/sub/Bar.java", "java", InputFile.Type.MAIN);
+    addFile("src/main/javascript/foo.js", "js", InputFile.Type.MAIN);
+    addFile("src/test/java/FooTest.java", "java", InputFile.Type.TEST);
+    addFile("src/main/java/readme.txt", null, InputFile.Type.MAIN);
+    addFile("Build.JAVA", null, InputFile.Type.MAIN);
+    index = new InputFileIndex(files);
+  }
+
+  private void addFile(String relativePath, String language, InputFile.Type type) {
+    files.add(new TestInputFileBuilder("foo", relativePath).setModuleBaseDir(baseDir).setLanguage(language).setType(type).build());
+  }
+
+  @Test
+  public void evaluate_predicates_from_index() {
+    assertSameAsFilter(p.all(), 6);
+    assertSameAsFilter(p.none(), 0);
+    assertSameAsFilter(p.hasLanguage("java"), 3);
+    assertSameAsFilter(p.hasLanguage("cobol"), 0);
+    assertSameAsFilter(p.hasType(InputFile.Type.TEST), 1);
+    assertSameAsFilter(p.hasExtension("java"), 4);
+    assertSameAsFilter(p.hasFilename("Foo.java"), 1);
+    assertSameAsFilter(p.hasRelativePath("src/main/java/sub/Bar.java"), 1);
+    assertSameAsFilter(p.hasRelativePath("src/main/java"), 0);
+    assertSameAsFilter(p.hasAbsolutePath(baseDir.resolve("src/main/java/Foo.java").toString()), 1);
+    assertSameAsFilter(p.matchesPathPattern("src/main/java/**"), 3);
+    assertSameAsFilter(p.matchesPathPattern("src/main/java/*.java"), 1);
+    assertSameAsFilter(p.matchesPathPattern("**/*Test.java"), 1);
+    assertSameAsFilter(p.and(p.hasLanguage("java"), p.hasType(InputFile.Type.MAIN)), 2);
+    assertSameAsFilter(p.and(p.hasLanguage("java"), p.matchesPathPattern("**/Foo*")), 2);
+    assertSameAsFilter(p.and(p.hasLanguage("java"), file -> file.relativePath().contains("sub")), 1);
+    assertSameAsFilter(p.or(p.hasLanguage("js"), p.hasType(InputFile.Type.TEST)), 2);
+    assertSameAsFilter(p.hasLanguages("java", "js"), 4);
+    assertSameAsFilter(p.not(p.hasLanguage("java")), 3);
+    assertSameAsFilter(p.doesNotMatchPathPatterns(new String[] {"src/main/**", "**/*.JAVA"}), 1);
+  }
+
+  private void assertSameAsFilter(FilePredicate predicate, int expectedSize) {
+    List<InputFile> expected = files.stream().filter(predicate::apply).collect(Collectors.toList());
+    int[] ids = index.select(OptimizedFilePredicateAdapter.create(predicate));
+
+    assertThat(ids).isNotNull();
+    assertThat(index.files(ids)).containsExactlyElementsOf(expected).hasSize(expectedSize);
+  }
+
+  @Test
+  public void custom_predicates_are_not_evaluated_from_index() {
+    assertThat(index.select(OptimizedFilePredicateAdapter.create(file -> true))).isNull();
+    assertThat(index.select(p.or(p.hasLanguage("java"), file -> true))).isNull();
+  }
+
+  @Test
+  public void memoize_results_of_built_in_predicates() {
+    int[] ids = index.select(p.and(p.hasLanguage("java"), p.matchesPathPattern("**/Foo*")));
+
+    assertThat(index.select(p.and(p.hasLanguage("java"), p.matchesPathPattern("**/Foo*")))).isSameAs(ids);
+    assertThat(index.select(p.and(p.hasLanguage("java"), p.matchesPathPattern("**/Bar*")))).isNotSameAs(ids);
+  }
+
+  @Test
+  public void select_files_by_path_prefix() {
+    assertThat(paths(index.pathPrefix("src/main/java/"))).containsExactly("src/main/java/Foo.java", "src/main/java/sub/Bar.java", "src/main/java/readme.txt");
+    assertThat(index.pathPrefix("src/other/")).isEmpty();
+  }
+
+  private List<String> paths(int[] ids) {
+    return Arrays.stream(ids).mapToObj(id -> files.get(id).relativePath()).collect(Collectors.toList());
+  }
+
+  @Test
+  public void merge_sorted_ids() {
+    assertThat(InputFileIndex.intersection(new int[] {1, 3, 5, 7}, new int[] {2, 3, 4, 7, 8})).containsExactly(3, 7);
+    assertThat(InputFileIndex.union(new int[] {1, 3, 5}, new int[] {2, 3, 8})).containsExactly(1, 2, 3, 5, 8);
+    assertThat(index.complement(new int[] {0, 2, 5})).containsExactly(1, 3, 4);
+    assertThat(index.all()).hasSize(index.size()).containsExactly(0, 1, 2, 3, 4, 5);
+  }
+}
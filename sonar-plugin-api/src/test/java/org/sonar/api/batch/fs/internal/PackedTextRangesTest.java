@@ -0,0 +1,146 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedTextRangesTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.java")
+    .setLines(2)
+    .setOriginalLineOffsets(new int[] {0, 50})
+    .setLastValidOffset(100)
+    .build();
+
+  private PackedTextRanges underTest = new PackedTextRanges();
+
+  @Test
+  public void add_ranges_from_global_offsets_or_line_offsets() {
+    underTest.add(file, 10, 55, 1);
+    underTest.add(file, 2, 1, 2, 3, 2);
+    underTest.add(file.newRange(1, 0, 1, 4), 3);
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.range(0)).isEqualTo(file.newRange(10, 55));
+    assertThat(underTest.value(0)).isEqualTo(1);
+    assertThat(underTest.startLine(1)).isEqualTo(2);
+    assertThat(underTest.startLineOffset(1)).isEqualTo(1);
+    assertThat(underTest.endLine(1)).isEqualTo(2);
+    assertThat(underTest.endLineOffset(1)).isEqualTo(3);
+    assertThat(underTest.range(2)).isEqualTo(file.newRange(1, 0, 1, 4));
+  }
+
+  @Test
+  public void grow_beyond_default_capacity() {
+    for (int i = 0; i < 100; i++) {
+      underTest.add(file, i, i + 1, i);
+    }
+
+    assertThat(underTest.size()).isEqualTo(100);
+    assertThat(underTest.value(99)).isEqualTo(99);
+    assertThat(underTest.range(99)).isEqualTo(file.newRange(99, 100));
+  }
+
+  @Test
+  public void fail_if_start_is_not_before_end() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Start pointer [line=1, lineOffset=10] should be before end pointer [line=1, lineOffset=10]");
+
+    underTest.add(file, 10, 10, 0);
+  }
+
+  @Test
+  public void fail_if_offset_is_not_valid() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("101 is not a valid offset for file");
+
+    underTest.add(file, 10, 101, 0);
+  }
+
+  @Test
+  public void fail_if_line_offset_is_not_valid() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("60 is not a valid line offset for pointer");
+
+    underTest.add(file, 1, 0, 2, 60, 0);
+  }
+
+  @Test
+  public void stable_sort() {
+    underTest.add(file, 20, 30, 0);
+    underTest.add(file, 0, 10, 1);
+    underTest.add(file, 20, 25, 2);
+    underTest.add(file, 0, 5, 3);
+
+    underTest.sort(underTest::compareStarts);
+
+    assertThat(underTest.value(0)).isEqualTo(1);
+    assertThat(underTest.value(1)).isEqualTo(3);
+    assertThat(underTest.value(2)).isEqualTo(0);
+    assertThat(underTest.value(3)).isEqualTo(2);
+    assertThat(underTest.range(3)).isEqualTo(file.newRange(20, 25));
+  }
+
+  @Test
+  public void remove_duplicates_of_sorted_ranges() {
+    underTest.add(file, 0, 10, 0);
+    underTest.add(file, 0, 5, 1);
+    underTest.add(file, 20, 25, 2);
+
+    underTest.removeDuplicates(underTest::compareStarts);
+
+    assertThat(underTest.size()).isEqualTo(2);
+    assertThat(underTest.value(0)).isEqualTo(0);
+    assertThat(underTest.value(1)).isEqualTo(2);
+  }
+
+  @Test
+  public void remove_and_replace_values() {
+    underTest.add(file, 0, 10, 0);
+    underTest.add(file, 10, 20, 1);
+    underTest.add(file, 20, 30, 2);
+
+    underTest.replaceValues(value -> value * 10);
+    underTest.removeIf(index -> underTest.value(index) == 10);
+
+    assertThat(underTest.size()).isEqualTo(2);
+    assertThat(underTest.value(0)).isEqualTo(0);
+    assertThat(underTest.value(1)).isEqualTo(20);
+    assertThat(underTest.range(1)).isEqualTo(file.newRange(20, 30));
+  }
+
+  @Test
+  public void overlaps() {
+    PackedTextRanges other = new PackedTextRanges();
+    underTest.add(file, 10, 20, 0);
+    other.add(file, 15, 25, 0);
+    other.add(file, 20, 25, 0);
+
+    assertThat(underTest.overlaps(0, other, 0)).isTrue();
+    assertThat(underTest.overlaps(0, other, 1)).isFalse();
+  }
+}
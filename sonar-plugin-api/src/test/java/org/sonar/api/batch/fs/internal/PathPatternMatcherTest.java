@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.IndexedFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternMatcherTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private Path moduleBasePath;
+
+  @Before
+  public void setUp() throws IOException {
+    moduleBasePath = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void match_relative_and_absolute_patterns() {
+    PathPatternMatcher matcher = new PathPatternMatcher(PathPattern.create(new String[] {"**/*Foo.java", "file:**/src/main/**Bar.java"}));
+    assertThat(matcher.isEmpty()).isFalse();
+
+    IndexedFile indexedFile = new DefaultIndexedFile("ABCDE", moduleBasePath, "src/main/java/org/MyFoo.java");
+    assertThat(matcher.matchAny(indexedFile)).isTrue();
+
+    indexedFile = new DefaultIndexedFile("ABCDE", moduleBasePath, "src/main/java/org/MyBar.java");
+    assertThat(matcher.matchAny(indexedFile)).isTrue();
+
+    // absolute pattern is not applied on relative path
+    indexedFile = new DefaultIndexedFile("ABCDE", moduleBasePath, "src/test/java/org/MyBar.java");
+    assertThat(matcher.matchAny(indexedFile)).isFalse();
+  }
+
+  @Test
+  public void match_nothing_without_patterns() {
+    PathPatternMatcher matcher = new PathPatternMatcher(new PathPattern[0]);
+    assertThat(matcher.isEmpty()).isTrue();
+
+    IndexedFile indexedFile = new DefaultIndexedFile("ABCDE", moduleBasePath, "src/main/java/org/MyFoo.java");
+    assertThat(matcher.matchAny(indexedFile)).isFalse();
+  }
+}
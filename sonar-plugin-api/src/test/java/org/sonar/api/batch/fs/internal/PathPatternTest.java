@@ -105,4 +105,15 @@ public class PathPatternTest {
     assertThat(patterns[0].toString()).isEqualTo("**/src/main/**Foo.java");
     assertThat(patterns[1].toString()).isEqualTo("file:**/src/main/**Bar.java");
   }
+
+  @Test
+  public void relative_path_prefix() {
+    assertThat(PathPattern.create("src/main/**/*.java").relativePathPrefix()).isEqualTo("src/main/");
+    assertThat(PathPattern.create("/src/main/java/Foo.java").relativePathPrefix()).isEqualTo("src/main/java/");
+    assertThat(PathPattern.create("src\\main\\*.java").relativePathPrefix()).isEqualTo("src/main/");
+    assertThat(PathPattern.create("src/ma?n/Foo.java").relativePathPrefix()).isEqualTo("src/");
+    assertThat(PathPattern.create("**/*.java").relativePathPrefix()).isEmpty();
+    assertThat(PathPattern.create("Foo.java").relativePathPrefix()).isEmpty();
+    assertThat(PathPattern.create("file:/src/main/**").relativePathPrefix()).isEmpty();
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WildcardPatternMatcherTest {
+
+  private static final List<String> PATTERNS = Arrays.asList(
+    "src/main/java/Foo.java",
+    "/src/main/java/Foo.java",
+    "src\\main\\**\\*.java",
+    "src/main/**",
+    "src/*/java/**/*Test.java",
+    "src/?ain/**",
+    "**/*.java",
+    "**/generated/**",
+    "**/Foo.java",
+    "**",
+    "*",
+    "*.xml",
+    "**/*Foo?.java",
+    "org/*",
+    "org/**/Bar.java",
+    "file.(1).txt",
+    "");
+
+  private static final List<String> PATHS = Arrays.asList(
+    "src/main/java/Foo.java",
+    "/src/main/java/Foo.java",
+    "src/main/java/Foo.java/",
+    "src/main/java/org/FooTest.java",
+    "src/test/java/org/FooTest.java",
+    "src/main/resources/generated/config.xml",
+    "generated/Foo.java",
+    "Foo.java",
+    "pom.xml",
+    "org/Bar.java",
+    "org/foo/Bar.java",
+    "org/MyFoo1.java",
+    "file.(1).txt",
+    "file.11.txt",
+    "src",
+    "/",
+    "");
+
+  @Test
+  public void match_same_values_as_wildcard_patterns() {
+    List<WildcardPattern> patterns = new ArrayList<>();
+    for (String pattern : PATTERNS) {
+      patterns.add(WildcardPattern.create(pattern));
+    }
+    WildcardPatternMatcher matcher = new WildcardPatternMatcher(patterns);
+    assertThat(matcher.size()).isEqualTo(PATTERNS.size());
+
+    for (String path : PATHS) {
+      BitSet expected = new BitSet();
+      for (int id = 0; id < patterns.size(); id++) {
+        if (patterns.get(id).match(path)) {
+          expected.set(id);
+        }
+      }
+      assertThat(matcher.match(path)).as(path).isEqualTo(expected);
+      assertThat(matcher.matchAny(path)).as(path).isEqualTo(!expected.isEmpty());
+    }
+  }
+
+  @Test
+  public void return_ids_of_matching_patterns() {
+    WildcardPatternMatcher matcher = new WildcardPatternMatcher(Arrays.asList(
+      WildcardPattern.create("**/*.xml"),
+      WildcardPattern.create("src/**"),
+      WildcardPattern.create("src/main/pom.xml")));
+
+    assertThat(matcher.match("src/main/pom.xml").toString()).isEqualTo("{0, 1, 2}");
+    assertThat(matcher.match("src/Foo.java").toString()).isEqualTo("{1}");
+    assertThat(matcher.match("pom.xml").toString()).isEqualTo("{0}");
+    assertThat(matcher.matchAny("Foo.java")).isFalse();
+  }
+
+  @Test
+  public void match_nothing_without_patterns() {
+    WildcardPatternMatcher matcher = new WildcardPatternMatcher(Collections.<WildcardPattern>emptyList());
+
+    assertThat(matcher.size()).isZero();
+    assertThat(matcher.match("src/Foo.java").isEmpty()).isTrue();
+    assertThat(matcher.matchAny("src/Foo.java")).isFalse();
+  }
+}
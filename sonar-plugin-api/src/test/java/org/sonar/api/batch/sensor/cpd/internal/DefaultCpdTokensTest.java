@@ -25,6 +25,7 @@ import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
+import org.sonar.duplications.internal.pmd.PackedTokensLines;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -57,7 +58,7 @@ public class DefaultCpdTokensTest {
   @Test
   public void save_one_token() {
     SensorStorage sensorStorage = mock(SensorStorage.class);
-    DefaultCpdTokens tokens = new DefaultCpdTokens(new MapSettings(), sensorStorage)
+    DefaultCpdTokens tokens = new DefaultCpdTokens(new MapSettings(), sensorStorage, true)
       .onFile(INPUT_FILE)
       .addToken(INPUT_FILE.newRange(1, 2, 1, 5), "foo");
 
@@ -73,7 +74,7 @@ public class DefaultCpdTokensTest {
     SensorStorage sensorStorage = mock(SensorStorage.class);
     Settings settings = new MapSettings();
     settings.setProperty("sonar.cpd.exclusions", "src/Foo.java,another");
-    DefaultCpdTokens tokens = new DefaultCpdTokens(settings, sensorStorage)
+    DefaultCpdTokens tokens = new DefaultCpdTokens(settings, sensorStorage, true)
       .onFile(INPUT_FILE)
       .addToken(INPUT_FILE.newRange(1, 2, 1, 5), "foo");
 
@@ -87,7 +88,7 @@ public class DefaultCpdTokensTest {
   @Test
   public void save_many_tokens() {
     SensorStorage sensorStorage = mock(SensorStorage.class);
-    DefaultCpdTokens tokens = new DefaultCpdTokens(new MapSettings(), sensorStorage)
+    DefaultCpdTokens tokens = new DefaultCpdTokens(new MapSettings(), sensorStorage, true)
       .onFile(INPUT_FILE)
       .addToken(INPUT_FILE.newRange(1, 2, 1, 5), "foo")
       .addToken(INPUT_FILE.newRange(1, 6, 1, 10), "bar")
@@ -105,6 +106,36 @@ public class DefaultCpdTokensTest {
         tuple("next", 2, "next".hashCode(), 4, 4));
   }
 
+  @Test
+  public void hash_lines_without_keeping_images() {
+    SensorStorage sensorStorage = mock(SensorStorage.class);
+    DefaultCpdTokens tokens = new DefaultCpdTokens(new MapSettings(), sensorStorage)
+      .onFile(INPUT_FILE)
+      .addToken(INPUT_FILE.newRange(1, 2, 1, 5), "foo")
+      .addToken(INPUT_FILE.newRange(1, 6, 1, 10), "bar")
+      .addToken(INPUT_FILE.newRange(2, 1, 2, 10), "next");
+
+    tokens.save();
+
+    PackedTokensLines lines = tokens.getPackedTokenLines();
+    assertThat(lines.size()).isEqualTo(2);
+    assertThat(lines.getStartLine(0)).isEqualTo(1);
+    assertThat(lines.getHashCode(0)).isEqualTo("foobar".hashCode());
+    assertThat(lines.getLength(0)).isEqualTo(6);
+    assertThat(lines.getStartUnit(0)).isEqualTo(1);
+    assertThat(lines.getEndUnit(0)).isEqualTo(2);
+    assertThat(lines.getStartLine(1)).isEqualTo(2);
+    assertThat(lines.getHashCode(1)).isEqualTo("next".hashCode());
+    assertThat(lines.getStartUnit(1)).isEqualTo(3);
+    assertThat(lines.getEndUnit(1)).isEqualTo(3);
+    try {
+      tokens.getTokenLines();
+      fail("Expected exception");
+    } catch (Exception e) {
+      assertThat(e).hasMessage("Images of tokens are not kept");
+    }
+  }
+
   @Test
   public void basic_validation() {
     SensorStorage sensorStorage = mock(SensorStorage.class);
@@ -25,17 +25,19 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.PackedTextRanges;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.batch.sensor.symbol.NewSymbol;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 public class DefaultSymbolTableTest {
 
-  private static final InputFile INPUT_FILE = new TestInputFileBuilder("foo", "src/Foo.java")
+  private static final DefaultInputFile INPUT_FILE = new TestInputFileBuilder("foo", "src/Foo.java")
     .setLines(2)
     .setOriginalLineOffsets(new int[] {0, 50})
     .setLastValidOffset(100)
@@ -68,4 +70,62 @@ public class DefaultSymbolTableTest {
     assertThat(referencesPerSymbol).hasSize(2);
   }
 
+  @Test
+  public void should_sort_references_by_symbol_then_start() {
+    DefaultSymbolTable symbolTable = new DefaultSymbolTable(mock(SensorStorage.class)).onFile(INPUT_FILE);
+    NewSymbol first = symbolTable.newSymbol(0, 10);
+    NewSymbol second = symbolTable.newSymbol(20, 30);
+    second.newReference(60, 62);
+    first.newReference(40, 42);
+    second.newReference(50, 52);
+    first.newReference(12, 15);
+    symbolTable.save();
+
+    PackedTextRanges references = symbolTable.references();
+    assertThat(references.size()).isEqualTo(4);
+    assertThat(references.value(0)).isEqualTo(0);
+    assertThat(references.range(0)).isEqualTo(INPUT_FILE.newRange(1, 12, 1, 15));
+    assertThat(references.range(1)).isEqualTo(INPUT_FILE.newRange(1, 40, 1, 42));
+    assertThat(references.value(2)).isEqualTo(1);
+    assertThat(references.range(2)).isEqualTo(INPUT_FILE.newRange(2, 0, 2, 2));
+    assertThat(references.range(3)).isEqualTo(INPUT_FILE.newRange(2, 10, 2, 12));
+  }
+
+  @Test
+  public void should_keep_first_reference_starting_at_same_position() {
+    DefaultSymbolTable symbolTable = new DefaultSymbolTable(mock(SensorStorage.class)).onFile(INPUT_FILE);
+    symbolTable.newSymbol(0, 10)
+      .newReference(12, 15)
+      .newReference(12, 18);
+    symbolTable.save();
+
+    assertThat(symbolTable.references().size()).isEqualTo(1);
+    assertThat(symbolTable.getReferencesBySymbol().get(INPUT_FILE.newRange(0, 10))).containsExactly(INPUT_FILE.newRange(12, 15));
+  }
+
+  @Test
+  public void should_replace_symbol_declared_twice() {
+    DefaultSymbolTable symbolTable = new DefaultSymbolTable(mock(SensorStorage.class)).onFile(INPUT_FILE);
+    symbolTable.newSymbol(0, 10).newReference(12, 15);
+    symbolTable.newSymbol(20, 30).newReference(40, 42);
+    symbolTable.newSymbol(0, 10).newReference(52, 55);
+    symbolTable.save();
+
+    Map<TextRange, Set<TextRange>> references = symbolTable.getReferencesBySymbol();
+    assertThat(references.keySet()).containsExactly(INPUT_FILE.newRange(0, 10), INPUT_FILE.newRange(20, 30));
+    assertThat(references.get(INPUT_FILE.newRange(0, 10))).containsExactly(INPUT_FILE.newRange(52, 55));
+    assertThat(references.get(INPUT_FILE.newRange(20, 30))).containsExactly(INPUT_FILE.newRange(40, 42));
+  }
+
+  @Test
+  public void should_reject_reference_overlapping_declaration() {
+    throwable.expect(IllegalArgumentException.class);
+    throwable.expectMessage("Overlapping symbol declaration and reference for symbol at Range[from [line=1, lineOffset=0] to [line=1, lineOffset=10]]");
+
+    new DefaultSymbolTable(mock(SensorStorage.class))
+      .onFile(INPUT_FILE)
+      .newSymbol(0, 10)
+      .newReference(5, 15);
+  }
+
 }
@@ -87,6 +87,7 @@ public class GlobalContainer extends ComponentContainer {
       StoragesManager.class,
       GlobalSettings.class,
       new ScannerWsClientProvider(),
+      ScannerWsCache.class,
       DefaultServer.class,
       new GlobalTempFolderProvider(),
       DefaultHttpDownloader.class,
@@ -20,6 +20,7 @@
 package org.sonar.scanner.bootstrap;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,6 +30,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.CharUtils;
@@ -48,21 +53,26 @@ import static java.lang.String.format;
 
 /**
  * Downloads the plugins installed on server and stores them in a local user cache
- * (see {@link FileCacheProvider}).
+ * (see {@link FileCacheProvider}). Downloads are executed in parallel and the jars
+ * are exploded by the download threads, so that {@link org.sonar.core.platform.PluginLoader}
+ * only finds already unzipped plugins.
  */
 public class ScannerPluginInstaller implements PluginInstaller {
 
   private static final Logger LOG = Loggers.get(ScannerPluginInstaller.class);
   private static final String PLUGINS_INDEX_URL = "/deploy/plugins/index.txt";
+  private static final int MAX_DOWNLOAD_THREADS = 4;
 
   private final FileCache fileCache;
   private final ScannerPluginPredicate pluginPredicate;
   private final ScannerWsClient wsClient;
+  private final ScannerPluginJarExploder jarExploder;
 
-  public ScannerPluginInstaller(ScannerWsClient wsClient, FileCache fileCache, ScannerPluginPredicate pluginPredicate) {
+  public ScannerPluginInstaller(ScannerWsClient wsClient, FileCache fileCache, ScannerPluginPredicate pluginPredicate, ScannerPluginJarExploder jarExploder) {
     this.fileCache = fileCache;
     this.pluginPredicate = pluginPredicate;
     this.wsClient = wsClient;
+    this.jarExploder = jarExploder;
   }
 
   @Override
@@ -71,22 +81,59 @@ public class ScannerPluginInstaller implements PluginInstaller {
   }
 
   private Map<String, PluginInfo> loadPlugins(List<RemotePlugin> remotePlugins) {
-    Map<String, PluginInfo> infosByKey = new HashMap<>(remotePlugins.size());
+    List<RemotePlugin> acceptedPlugins = new ArrayList<>(remotePlugins.size());
+    for (RemotePlugin remotePlugin : remotePlugins) {
+      if (pluginPredicate.apply(remotePlugin.getKey())) {
+        acceptedPlugins.add(remotePlugin);
+      }
+    }
+    Map<String, PluginInfo> infosByKey = new HashMap<>(acceptedPlugins.size());
+    if (acceptedPlugins.isEmpty()) {
+      return infosByKey;
+    }
 
     Profiler profiler = Profiler.create(LOG).startDebug("Load plugins");
 
-    for (RemotePlugin remotePlugin : remotePlugins) {
-      if (pluginPredicate.apply(remotePlugin.getKey())) {
-        File jarFile = download(remotePlugin);
-        PluginInfo info = PluginInfo.create(jarFile);
+    int threads = Math.min(MAX_DOWNLOAD_THREADS, acceptedPlugins.size());
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("PluginDownloader-%d").setDaemon(true).build());
+    try {
+      // the same jar (same hash) is downloaded only once, even if referenced by several keys
+      Map<String, Future<PluginInfo>> tasksByHash = new HashMap<>(acceptedPlugins.size());
+      for (RemotePlugin remotePlugin : acceptedPlugins) {
+        tasksByHash.computeIfAbsent(remotePlugin.file().getHash(), hash -> executorService.submit(() -> install(remotePlugin)));
+      }
+      for (Future<PluginInfo> task : tasksByHash.values()) {
+        PluginInfo info = waitFor(task);
         infosByKey.put(info.getKey(), info);
       }
+    } finally {
+      executorService.shutdownNow();
     }
 
     profiler.stopDebug();
     return infosByKey;
   }
 
+  private PluginInfo install(RemotePlugin remotePlugin) {
+    File jarFile = download(remotePlugin);
+    PluginInfo info = PluginInfo.create(jarFile);
+    // unzip now, in parallel with the other downloads. Exploded plugins are kept in cache next to the jar.
+    jarExploder.explode(info);
+    return info;
+  }
+
+  private static PluginInfo waitFor(Future<PluginInfo> task) {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
   /**
    * Returns empty on purpose. This method is used only by tests.
    * @see org.sonar.scanner.mediumtest.ScannerMediumTester
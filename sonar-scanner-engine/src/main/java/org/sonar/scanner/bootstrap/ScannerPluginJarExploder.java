@@ -30,6 +30,9 @@ import org.sonar.home.cache.FileCache;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import static org.sonar.core.util.FileUtils.deleteQuietly;
 
@@ -65,7 +68,7 @@ public class ScannerPluginJarExploder extends PluginJarExploder {
           if (!destDir.exists()) {
             File tempDir = fileCache.createTempDir();
             ZipUtils.unzip(cachedFile, tempDir, newLibFilter());
-            FileUtils.moveDirectory(tempDir, destDir);
+            moveDirectory(tempDir, destDir);
           }
         } finally {
           lock.release();
@@ -77,4 +80,16 @@ public class ScannerPluginJarExploder extends PluginJarExploder {
     }
     return destDir;
   }
+
+  /**
+   * Temp and cache directories are usually on the same file system, so the exploded
+   * directory appears atomically for other threads and processes.
+   */
+  private static void moveDirectory(File from, File to) throws IOException {
+    try {
+      Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      FileUtils.moveDirectory(from, to);
+    }
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
+import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
+/**
+ * Loads the payloads that rarely change between two analyses (settings, quality profiles,
+ * active rules, metrics) and keeps them in the user cache.
+ * The server is asked whether the cached version is still up-to-date (HTTP header {@code If-None-Match}), so that
+ * unchanged payloads are not transferred again.
+ */
+public class ScannerWsCache {
+
+  private static final Logger LOG = Loggers.get(ScannerWsCache.class);
+  static final String ETAG_HEADER = "ETag";
+  static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+  private final ScannerWsClient wsClient;
+  private final FileCache fileCache;
+
+  public ScannerWsCache(ScannerWsClient wsClient, FileCache fileCache) {
+    this.wsClient = wsClient;
+    this.fileCache = fileCache;
+  }
+
+  /**
+   * Executes the request and returns the content of the response. The content is fully loaded in memory, so
+   * this method must not be used for large files like plugins.
+   * @throws IllegalStateException if the content can't be read
+   * @see ScannerWsClient#call(org.sonarqube.ws.client.WsRequest)
+   */
+  public InputStream call(GetRequest request) {
+    String key = cacheKey(request);
+    FileCache.TaggedContent cached = fileCache.getTagged(key);
+    if (cached != null) {
+      request.setHeader(IF_NONE_MATCH_HEADER, cached.tag());
+    }
+    WsResponse response = wsClient.call(request);
+    try {
+      if (cached != null && response.code() == HTTP_NOT_MODIFIED) {
+        LOG.debug("Load {} from cache", request.getPath());
+        return new ByteArrayInputStream(cached.content());
+      }
+      byte[] content;
+      try (InputStream input = response.contentStream()) {
+        content = IOUtils.toByteArray(input);
+      }
+      response.header(ETAG_HEADER).ifPresent(eTag -> fileCache.putTagged(key, eTag, content));
+      return new ByteArrayInputStream(content);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read response of " + request.getPath(), e);
+    } finally {
+      response.close();
+    }
+  }
+
+  private String cacheKey(GetRequest request) {
+    StringBuilder key = new StringBuilder()
+      .append(wsClient.baseUrl())
+      .append('|').append(request.getPath())
+      .append('|').append(request.getMediaType());
+    request.getParameters().getKeys()
+      .forEach(paramKey -> request.getParameters().getValues(paramKey)
+        .forEach(value -> key.append('|').append(paramKey).append('=').append(value)));
+    return key.toString();
+  }
+}
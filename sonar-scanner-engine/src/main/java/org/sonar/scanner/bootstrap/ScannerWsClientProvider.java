@@ -36,6 +36,8 @@ public class ScannerWsClientProvider extends ProviderAdapter {
   static final int CONNECT_TIMEOUT_MS = 5_000;
   static final String READ_TIMEOUT_SEC_PROPERTY = "sonar.ws.timeout";
   static final int DEFAULT_READ_TIMEOUT_SEC = 60;
+  static final String MAX_RETRIES_PROPERTY = "sonar.ws.maxRetries";
+  static final int DEFAULT_MAX_RETRIES = 3;
 
   private ScannerWsClient wsClient;
 
@@ -45,10 +47,13 @@ public class ScannerWsClientProvider extends ProviderAdapter {
       HttpConnector.Builder connectorBuilder = HttpConnector.newBuilder();
 
       String timeoutSec = defaultIfBlank(settings.property(READ_TIMEOUT_SEC_PROPERTY), valueOf(DEFAULT_READ_TIMEOUT_SEC));
+      String maxRetries = defaultIfBlank(settings.property(MAX_RETRIES_PROPERTY), valueOf(DEFAULT_MAX_RETRIES));
       String login = defaultIfBlank(settings.property(CoreProperties.LOGIN), null);
       connectorBuilder
         .readTimeoutMilliseconds(parseInt(timeoutSec) * 1_000)
         .connectTimeoutMilliseconds(CONNECT_TIMEOUT_MS)
+        // only GET requests are retried, within the retry budget of the connector
+        .maxRetries(parseInt(maxRetries))
         .userAgent(env.toString())
         .url(url)
         .credentials(login, settings.property(CoreProperties.PASSWORD));
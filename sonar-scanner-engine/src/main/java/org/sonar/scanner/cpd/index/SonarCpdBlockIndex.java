@@ -54,7 +54,7 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     this.settings = settings;
   }
 
-  public void insert(InputFile inputFile, Collection<Block> blocks) {
+  public synchronized void insert(InputFile inputFile, Collection<Block> blocks) {
     if (isCrossProjectDuplicationEnabled(settings)) {
       int id = ((DefaultInputFile) inputFile).batchId();
       if (publisher.getWriter().hasComponentData(FileStructure.Domain.CPD_TEXT_BLOCKS, id)) {
@@ -80,11 +80,11 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     indexedFiles.add(inputFile);
   }
 
-  public int noIndexedFiles() {
+  public synchronized int noIndexedFiles() {
     return indexedFiles.size();
   }
 
-  public boolean isIndexed(InputFile inputFile) {
+  public synchronized boolean isIndexed(InputFile inputFile) {
     return indexedFiles.contains(inputFile);
   }
 
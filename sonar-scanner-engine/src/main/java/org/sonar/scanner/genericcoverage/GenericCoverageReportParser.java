@@ -48,34 +48,42 @@ public class GenericCoverageReportParser {
   private final Set<String> matchedFileKeys = new HashSet<>();
 
   public void parse(java.io.File reportFile, SensorContext context) {
+    parse(reportFile, context, new InputFileLookup(context.fileSystem()));
+  }
+
+  void parse(java.io.File reportFile, SensorContext context, InputFileLookup inputFiles) {
     try (InputStream inputStream = new FileInputStream(reportFile)) {
-      parse(inputStream, context);
+      parse(inputStream, context, inputFiles);
     } catch (Exception e) {
       throw new IllegalStateException("Error during parsing of coverage report " + reportFile, e);
     }
   }
 
   void parse(InputStream inputStream, SensorContext context) throws XMLStreamException {
+    parse(inputStream, context, new InputFileLookup(context.fileSystem()));
+  }
+
+  void parse(InputStream inputStream, SensorContext context, InputFileLookup inputFiles) throws XMLStreamException {
     new StaxParser(rootCursor -> {
       rootCursor.advance();
-      parseRootNode(rootCursor, context);
+      parseRootNode(rootCursor, context, inputFiles);
     }).parse(inputStream);
   }
 
-  private void parseRootNode(SMHierarchicCursor rootCursor, SensorContext context) throws XMLStreamException {
+  private void parseRootNode(SMHierarchicCursor rootCursor, SensorContext context, InputFileLookup inputFiles) throws XMLStreamException {
     checkElementName(rootCursor, "coverage");
     String version = rootCursor.getAttrValue("version");
     if (!"1".equals(version)) {
       throw new IllegalStateException("Unknown report version: " + version + ". This parser only handles version 1.");
     }
-    parseFiles(rootCursor.childElementCursor(), context);
+    parseFiles(rootCursor.childElementCursor(), context, inputFiles);
   }
 
-  private void parseFiles(SMInputCursor fileCursor, SensorContext context) throws XMLStreamException {
+  private void parseFiles(SMInputCursor fileCursor, SensorContext context, InputFileLookup inputFiles) throws XMLStreamException {
     while (fileCursor.getNext() != null) {
       checkElementName(fileCursor, "file");
       String filePath = mandatoryAttribute(fileCursor, "path");
-      InputFile inputFile = context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(filePath));
+      InputFile inputFile = inputFiles.get(filePath);
       if (inputFile == null) {
         numberOfUnknownFiles++;
         if (numberOfUnknownFiles <= MAX_STORED_UNKNOWN_FILE_PATHS) {
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import java.io.File;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.sonar.api.batch.Initializer;
@@ -114,18 +115,24 @@ public class GenericCoverageSensor extends Initializer implements Sensor {
 
   @Override
   public void execute(SensorContext context) {
-    for (String reportPath : settings.getStringArray(REPORT_PATHS_PROPERTY_KEY)) {
-      File reportFile = context.fileSystem().resolvePath(reportPath);
-      LOG.info("Parsing {}", reportFile);
+    List<File> reportFiles = Arrays.stream(settings.getStringArray(REPORT_PATHS_PROPERTY_KEY))
+      .map(reportPath -> context.fileSystem().resolvePath(reportPath))
+      .collect(Collectors.toList());
+    InputFileLookup inputFiles = new InputFileLookup(context.fileSystem());
+    // logged before parsing, which is done in parallel, so that the order of logs does not depend on scheduling
+    reportFiles.forEach(reportFile -> LOG.info("Parsing {}", reportFile));
+    List<GenericCoverageReportParser> parsers = new ReportsParser().parse(reportFiles, reportFile -> {
       GenericCoverageReportParser parser = new GenericCoverageReportParser();
-      parser.parse(reportFile, context);
+      parser.parse(reportFile, context, inputFiles);
+      return parser;
+    });
+    for (GenericCoverageReportParser parser : parsers) {
       LOG.info("Imported coverage data for {} files", parser.numberOfMatchedFiles());
       int numberOfUnknownFiles = parser.numberOfUnknownFiles();
       if (numberOfUnknownFiles > 0) {
         LOG.info("Coverage data ignored for " + numberOfUnknownFiles + " unknown files, including:\n" + parser.firstUnknownFiles().stream().collect(Collectors.joining("\n")));
       }
     }
-
   }
 
 }
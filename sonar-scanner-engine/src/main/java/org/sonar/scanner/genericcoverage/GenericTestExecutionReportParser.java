@@ -72,21 +72,29 @@ public class GenericTestExecutionReportParser {
   }
 
   public void parse(java.io.File reportFile, SensorContext context) {
+    parse(reportFile, new InputFileLookup(context.fileSystem()));
+  }
+
+  void parse(java.io.File reportFile, InputFileLookup inputFiles) {
     try (InputStream inputStream = new FileInputStream(reportFile)) {
-      parse(inputStream, context);
+      parse(inputStream, inputFiles);
     } catch (Exception e) {
       throw new IllegalStateException("Error during parsing of test execution report " + reportFile, e);
     }
   }
 
   public void parse(InputStream inputStream, SensorContext context) throws XMLStreamException {
+    parse(inputStream, new InputFileLookup(context.fileSystem()));
+  }
+
+  void parse(InputStream inputStream, InputFileLookup inputFiles) throws XMLStreamException {
     new StaxParser(rootCursor -> {
       rootCursor.advance();
-      parseRootNode(rootCursor, context);
+      parseRootNode(rootCursor, inputFiles);
     }).parse(inputStream);
   }
 
-  private void parseRootNode(SMHierarchicCursor rootCursor, SensorContext context) throws XMLStreamException {
+  private void parseRootNode(SMHierarchicCursor rootCursor, InputFileLookup inputFiles) throws XMLStreamException {
     String elementName = rootCursor.getLocalName();
     if (!OLD_ROOT_ELEMENT.equals(elementName) && !ROOT_ELEMENT.equals(elementName)) {
       throw new IllegalStateException(
@@ -99,14 +107,14 @@ public class GenericTestExecutionReportParser {
     if (!"1".equals(version)) {
       throw new IllegalStateException("Unknown report version: " + version + ". This parser only handles version 1.");
     }
-    parseFiles(rootCursor.childElementCursor(), context);
+    parseFiles(rootCursor.childElementCursor(), inputFiles);
   }
 
-  private void parseFiles(SMInputCursor fileCursor, SensorContext context) throws XMLStreamException {
+  private void parseFiles(SMInputCursor fileCursor, InputFileLookup inputFiles) throws XMLStreamException {
     while (fileCursor.getNext() != null) {
       checkElementName(fileCursor, "file");
       String filePath = mandatoryAttribute(fileCursor, "path");
-      InputFile inputFile = context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(filePath));
+      InputFile inputFile = inputFiles.get(filePath);
       if (inputFile == null) {
         numberOfUnknownFiles++;
         if (numberOfUnknownFiles <= MAX_STORED_UNKNOWN_FILE_PATHS) {
@@ -128,8 +136,11 @@ public class GenericTestExecutionReportParser {
 
       MutableTestPlan testPlan = testPlanBuilder.loadPerspective(MutableTestPlan.class, inputFile);
       SMInputCursor testCaseCursor = fileCursor.childElementCursor();
-      while (testCaseCursor.getNext() != null) {
-        parseTestCase(testCaseCursor, testPlan);
+      // the same test file can be referenced by reports parsed concurrently
+      synchronized (testPlan) {
+        while (testCaseCursor.getNext() != null) {
+          parseTestCase(testCaseCursor, testPlan);
+        }
       }
     }
   }
@@ -21,6 +21,8 @@ package org.sonar.scanner.genericcoverage;
 
 import com.google.common.collect.ImmutableList;
 import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -74,18 +76,24 @@ public class GenericTestExecutionSensor implements Sensor {
     if (context.settings().hasKey(OLD_UNIT_TEST_REPORT_PATHS_PROPERTY_KEY)) {
       LOG.warn("Property '{}' is deprecated. Please use '{}' instead.", OLD_UNIT_TEST_REPORT_PATHS_PROPERTY_KEY, REPORT_PATHS_PROPERTY_KEY);
     }
-    for (String reportPath : context.settings().getStringArray(REPORT_PATHS_PROPERTY_KEY)) {
-      File reportFile = context.fileSystem().resolvePath(reportPath);
-      LOG.info("Parsing {}", reportFile);
+    List<File> reportFiles = Arrays.stream(context.settings().getStringArray(REPORT_PATHS_PROPERTY_KEY))
+      .map(reportPath -> context.fileSystem().resolvePath(reportPath))
+      .collect(Collectors.toList());
+    InputFileLookup inputFiles = new InputFileLookup(context.fileSystem());
+    // logged before parsing, which is done in parallel, so that the order of logs does not depend on scheduling
+    reportFiles.forEach(reportFile -> LOG.info("Parsing {}", reportFile));
+    List<GenericTestExecutionReportParser> parsers = new ReportsParser().parse(reportFiles, reportFile -> {
       GenericTestExecutionReportParser parser = new GenericTestExecutionReportParser(testPlanBuilder);
-      parser.parse(reportFile, context);
+      parser.parse(reportFile, inputFiles);
+      return parser;
+    });
+    for (GenericTestExecutionReportParser parser : parsers) {
       LOG.info("Imported test execution data for {} files", parser.numberOfMatchedFiles());
       int numberOfUnknownFiles = parser.numberOfUnknownFiles();
       if (numberOfUnknownFiles > 0) {
         LOG.info("Test execution data ignored for {} unknown files, including:\n{}", numberOfUnknownFiles, parser.firstUnknownFiles().stream().collect(Collectors.joining("\n")));
       }
     }
-
   }
 
 }
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.genericcoverage;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.PathUtils;
+
+/**
+ * Files of the module indexed by their relative and absolute paths. It is built once per sensor execution so that
+ * the paths referenced by reports are resolved without evaluating a file predicate for each element.
+ * The map is not modified after construction, so it can be shared by the threads parsing the reports.
+ */
+class InputFileLookup {
+
+  private final Map<String, InputFile> filesByPath = new HashMap<>();
+
+  InputFileLookup(FileSystem fs) {
+    for (InputFile inputFile : fs.inputFiles(fs.predicates().all())) {
+      filesByPath.put(inputFile.relativePath(), inputFile);
+      filesByPath.put(inputFile.absolutePath(), inputFile);
+    }
+  }
+
+  /**
+   * Same as {@code fs.inputFile(fs.predicates().hasPath(path))}: non-normalized and Windows-style paths are supported.
+   */
+  @CheckForNull
+  InputFile get(String path) {
+    InputFile inputFile = filesByPath.get(path);
+    if (inputFile == null) {
+      String sanitizedPath = PathUtils.sanitize(path);
+      if (sanitizedPath != null && !sanitizedPath.equals(path)) {
+        inputFile = filesByPath.get(sanitizedPath);
+      }
+    }
+    return inputFile;
+  }
+}
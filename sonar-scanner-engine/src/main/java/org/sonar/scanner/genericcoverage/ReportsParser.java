@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.genericcoverage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Parses reports in parallel, one report per thread of a bounded pool. Results are returned in the order
+ * of the reports, so that logs do not depend on scheduling.
+ */
+class ReportsParser {
+
+  private final int threads;
+
+  ReportsParser() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  ReportsParser(int threads) {
+    this.threads = threads;
+  }
+
+  <R> List<R> parse(List<File> reportFiles, Function<File, R> parser) {
+    List<R> results = new ArrayList<>(reportFiles.size());
+    int poolSize = Math.min(threads, reportFiles.size());
+    if (poolSize <= 1) {
+      for (File reportFile : reportFiles) {
+        results.add(parser.apply(reportFile));
+      }
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder().setNameFormat("ReportParser-%d").setDaemon(true).build());
+    try {
+      List<Future<R>> futures = new ArrayList<>(reportFiles.size());
+      for (File reportFile : reportFiles) {
+        futures.add(executor.submit(() -> parser.apply(reportFile)));
+      }
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Fail to parse reports", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while parsing reports", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -51,7 +51,9 @@ public class DefaultIndex {
   private final MeasureCache measureCache;
   private final MetricFinder metricFinder;
   // caches
-  private DefaultSensorStorage sensorStorage;
+  private volatile DefaultSensorStorage sensorStorage;
+  // storage of the module scanned by the current thread, when modules are scanned concurrently
+  private final ThreadLocal<DefaultSensorStorage> moduleSensorStorage = new ThreadLocal<>();
 
   private InputComponentTree tree;
 
@@ -65,6 +67,12 @@ public class DefaultIndex {
   public void setCurrentStorage(DefaultSensorStorage sensorStorage) {
     // the following components depend on the current module, so they need to be reloaded.
     this.sensorStorage = sensorStorage;
+    this.moduleSensorStorage.set(sensorStorage);
+  }
+
+  private DefaultSensorStorage currentStorage() {
+    DefaultSensorStorage storage = moduleSensorStorage.get();
+    return storage != null ? storage : sensorStorage;
   }
 
   @CheckForNull
@@ -125,7 +133,8 @@ public class DefaultIndex {
     if (component == null) {
       throw new IllegalStateException("Invalid component key: " + key);
     }
-    if (sensorStorage.isDeprecatedMetric(measure.getMetricKey())) {
+    DefaultSensorStorage storage = currentStorage();
+    if (storage.isDeprecatedMetric(measure.getMetricKey())) {
       // Ignore deprecated metrics
       return measure;
     }
@@ -152,7 +161,7 @@ public class DefaultIndex {
     } else {
       throw new UnsupportedOperationException("Unsupported type :" + metric.valueType());
     }
-    sensorStorage.saveMeasure(component, newMeasure);
+    storage.saveMeasure(component, newMeasure);
     return measure;
   }
 
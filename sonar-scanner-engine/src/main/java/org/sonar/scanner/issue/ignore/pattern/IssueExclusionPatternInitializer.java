@@ -24,8 +24,11 @@ import org.sonar.api.config.Settings;
 import org.sonar.core.config.IssueExclusionProperties;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.google.common.base.Strings.nullToEmpty;
 
@@ -33,6 +36,7 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
 
   private List<BlockIssuePattern> blockPatterns;
   private List<String> allFilePatterns;
+  private Set<String> contentExcludedLanguages;
 
   public IssueExclusionPatternInitializer(Settings settings) {
     super(settings);
@@ -74,6 +78,9 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
       allFilePatterns.add(nullToEmpty(allFileRegexp));
     }
     allFilePatterns = Collections.unmodifiableList(allFilePatterns);
+
+    contentExcludedLanguages = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList(getSettings().getStringArray(IssueExclusionProperties.CONTENT_EXCLUDED_LANGUAGES_KEY))));
   }
 
   public List<BlockIssuePattern> getBlockPatterns() {
@@ -84,6 +91,13 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
     return allFilePatterns;
   }
 
+  /**
+   * Languages of the files that are not searched for block and all file patterns
+   */
+  public Set<String> getContentExcludedLanguages() {
+    return contentExcludedLanguages;
+  }
+
   public boolean hasFileContentPattern() {
     return !(blockPatterns.isEmpty() && allFilePatterns.isEmpty());
   }
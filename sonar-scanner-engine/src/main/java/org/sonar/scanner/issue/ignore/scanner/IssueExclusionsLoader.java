@@ -20,12 +20,17 @@
 package org.sonar.scanner.issue.ignore.scanner;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.internal.FileMetadata.CharHandler;
+import org.sonar.api.batch.fs.internal.WildcardPatternMatcher;
+import org.sonar.api.utils.WildcardPattern;
 import org.sonar.scanner.issue.ignore.pattern.BlockIssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
@@ -34,8 +39,13 @@ import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 public final class IssueExclusionsLoader {
   private final List<java.util.regex.Pattern> allFilePatterns;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  private final MultiPatternMatcher allFilePatternsMatcher;
+  private final MultiPatternMatcher blockStartPatternsMatcher;
+  private final Set<String> contentExcludedLanguages;
   private final PatternMatcher patternMatcher;
   private final IssueExclusionPatternInitializer patternsInitializer;
+  private final List<IssuePattern> multicriteriaPatterns;
+  private final WildcardPatternMatcher multicriteriaResourceMatcher;
   private final boolean enableCharHandler;
 
   public IssueExclusionsLoader(IssueExclusionPatternInitializer patternsInitializer, PatternMatcher patternMatcher) {
@@ -53,6 +63,16 @@ public final class IssueExclusionsLoader {
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
     enableCharHandler = !allFilePatterns.isEmpty() || !blockMatchers.isEmpty();
+    allFilePatternsMatcher = new MultiPatternMatcher(allFilePatterns);
+    blockStartPatternsMatcher = IssueExclusionsRegexpScanner.blockStartPatterns(blockMatchers);
+    contentExcludedLanguages = patternsInitializer.getContentExcludedLanguages();
+
+    this.multicriteriaPatterns = new ArrayList<>(patternsInitializer.getMulticriteriaPatterns());
+    List<WildcardPattern> resourcePatterns = new ArrayList<>(multicriteriaPatterns.size());
+    for (IssuePattern pattern : multicriteriaPatterns) {
+      resourcePatterns.add(pattern.getResourcePattern());
+    }
+    this.multicriteriaResourceMatcher = new WildcardPatternMatcher(resourcePatterns);
   }
 
   public boolean shouldExecute() {
@@ -60,17 +80,23 @@ public final class IssueExclusionsLoader {
   }
 
   public void addMulticriteriaPatterns(String relativePath, String componentKey) {
-    for (IssuePattern pattern : patternsInitializer.getMulticriteriaPatterns()) {
-      if (pattern.matchResource(relativePath)) {
-        patternMatcher.addPatternForComponent(componentKey, pattern);
-      }
+    if (multicriteriaPatterns.isEmpty()) {
+      return;
+    }
+    BitSet matching = multicriteriaResourceMatcher.match(relativePath);
+    for (int id = matching.nextSetBit(0); id >= 0; id = matching.nextSetBit(id + 1)) {
+      patternMatcher.addPatternForComponent(componentKey, multicriteriaPatterns.get(id));
     }
   }
 
+  /**
+   * Handler searching the content of the file for the block and all file patterns while its metadata is read, or
+   * {@code null} if there is no such pattern or if the language of the file is excluded from them.
+   */
   @CheckForNull
-  public CharHandler createCharHandlerFor(String componentKey) {
-    if (enableCharHandler) {
-      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, blockMatchers, patternMatcher);
+  public CharHandler createCharHandlerFor(String componentKey, @Nullable String language) {
+    if (enableCharHandler && (language == null || !contentExcludedLanguages.contains(language))) {
+      return new IssueExclusionsRegexpScanner(componentKey, allFilePatternsMatcher, blockMatchers, blockStartPatternsMatcher, patternMatcher);
     }
     return null;
   }
@@ -85,11 +111,11 @@ public final class IssueExclusionsLoader {
       this.secondPattern = secondPattern;
     }
 
-    boolean matchesFirstPattern(String line) {
-      return firstPattern.matcher(line).find();
+    java.util.regex.Pattern getFirstPattern() {
+      return firstPattern;
     }
 
-    boolean matchesSecondPattern(String line) {
+    boolean matchesSecondPattern(CharSequence line) {
       return hasSecondPattern() && secondPattern.matcher(line).find();
     }
 
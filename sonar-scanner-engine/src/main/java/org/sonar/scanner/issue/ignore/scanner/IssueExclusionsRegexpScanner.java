@@ -37,8 +37,10 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsLoader.class);
 
   private final StringBuilder sb = new StringBuilder();
-  private final List<Pattern> allFilePatterns;
+  private final MultiPatternMatcher allFilePatterns;
+  private final MultiPatternMatcher.Finder allFilePatternsFinder;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  private final MultiPatternMatcher.Finder blockStartPatternsFinder;
   private final String componentKey;
   private final PatternMatcher patternMatcher;
 
@@ -49,14 +51,29 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   private DoubleRegexpMatcher currentMatcher;
 
   IssueExclusionsRegexpScanner(String componentKey, List<Pattern> allFilePatterns, List<DoubleRegexpMatcher> blockMatchers, PatternMatcher patternMatcher) {
+    this(componentKey, new MultiPatternMatcher(allFilePatterns), blockMatchers, blockStartPatterns(blockMatchers), patternMatcher);
+  }
+
+  IssueExclusionsRegexpScanner(String componentKey, MultiPatternMatcher allFilePatterns, List<DoubleRegexpMatcher> blockMatchers,
+    MultiPatternMatcher blockStartPatterns, PatternMatcher patternMatcher) {
     this.allFilePatterns = allFilePatterns;
+    this.allFilePatternsFinder = allFilePatterns.newFinder();
     this.blockMatchers = blockMatchers;
+    this.blockStartPatternsFinder = blockStartPatterns.newFinder();
     this.patternMatcher = patternMatcher;
     this.componentKey = componentKey;
     String relativePath = StringUtils.substringAfterLast(componentKey, ":");
     LOG.info("'{}' generating issue exclusions", relativePath);
   }
 
+  static MultiPatternMatcher blockStartPatterns(List<DoubleRegexpMatcher> blockMatchers) {
+    List<Pattern> patterns = new ArrayList<>(blockMatchers.size());
+    for (DoubleRegexpMatcher matcher : blockMatchers) {
+      patterns.add(matcher.getFirstPattern());
+    }
+    return new MultiPatternMatcher(patterns);
+  }
+
   @Override
   protected void handleIgnoreEoL(char c) {
     sb.append(c);
@@ -64,14 +81,14 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
 
   @Override
   protected void newLine() {
-    processLine(sb.toString());
+    processLine(sb);
     sb.setLength(0);
     lineIndex++;
   }
 
   @Override
   protected void eof() {
-    processLine(sb.toString());
+    processLine(sb);
 
     if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
       // this will happen when there is a start block regexp but no end block regexp
@@ -87,25 +104,37 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     }
   }
 
-  private void processLine(String line) {
-    if (line.trim().length() == 0) {
+  /**
+   * The line is a view on the buffer of the handler, so that no String is created per line
+   */
+  private void processLine(CharSequence line) {
+    if (isBlank(line)) {
       return;
     }
 
     // first check the single regexp patterns that can be used to totally exclude a file
-    for (Pattern pattern : allFilePatterns) {
-      if (pattern.matcher(line).find()) {
-        patternMatcher.addPatternToExcludeResource(componentKey);
-        // nothing more to do on this file
-        LOG.debug("- Exclusion pattern '{}': every issue in this file will be ignored.", pattern);
-        return;
-      }
+    int allFilePattern = allFilePatternsFinder.find(line);
+    if (allFilePattern >= 0) {
+      patternMatcher.addPatternToExcludeResource(componentKey);
+      // nothing more to do on this file
+      LOG.debug("- Exclusion pattern '{}': every issue in this file will be ignored.", allFilePatterns.get(allFilePattern));
+      return;
     }
 
     // then check the double regexps if we're still here
     checkDoubleRegexps(line, lineIndex);
   }
 
+  private static boolean isBlank(CharSequence line) {
+    // same as String#trim()
+    for (int i = 0; i < line.length(); i++) {
+      if (line.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Set<LineRange> convertLineExclusionsToLineRanges() {
     Set<LineRange> lineRanges = new HashSet<>(lineExclusions.size());
     for (LineExclusion lineExclusion : lineExclusions) {
@@ -114,14 +143,12 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     return lineRanges;
   }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
+  private void checkDoubleRegexps(CharSequence line, int lineIndex) {
     if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
-          startExclusion(lineIndex);
-          currentMatcher = matcher;
-          break;
-        }
+      int blockMatcher = blockStartPatternsFinder.find(line);
+      if (blockMatcher >= 0) {
+        startExclusion(lineIndex);
+        currentMatcher = blockMatchers.get(blockMatcher);
       }
     } else {
       if (currentMatcher.matchesSecondPattern(line)) {
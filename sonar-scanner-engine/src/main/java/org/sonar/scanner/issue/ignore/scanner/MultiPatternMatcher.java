@@ -0,0 +1,111 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.CheckForNull;
+
+/**
+ * Searches a text for several regular expressions at once. The patterns are combined in a single alternation, so that
+ * a text that matches none of them is scanned only once. When the alternation matches, the patterns are tried one by
+ * one to find the first of them, in the order of the list, that matches.
+ */
+class MultiPatternMatcher {
+
+  private final List<Pattern> patterns;
+  @CheckForNull
+  private final Pattern union;
+
+  MultiPatternMatcher(List<Pattern> patterns) {
+    this.patterns = new ArrayList<>(patterns);
+    this.union = union(this.patterns);
+  }
+
+  /**
+   * Back references are numbered over the whole alternation and comments ("#" in COMMENTS mode) would hide the
+   * next alternatives, so patterns using them are only evaluated one by one.
+   */
+  @CheckForNull
+  private static Pattern union(List<Pattern> patterns) {
+    if (patterns.size() < 2) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Pattern pattern : patterns) {
+      String regexp = pattern.pattern();
+      if (pattern.flags() != 0 || regexp.indexOf('#') >= 0 || regexp.matches("(?s).*\\\\([1-9]|k<).*")) {
+        return null;
+      }
+      if (sb.length() > 0) {
+        sb.append('|');
+      }
+      sb.append("(?:").append(regexp).append(')');
+    }
+    try {
+      return Pattern.compile(sb.toString());
+    } catch (PatternSyntaxException e) {
+      return null;
+    }
+  }
+
+  Pattern get(int index) {
+    return patterns.get(index);
+  }
+
+  /**
+   * Not thread-safe, {@link Matcher}s are reused between texts
+   */
+  Finder newFinder() {
+    return new Finder();
+  }
+
+  class Finder {
+    @CheckForNull
+    private final Matcher unionMatcher;
+    private final Matcher[] matchers;
+
+    private Finder() {
+      this.unionMatcher = union != null ? union.matcher("") : null;
+      this.matchers = new Matcher[patterns.size()];
+      for (int i = 0; i < matchers.length; i++) {
+        matchers[i] = patterns.get(i).matcher("");
+      }
+    }
+
+    /**
+     * Index of the first pattern found in the text, or -1 if none is found
+     */
+    int find(CharSequence text) {
+      if (unionMatcher != null && !unionMatcher.reset(text).find()) {
+        return -1;
+      }
+      for (int i = 0; i < matchers.length; i++) {
+        if (matchers[i].reset(text).find()) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+}
@@ -33,7 +33,8 @@ import org.sonar.scanner.util.ScannerUtils;
 public class PhasesTimeProfiler implements SensorExecutionHandler, SensorsPhaseHandler {
 
   private static final Logger LOG = Loggers.get(PhasesTimeProfiler.class);
-  private Profiler profiler = Profiler.create(LOG);
+  // sensors of modules scanned concurrently are profiled separately
+  private final ThreadLocal<Profiler> profiler = ThreadLocal.withInitial(() -> Profiler.create(LOG));
   private final ScannerPluginRepository pluginRepo;
 
   public PhasesTimeProfiler(ScannerPluginRepository pluginRepo) {
@@ -56,9 +57,9 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, SensorsPhaseH
       if (pluginKey != null) {
         suffix = " [" + pluginKey + "]";
       }
-      profiler.startInfo("Sensor " + ScannerUtils.describe(event.getSensor()) + suffix);
+      profiler.get().startInfo("Sensor " + ScannerUtils.describe(event.getSensor()) + suffix);
     } else {
-      profiler.stopInfo();
+      profiler.get().stopInfo();
     }
   }
 
@@ -120,7 +120,7 @@ public class AnalysisContextReportPublisher {
     }
   }
 
-  public void dumpModuleSettings(ProjectDefinition moduleDefinition) {
+  public synchronized void dumpModuleSettings(ProjectDefinition moduleDefinition) {
     if (mode.isIssues()) {
       return;
     }
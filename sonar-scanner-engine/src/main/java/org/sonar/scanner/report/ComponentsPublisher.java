@@ -20,6 +20,7 @@
 package org.sonar.scanner.report;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.stream.Collectors;
 
 import javax.annotation.CheckForNull;
@@ -60,6 +61,21 @@ public class ComponentsPublisher implements ReportPublisherStep {
     this.componentTree = inputComponentTree;
   }
 
+  /**
+   * Directories and files are indexed concurrently, so they are sorted by key in order to write the same component
+   * tree whatever the order of indexing. Modules keep the order of their declaration. Only the logical content of
+   * the report is stable: segment files are still appended in the order modules complete, so the report bytes can
+   * differ between two analyses.
+   */
+  private static final Comparator<InputComponent> CHILDREN_ORDER = (c1, c2) -> {
+    boolean isModule1 = c1 instanceof InputModule;
+    boolean isModule2 = c2 instanceof InputModule;
+    if (isModule1 || isModule2) {
+      return Boolean.compare(isModule2, isModule1);
+    }
+    return c1.key().compareTo(c2.key());
+  };
+
   @Override
   public void publish(ScannerReportWriter writer) {
     this.reader = new ScannerReportReader(writer.getFileStructure().root());
@@ -73,6 +89,7 @@ public class ComponentsPublisher implements ReportPublisherStep {
    */
   private boolean recursiveWriteComponent(DefaultInputComponent component) {
     Collection<InputComponent> children = componentTree.getChildren(component).stream()
+      .sorted(CHILDREN_ORDER)
       .filter(c -> recursiveWriteComponent((DefaultInputComponent) c))
       .collect(Collectors.toList());
 
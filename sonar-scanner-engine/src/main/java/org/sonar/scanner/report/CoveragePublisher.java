@@ -19,81 +19,57 @@
  */
 package org.sonar.scanner.report;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import javax.annotation.Nonnull;
-import org.apache.commons.lang.StringUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
-import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
-import org.sonar.api.measures.CoreMetrics;
-import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.scanner.protocol.output.ScannerReport.LineCoverage;
-import org.sonar.scanner.protocol.output.ScannerReport.LineCoverage.Builder;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
-import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
+import org.sonar.scanner.sensor.coverage.FileCoverage;
+
+import static org.sonar.scanner.sensor.coverage.FileCoverage.UNDEFINED;
 
 public class CoveragePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentStore;
-  private final MeasureCache measureCache;
+  private final CoverageCache coverageCache;
 
-  public CoveragePublisher(InputComponentStore componentStore, MeasureCache measureCache) {
+  public CoveragePublisher(InputComponentStore componentStore, CoverageCache coverageCache) {
     this.componentStore = componentStore;
-    this.measureCache = measureCache;
+    this.coverageCache = coverageCache;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
+    LineCoverage.Builder builder = LineCoverage.newBuilder();
     for (final DefaultInputFile inputFile : componentStore.allFilesToPublish()) {
-      Map<Integer, LineCoverage.Builder> coveragePerLine = new LinkedHashMap<>();
-
+      FileCoverage coverage = coverageCache.get(inputFile.key());
+      if (coverage == null) {
+        writer.writeComponentCoverage(inputFile.batchId(), Collections.emptyList());
+        continue;
+      }
       int lineCount = inputFile.lines();
-      applyLineMeasure(inputFile.key(), lineCount, CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, coveragePerLine,
-        (value, builder) -> builder.setHits(Integer.parseInt(value) > 0));
-      applyLineMeasure(inputFile.key(), lineCount, CoreMetrics.CONDITIONS_BY_LINE_KEY, coveragePerLine,
-        (value, builder) -> builder.setConditions(Integer.parseInt(value)));
-      applyLineMeasure(inputFile.key(), lineCount, CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY, coveragePerLine,
-        (value, builder) -> builder.setCoveredConditions(Integer.parseInt(value)));
-      writer.writeComponentCoverage(inputFile.batchId(), Iterables.transform(coveragePerLine.values(), BuildCoverage.INSTANCE));
-    }
-  }
-
-  void applyLineMeasure(String inputFileKey, int lineCount, String metricKey, Map<Integer, LineCoverage.Builder> coveragePerLine, MeasureOperation op) {
-    DefaultMeasure<?> measure = measureCache.byMetric(inputFileKey, metricKey);
-    if (measure != null) {
-      Map<Integer, String> lineMeasures = KeyValueFormat.parseIntString((String) measure.value());
-      for (Map.Entry<Integer, String> lineMeasure : lineMeasures.entrySet()) {
-        int lineIdx = lineMeasure.getKey();
-        if (lineIdx <= lineCount) {
-          String value = lineMeasure.getValue();
-          if (StringUtils.isNotEmpty(value)) {
-            LineCoverage.Builder coverageBuilder = coveragePerLine.get(lineIdx);
-            if (coverageBuilder == null) {
-              coverageBuilder = LineCoverage.newBuilder();
-              coverageBuilder.setLine(lineIdx);
-              coveragePerLine.put(lineIdx, coverageBuilder);
-            }
-            op.apply(value, coverageBuilder);
-          }
+      List<LineCoverage> coveragePerLine = new ArrayList<>();
+      coverage.forEachLine((line, hits, conditions, coveredConditions) -> {
+        if (line > lineCount) {
+          return;
         }
-      }
-    }
-  }
-
-  interface MeasureOperation {
-    void apply(String value, LineCoverage.Builder builder);
-  }
-
-  private enum BuildCoverage implements Function<LineCoverage.Builder, LineCoverage> {
-    INSTANCE;
-
-    @Override
-    public LineCoverage apply(@Nonnull Builder input) {
-      return input.build();
+        builder.clear();
+        builder.setLine(line);
+        if (hits != UNDEFINED) {
+          builder.setHits(hits > 0);
+        }
+        if (conditions != UNDEFINED) {
+          builder.setConditions(conditions);
+        }
+        if (coveredConditions != UNDEFINED) {
+          builder.setCoveredConditions(coveredConditions);
+        }
+        coveragePerLine.add(builder.build());
+      });
+      writer.writeComponentCoverage(inputFile.batchId(), coveragePerLine);
     }
   }
-
 }
@@ -106,6 +106,7 @@ public class ReportPublisher implements Startable {
 
   @Override
   public void stop() {
+    writer.close();
     if (!shouldKeepReport()) {
       deleteQuietly(reportDir);
     }
@@ -144,6 +145,7 @@ public class ReportPublisher implements Startable {
       for (ReportPublisherStep publisher : publishers) {
         publisher.publish(writer);
       }
+      writer.close();
       long stopTime = System.currentTimeMillis();
       LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
 
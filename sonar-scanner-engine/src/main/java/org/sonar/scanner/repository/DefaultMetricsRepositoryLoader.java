@@ -20,22 +20,25 @@
 package org.sonar.scanner.repository;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.Metric.ValueType;
-import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonar.scanner.protocol.GsonHelper;
 import org.sonarqube.ws.client.GetRequest;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class DefaultMetricsRepositoryLoader implements MetricsRepositoryLoader {
 
   private static final String METRICS_SEARCH_URL = "/api/metrics/search?f=name,description,direction,qualitative,custom&ps=500&p=";
-  private ScannerWsClient wsClient;
+  private ScannerWsCache wsCache;
 
-  public DefaultMetricsRepositoryLoader(ScannerWsClient wsClient) {
-    this.wsClient = wsClient;
+  public DefaultMetricsRepositoryLoader(ScannerWsCache wsCache) {
+    this.wsCache = wsCache;
   }
 
   @Override
@@ -54,7 +57,7 @@ public class DefaultMetricsRepositoryLoader implements MetricsRepositoryLoader {
     WsMetricsResponse response;
     do {
       GetRequest getRequest = new GetRequest(METRICS_SEARCH_URL + page);
-      try (Reader reader = wsClient.call(getRequest).contentReader()) {
+      try (Reader reader = new InputStreamReader(wsCache.call(getRequest), UTF_8)) {
         response = GsonHelper.create().fromJson(reader, WsMetricsResponse.class);
         for (WsMetric metric : response.metrics) {
           metrics.add(new Metric.Builder(metric.getKey(), metric.getName(), ValueType.valueOf(metric.getType()))
@@ -31,7 +31,7 @@ import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
-import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse.QualityProfile;
 import org.sonarqube.ws.client.GetRequest;
@@ -44,11 +44,11 @@ public class DefaultQualityProfileLoader implements QualityProfileLoader {
   private static final String WS_URL = "/api/qualityprofiles/search.protobuf";
 
   private final Settings settings;
-  private final ScannerWsClient wsClient;
+  private final ScannerWsCache wsCache;
 
-  public DefaultQualityProfileLoader(Settings settings, ScannerWsClient wsClient) {
+  public DefaultQualityProfileLoader(Settings settings, ScannerWsCache wsCache) {
     this.settings = settings;
-    this.wsClient = wsClient;
+    this.wsCache = wsCache;
   }
 
   @Override
@@ -86,7 +86,7 @@ public class DefaultQualityProfileLoader implements QualityProfileLoader {
 
   private Map<String, QualityProfile> call(String url) {
     GetRequest getRequest = new GetRequest(url);
-    InputStream is = wsClient.call(getRequest).contentStream();
+    InputStream is = wsCache.call(getRequest);
     SearchWsResponse profiles;
 
     try {
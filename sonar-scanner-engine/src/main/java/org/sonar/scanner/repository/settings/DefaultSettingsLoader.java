@@ -31,7 +31,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
-import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.Settings.FieldValues.Value;
 import org.sonarqube.ws.Settings.Setting;
@@ -40,11 +40,11 @@ import org.sonarqube.ws.client.GetRequest;
 
 public class DefaultSettingsLoader implements SettingsLoader {
 
-  private ScannerWsClient wsClient;
+  private ScannerWsCache wsCache;
   private static final Logger LOG = Loggers.get(DefaultSettingsLoader.class);
 
-  public DefaultSettingsLoader(ScannerWsClient wsClient) {
-    this.wsClient = wsClient;
+  public DefaultSettingsLoader(ScannerWsCache wsCache) {
+    this.wsCache = wsCache;
   }
 
   @Override
@@ -57,7 +57,7 @@ public class DefaultSettingsLoader implements SettingsLoader {
     } else {
       profiler.startInfo("Load global settings");
     }
-    try (InputStream is = wsClient.call(new GetRequest(url)).contentStream()) {
+    try (InputStream is = wsCache.call(new GetRequest(url))) {
       ValuesWsResponse values = ValuesWsResponse.parseFrom(is);
       profiler.stopInfo();
       return toMap(values.getSettingsList());
@@ -27,7 +27,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.rule.RuleKey;
-import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.Rules;
 import org.sonarqube.ws.Rules.Active;
@@ -43,10 +43,10 @@ import static org.sonar.api.utils.DateUtils.parseDateTime;
 public class DefaultActiveRulesLoader implements ActiveRulesLoader {
   private static final String RULES_SEARCH_URL = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives,createdAt&activation=true";
 
-  private final ScannerWsClient wsClient;
+  private final ScannerWsCache wsCache;
 
-  public DefaultActiveRulesLoader(ScannerWsClient wsClient) {
-    this.wsClient = wsClient;
+  public DefaultActiveRulesLoader(ScannerWsCache wsCache) {
+    this.wsCache = wsCache;
   }
 
   @Override
@@ -58,7 +58,7 @@ public class DefaultActiveRulesLoader implements ActiveRulesLoader {
 
     while (true) {
       GetRequest getRequest = new GetRequest(getUrl(qualityProfileKey, page, pageSize));
-      SearchResponse response = loadFromStream(wsClient.call(getRequest).contentStream());
+      SearchResponse response = loadFromStream(wsCache.call(getRequest));
       List<LoadedActiveRule> pageRules = readPage(response);
       ruleList.addAll(pageRules);
       loaded += response.getPs();
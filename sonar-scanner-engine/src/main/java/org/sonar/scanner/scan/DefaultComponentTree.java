@@ -20,6 +20,7 @@
 package org.sonar.scanner.scan;
 
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,11 +31,14 @@ import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.internal.InputComponentTree;
 
+/**
+ * Files and directories of modules scanned concurrently are indexed concurrently, so accesses are synchronized.
+ */
 public class DefaultComponentTree implements InputComponentTree {
   private Map<InputComponent, InputComponent> parents = new HashMap<>();
   private Map<InputComponent, Set<InputComponent>> children = new HashMap<>();
 
-  public void index(InputComponent component, InputComponent parent) {
+  public synchronized void index(InputComponent component, InputComponent parent) {
     Preconditions.checkNotNull(component);
     Preconditions.checkNotNull(parent);
     parents.put(component, parent);
@@ -42,13 +46,14 @@ public class DefaultComponentTree implements InputComponentTree {
   }
 
   @Override
-  public Collection<InputComponent> getChildren(InputComponent component) {
-    return children.getOrDefault(component, Collections.emptySet());
+  public synchronized Collection<InputComponent> getChildren(InputComponent component) {
+    Set<InputComponent> componentChildren = children.get(component);
+    return componentChildren == null ? Collections.emptyList() : new ArrayList<>(componentChildren);
   }
 
   @CheckForNull
   @Override
-  public InputComponent getParent(InputComponent component) {
+  public synchronized InputComponent getParent(InputComponent component) {
     return parents.get(component);
   }
 }
@@ -0,0 +1,143 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Scans the modules of a project concurrently on a bounded pool of threads. As in a sequential analysis, a module is
+ * scanned only when all its children are done. The root module is scanned last, by the calling thread.
+ * If a module fails, no other module is started and the modules being scanned are allowed to complete.
+ */
+class ParallelModulesScanner {
+
+  private static final Logger LOG = Loggers.get(ParallelModulesScanner.class);
+  private static final long TERMINATION_TIMEOUT_MINUTES = 10L;
+
+  private final int threads;
+
+  ParallelModulesScanner(int threads) {
+    this.threads = threads;
+  }
+
+  void scan(InputModuleHierarchy tree, Consumer<DefaultInputModule> scanner) {
+    DefaultInputModule root = tree.root();
+    Map<DefaultInputModule, Integer> pendingChildren = new HashMap<>();
+    countChildren(tree, root, pendingChildren);
+    int poolSize = Math.max(1, Math.min(threads, pendingChildren.size() - 1));
+    LOG.debug("Scan {} modules with {} threads", pendingChildren.size(), poolSize);
+
+    List<Future<DefaultInputModule>> futures = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder().setNameFormat("ModuleScanner-%d").setDaemon(true).build());
+    try {
+      CompletionService<DefaultInputModule> completionService = new ExecutorCompletionService<>(executor);
+      int running = submitLeaves(tree, root, pendingChildren, scanner, completionService, futures);
+      while (running > 0) {
+        DefaultInputModule done = awaitNext(completionService);
+        running--;
+        DefaultInputModule parent = tree.parent(done);
+        int remaining = pendingChildren.merge(parent, -1, Integer::sum);
+        if (remaining == 0 && !parent.equals(root)) {
+          futures.add(submit(parent, scanner, completionService));
+          running++;
+        }
+      }
+    } finally {
+      // after a failure, modules not started yet are cancelled. Modules already running are not interrupted:
+      // they complete before the project container is stopped.
+      futures.forEach(f -> f.cancel(false));
+      executor.shutdown();
+      awaitTermination(executor);
+    }
+    scanner.accept(root);
+  }
+
+  private static void countChildren(InputModuleHierarchy tree, DefaultInputModule module, Map<DefaultInputModule, Integer> pendingChildren) {
+    pendingChildren.put(module, tree.children(module).size());
+    for (DefaultInputModule child : tree.children(module)) {
+      countChildren(tree, child, pendingChildren);
+    }
+  }
+
+  private static int submitLeaves(InputModuleHierarchy tree, DefaultInputModule module, Map<DefaultInputModule, Integer> pendingChildren,
+    Consumer<DefaultInputModule> scanner, CompletionService<DefaultInputModule> completionService, List<Future<DefaultInputModule>> futures) {
+    int submitted = 0;
+    for (DefaultInputModule child : tree.children(module)) {
+      submitted += submitLeaves(tree, child, pendingChildren, scanner, completionService, futures);
+    }
+    if (pendingChildren.get(module) == 0 && !module.equals(tree.root())) {
+      futures.add(submit(module, scanner, completionService));
+      submitted++;
+    }
+    return submitted;
+  }
+
+  private static Future<DefaultInputModule> submit(DefaultInputModule module, Consumer<DefaultInputModule> scanner,
+    CompletionService<DefaultInputModule> completionService) {
+    return completionService.submit(() -> {
+      scanner.accept(module);
+      return module;
+    });
+  }
+
+  private static DefaultInputModule awaitNext(CompletionService<DefaultInputModule> completionService) {
+    try {
+      return completionService.take().get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to scan module", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while scanning modules", e);
+    }
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      if (!executor.awaitTermination(TERMINATION_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        LOG.warn("Some modules are still being scanned after {} minutes", TERMINATION_TIMEOUT_MINUTES);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
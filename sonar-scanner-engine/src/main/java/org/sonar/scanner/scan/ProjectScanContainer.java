@@ -91,12 +91,18 @@ import org.sonar.scanner.scan.filesystem.InputComponentStore;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.DeprecatedMetricFinder;
 import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
 import org.sonar.scanner.storage.Storages;
 
 public class ProjectScanContainer extends ComponentContainer {
 
   private static final Logger LOG = Loggers.get(ProjectScanContainer.class);
 
+  /**
+   * Number of threads scanning independent modules concurrently. Modules are scanned sequentially by default.
+   */
+  public static final String MODULES_THREADS_KEY = "sonar.modules.threads";
+
   private final AnalysisProperties props;
 
   public ProjectScanContainer(ComponentContainer globalContainer, AnalysisProperties props) {
@@ -176,6 +182,7 @@ public class ProjectScanContainer extends ComponentContainer {
 
       // Measures
       MeasureCache.class,
+      CoverageCache.class,
 
       // context
       ContextPropertiesCache.class,
@@ -239,14 +246,32 @@ public class ProjectScanContainer extends ComponentContainer {
       LOG.info("Branch key: {}", branch);
     }
 
-    LOG.debug("Start recursive analysis of project modules");
-    scanRecursively(tree, tree.root());
+    int threads = moduleThreads(tree);
+    if (threads > 1) {
+      LOG.debug("Start parallel analysis of project modules");
+      // components are lazily instantiated by pico, which is not thread-safe
+      getComponentsByType(Object.class);
+      new ParallelModulesScanner(threads).scan(tree, this::scan);
+    } else {
+      LOG.debug("Start recursive analysis of project modules");
+      scanRecursively(tree, tree.root());
+    }
 
     if (analysisMode.isMediumTest()) {
       getComponentByType(ScanTaskObservers.class).notifyEndOfScanTask();
     }
   }
 
+  private int moduleThreads(InputModuleHierarchy tree) {
+    Settings settings = getComponentByType(Settings.class);
+    int threads = settings.getInt(MODULES_THREADS_KEY);
+    if (threads > 1 && settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
+      LOG.warn("Modules are scanned sequentially when profiling is enabled ({})", CoreProperties.PROFILING_LOG_PROPERTY);
+      return 1;
+    }
+    return tree.children(tree.root()).isEmpty() ? 1 : threads;
+  }
+
   private void scanRecursively(InputModuleHierarchy tree, DefaultInputModule module) {
     for (DefaultInputModule child : tree.children(module)) {
       scanRecursively(tree, child);
@@ -256,7 +281,17 @@ public class ProjectScanContainer extends ComponentContainer {
 
   @VisibleForTesting
   void scan(DefaultInputModule module) {
-    new ModuleScanContainer(this, module).execute();
+    ModuleScanContainer moduleContainer;
+    // registering a child container is not thread-safe
+    synchronized (this) {
+      moduleContainer = new ModuleScanContainer(this, module);
+    }
+    moduleContainer.execute();
+  }
+
+  @Override
+  public synchronized ComponentContainer removeChild(ComponentContainer childToBeRemoved) {
+    return super.removeChild(childToBeRemoved);
   }
 
   static class BatchExtensionFilter implements ExtensionMatcher {
@@ -25,6 +25,7 @@ import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputModule;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.InputFileIndex;
 import org.sonar.scanner.sensor.SensorStrategy;
 
 @ScannerSide
@@ -49,6 +50,15 @@ public class ModuleInputComponentStore extends DefaultFileSystem.Cache {
     }
   }
 
+  @Override
+  protected InputFileIndex inputFileIndex() {
+    if (strategy.isGlobal()) {
+      return inputComponentStore.inputFileIndex();
+    } else {
+      return inputComponentStore.inputFileIndex(moduleKey);
+    }
+  }
+
   @Override
   public InputFile inputFile(String relativePath) {
     if (strategy.isGlobal()) {
@@ -0,0 +1,119 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Splits the files to blame in batches, blamed in parallel by a bounded pool of threads when the provider
+ * supports concurrent calls. A batch is cancelled when it runs longer than the timeout per file multiplied
+ * by the number of files of the batch. Its files that are not blamed yet are then reported as missing.
+ */
+class BlameScheduler {
+
+  private static final Logger LOG = Loggers.get(BlameScheduler.class);
+  private static final int MAX_BATCH_SIZE = 50;
+  // number of batches per thread, so that threads finishing early can help the others
+  private static final int BATCHES_PER_THREAD = 4;
+  private static final long POLL_PERIOD_MS = 100L;
+
+  private final int threads;
+  private final long timeoutPerFileMs;
+
+  BlameScheduler(int threads, long timeoutPerFileMs) {
+    this.threads = threads;
+    this.timeoutPerFileMs = timeoutPerFileMs;
+  }
+
+  void blame(BlameCommand command, FileSystem fs, List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    if (!command.isParallelBlameSupported() || threads <= 1 || filesToBlame.size() <= 1) {
+      command.blame(new DefaultBlameInput(fs, filesToBlame), output);
+      return;
+    }
+    int batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, filesToBlame.size() / (threads * BATCHES_PER_THREAD)));
+    List<List<InputFile>> batches = Lists.partition(filesToBlame, batchSize);
+    int poolSize = Math.min(threads, batches.size());
+    LOG.debug("Blame {} files in {} batches with {} threads", filesToBlame.size(), batches.size(), poolSize);
+
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder().setNameFormat("SCM-blame-%d").setDaemon(true).build());
+    try {
+      AtomicLongArray startDates = new AtomicLongArray(batches.size());
+      List<Future<?>> futures = new ArrayList<>(batches.size());
+      for (int i = 0; i < batches.size(); i++) {
+        int batchIndex = i;
+        List<InputFile> batch = batches.get(i);
+        futures.add(executor.submit(() -> {
+          startDates.set(batchIndex, System.currentTimeMillis());
+          command.blame(new DefaultBlameInput(fs, batch), output);
+        }));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        await(futures.get(i), batches.get(i), startDates, i);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void await(Future<?> future, List<InputFile> batch, AtomicLongArray startDates, int batchIndex) {
+    long timeoutMs = timeoutPerFileMs * batch.size();
+    try {
+      while (true) {
+        long startDate = startDates.get(batchIndex);
+        long waitMs = startDate == 0L ? POLL_PERIOD_MS : (startDate + timeoutMs - System.currentTimeMillis());
+        if (waitMs <= 0L) {
+          future.cancel(true);
+          LOG.warn("Blame of {} files, starting with {}, did not complete in {} ms and is cancelled", batch.size(), batch.get(0).relativePath(), timeoutMs);
+          return;
+        }
+        try {
+          future.get(waitMs, TimeUnit.MILLISECONDS);
+          return;
+        } catch (TimeoutException e) {
+          // not started yet or still running: check again the timeout
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Fail to blame files", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while blaming files", e);
+    }
+  }
+}
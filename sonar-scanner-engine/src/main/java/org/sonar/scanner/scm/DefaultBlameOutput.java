@@ -21,11 +21,14 @@ package org.sonar.scanner.scm;
 
 import com.google.common.base.Preconditions;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
@@ -39,29 +42,39 @@ import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Builder;
 import org.sonar.scanner.util.ProgressReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 
+/**
+ * Results can be reported concurrently by several threads. Each result is converted and written to the report
+ * by the calling thread. Writes share a read lock, and {@link #finish(boolean)} takes the write lock, so that
+ * no result is written after the end of blame, for example by a batch that timed out but is still running.
+ */
 class DefaultBlameOutput implements BlameOutput {
 
   private static final Logger LOG = Loggers.get(DefaultBlameOutput.class);
 
   private final ScannerReportWriter writer;
-  private final Set<InputFile> allFilesToBlame = new HashSet<>();
+  private final Set<InputFile> allFilesToBlame = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger count = new AtomicInteger();
+  private final int total;
   private ProgressReport progressReport;
-  private int count;
-  private int total;
+  private final ReadWriteLock finishLock = new ReentrantReadWriteLock();
+  private volatile boolean finished = false;
 
   DefaultBlameOutput(ScannerReportWriter writer, List<InputFile> filesToBlame) {
     this.writer = writer;
     this.allFilesToBlame.addAll(filesToBlame);
-    count = 0;
     total = filesToBlame.size();
     progressReport = new ProgressReport("Report about progress of SCM blame", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(total + " files to be analyzed");
   }
 
   @Override
-  public synchronized void blameResult(InputFile file, List<BlameLine> lines) {
+  public void blameResult(InputFile file, List<BlameLine> lines) {
     Preconditions.checkNotNull(file);
     Preconditions.checkNotNull(lines);
+    if (finished) {
+      logIgnoredAfterFinish(file);
+      return;
+    }
     Preconditions.checkArgument(allFilesToBlame.contains(file), "It was not expected to blame file %s", file.relativePath());
 
     if (lines.size() != file.lines()) {
@@ -86,10 +99,25 @@ class DefaultBlameOutput implements BlameOutput {
       scmBuilder.addChangesetIndexByLine(changesetId);
       lineId++;
     }
-    writer.writeComponentChangesets(scmBuilder.build());
-    allFilesToBlame.remove(file);
-    count++;
-    progressReport.message(count + "/" + total + " files analyzed");
+    ScannerReport.Changesets changesets = scmBuilder.build();
+    finishLock.readLock().lock();
+    try {
+      if (finished) {
+        logIgnoredAfterFinish(file);
+        return;
+      }
+      // the same file could be reported concurrently by two threads
+      Preconditions.checkArgument(allFilesToBlame.remove(file), "It was not expected to blame file %s", file.relativePath());
+      writer.writeComponentChangesets(changesets);
+    } finally {
+      finishLock.readLock().unlock();
+    }
+    progressReport.message(count.incrementAndGet() + "/" + total + " files analyzed");
+  }
+
+  private static void logIgnoredAfterFinish(InputFile file) {
+    // result of a blame that timed out
+    LOG.debug("Ignoring blame result of file {} received after the end of blame", file.relativePath());
   }
 
   private static void validateLine(BlameLine line, int lineId, InputFile file) {
@@ -116,7 +144,14 @@ class DefaultBlameOutput implements BlameOutput {
   }
 
   public void finish(boolean success) {
-    progressReport.stop(count + "/" + total + " files analyzed");
+    // waits for the results being written
+    finishLock.writeLock().lock();
+    try {
+      finished = true;
+    } finally {
+      finishLock.writeLock().unlock();
+    }
+    progressReport.stop(count.get() + "/" + total + " files analyzed");
     if (success && !allFilesToBlame.isEmpty()) {
       LOG.warn("Missing blame information for the following files:");
       for (InputFile f : allFilesToBlame) {
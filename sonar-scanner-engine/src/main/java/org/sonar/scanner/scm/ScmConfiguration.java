@@ -22,6 +22,7 @@ package org.sonar.scanner.scm;
 import com.google.common.base.Joiner;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
 import org.sonar.api.CoreProperties;
@@ -55,6 +56,9 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String THREADS_KEY = "sonar.scm.threads";
+  public static final String BLAME_TIMEOUT_PER_FILE_KEY = "sonar.scm.blameTimeoutPerFile";
+  private static final int DEFAULT_BLAME_TIMEOUT_PER_FILE_IN_SECONDS = 60;
 
   private final ImmutableProjectReactor projectReactor;
   private final Settings settings;
@@ -147,6 +151,19 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY);
   }
 
+  /**
+   * Number of threads blaming files, when supported by the provider. Defaults to the number of processors.
+   */
+  public int threads() {
+    int threads = settings.getInt(THREADS_KEY);
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  public long blameTimeoutPerFileMs() {
+    int timeout = settings.getInt(BLAME_TIMEOUT_PER_FILE_KEY);
+    return TimeUnit.SECONDS.toMillis(timeout > 0 ? timeout : DEFAULT_BLAME_TIMEOUT_PER_FILE_IN_SECONDS);
+  }
+
   @Override
   public void stop() {
     // Nothing to do
@@ -19,7 +19,7 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
@@ -79,7 +79,8 @@ public final class ScmPublisher {
       LOG.info("SCM provider for this project is: " + key);
       DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        new BlameScheduler(configuration.threads(), configuration.blameTimeoutPerFileMs())
+          .blame(configuration.provider().blameCommand(), fs, filesToBlame, output);
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -92,7 +93,8 @@ public final class ScmPublisher {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    // random access list, to be partitioned in batches
+    List<InputFile> filesToBlame = new ArrayList<>();
     for (InputFile f : componentStore.inputFiles()) {
       DefaultInputFile inputFile = (DefaultInputFile) f;
       if (!inputFile.publish()) {
@@ -21,19 +21,16 @@ package org.sonar.scanner.sensor;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.PackedTextRanges;
 import org.sonar.api.batch.measure.Metric;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
@@ -46,7 +43,6 @@ import org.sonar.api.batch.sensor.measure.Measure;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
 import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
 import org.sonar.api.config.Settings;
-import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -63,9 +59,10 @@ import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.report.ScannerReportUtils;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
 import org.sonar.scanner.sensor.coverage.CoverageExclusions;
+import org.sonar.scanner.sensor.coverage.FileCoverage;
 
-import static java.util.stream.Collectors.toList;
 import static org.sonar.api.measures.CoreMetrics.BRANCH_COVERAGE;
 import static org.sonar.api.measures.CoreMetrics.COMMENTED_OUT_CODE_LINES_KEY;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_BY_LINE;
@@ -144,6 +141,7 @@ public class DefaultSensorStorage implements SensorStorage {
   private final CoverageExclusions coverageExclusions;
   private final ReportPublisher reportPublisher;
   private final MeasureCache measureCache;
+  private final CoverageCache coverageCache;
   private final SonarCpdBlockIndex index;
   private final ContextPropertiesCache contextPropertiesCache;
   private final Settings settings;
@@ -156,7 +154,7 @@ public class DefaultSensorStorage implements SensorStorage {
   public DefaultSensorStorage(MetricFinder metricFinder, ModuleIssues moduleIssues,
     Settings settings,
     CoverageExclusions coverageExclusions, ReportPublisher reportPublisher,
-    MeasureCache measureCache, SonarCpdBlockIndex index,
+    MeasureCache measureCache, CoverageCache coverageCache, SonarCpdBlockIndex index,
     ContextPropertiesCache contextPropertiesCache, ScannerMetrics scannerMetrics) {
     this.metricFinder = metricFinder;
     this.moduleIssues = moduleIssues;
@@ -164,6 +162,7 @@ public class DefaultSensorStorage implements SensorStorage {
     this.coverageExclusions = coverageExclusions;
     this.reportPublisher = reportPublisher;
     this.measureCache = measureCache;
+    this.coverageCache = coverageCache;
     this.index = index;
     this.contextPropertiesCache = contextPropertiesCache;
     this.scannerMetrics = scannerMetrics;
@@ -268,14 +267,15 @@ public class DefaultSensorStorage implements SensorStorage {
 
   private void saveCoverageMetricInternal(InputFile file, Metric<?> metric, DefaultMeasure<?> measure) {
     if (isLineMetrics(metric)) {
-      validateCoverageMeasure((String) measure.value(), file);
-      DefaultMeasure<?> previousMeasure = measureCache.byMetric(file.key(), metric.key());
-      if (previousMeasure != null) {
-        measureCache.put(file.key(), metric.key(), new DefaultMeasure<String>()
-          .forMetric((Metric<String>) metric)
-          .withValue(mergeCoverageLineMetric(metric, (String) previousMeasure.value(), (String) measure.value())));
+      Map<Integer, Integer> valuesByLine = KeyValueFormat.parseIntInt((String) measure.value());
+      validateCoverageMeasure(valuesByLine, file);
+      FileCoverage coverage = coverageCache.getOrCreate(file.key());
+      if (metric.equals(COVERAGE_LINE_HITS_DATA)) {
+        coverage.mergeLineHits(valuesByLine);
+      } else if (metric.equals(CONDITIONS_BY_LINE)) {
+        coverage.mergeConditions(valuesByLine);
       } else {
-        measureCache.put(file.key(), metric.key(), measure);
+        coverage.mergeCoveredConditions(valuesByLine);
       }
     } else {
       // Other coverage metrics are all integer values. Just erase value, it will be recomputed at the end anyway
@@ -283,36 +283,6 @@ public class DefaultSensorStorage implements SensorStorage {
     }
   }
 
-  /**
-   * Merge the two line coverage data measures. For lines hits use the sum, and for conditions 
-   * keep max value in case they both contains a value for the same line.
-   */
-  static String mergeCoverageLineMetric(Metric<?> metric, String value1, String value2) {
-    Map<Integer, Integer> data1 = KeyValueFormat.parseIntInt(value1);
-    Map<Integer, Integer> data2 = KeyValueFormat.parseIntInt(value2);
-    if (metric.key().equals(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)) {
-      return KeyValueFormat.format(Stream.of(data1, data2)
-        .map(Map::entrySet)
-        .flatMap(Collection::stream)
-        .collect(
-          Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            Integer::sum,
-            TreeMap::new)));
-    } else {
-      return KeyValueFormat.format(Stream.of(data1, data2)
-        .map(Map::entrySet)
-        .flatMap(Collection::stream)
-        .collect(
-          Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            Integer::max,
-            TreeMap::new)));
-    }
-  }
-
   public boolean isDeprecatedMetric(String metricKey) {
     return DEPRECATED_METRICS_KEYS.contains(metricKey);
   }
@@ -326,7 +296,10 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   public void validateCoverageMeasure(String value, InputFile inputFile) {
-    Map<Integer, Integer> m = KeyValueFormat.parseIntInt(value);
+    validateCoverageMeasure(KeyValueFormat.parseIntInt(value), inputFile);
+  }
+
+  private static void validateCoverageMeasure(Map<Integer, Integer> m, InputFile inputFile) {
     validatePositiveLine(m, inputFile.absolutePath());
     validateMaxLine(m, inputFile);
   }
@@ -366,20 +339,26 @@ public class DefaultSensorStorage implements SensorStorage {
     if (writer.hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef)) {
       throw new UnsupportedOperationException("Trying to save highlighting twice for the same file is not supported: " + inputFile.absolutePath());
     }
+    PackedTextRanges rules = highlighting.rules();
     final ScannerReport.SyntaxHighlightingRule.Builder builder = ScannerReport.SyntaxHighlightingRule.newBuilder();
     final ScannerReport.TextRange.Builder rangeBuilder = ScannerReport.TextRange.newBuilder();
 
+    // messages are built lazily while being written, so that they are not all retained in memory
     writer.writeComponentSyntaxHighlighting(componentRef,
-      highlighting.getSyntaxHighlightingRuleSet().stream()
-        .map(input -> {
-          builder.setRange(rangeBuilder.setStartLine(input.range().start().line())
-            .setStartOffset(input.range().start().lineOffset())
-            .setEndLine(input.range().end().line())
-            .setEndOffset(input.range().end().lineOffset())
-            .build());
-          builder.setType(ScannerReportUtils.toProtocolType(input.getTextType()));
+      () -> IntStream.range(0, rules.size())
+        .mapToObj(i -> {
+          builder.setRange(toProtobufRange(rangeBuilder, rules, i));
+          builder.setType(ScannerReportUtils.toProtocolType(DefaultHighlighting.typeOfText(rules.value(i))));
           return builder.build();
-        }).collect(toList()));
+        }).iterator());
+  }
+
+  private static ScannerReport.TextRange toProtobufRange(ScannerReport.TextRange.Builder rangeBuilder, PackedTextRanges ranges, int index) {
+    return rangeBuilder.setStartLine(ranges.startLine(index))
+      .setStartOffset(ranges.startLineOffset(index))
+      .setEndLine(ranges.endLine(index))
+      .setEndOffset(ranges.endLineOffset(index))
+      .build();
   }
 
   @Override
@@ -391,28 +370,22 @@ public class DefaultSensorStorage implements SensorStorage {
     if (writer.hasComponentData(FileStructure.Domain.SYMBOLS, componentRef)) {
       throw new UnsupportedOperationException("Trying to save symbol table twice for the same file is not supported: " + symbolTable.inputFile().absolutePath());
     }
+    PackedTextRanges declarations = symbolTable.declarations();
+    // references are sorted by symbol
+    PackedTextRanges references = symbolTable.references();
     final ScannerReport.Symbol.Builder builder = ScannerReport.Symbol.newBuilder();
     final ScannerReport.TextRange.Builder rangeBuilder = ScannerReport.TextRange.newBuilder();
+    final int[] nextReference = {0};
     writer.writeComponentSymbols(componentRef,
-      symbolTable.getReferencesBySymbol().entrySet().stream()
-        .map(input -> {
+      () -> IntStream.range(0, declarations.size())
+        .mapToObj(symbol -> {
           builder.clear();
-          rangeBuilder.clear();
-          TextRange declaration = input.getKey();
-          builder.setDeclaration(rangeBuilder.setStartLine(declaration.start().line())
-            .setStartOffset(declaration.start().lineOffset())
-            .setEndLine(declaration.end().line())
-            .setEndOffset(declaration.end().lineOffset())
-            .build());
-          for (TextRange reference : input.getValue()) {
-            builder.addReference(rangeBuilder.setStartLine(reference.start().line())
-              .setStartOffset(reference.start().lineOffset())
-              .setEndLine(reference.end().line())
-              .setEndOffset(reference.end().lineOffset())
-              .build());
+          builder.setDeclaration(toProtobufRange(rangeBuilder, declarations, symbol));
+          for (; nextReference[0] < references.size() && references.value(nextReference[0]) == symbol; nextReference[0]++) {
+            builder.addReference(toProtobufRange(rangeBuilder, references, nextReference[0]));
           }
           return builder.build();
-        }).collect(Collectors.toList()));
+        }).iterator());
   }
 
   @Override
@@ -422,22 +395,8 @@ public class DefaultSensorStorage implements SensorStorage {
     if (coverageExclusions.isExcluded(inputFile)) {
       return;
     }
-    if (defaultCoverage.linesToCover() > 0) {
-      saveCoverageMetricInternal(inputFile, LINES_TO_COVER, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(defaultCoverage.linesToCover()));
-      saveCoverageMetricInternal(inputFile, UNCOVERED_LINES,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue(defaultCoverage.linesToCover() - defaultCoverage.coveredLines()));
-      saveCoverageMetricInternal(inputFile, COVERAGE_LINE_HITS_DATA,
-        new DefaultMeasure<String>().forMetric(COVERAGE_LINE_HITS_DATA).withValue(KeyValueFormat.format(defaultCoverage.hitsByLine())));
-    }
-    if (defaultCoverage.conditions() > 0) {
-      saveCoverageMetricInternal(inputFile, CONDITIONS_TO_COVER,
-        new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(defaultCoverage.conditions()));
-      saveCoverageMetricInternal(inputFile, UNCOVERED_CONDITIONS,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS).withValue(defaultCoverage.conditions() - defaultCoverage.coveredConditions()));
-      saveCoverageMetricInternal(inputFile, COVERED_CONDITIONS_BY_LINE,
-        new DefaultMeasure<String>().forMetric(COVERED_CONDITIONS_BY_LINE).withValue(KeyValueFormat.format(defaultCoverage.coveredConditionsByLine())));
-      saveCoverageMetricInternal(inputFile, CONDITIONS_BY_LINE,
-        new DefaultMeasure<String>().forMetric(CONDITIONS_BY_LINE).withValue(KeyValueFormat.format(defaultCoverage.conditionsByLine())));
+    if (defaultCoverage.linesToCover() > 0 || defaultCoverage.conditions() > 0) {
+      coverageCache.getOrCreate(inputFile.key()).merge(defaultCoverage);
     }
   }
 
@@ -446,7 +405,7 @@ public class DefaultSensorStorage implements SensorStorage {
     DefaultInputFile inputFile = (DefaultInputFile) defaultCpdTokens.inputFile();
     inputFile.setPublish(true);
     PmdBlockChunker blockChunker = new PmdBlockChunker(getBlockSize(inputFile.language()));
-    List<Block> blocks = blockChunker.chunk(inputFile.key(), defaultCpdTokens.getTokenLines());
+    List<Block> blocks = blockChunker.chunk(inputFile.key(), defaultCpdTokens.getPackedTokenLines());
     index.insert(inputFile, blocks);
   }
 
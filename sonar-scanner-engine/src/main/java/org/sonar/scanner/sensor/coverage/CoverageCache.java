@@ -0,0 +1,47 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.sensor.coverage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.ScannerSide;
+
+/**
+ * Coverage of files, accumulated during the analysis of all modules and published once in the report.
+ */
+@ScannerSide
+public class CoverageCache {
+
+  private final Map<String, FileCoverage> coverageByFileKey = new ConcurrentHashMap<>();
+
+  public FileCoverage getOrCreate(String fileKey) {
+    return coverageByFileKey.computeIfAbsent(fileKey, k -> new FileCoverage());
+  }
+
+  @CheckForNull
+  public FileCoverage get(String fileKey) {
+    return coverageByFileKey.get(fileKey);
+  }
+
+  public boolean contains(String fileKey) {
+    return coverageByFileKey.containsKey(fileKey);
+  }
+}
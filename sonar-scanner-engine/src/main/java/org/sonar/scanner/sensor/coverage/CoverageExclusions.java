@@ -23,12 +23,13 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.List;
 import org.picocontainer.Startable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.WildcardPatternMatcher;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.WildcardPattern;
 
@@ -37,7 +38,7 @@ public class CoverageExclusions implements Startable {
   private static final Logger LOG = LoggerFactory.getLogger(CoverageExclusions.class);
 
   private final Settings settings;
-  private Collection<WildcardPattern> exclusionPatterns;
+  private WildcardPatternMatcher exclusionPatterns;
 
   public CoverageExclusions(Settings settings) {
     this.settings = settings;
@@ -54,12 +55,7 @@ public class CoverageExclusions implements Startable {
   }
 
   public boolean isExcluded(InputFile file) {
-    boolean found = false;
-    Iterator<WildcardPattern> iterator = exclusionPatterns.iterator();
-    while (!found && iterator.hasNext()) {
-      found = iterator.next().match(file.relativePath());
-    }
-    return found;
+    return exclusionPatterns.size() > 0 && exclusionPatterns.matchAny(file.relativePath());
   }
 
   @VisibleForTesting
@@ -68,8 +64,9 @@ public class CoverageExclusions implements Startable {
     for (String pattern : settings.getStringArray(CoreProperties.PROJECT_COVERAGE_EXCLUSIONS_PROPERTY)) {
       builder.add(WildcardPattern.create(pattern));
     }
-    exclusionPatterns = builder.build();
-    log("Excluded sources for coverage: ", exclusionPatterns);
+    List<WildcardPattern> patterns = builder.build();
+    exclusionPatterns = new WildcardPatternMatcher(patterns);
+    log("Excluded sources for coverage: ", patterns);
   }
 
   private static void log(String title, Collection<WildcardPattern> patterns) {
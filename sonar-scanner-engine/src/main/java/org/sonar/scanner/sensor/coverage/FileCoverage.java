@@ -0,0 +1,287 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.sensor.coverage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntBinaryOperator;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
+
+/**
+ * Coverage of a file, merged from all the reports imported during analysis. Hits are summed and
+ * conditions are maxed when several reports define the same line.
+ * <p>
+ * Values are stored in sorted parallel arrays of primitives (lines and values), containing only the lines
+ * that have data, so that a file with few executable lines stays small until the report is published.
+ * <p>
+ * Merges are synchronized as reports can be imported concurrently. Values are read once all sensors are executed.
+ */
+public class FileCoverage {
+
+  public static final int UNDEFINED = -1;
+
+  private final LineValues hits = new LineValues(Integer::sum);
+  private final LineValues conditions = new LineValues(Math::max);
+  private final LineValues coveredConditions = new LineValues(Math::max);
+
+  public FileCoverage merge(DefaultCoverage coverage) {
+    int maxLine = coverage.maxLine();
+    LineValues.Buffer hitsBuffer = new LineValues.Buffer(coverage.linesToCover());
+    LineValues.Buffer conditionsBuffer = new LineValues.Buffer(0);
+    LineValues.Buffer coveredConditionsBuffer = new LineValues.Buffer(0);
+    for (int line = 1; line <= maxLine; line++) {
+      int lineHits = coverage.hitsAt(line);
+      if (lineHits != DefaultCoverage.NO_HITS) {
+        hitsBuffer.add(line, lineHits);
+      }
+      int lineConditions = coverage.conditionsAt(line);
+      if (lineConditions > 0) {
+        conditionsBuffer.add(line, lineConditions);
+        coveredConditionsBuffer.add(line, coverage.coveredConditionsAt(line));
+      }
+    }
+    synchronized (this) {
+      hits.merge(hitsBuffer);
+      conditions.merge(conditionsBuffer);
+      coveredConditions.merge(coveredConditionsBuffer);
+    }
+    return this;
+  }
+
+  /**
+   * Merges line data saved as measures by deprecated sensors
+   */
+  public synchronized FileCoverage mergeLineHits(Map<Integer, Integer> hitsByLine) {
+    hits.merge(LineValues.Buffer.of(hitsByLine));
+    return this;
+  }
+
+  public synchronized FileCoverage mergeConditions(Map<Integer, Integer> conditionsByLine) {
+    conditions.merge(LineValues.Buffer.of(conditionsByLine));
+    return this;
+  }
+
+  public synchronized FileCoverage mergeCoveredConditions(Map<Integer, Integer> coveredConditionsByLine) {
+    coveredConditions.merge(LineValues.Buffer.of(coveredConditionsByLine));
+    return this;
+  }
+
+  public boolean hasLineHits() {
+    return hits.size > 0;
+  }
+
+  public boolean hasConditions() {
+    return conditions.size > 0;
+  }
+
+  public boolean hasCoveredConditions() {
+    return coveredConditions.size > 0;
+  }
+
+  public int linesToCover() {
+    return hits.size;
+  }
+
+  public int uncoveredLines() {
+    int uncovered = 0;
+    for (int i = 0; i < hits.size; i++) {
+      if (hits.values[i] == 0) {
+        uncovered++;
+      }
+    }
+    return uncovered;
+  }
+
+  public int conditionsToCover() {
+    int total = 0;
+    for (int i = 0; i < conditions.size; i++) {
+      total += conditions.values[i];
+    }
+    return total;
+  }
+
+  public int uncoveredConditions() {
+    int uncovered = 0;
+    for (int i = 0; i < conditions.size; i++) {
+      uncovered += conditions.values[i] - coveredConditions.get(conditions.lines[i], 0);
+    }
+    return uncovered;
+  }
+
+  /**
+   * Greatest line having data, 0 if none
+   */
+  public int maxLine() {
+    return Math.max(hits.maxLine(), Math.max(conditions.maxLine(), coveredConditions.maxLine()));
+  }
+
+  /**
+   * Visits the lines having data in ascending order
+   */
+  public void forEachLine(LineVisitor visitor) {
+    int h = 0;
+    int c = 0;
+    int cc = 0;
+    while (h < hits.size || c < conditions.size || cc < coveredConditions.size) {
+      int line = Math.min(hits.lineAt(h), Math.min(conditions.lineAt(c), coveredConditions.lineAt(cc)));
+      int lineHits = hits.lineAt(h) == line ? hits.values[h++] : UNDEFINED;
+      int lineConditions = conditions.lineAt(c) == line ? conditions.values[c++] : UNDEFINED;
+      int lineCoveredConditions = coveredConditions.lineAt(cc) == line ? coveredConditions.values[cc++] : UNDEFINED;
+      visitor.visit(line, lineHits, lineConditions, lineCoveredConditions);
+    }
+  }
+
+  @FunctionalInterface
+  public interface LineVisitor {
+    /**
+     * Values are {@link FileCoverage#UNDEFINED} when not defined on the line
+     */
+    void visit(int line, int hits, int conditions, int coveredConditions);
+  }
+
+  /**
+   * Format of the line data measures, for example "1=3;4=0"
+   */
+  public String formatLineHits() {
+    return hits.format();
+  }
+
+  public String formatConditions() {
+    return conditions.format();
+  }
+
+  public String formatCoveredConditions() {
+    return coveredConditions.format();
+  }
+
+  /**
+   * Sparse map of line to value, sorted by line
+   */
+  private static final class LineValues {
+    private static final int[] EMPTY = new int[0];
+
+    private final IntBinaryOperator mergeFunction;
+    private int[] lines = EMPTY;
+    private int[] values = EMPTY;
+    private int size = 0;
+
+    private LineValues(IntBinaryOperator mergeFunction) {
+      this.mergeFunction = mergeFunction;
+    }
+
+    private int lineAt(int index) {
+      return index < size ? lines[index] : Integer.MAX_VALUE;
+    }
+
+    private int maxLine() {
+      return size == 0 ? 0 : lines[size - 1];
+    }
+
+    private int get(int line, int defaultValue) {
+      int index = Arrays.binarySearch(lines, 0, size, line);
+      return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /**
+     * Merge-join of two sorted sequences. Arrays are trimmed to their size to keep retained memory low.
+     */
+    private void merge(Buffer other) {
+      if (other.size == 0) {
+        return;
+      }
+      if (size == 0) {
+        lines = Arrays.copyOf(other.lines, other.size);
+        values = Arrays.copyOf(other.values, other.size);
+        size = other.size;
+        return;
+      }
+      int[] mergedLines = new int[size + other.size];
+      int[] mergedValues = new int[size + other.size];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (i < size || j < other.size) {
+        int line = i < size ? lines[i] : Integer.MAX_VALUE;
+        int otherLine = j < other.size ? other.lines[j] : Integer.MAX_VALUE;
+        if (line == otherLine) {
+          mergedLines[k] = line;
+          mergedValues[k] = mergeFunction.applyAsInt(values[i], other.values[j]);
+          i++;
+          j++;
+        } else if (line < otherLine) {
+          mergedLines[k] = line;
+          mergedValues[k] = values[i];
+          i++;
+        } else {
+          mergedLines[k] = otherLine;
+          mergedValues[k] = other.values[j];
+          j++;
+        }
+        k++;
+      }
+      lines = k == mergedLines.length ? mergedLines : Arrays.copyOf(mergedLines, k);
+      values = k == mergedValues.length ? mergedValues : Arrays.copyOf(mergedValues, k);
+      size = k;
+    }
+
+    private String format() {
+      StringBuilder sb = new StringBuilder(size * 6);
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          sb.append(';');
+        }
+        sb.append(lines[i]).append('=').append(values[i]);
+      }
+      return sb.toString();
+    }
+
+    /**
+     * Lines to be merged, added in ascending order
+     */
+    private static final class Buffer {
+      private int[] lines;
+      private int[] values;
+      private int size = 0;
+
+      private Buffer(int initialCapacity) {
+        this.lines = new int[initialCapacity];
+        this.values = new int[initialCapacity];
+      }
+
+      private static Buffer of(Map<Integer, Integer> valuesByLine) {
+        Buffer buffer = new Buffer(valuesByLine.size());
+        new TreeMap<>(valuesByLine).forEach(buffer::add);
+        return buffer;
+      }
+
+      private void add(int line, int value) {
+        if (size == lines.length) {
+          int newLength = Math.max(8, size * 2);
+          lines = Arrays.copyOf(lines, newLength);
+          values = Arrays.copyOf(values, newLength);
+        }
+        lines[size] = line;
+        values[size] = value;
+        size++;
+      }
+    }
+  }
+}
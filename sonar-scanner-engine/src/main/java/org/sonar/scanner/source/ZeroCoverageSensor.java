@@ -39,6 +39,7 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
 import org.sonar.scanner.sensor.coverage.CoverageExclusions;
 
 import com.google.common.collect.Sets;
@@ -61,10 +62,12 @@ public final class ZeroCoverageSensor implements Sensor {
   }
 
   private final MeasureCache measureCache;
+  private final CoverageCache coverageCache;
   private final CoverageExclusions coverageExclusions;
 
-  public ZeroCoverageSensor(MeasureCache measureCache, CoverageExclusions exclusions) {
+  public ZeroCoverageSensor(MeasureCache measureCache, CoverageCache coverageCache, CoverageExclusions exclusions) {
     this.measureCache = measureCache;
+    this.coverageCache = coverageCache;
     this.coverageExclusions = exclusions;
   }
 
@@ -103,6 +106,9 @@ public final class ZeroCoverageSensor implements Sensor {
   }
 
   private boolean isCoverageMeasuresAlreadyDefined(InputFile f) {
+    if (coverageCache.contains(f.key())) {
+      return true;
+    }
     Set<String> metricKeys = StreamSupport.stream(measureCache.byComponentKey(f.key()).spliterator(), false)
       .map(new MeasureToMetricKey()).collect(MoreCollectors.toSet());
     Function<Metric, String> metricToKey = new MetricToKey();
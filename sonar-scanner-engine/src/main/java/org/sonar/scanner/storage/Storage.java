@@ -27,45 +27,56 @@ import com.persistit.exception.PersistitException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Supplier;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 /**
  * <p>
- * This storage is not thread-safe, due to direct usage of {@link com.persistit.Exchange}
+ * This storage is thread-safe. A {@link com.persistit.Exchange} is not, so each thread accesses the tree of the
+ * storage through its own exchange, and concurrent accesses are coordinated by Persistit itself.
+ * Lazy iterators use their own exchange and must not be shared between threads.
  * </p>
  */
 public class Storage<V> {
 
   private final String name;
-  private final Exchange exchange;
+  private final ThreadLocal<Exchange> exchanges;
 
-  Storage(String name, Exchange exchange) {
+  Storage(String name, Supplier<Exchange> exchangeFactory) {
     this.name = name;
-    this.exchange = exchange;
+    this.exchanges = ThreadLocal.withInitial(exchangeFactory);
+  }
+
+  private Exchange exchange() {
+    return exchanges.get();
+  }
+
+  /**
+   * Forgets the exchange of the calling thread. Exchanges are released by {@link Storages#stop()}, and exchanges of
+   * other threads are discarded with the threads or with this storage.
+   */
+  void close() {
+    exchanges.remove();
   }
 
   public Storage<V> put(Object key, V value) {
-    resetKey(key);
-    return doPut(value);
+    return doPut(resetKey(key), value);
   }
 
   public Storage<V> put(Object firstKey, Object secondKey, V value) {
-    resetKey(firstKey, secondKey);
-    return doPut(value);
+    return doPut(resetKey(firstKey, secondKey), value);
   }
 
   public Storage<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doPut(value);
+    return doPut(resetKey(firstKey, secondKey, thirdKey), value);
   }
 
   public Storage<V> put(Object[] key, V value) {
-    resetKey(key);
-    return doPut(value);
+    return doPut(resetKey(key), value);
   }
 
-  private Storage<V> doPut(V value) {
+  private Storage<V> doPut(Exchange exchange, V value) {
     try {
       exchange.getValue().put(value);
       exchange.store();
@@ -79,8 +90,7 @@ public class Storage<V> {
    * Returns the value object associated with keys, or null if not found.
    */
   public V get(Object key) {
-    resetKey(key);
-    return doGet();
+    return doGet(resetKey(key));
   }
 
   /**
@@ -88,8 +98,7 @@ public class Storage<V> {
    */
   @CheckForNull
   public V get(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doGet();
+    return doGet(resetKey(firstKey, secondKey));
   }
 
   /**
@@ -97,8 +106,7 @@ public class Storage<V> {
    */
   @CheckForNull
   public V get(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doGet();
+    return doGet(resetKey(firstKey, secondKey, thirdKey));
   }
 
   /**
@@ -106,13 +114,12 @@ public class Storage<V> {
    */
   @CheckForNull
   public V get(Object[] key) {
-    resetKey(key);
-    return doGet();
+    return doGet(resetKey(key));
   }
 
   @SuppressWarnings("unchecked")
   @CheckForNull
-  private V doGet() {
+  private V doGet(Exchange exchange) {
     try {
       exchange.fetch();
       if (!exchange.getValue().isDefined()) {
@@ -126,26 +133,22 @@ public class Storage<V> {
   }
 
   public boolean containsKey(Object key) {
-    resetKey(key);
-    return doContainsKey();
+    return doContainsKey(resetKey(key));
   }
 
   public boolean containsKey(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doContainsKey();
+    return doContainsKey(resetKey(firstKey, secondKey));
   }
 
   public boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doContainsKey();
+    return doContainsKey(resetKey(firstKey, secondKey, thirdKey));
   }
 
   public boolean containsKey(Object[] key) {
-    resetKey(key);
-    return doContainsKey();
+    return doContainsKey(resetKey(key));
   }
 
-  private boolean doContainsKey() {
+  private boolean doContainsKey(Exchange exchange) {
     try {
       exchange.fetch();
       return exchange.isValueDefined();
@@ -156,26 +159,22 @@ public class Storage<V> {
   }
 
   public boolean remove(Object key) {
-    resetKey(key);
-    return doRemove();
+    return doRemove(resetKey(key));
   }
 
   public boolean remove(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doRemove();
+    return doRemove(resetKey(firstKey, secondKey));
   }
 
   public boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doRemove();
+    return doRemove(resetKey(firstKey, secondKey, thirdKey));
   }
 
   public boolean remove(Object[] key) {
-    resetKey(key);
-    return doRemove();
+    return doRemove(resetKey(key));
   }
 
-  private boolean doRemove() {
+  private boolean doRemove(Exchange exchange) {
     try {
       return exchange.remove();
     } catch (Exception e) {
@@ -190,26 +189,22 @@ public class Storage<V> {
    * @param group The group name.
    */
   public Storage<V> clear(Object key) {
-    resetKey(key);
-    return doClear();
+    return doClear(resetKey(key));
   }
 
   public Storage<V> clear(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doClear();
+    return doClear(resetKey(firstKey, secondKey));
   }
 
   public Storage<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doClear();
+    return doClear(resetKey(firstKey, secondKey, thirdKey));
   }
 
   public Storage<V> clear(Object[] key) {
-    resetKey(key);
-    return doClear();
+    return doClear(resetKey(key));
   }
 
-  private Storage<V> doClear() {
+  private Storage<V> doClear(Exchange exchange) {
     try {
       Key to = new Key(exchange.getKey());
       to.append(Key.AFTER);
@@ -225,6 +220,7 @@ public class Storage<V> {
    */
   public void clear() {
     try {
+      Exchange exchange = exchange();
       exchange.clear();
       exchange.removeAll();
     } catch (Exception e) {
@@ -243,8 +239,8 @@ public class Storage<V> {
   public Set keySet(Object key) {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
-      exchange.clear();
-      Exchange iteratorExchange = new Exchange(exchange);
+      Exchange iteratorExchange = new Exchange(exchange());
+      iteratorExchange.clear();
       iteratorExchange.append(key);
       iteratorExchange.append(Key.BEFORE);
       while (iteratorExchange.next(false)) {
@@ -260,8 +256,8 @@ public class Storage<V> {
   public Set keySet(Object firstKey, Object secondKey) {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
-      exchange.clear();
-      Exchange iteratorExchange = new Exchange(exchange);
+      Exchange iteratorExchange = new Exchange(exchange());
+      iteratorExchange.clear();
       iteratorExchange.append(firstKey);
       iteratorExchange.append(secondKey);
       iteratorExchange.append(Key.BEFORE);
@@ -282,8 +278,8 @@ public class Storage<V> {
   public Set<Object> keySet() {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
-      exchange.clear();
-      Exchange iteratorExchange = new Exchange(exchange);
+      Exchange iteratorExchange = new Exchange(exchange());
+      iteratorExchange.clear();
       iteratorExchange.append(Key.BEFORE);
       while (iteratorExchange.next(false)) {
         keys.add(iteratorExchange.getKey().indexTo(-1).decode());
@@ -298,51 +294,65 @@ public class Storage<V> {
    * Lazy-loading values for given keys
    */
   public Iterable<V> values(Object firstKey, Object secondKey) {
-    return new ValueIterable<>(exchange, firstKey, secondKey);
+    return new ValueIterable<>(this, firstKey, secondKey);
   }
 
   /**
    * Lazy-loading values for a given key
    */
   public Iterable<V> values(Object firstKey) {
-    return new ValueIterable<>(exchange, firstKey);
+    return new ValueIterable<>(this, firstKey);
   }
 
   /**
    * Lazy-loading values
    */
   public Iterable<V> values() {
-    return new ValueIterable<>(exchange);
+    return new ValueIterable<>(this);
   }
 
   public Iterable<Entry<V>> entries() {
-    return new EntryIterable<>(exchange);
+    return new EntryIterable<>(this);
   }
 
   public Iterable<Entry<V>> entries(Object firstKey) {
-    return new EntryIterable<>(exchange, firstKey);
+    return new EntryIterable<>(this, firstKey);
+  }
+
+  private Exchange newIteratorExchange(Object[] keys) {
+    Exchange iteratorExchange = resetKey(keys);
+    iteratorExchange.append(Key.BEFORE);
+    return new Exchange(iteratorExchange);
   }
 
-  private void resetKey(Object key) {
+  private Exchange resetKey(Object key) {
+    Exchange exchange = exchange();
     exchange.clear();
     exchange.append(key);
+    return exchange;
   }
 
-  private void resetKey(Object first, Object second) {
+  private Exchange resetKey(Object first, Object second) {
+    Exchange exchange = exchange();
     exchange.clear();
     exchange.append(first).append(second);
+    return exchange;
   }
 
-  private void resetKey(Object first, Object second, Object third) {
+  private Exchange resetKey(Object first, Object second, Object third) {
+    Exchange exchange = exchange();
     exchange.clear();
     exchange.append(first).append(second).append(third);
+    return exchange;
   }
 
-  private void resetKey(Object[] keys) {
+  private Exchange resetKey(Object[] keys) {
+    Exchange exchange = exchange();
     exchange.clear();
     for (Object o : keys) {
       exchange.append(o);
     }
+    return exchange;
   }
 
   //
@@ -350,25 +360,21 @@ public class Storage<V> {
   //
 
   private static class ValueIterable<T> implements Iterable<T> {
-    private final Exchange originExchange;
+    private final Storage<?> storage;
     private final Object[] keys;
 
-    private ValueIterable(Exchange originExchange, Object... keys) {
-      this.originExchange = originExchange;
+    private ValueIterable(Storage<?> storage, Object... keys) {
+      this.storage = storage;
       this.keys = keys;
     }
 
     @Override
     public Iterator<T> iterator() {
-      originExchange.clear();
       KeyFilter filter = new KeyFilter();
       for (Object key : keys) {
-        originExchange.append(key);
         filter = filter.append(KeyFilter.simpleTerm(key));
       }
-      originExchange.append(Key.BEFORE);
-      Exchange iteratorExchange = new Exchange(originExchange);
-      return new ValueIterator<>(iteratorExchange, filter);
+      return new ValueIterator<>(storage.newIteratorExchange(keys), filter);
     }
   }
 
@@ -411,25 +417,21 @@ public class Storage<V> {
   }
 
   private static class EntryIterable<T> implements Iterable<Entry<T>> {
-    private final Exchange originExchange;
+    private final Storage<?> storage;
     private final Object[] keys;
 
-    private EntryIterable(Exchange originExchange, Object... keys) {
-      this.originExchange = originExchange;
+    private EntryIterable(Storage<?> storage, Object... keys) {
+      this.storage = storage;
       this.keys = keys;
     }
 
     @Override
     public Iterator<Entry<T>> iterator() {
-      originExchange.clear();
       KeyFilter filter = new KeyFilter();
       for (Object key : keys) {
-        originExchange.append(key);
         filter = filter.append(KeyFilter.simpleTerm(key));
       }
-      originExchange.append(Key.BEFORE);
-      Exchange iteratorExchange = new Exchange(originExchange);
-      return new EntryIterator<>(iteratorExchange, filter);
+      return new EntryIterator<>(storage.newIteratorExchange(keys), filter);
     }
   }
 
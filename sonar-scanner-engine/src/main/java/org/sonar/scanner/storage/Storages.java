@@ -30,13 +30,16 @@ import com.persistit.exception.PersistitException;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
 
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = new HashMap<>();
+  private final Map<String, Storage<?>> cacheMap = new HashMap<>();
+  // exchanges of all the threads, released when caches are stopped
+  private final Queue<Exchange> exchanges = new ConcurrentLinkedQueue<>();
   private Persistit persistit;
   private Volume volume;
 
@@ -64,28 +67,47 @@ public class Storages implements Startable {
     cm.registerValueCoder(clazz, coder);
   }
 
-  public <V> Storage<V> createCache(String cacheName) {
+  public synchronized <V> Storage<V> createCache(String cacheName) {
     Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
     try {
-      Exchange exchange = persistit.getExchange(volume, cacheName, true);
-      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
+      // creates the tree
+      persistit.releaseExchange(persistit.getExchange(volume, cacheName, true));
+      Volume cacheVolume = volume;
+      Storage<V> cache = new Storage<>(cacheName, () -> newExchange(cacheVolume, cacheName));
+      cacheMap.put(cacheName, cache);
       return cache;
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create cache: " + cacheName, e);
     }
   }
 
-  @Override
-  public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+  /**
+   * Exchanges are not thread-safe, so each thread accessing a cache gets its own exchange
+   */
+  private Exchange newExchange(Volume cacheVolume, String cacheName) {
+    try {
+      Exchange exchange = persistit.getExchange(cacheVolume, cacheName, false);
+      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
+      exchanges.add(exchange);
+      return exchange;
+    } catch (PersistitException e) {
+      throw new IllegalStateException("Fail to access cache: " + cacheName, e);
     }
+  }
 
+  @Override
+  public synchronized void stop() {
+    for (Storage<?> cache : cacheMap.values()) {
+      cache.close();
+    }
     cacheMap.clear();
 
+    Exchange exchange;
+    while ((exchange = exchanges.poll()) != null) {
+      persistit.releaseExchange(exchange);
+    }
+
     if (volume != null) {
       try {
         volume.close();
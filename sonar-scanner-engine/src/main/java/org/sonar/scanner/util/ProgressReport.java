@@ -26,7 +26,7 @@ public class ProgressReport implements Runnable {
 
   private static final Logger LOG = Loggers.get(ProgressReport.class);
   private final long period;
-  private String message = "";
+  private volatile String message = "";
   private final Thread thread;
   private String stopMessage = "";
 
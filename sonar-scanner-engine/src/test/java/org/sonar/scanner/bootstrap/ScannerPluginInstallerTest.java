@@ -22,11 +22,14 @@ package org.sonar.scanner.bootstrap;
 import java.io.File;
 import java.io.StringReader;
 import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.RemotePlugin;
 import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.WsTestUtil;
@@ -35,6 +38,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ScannerPluginInstallerTest {
@@ -48,6 +53,7 @@ public class ScannerPluginInstallerTest {
   private FileCache fileCache = mock(FileCache.class);
   private ScannerWsClient wsClient;
   private ScannerPluginPredicate pluginPredicate = mock(ScannerPluginPredicate.class);
+  private ScannerPluginJarExploder jarExploder = mock(ScannerPluginJarExploder.class);
 
   @Before
   public void setUp() {
@@ -57,7 +63,7 @@ public class ScannerPluginInstallerTest {
   @Test
   public void listRemotePlugins() {
     WsTestUtil.mockReader(wsClient, "/deploy/plugins/index.txt", new StringReader("checkstyle\nsqale"));
-    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder);
 
     List<RemotePlugin> remotePlugins = underTest.listRemotePlugins();
     assertThat(remotePlugins).extracting("key").containsOnly("checkstyle", "sqale");
@@ -68,7 +74,7 @@ public class ScannerPluginInstallerTest {
     File pluginJar = temp.newFile();
     when(fileCache.get(eq("checkstyle-plugin.jar"), eq("fakemd5_1"), any(FileCache.Downloader.class))).thenReturn(pluginJar);
 
-    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder);
 
     RemotePlugin remote = new RemotePlugin("checkstyle").setFile("checkstyle-plugin.jar", "fakemd5_1");
     File file = underTest.download(remote);
@@ -76,11 +82,59 @@ public class ScannerPluginInstallerTest {
     assertThat(file).isEqualTo(pluginJar);
   }
 
+  @Test
+  public void install_accepted_plugins_and_explode_them() throws Exception {
+    File pluginJar = pluginJar();
+    WsTestUtil.mockReader(wsClient, "/deploy/plugins/index.txt",
+      new StringReader("checkstyle,false,checkstyle-plugin.jar|fakemd5_1\nsqale,false,sqale-plugin.jar|fakemd5_2"));
+    when(pluginPredicate.apply("checkstyle")).thenReturn(true);
+    when(fileCache.get(eq("checkstyle-plugin.jar"), eq("fakemd5_1"), any(FileCache.Downloader.class))).thenReturn(pluginJar);
+
+    Map<String, PluginInfo> infos = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
+
+    assertThat(infos).containsOnlyKeys("checkstyle");
+    verify(jarExploder).explode(infos.get("checkstyle"));
+    verify(fileCache, times(0)).get(eq("sqale-plugin.jar"), any(String.class), any(FileCache.Downloader.class));
+  }
+
+  @Test
+  public void download_only_once_plugins_with_same_hash() throws Exception {
+    File pluginJar = pluginJar();
+    WsTestUtil.mockReader(wsClient, "/deploy/plugins/index.txt",
+      new StringReader("checkstyle,false,checkstyle-plugin.jar|fakemd5_1\ncheckstyle,false,checkstyle-plugin.jar|fakemd5_1"));
+    when(pluginPredicate.apply("checkstyle")).thenReturn(true);
+    when(fileCache.get(eq("checkstyle-plugin.jar"), eq("fakemd5_1"), any(FileCache.Downloader.class))).thenReturn(pluginJar);
+
+    Map<String, PluginInfo> infos = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
+
+    assertThat(infos).containsOnlyKeys("checkstyle");
+    verify(fileCache, times(1)).get(eq("checkstyle-plugin.jar"), eq("fakemd5_1"), any(FileCache.Downloader.class));
+  }
+
+  @Test
+  public void fail_if_plugin_can_not_be_downloaded() throws Exception {
+    WsTestUtil.mockReader(wsClient, "/deploy/plugins/index.txt", new StringReader("checkstyle,false,checkstyle-plugin.jar|fakemd5_1"));
+    when(pluginPredicate.apply("checkstyle")).thenReturn(true);
+    when(fileCache.get(eq("checkstyle-plugin.jar"), eq("fakemd5_1"), any(FileCache.Downloader.class))).thenThrow(new IllegalStateException("boom"));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to download plugin: checkstyle");
+
+    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
+  }
+
   @Test
   public void should_fail_to_get_plugin_index() {
     WsTestUtil.mockException(wsClient, "/deploy/plugins/index.txt", new IllegalStateException());
     thrown.expect(IllegalStateException.class);
 
-    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate).installRemotes();
+    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
+  }
+
+  private File pluginJar() throws Exception {
+    File src = FileUtils.toFile(getClass().getResource("ScannerPluginJarExploderTest/sonar-checkstyle-plugin-2.8.jar"));
+    File jar = new File(temp.newFolder(), "checkstyle-plugin.jar");
+    FileUtils.copyFile(src, jar);
+    return jar;
   }
 }
@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
+import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.MockWsResponse;
+import org.sonarqube.ws.client.WsRequest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScannerWsCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ScannerWsClient wsClient = mock(ScannerWsClient.class);
+  private FileCache fileCache;
+  private ScannerWsCache underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    when(wsClient.baseUrl()).thenReturn("http://localhost:9000/");
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    underTest = new ScannerWsCache(wsClient, fileCache);
+  }
+
+  @Test
+  public void do_not_cache_response_without_etag() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(newResponse(200, "first"))
+      .thenReturn(newResponse(200, "second"));
+
+    assertThat(read(underTest.call(new GetRequest("api/metrics/search")))).isEqualTo("first");
+    assertThat(read(underTest.call(new GetRequest("api/metrics/search")))).isEqualTo("second");
+
+    ArgumentCaptor<WsRequest> requests = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(2)).call(requests.capture());
+    for (WsRequest request : requests.getAllValues()) {
+      assertThat(request.getHeaders().getValue("If-None-Match")).isEmpty();
+    }
+  }
+
+  @Test
+  public void read_content_from_cache_when_not_modified() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(newResponse(200, "content").setHeader("ETag", "\"abc\""))
+      .thenReturn(newResponse(304, ""));
+
+    assertThat(read(underTest.call(new GetRequest("api/metrics/search")))).isEqualTo("content");
+    GetRequest secondRequest = new GetRequest("api/metrics/search");
+    assertThat(read(underTest.call(secondRequest))).isEqualTo("content");
+
+    assertThat(secondRequest.getHeaders().getValue("If-None-Match")).hasValue("\"abc\"");
+  }
+
+  @Test
+  public void replace_cached_content_when_modified() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(newResponse(200, "v1").setHeader("ETag", "\"v1\""))
+      .thenReturn(newResponse(200, "v2").setHeader("ETag", "\"v2\""));
+
+    underTest.call(new GetRequest("api/metrics/search"));
+    assertThat(read(underTest.call(new GetRequest("api/metrics/search")))).isEqualTo("v2");
+
+    GetRequest thirdRequest = new GetRequest("api/metrics/search");
+    when(wsClient.call(thirdRequest)).thenReturn(newResponse(304, ""));
+    assertThat(read(underTest.call(thirdRequest))).isEqualTo("v2");
+    assertThat(thirdRequest.getHeaders().getValue("If-None-Match")).hasValue("\"v2\"");
+  }
+
+  @Test
+  public void cache_key_depends_on_parameters() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(newResponse(200, "page 1").setHeader("ETag", "\"p1\""));
+    underTest.call(new GetRequest("api/metrics/search").setParam("p", 1));
+
+    GetRequest request = new GetRequest("api/metrics/search").setParam("p", 2);
+    when(wsClient.call(request)).thenReturn(newResponse(200, "page 2"));
+    assertThat(read(underTest.call(request))).isEqualTo("page 2");
+    assertThat(request.getHeaders().getValue("If-None-Match")).isEmpty();
+  }
+
+  private static MockWsResponse newResponse(int code, String content) {
+    return new MockWsResponse()
+      .setRequestUrl("http://localhost:9000/api/metrics/search")
+      .setCode(code)
+      .setContent(content);
+  }
+
+  private static String read(InputStream input) throws IOException {
+    return IOUtils.toString(input, UTF_8);
+  }
+}
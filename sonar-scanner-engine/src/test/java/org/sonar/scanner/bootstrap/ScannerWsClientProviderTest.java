@@ -46,6 +46,8 @@ public class ScannerWsClientProviderTest {
     assertThat(httpConnector.okHttpClient().proxy()).isNull();
     assertThat(httpConnector.okHttpClient().connectTimeoutMillis()).isEqualTo(5_000);
     assertThat(httpConnector.okHttpClient().readTimeoutMillis()).isEqualTo(60_000);
+    // retries of GET requests
+    assertThat(httpConnector.okHttpClient().interceptors()).hasSize(1);
   }
 
   @Test
@@ -55,6 +57,7 @@ public class ScannerWsClientProviderTest {
     props.put("sonar.login", "theLogin");
     props.put("sonar.password", "thePassword");
     props.put("sonar.ws.timeout", "42");
+    props.put("sonar.ws.maxRetries", "0");
     GlobalProperties settings = new GlobalProperties(props);
 
     ScannerWsClient client = underTest.provide(settings, env, new GlobalMode(new GlobalProperties(Collections.emptyMap())));
@@ -63,6 +66,7 @@ public class ScannerWsClientProviderTest {
     HttpConnector httpConnector = (HttpConnector) client.wsConnector();
     assertThat(httpConnector.baseUrl()).isEqualTo("https://here/sonarqube/");
     assertThat(httpConnector.okHttpClient().proxy()).isNull();
+    assertThat(httpConnector.okHttpClient().interceptors()).isEmpty();
   }
 
   @Test
@@ -19,8 +19,15 @@
  */
 package org.sonar.scanner.genericcoverage;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.config.Settings;
@@ -33,6 +40,8 @@ public class GenericCoverageSensorTest {
 
   @Rule
   public LogTester logTester = new LogTester();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   @Test
   public void migrateOldProperties() {
@@ -52,4 +61,26 @@ public class GenericCoverageSensorTest {
       "old.xml", "old1.xml", "old2.xml", "old3.xml", "old4.xml", "old5.xml", "old6.xml");
   }
 
+  @Test
+  public void log_parsed_reports_in_order_of_paths() throws Exception {
+    File baseDir = temp.newFolder();
+    List<File> reports = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      File report = new File(baseDir, "report" + i + ".xml");
+      FileUtils.write(report, "<coverage version=\"1\"></coverage>", StandardCharsets.UTF_8);
+      reports.add(report.getCanonicalFile());
+    }
+    Settings settings = new MapSettings(new PropertyDefinitions(GenericCoverageSensor.properties()));
+    settings.setProperty(GenericCoverageSensor.REPORT_PATHS_PROPERTY_KEY, "report0.xml,report1.xml,report2.xml,report3.xml");
+    SensorContextTester context = SensorContextTester.create(baseDir);
+
+    new GenericCoverageSensor(settings).execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).startsWith(
+      "Parsing " + reports.get(0),
+      "Parsing " + reports.get(1),
+      "Parsing " + reports.get(2),
+      "Parsing " + reports.get(3));
+  }
+
 }
@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.genericcoverage;
+
+import java.io.File;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputFileLookupTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File baseDir;
+  private DefaultInputFile inputFile;
+  private InputFileLookup underTest;
+
+  @Before
+  public void prepare() throws Exception {
+    baseDir = temp.newFolder();
+    DefaultFileSystem fs = new DefaultFileSystem(baseDir);
+    inputFile = new TestInputFileBuilder("foo", "src/Foo.java").setModuleBaseDir(baseDir.toPath()).build();
+    fs.add(inputFile);
+    fs.add(new TestInputFileBuilder("foo", "src/Bar.java").setModuleBaseDir(baseDir.toPath()).build());
+    underTest = new InputFileLookup(fs);
+  }
+
+  @Test
+  public void find_file_by_relative_path() {
+    assertThat(underTest.get("src/Foo.java")).isSameAs(inputFile);
+    assertThat(underTest.get("src/Unknown.java")).isNull();
+  }
+
+  @Test
+  public void find_file_by_absolute_path() {
+    assertThat(underTest.get(inputFile.absolutePath())).isSameAs(inputFile);
+    assertThat(underTest.get(new File(baseDir, "src/Unknown.java").getAbsolutePath())).isNull();
+  }
+
+  @Test
+  public void support_non_normalized_and_windows_style_paths() {
+    assertThat(underTest.get("src/../src/Foo.java")).isSameAs(inputFile);
+    assertThat(underTest.get("src\\Foo.java")).isSameAs(inputFile);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.genericcoverage;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportsParserTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private List<File> reports = Arrays.asList(new File("a.xml"), new File("b.xml"), new File("c.xml"));
+
+  @Test
+  public void parse_reports_in_parallel_and_return_results_in_order() {
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    List<String> results = new ReportsParser(2).parse(reports, report -> {
+      threadNames.add(Thread.currentThread().getName());
+      return report.getName();
+    });
+
+    assertThat(results).containsExactly("a.xml", "b.xml", "c.xml");
+    assertThat(threadNames).isNotEmpty();
+    threadNames.forEach(name -> assertThat(name).startsWith("ReportParser-"));
+  }
+
+  @Test
+  public void parse_reports_in_current_thread_when_single_thread() {
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    List<String> results = new ReportsParser(1).parse(reports, report -> {
+      threadNames.add(Thread.currentThread().getName());
+      return report.getName();
+    });
+
+    assertThat(results).containsExactly("a.xml", "b.xml", "c.xml");
+    assertThat(threadNames).containsOnly(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void propagate_parsing_failure() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Error during parsing of b.xml");
+
+    new ReportsParser(2).parse(reports, report -> {
+      if (report.getName().equals("b.xml")) {
+        throw new IllegalStateException("Error during parsing of " + report.getName());
+      }
+      return report.getName();
+    });
+  }
+}
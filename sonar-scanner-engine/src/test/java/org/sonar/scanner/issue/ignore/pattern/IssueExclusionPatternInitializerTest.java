@@ -102,6 +102,16 @@ public class IssueExclusionPatternInitializerTest {
     assertThat(patternsInitializer.getAllFilePatterns().size()).isEqualTo(2);
   }
 
+  @Test
+  public void shouldReturnContentExcludedLanguages() {
+    patternsInitializer = new IssueExclusionPatternInitializer(settings);
+    assertThat(patternsInitializer.getContentExcludedLanguages()).isEmpty();
+
+    settings.setProperty(IssueExclusionProperties.CONTENT_EXCLUDED_LANGUAGES_KEY, "xoo,js");
+    patternsInitializer = new IssueExclusionPatternInitializer(settings);
+    assertThat(patternsInitializer.getContentExcludedLanguages()).containsOnly("xoo", "js");
+  }
+
   @Test(expected = IllegalStateException.class)
   public void shouldLogInvalidAllFilePattern() {
     settings.setProperty(IssueExclusionProperties.PATTERNS_ALLFILE_KEY, "1");
@@ -65,15 +65,26 @@ public class IssueExclusionsLoaderTest {
 
   @Test
   public void createComputer() {
-    assertThat(scanner.createCharHandlerFor("src/main/java/Foo.java")).isNull();
+    assertThat(scanner.createCharHandlerFor("src/main/java/Foo.java", "java")).isNull();
 
     when(exclusionPatternInitializer.getAllFilePatterns()).thenReturn(Collections.singletonList("pattern"));
     scanner = new IssueExclusionsLoader(exclusionPatternInitializer, patternMatcher);
-    assertThat(scanner.createCharHandlerFor("src/main/java/Foo.java")).isNotNull();
+    assertThat(scanner.createCharHandlerFor("src/main/java/Foo.java", "java")).isNotNull();
 
 
   }
 
+  @Test
+  public void should_not_create_computer_for_excluded_language() {
+    when(exclusionPatternInitializer.getAllFilePatterns()).thenReturn(Collections.singletonList("pattern"));
+    when(exclusionPatternInitializer.getContentExcludedLanguages()).thenReturn(Collections.singleton("xoo"));
+    scanner = new IssueExclusionsLoader(exclusionPatternInitializer, patternMatcher);
+
+    assertThat(scanner.createCharHandlerFor("src/main/xoo/Foo.xoo", "xoo")).isNull();
+    assertThat(scanner.createCharHandlerFor("src/main/java/Foo.java", "java")).isNotNull();
+    assertThat(scanner.createCharHandlerFor("src/main/Foo", null)).isNotNull();
+  }
+
   @Test
   public void shouldHavePatternsBasedOnMulticriteriaPattern() {
     IssuePattern pattern1 = new IssuePattern("org/foo/Bar.java", "*");
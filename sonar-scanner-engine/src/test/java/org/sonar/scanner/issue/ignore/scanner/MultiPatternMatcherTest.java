@@ -0,0 +1,63 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiPatternMatcherTest {
+
+  @Test
+  public void find_first_pattern_in_order_of_list() {
+    MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList(
+      Pattern.compile("// SONAR-OFF"),
+      Pattern.compile("SONAR"),
+      Pattern.compile("@NOSONAR")));
+    MultiPatternMatcher.Finder finder = matcher.newFinder();
+
+    assertThat(finder.find("int i = 0; // SONAR-OFF")).isEqualTo(0);
+    assertThat(finder.find(new StringBuilder("@NOSONAR"))).isEqualTo(1);
+    assertThat(finder.find("int i = 0;")).isEqualTo(-1);
+    assertThat(matcher.get(2).pattern()).isEqualTo("@NOSONAR");
+  }
+
+  @Test
+  public void find_patterns_that_cannot_be_combined() {
+    MultiPatternMatcher.Finder finder = new MultiPatternMatcher(Arrays.asList(
+      Pattern.compile("(a)\\1"),
+      Pattern.compile("(?x) b c # comment"),
+      Pattern.compile("d", Pattern.CASE_INSENSITIVE))).newFinder();
+
+    assertThat(finder.find("xaax")).isEqualTo(0);
+    assertThat(finder.find("a b")).isEqualTo(-1);
+    assertThat(finder.find("xbcx")).isEqualTo(1);
+    assertThat(finder.find("D")).isEqualTo(2);
+  }
+
+  @Test
+  public void find_nothing_without_patterns() {
+    MultiPatternMatcher matcher = new MultiPatternMatcher(Collections.<Pattern>emptyList());
+    assertThat(matcher.newFinder().find("foo")).isEqualTo(-1);
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonar.scanner.report;
 
+import com.google.common.collect.ImmutableMap;
 import java.io.File;
 import java.io.IOException;
 import org.junit.Before;
@@ -27,27 +28,22 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
-import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
-import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport.LineCoverage;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
-import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Matchers.anyString;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 public class CoveragePublisherTest {
 
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
-  private MeasureCache measureCache;
+  private CoverageCache coverageCache = new CoverageCache();
   private CoveragePublisher publisher;
 
   private DefaultInputFile inputFile;
@@ -60,22 +56,15 @@ public class CoveragePublisherTest {
     componentCache.put(TestInputFileBuilder.newDefaultInputModule(moduleKey, temp.newFolder()));
     componentCache.put(inputFile);
 
-    measureCache = mock(MeasureCache.class);
-    when(measureCache.byMetric(anyString(), anyString())).thenReturn(null);
-    publisher = new CoveragePublisher(componentCache, measureCache);
+    publisher = new CoveragePublisher(componentCache, coverageCache);
   }
 
   @Test
   public void publishCoverage() throws Exception {
-
-    DefaultMeasure<String> utLineHits = new DefaultMeasure<String>().forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA).withValue("2=1;3=1;5=0;6=3");
-    when(measureCache.byMetric("foo:src/Foo.php", CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)).thenReturn((DefaultMeasure) utLineHits);
-
-    DefaultMeasure<String> conditionsByLine = new DefaultMeasure<String>().forMetric(CoreMetrics.CONDITIONS_BY_LINE).withValue("3=4");
-    when(measureCache.byMetric("foo:src/Foo.php", CoreMetrics.CONDITIONS_BY_LINE_KEY)).thenReturn((DefaultMeasure) conditionsByLine);
-
-    DefaultMeasure<String> coveredConditionsByUts = new DefaultMeasure<String>().forMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE).withValue("3=2");
-    when(measureCache.byMetric("foo:src/Foo.php", CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY)).thenReturn((DefaultMeasure) coveredConditionsByUts);
+    coverageCache.getOrCreate("foo:src/Foo.php")
+      .mergeLineHits(ImmutableMap.of(2, 1, 3, 1, 5, 0, 6, 3))
+      .mergeConditions(ImmutableMap.of(3, 4))
+      .mergeCoveredConditions(ImmutableMap.of(3, 2));
 
     File outputDir = temp.newFolder();
     ScannerReportWriter writer = new ScannerReportWriter(outputDir);
@@ -97,7 +86,19 @@ public class CoveragePublisherTest {
         .setLine(5)
         .setHits(false)
         .build());
+      assertThat(it.hasNext()).isFalse();
     }
+  }
+
+  @Test
+  public void publishNoCoverage() throws Exception {
+    File outputDir = temp.newFolder();
+    ScannerReportWriter writer = new ScannerReportWriter(outputDir);
+
+    publisher.publish(writer);
 
+    try (CloseableIterator<LineCoverage> it = new ScannerReportReader(outputDir).readComponentCoverage(inputFile.batchId())) {
+      assertThat(it.hasNext()).isFalse();
+    }
   }
 }
@@ -21,13 +21,16 @@ package org.sonar.scanner.report;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.Collections;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentMatcher;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
@@ -41,12 +44,16 @@ import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class MeasuresPublisherTest {
@@ -57,6 +64,7 @@ public class MeasuresPublisherTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   private MeasureCache measureCache;
+  private CoverageCache coverageCache = new CoverageCache();
   private MeasuresPublisher publisher;
 
   private File outputDir;
@@ -74,7 +82,7 @@ public class MeasuresPublisherTest {
     componentCache.put(inputFile);
     measureCache = mock(MeasureCache.class);
     when(measureCache.byComponentKey(anyString())).thenReturn(Collections.<DefaultMeasure<?>>emptyList());
-    publisher = new MeasuresPublisher(componentCache, measureCache, mock(TestPlanBuilder.class));
+    publisher = new MeasuresPublisher(componentCache, measureCache, coverageCache, mock(TestPlanBuilder.class));
     outputDir = temp.newFolder();
     writer = new ScannerReportWriter(outputDir);
   }
@@ -97,6 +105,33 @@ public class MeasuresPublisherTest {
     }
   }
 
+  @Test
+  public void publish_line_data_and_totals_of_merged_coverage() throws Exception {
+    coverageCache.getOrCreate(inputFile.key())
+      .mergeLineHits(ImmutableMap.of(1, 2, 2, 0, 3, 1))
+      .mergeConditions(ImmutableMap.of(3, 4))
+      .mergeCoveredConditions(ImmutableMap.of(3, 1));
+
+    publisher.publish(writer);
+
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY), argThat(hasValue("1=2;2=0;3=1")));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.CONDITIONS_BY_LINE_KEY), argThat(hasValue("3=4")));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY), argThat(hasValue("3=1")));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.LINES_TO_COVER_KEY), argThat(hasValue(3)));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.UNCOVERED_LINES_KEY), argThat(hasValue(1)));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.CONDITIONS_TO_COVER_KEY), argThat(hasValue(4)));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.UNCOVERED_CONDITIONS_KEY), argThat(hasValue(3)));
+  }
+
+  private static ArgumentMatcher<DefaultMeasure<?>> hasValue(Serializable value) {
+    return new ArgumentMatcher<DefaultMeasure<?>>() {
+      @Override
+      public boolean matches(Object argument) {
+        return value.equals(((DefaultMeasure<?>) argument).value());
+      }
+    };
+  }
+
   @Test
   public void fail_with_IAE_when_measure_has_no_value() throws Exception {
     DefaultMeasure<Integer> measure = new DefaultMeasure<Integer>().forMetric(CoreMetrics.LINES_TO_COVER);
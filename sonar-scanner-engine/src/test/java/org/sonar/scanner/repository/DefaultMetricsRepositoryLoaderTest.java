@@ -20,21 +20,25 @@
 package org.sonar.scanner.repository;
 
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
-import org.apache.commons.io.IOUtils;
+import java.io.InputStream;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
 import org.sonar.scanner.WsTestUtil;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -46,12 +50,15 @@ public class DefaultMetricsRepositoryLoaderTest {
   @Rule
   public ExpectedException exception = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   @Before
   public void setUp() throws IOException {
     wsClient = mock(ScannerWsClient.class);
-    WsTestUtil.mockReader(wsClient, WS_URL + "1", new StringReader(IOUtils.toString(this.getClass().getResourceAsStream("DefaultMetricsRepositoryLoaderTest/page1.json"))));
-    WsTestUtil.mockReader(wsClient, WS_URL + "2", new StringReader(IOUtils.toString(this.getClass().getResourceAsStream("DefaultMetricsRepositoryLoaderTest/page2.json"))));
-    metricsRepositoryLoader = new DefaultMetricsRepositoryLoader(wsClient);
+    WsTestUtil.mockStream(wsClient, WS_URL + "1", this.getClass().getResourceAsStream("DefaultMetricsRepositoryLoaderTest/page1.json"));
+    WsTestUtil.mockStream(wsClient, WS_URL + "2", this.getClass().getResourceAsStream("DefaultMetricsRepositoryLoaderTest/page2.json"));
+    metricsRepositoryLoader = new DefaultMetricsRepositoryLoader(new ScannerWsCache(wsClient, FileCache.create(temp.newFolder(), mock(Logger.class))));
   }
 
   @Test
@@ -60,24 +67,27 @@ public class DefaultMetricsRepositoryLoaderTest {
     assertThat(metricsRepository.metrics()).hasSize(3);
     WsTestUtil.verifyCall(wsClient, WS_URL + "1");
     WsTestUtil.verifyCall(wsClient, WS_URL + "2");
+    verify(wsClient, atLeastOnce()).baseUrl();
     verifyNoMoreInteractions(wsClient);
   }
 
   @Test
   public void testIOError() throws IOException {
-    Reader reader = mock(Reader.class);
-    when(reader.read(any(char[].class), anyInt(), anyInt())).thenThrow(new IOException());
-    WsTestUtil.mockReader(wsClient, reader);
+    InputStream input = mock(InputStream.class);
+    when(input.read(any(byte[].class))).thenThrow(new IOException());
+    when(input.read(any(byte[].class), anyInt(), anyInt())).thenThrow(new IOException());
+    WsTestUtil.mockStream(wsClient, input);
     exception.expect(IllegalStateException.class);
     metricsRepositoryLoader.load();
   }
 
   @Test
   public void testCloseError() throws IOException {
-    Reader reader = mock(Reader.class);
-    when(reader.read(any(char[].class), anyInt(), anyInt())).thenReturn(-1);
-    doThrow(new IOException()).when(reader).close();
-    WsTestUtil.mockReader(wsClient, reader);
+    InputStream input = mock(InputStream.class);
+    when(input.read(any(byte[].class))).thenReturn(-1);
+    when(input.read(any(byte[].class), anyInt(), anyInt())).thenReturn(-1);
+    doThrow(new IOException()).when(input).close();
+    WsTestUtil.mockStream(wsClient, input);
     exception.expect(IllegalStateException.class);
     metricsRepositoryLoader.load();
   }
@@ -23,13 +23,18 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
 import org.sonar.scanner.WsTestUtil;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonarqube.ws.QualityProfiles;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse.QualityProfile;
@@ -40,10 +45,17 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 public class DefaultQualityProfileLoaderTest {
   @Rule
   public ExpectedException exception = ExpectedException.none();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   private ScannerWsClient wsClient = mock(ScannerWsClient.class);
   private Settings settings = new MapSettings();
-  private DefaultQualityProfileLoader underTest = new DefaultQualityProfileLoader(settings, wsClient);
+  private DefaultQualityProfileLoader underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    underTest = new DefaultQualityProfileLoader(settings, new ScannerWsCache(wsClient, FileCache.create(temp.newFolder(), mock(Logger.class))));
+  }
 
   @Test
   public void load_gets_profiles_for_specified_project_and_profile_name() throws IOException {
@@ -27,9 +27,13 @@ import java.util.Collection;
 import java.util.stream.IntStream;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
 import org.sonar.scanner.WsTestUtil;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
+import org.sonar.scanner.bootstrap.ScannerWsCache;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonarqube.ws.Rules;
 import org.sonarqube.ws.Rules.Active;
@@ -40,7 +44,9 @@ import org.sonarqube.ws.Rules.SearchResponse;
 import org.sonarqube.ws.Rules.SearchResponse.Builder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 public class DefaultActiveRulesLoaderTest {
@@ -52,13 +58,16 @@ public class DefaultActiveRulesLoaderTest {
   private static final String FORMAT_VALUE = "^[a-z][a-zA-Z0-9]*$";
   private static final String SEVERITY_VALUE = Severity.MINOR;
 
+  @org.junit.Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private DefaultActiveRulesLoader loader;
   private ScannerWsClient wsClient;
 
   @Before
-  public void setUp() {
+  public void setUp() throws IOException {
     wsClient = mock(ScannerWsClient.class);
-    loader = new DefaultActiveRulesLoader(wsClient);
+    loader = new DefaultActiveRulesLoader(new ScannerWsCache(wsClient, FileCache.create(temp.newFolder(), mock(Logger.class))));
   }
 
   @Test
@@ -82,6 +91,7 @@ public class DefaultActiveRulesLoaderTest {
 
     WsTestUtil.verifyCall(wsClient, urlOfPage(1));
     WsTestUtil.verifyCall(wsClient, urlOfPage(2));
+    verify(wsClient, atLeastOnce()).baseUrl();
 
     verifyNoMoreInteractions(wsClient);
   }
@@ -0,0 +1,151 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ParallelModulesScannerTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private DefaultInputModuleHierarchy tree = new DefaultInputModuleHierarchy();
+  private DefaultInputModule root = new DefaultInputModule("root");
+  private DefaultInputModule mod1 = new DefaultInputModule("mod1");
+  private DefaultInputModule mod2 = new DefaultInputModule("mod2");
+  private DefaultInputModule mod3 = new DefaultInputModule("mod3");
+  private DefaultInputModule mod4 = new DefaultInputModule("mod4");
+
+  @Before
+  public void setUp() {
+    tree.setRoot(root);
+    tree.index(mod1, root);
+    tree.index(mod2, mod1);
+    tree.index(mod3, mod1);
+    tree.index(mod4, root);
+  }
+
+  @Test
+  public void scan_children_before_their_parent() {
+    List<DefaultInputModule> scanned = new CopyOnWriteArrayList<>();
+
+    new ParallelModulesScanner(4).scan(tree, scanned::add);
+
+    assertThat(scanned).containsOnly(root, mod1, mod2, mod3, mod4).hasSize(5);
+    assertThat(scanned.indexOf(mod2)).isLessThan(scanned.indexOf(mod1));
+    assertThat(scanned.indexOf(mod3)).isLessThan(scanned.indexOf(mod1));
+    assertThat(scanned.get(4)).isEqualTo(root);
+  }
+
+  @Test
+  public void scan_root_on_calling_thread() {
+    Thread caller = Thread.currentThread();
+    List<DefaultInputModule> scannedByCaller = new CopyOnWriteArrayList<>();
+
+    new ParallelModulesScanner(4).scan(tree, m -> {
+      if (Thread.currentThread() == caller) {
+        scannedByCaller.add(m);
+      }
+    });
+
+    assertThat(scannedByCaller).containsExactly(root);
+  }
+
+  @Test
+  public void scan_independent_modules_concurrently() {
+    CountDownLatch leaves = new CountDownLatch(3);
+
+    new ParallelModulesScanner(3).scan(tree, m -> {
+      if (tree.children(m).isEmpty()) {
+        leaves.countDown();
+        await(leaves);
+      }
+    });
+
+    assertThat(leaves.getCount()).isZero();
+  }
+
+  @Test
+  public void fail_if_a_module_fails() {
+    List<DefaultInputModule> scanned = new CopyOnWriteArrayList<>();
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("boom");
+
+    try {
+      new ParallelModulesScanner(2).scan(tree, m -> {
+        if (m.equals(mod2)) {
+          throw new IllegalStateException("boom");
+        }
+        scanned.add(m);
+      });
+    } finally {
+      assertThat(scanned).doesNotContain(mod1, root);
+    }
+  }
+
+  @Test
+  public void let_running_modules_complete_if_a_module_fails() {
+    CountDownLatch failing = new CountDownLatch(1);
+    List<DefaultInputModule> completed = new CopyOnWriteArrayList<>();
+
+    try {
+      new ParallelModulesScanner(2).scan(tree, m -> {
+        if (m.equals(mod2)) {
+          failing.countDown();
+          throw new IllegalStateException("boom");
+        }
+        if (m.equals(mod3)) {
+          await(failing);
+          try {
+            Thread.sleep(200L);
+          } catch (InterruptedException e) {
+            throw new IllegalStateException("interrupted", e);
+          }
+        }
+        completed.add(m);
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("boom");
+    }
+
+    assertThat(completed).contains(mod3).doesNotContain(mod1, root);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class BlameSchedulerTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private FileSystem fs = mock(FileSystem.class);
+  private DefaultBlameOutput output = mock(DefaultBlameOutput.class);
+
+  @Test
+  public void blame_all_files_at_once_if_provider_does_not_support_parallel_blame() {
+    RecordingBlameCommand command = new RecordingBlameCommand(false);
+    List<InputFile> files = files(10);
+
+    new BlameScheduler(4, 1000L).blame(command, fs, files, output);
+
+    assertThat(command.calls).hasSize(1);
+    assertThat(command.calls.peek()).containsExactlyElementsOf(files);
+  }
+
+  @Test
+  public void blame_batches_in_parallel() {
+    RecordingBlameCommand command = new RecordingBlameCommand(true);
+    List<InputFile> files = files(20);
+
+    new BlameScheduler(4, 1000L).blame(command, fs, files, output);
+
+    assertThat(command.calls.size()).isGreaterThan(1);
+    List<InputFile> blamed = new ArrayList<>();
+    command.calls.forEach(blamed::addAll);
+    assertThat(blamed).containsOnlyElementsOf(files).hasSize(files.size());
+  }
+
+  @Test
+  public void fail_if_a_batch_fails() {
+    BlameCommand command = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        throw new IllegalStateException("boom");
+      }
+
+      @Override
+      public boolean isParallelBlameSupported() {
+        return true;
+      }
+    };
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("boom");
+
+    new BlameScheduler(2, 1000L).blame(command, fs, files(4), output);
+  }
+
+  @Test
+  public void cancel_batches_running_longer_than_timeout() throws Exception {
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/File" + i + ".xoo").setLines(1).build());
+    }
+    ScannerReportWriter writer = mock(ScannerReportWriter.class);
+    DefaultBlameOutput realOutput = new DefaultBlameOutput(writer, files);
+    CountDownLatch providerRelease = new CountDownLatch(1);
+    CountDownLatch lateResults = new CountDownLatch(files.size());
+    BlameCommand command = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        // as some providers, ignore interruptions and report results once done
+        awaitUninterruptibly(providerRelease);
+        try {
+          for (InputFile file : input.filesToBlame()) {
+            output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date())));
+          }
+        } finally {
+          input.filesToBlame().forEach(f -> lateResults.countDown());
+        }
+      }
+
+      @Override
+      public boolean isParallelBlameSupported() {
+        return true;
+      }
+    };
+
+    long start = System.currentTimeMillis();
+    new BlameScheduler(4, 10L).blame(command, fs, files, realOutput);
+    assertThat(System.currentTimeMillis() - start).isLessThan(10_000L);
+    realOutput.finish(true);
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).contains(
+      "Blame of 1 files, starting with src/File0.xoo, did not complete in 10 ms and is cancelled",
+      "Missing blame information for the following files:");
+
+    // results reported by cancelled batches after the end of blame are not written
+    providerRelease.countDown();
+    assertThat(lateResults.await(10, TimeUnit.SECONDS)).isTrue();
+    verify(writer, never()).writeComponentChangesets(any(ScannerReport.Changesets.class));
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static List<InputFile> files(int count) {
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/File" + i + ".xoo").build());
+    }
+    return files;
+  }
+
+  private static class RecordingBlameCommand extends BlameCommand {
+    private final boolean parallel;
+    private final Queue<List<InputFile>> calls = new ConcurrentLinkedQueue<>();
+
+    RecordingBlameCommand(boolean parallel) {
+      this.parallel = parallel;
+    }
+
+    @Override
+    public void blame(BlameInput input, BlameOutput output) {
+      List<InputFile> files = new ArrayList<>();
+      input.filesToBlame().forEach(files::add);
+      calls.add(files);
+    }
+
+    @Override
+    public boolean isParallelBlameSupported() {
+      return parallel;
+    }
+  }
+}
@@ -27,8 +27,15 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scm.DefaultBlameOutput;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 public class DefaultBlameOutputTest {
 
   @Rule
@@ -74,4 +81,25 @@ public class DefaultBlameOutputTest {
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
+  @Test
+  public void shouldIgnoreResultsReceivedAfterFinish() {
+    InputFile file = new TestInputFileBuilder("foo", "src/main/java/Foo.java").setLines(1).build();
+    DefaultBlameOutput output = new DefaultBlameOutput(null, Arrays.asList(file));
+    output.finish(false);
+
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+  }
+
+  @Test
+  public void shouldIgnoreDuplicateResultsReceivedAfterFinish() {
+    InputFile file = new TestInputFileBuilder("foo", "src/main/java/Foo.java").setLines(1).build();
+    ScannerReportWriter writer = mock(ScannerReportWriter.class);
+    DefaultBlameOutput output = new DefaultBlameOutput(writer, Arrays.asList(file));
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+    output.finish(true);
+
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+
+    verify(writer, times(1)).writeComponentChangesets(any(ScannerReport.Changesets.class));
+  }
 }
@@ -31,6 +31,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.measure.MetricFinder;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
 import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
@@ -45,7 +46,9 @@ import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.sensor.coverage.CoverageCache;
 import org.sonar.scanner.sensor.coverage.CoverageExclusions;
+import org.sonar.scanner.sensor.coverage.FileCoverage;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.MapEntry.entry;
@@ -66,6 +69,7 @@ public class DefaultSensorStorageTest {
   private Settings settings;
   private ModuleIssues moduleIssues;
   private MeasureCache measureCache;
+  private CoverageCache coverageCache = new CoverageCache();
   private ContextPropertiesCache contextPropertiesCache = new ContextPropertiesCache();
 
   @Before
@@ -73,6 +77,7 @@ public class DefaultSensorStorageTest {
     MetricFinder metricFinder = mock(MetricFinder.class);
     when(metricFinder.<Integer>findByKey(CoreMetrics.NCLOC_KEY)).thenReturn(CoreMetrics.NCLOC);
     when(metricFinder.<String>findByKey(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION_KEY)).thenReturn(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION);
+    when(metricFinder.<String>findByKey(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)).thenReturn(CoreMetrics.COVERAGE_LINE_HITS_DATA);
     settings = new MapSettings();
     moduleIssues = mock(ModuleIssues.class);
     measureCache = mock(MeasureCache.class);
@@ -81,7 +86,7 @@ public class DefaultSensorStorageTest {
     ReportPublisher reportPublisher = mock(ReportPublisher.class);
     when(reportPublisher.getWriter()).thenReturn(new ScannerReportWriter(temp.newFolder()));
     underTest = new DefaultSensorStorage(metricFinder,
-      moduleIssues, settings, coverageExclusions, reportPublisher, measureCache,
+      moduleIssues, settings, coverageExclusions, reportPublisher, measureCache, coverageCache,
       mock(SonarCpdBlockIndex.class), contextPropertiesCache, new ScannerMetrics());
   }
 
@@ -180,14 +185,28 @@ public class DefaultSensorStorageTest {
   }
 
   @Test
-  public void mergeCoverageLineMetrics_should_be_sorted() {
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=1", "1=1")).isEqualTo("1=2");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=1", "2=1")).isEqualTo("1=1;2=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "2=1", "1=1")).isEqualTo("1=1;2=1");
-
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "1=1", "1=1")).isEqualTo("1=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "1=1", "2=1")).isEqualTo("1=1;2=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "2=1", "1=1")).isEqualTo("1=1;2=1");
+  public void shouldMergeCoverageOfSeveralReports() {
+    InputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(10).build();
+
+    underTest.store((DefaultCoverage) new DefaultCoverage().onFile(file).lineHits(1, 1).lineHits(2, 0).conditions(2, 4, 1));
+    underTest.store((DefaultCoverage) new DefaultCoverage().onFile(file).lineHits(2, 3).lineHits(5, 0).conditions(2, 4, 3));
+
+    FileCoverage coverage = coverageCache.get(file.key());
+    assertThat(coverage.formatLineHits()).isEqualTo("1=1;2=3;5=0");
+    assertThat(coverage.formatConditions()).isEqualTo("2=4");
+    assertThat(coverage.formatCoveredConditions()).isEqualTo("2=3");
+  }
+
+  @Test
+  public void shouldMergeCoverageLineMeasuresOfDeprecatedSensorsWithCoverage() {
+    InputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(10).build();
+    underTest.store((DefaultCoverage) new DefaultCoverage().onFile(file).lineHits(1, 1));
+    underTest.store(new DefaultMeasure<String>()
+      .on(file)
+      .forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA)
+      .withValue("2=1;1=1"));
+
+    assertThat(coverageCache.get(file.key()).formatLineHits()).isEqualTo("1=2;2=1");
   }
 
 }
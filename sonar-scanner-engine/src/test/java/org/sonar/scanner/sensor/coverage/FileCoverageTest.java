@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.sensor.coverage;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.scanner.sensor.coverage.FileCoverage.UNDEFINED;
+
+public class FileCoverageTest {
+
+  private InputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(10).build();
+  private FileCoverage underTest = new FileCoverage();
+
+  @Test
+  public void empty_coverage() {
+    assertThat(underTest.hasLineHits()).isFalse();
+    assertThat(underTest.hasConditions()).isFalse();
+    assertThat(underTest.hasCoveredConditions()).isFalse();
+    assertThat(underTest.linesToCover()).isEqualTo(0);
+    assertThat(underTest.maxLine()).isEqualTo(0);
+    assertThat(underTest.formatLineHits()).isEmpty();
+  }
+
+  @Test
+  public void sum_hits_and_max_conditions_when_merging_line_data() {
+    underTest.mergeLineHits(ImmutableMap.of(1, 1, 3, 0));
+    underTest.mergeLineHits(ImmutableMap.of(1, 1, 2, 0));
+    underTest.mergeConditions(ImmutableMap.of(2, 2));
+    underTest.mergeConditions(ImmutableMap.of(2, 4));
+    underTest.mergeCoveredConditions(ImmutableMap.of(2, 3));
+    underTest.mergeCoveredConditions(ImmutableMap.of(2, 1));
+
+    assertThat(underTest.formatLineHits()).isEqualTo("1=2;2=0;3=0");
+    assertThat(underTest.formatConditions()).isEqualTo("2=4");
+    assertThat(underTest.formatCoveredConditions()).isEqualTo("2=3");
+  }
+
+  @Test
+  public void line_data_are_sorted_by_line() {
+    underTest.mergeLineHits(ImmutableMap.of(10, 1, 2, 1));
+    underTest.mergeLineHits(ImmutableMap.of(5, 3, 1, 0));
+
+    assertThat(underTest.formatLineHits()).isEqualTo("1=0;2=1;5=3;10=1");
+    assertThat(underTest.maxLine()).isEqualTo(10);
+  }
+
+  @Test
+  public void merge_sensor_coverage() {
+    underTest.merge((DefaultCoverage) new DefaultCoverage().onFile(file).lineHits(1, 2).lineHits(4, 0).conditions(4, 2, 1));
+    underTest.merge((DefaultCoverage) new DefaultCoverage().onFile(file).lineHits(4, 1).conditions(4, 2, 2).lineHits(7, 0));
+
+    assertThat(underTest.formatLineHits()).isEqualTo("1=2;4=1;7=0");
+    assertThat(underTest.formatConditions()).isEqualTo("4=2");
+    assertThat(underTest.formatCoveredConditions()).isEqualTo("4=2");
+  }
+
+  @Test
+  public void compute_totals() {
+    underTest.mergeLineHits(ImmutableMap.of(1, 2, 2, 0, 3, 0, 4, 1));
+    underTest.mergeConditions(ImmutableMap.of(2, 2, 4, 4));
+    underTest.mergeCoveredConditions(ImmutableMap.of(4, 3));
+
+    assertThat(underTest.linesToCover()).isEqualTo(4);
+    assertThat(underTest.uncoveredLines()).isEqualTo(2);
+    assertThat(underTest.conditionsToCover()).isEqualTo(6);
+    assertThat(underTest.uncoveredConditions()).isEqualTo(3);
+  }
+
+  @Test
+  public void visit_lines_having_data() {
+    underTest.mergeLineHits(ImmutableMap.of(1, 2, 3, 0));
+    underTest.mergeConditions(ImmutableMap.of(3, 2, 5, 1));
+    underTest.mergeCoveredConditions(ImmutableMap.of(3, 1));
+
+    List<String> visited = new ArrayList<>();
+    underTest.forEachLine((line, hits, conditions, coveredConditions) -> visited.add(line + ":" + hits + "," + conditions + "," + coveredConditions));
+
+    assertThat(visited).containsExactly("1:2," + UNDEFINED + "," + UNDEFINED, "3:0,2,1", "5:" + UNDEFINED + ",1," + UNDEFINED);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.persistit.Exchange;
+import com.persistit.Persistit;
+import com.persistit.Volume;
+import com.persistit.exception.PersistitException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.index.AbstractCachesTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of {@link Storage}, which gives an exchange to each thread, with the previous
+ * implementation, which shared a single exchange between all the threads behind a lock.
+ * Ignored, so it does not run in the build: run it manually. The concurrent accesses are verified by
+ * {@link StorageTest#put_and_get_from_several_threads()}.
+ */
+@Ignore("benchmark")
+public class StorageBenchmarkTest extends AbstractCachesTest {
+
+  private static final Logger LOG = Loggers.get(StorageBenchmarkTest.class);
+  private static final int COMPONENTS = 2_000;
+  private static final int METRICS = 250;
+  private static final int THREADS = 4;
+
+  @Test
+  public void benchmark_shared_exchange_versus_exchange_per_thread() throws Exception {
+    Persistit persistit = cachesManager.persistit();
+    Volume volume = persistit.createTemporaryVolume();
+    try {
+      SharedExchangeStorage shared = new SharedExchangeStorage(persistit.getExchange(volume, "shared", true));
+      long sharedMs = run(shared::put, shared::get, THREADS);
+
+      Storage<String> storage = caches.createCache("per_thread");
+      long perThreadMs = run(storage::put, storage::get, THREADS);
+
+      LOG.info("{} puts and gets with {} threads: {} ms with a shared exchange, {} ms with an exchange per thread",
+        COMPONENTS * METRICS, THREADS, sharedMs, perThreadMs);
+    } finally {
+      volume.close();
+      volume.delete();
+    }
+  }
+
+  private static long run(Put put, Get get, int threads) throws Exception {
+    long start = System.currentTimeMillis();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int first = t;
+        futures.add(executor.submit(() -> {
+          for (int c = first; c < COMPONENTS; c += threads) {
+            String component = "component" + c;
+            for (int m = 0; m < METRICS; m++) {
+              put.put(component, m, component + m);
+            }
+            for (int m = 0; m < METRICS; m++) {
+              assertThat(get.get(component, m)).isEqualTo(component + m);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  @FunctionalInterface
+  private interface Put {
+    void put(String component, int metric, String value);
+  }
+
+  @FunctionalInterface
+  private interface Get {
+    String get(String component, int metric);
+  }
+
+  /**
+   * Accesses of the previous implementation of {@link Storage}: a single exchange, guarded by a lock
+   */
+  private static class SharedExchangeStorage {
+    private final Exchange exchange;
+
+    private SharedExchangeStorage(Exchange exchange) {
+      this.exchange = exchange;
+    }
+
+    synchronized void put(String component, int metric, String value) {
+      try {
+        exchange.clear().append(component).append(metric);
+        exchange.getValue().put(value);
+        exchange.store();
+      } catch (PersistitException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    synchronized String get(String component, int metric) {
+      try {
+        exchange.clear().append(component).append(metric);
+        exchange.fetch();
+        return (String) exchange.getValue().get();
+      } catch (PersistitException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
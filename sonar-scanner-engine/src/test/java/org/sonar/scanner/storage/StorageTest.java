@@ -20,6 +20,11 @@
 package org.sonar.scanner.storage;
 
 import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import org.sonar.scanner.index.AbstractCachesTest;
 import org.sonar.scanner.storage.Storage;
@@ -249,4 +254,31 @@ public class StorageTest extends AbstractCachesTest {
     cache.clear("foo", "bar", "baz");
     cache.clear();
   }
+
+  @Test
+  public void put_and_get_from_several_threads() throws Exception {
+    Storage<String> cache = caches.createCache("concurrent");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        String thread = "thread" + t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            cache.put(thread, i, thread + i);
+            assertThat(cache.get(thread, i)).isEqualTo(thread + i);
+          }
+          assertThat(cache.values(thread)).hasSize(1_000);
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(cache.keySet()).containsOnly("thread0", "thread1", "thread2", "thread3");
+    assertThat(cache.values()).hasSize(4_000);
+  }
 }
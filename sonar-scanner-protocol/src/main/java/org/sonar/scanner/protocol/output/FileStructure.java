@@ -27,26 +27,36 @@ import java.io.File;
 public class FileStructure {
 
   public enum Domain {
-    ISSUES("issues-", Domain.PB),
-    COMPONENT("component-", Domain.PB),
-    MEASURES("measures-", Domain.PB),
-    DUPLICATIONS("duplications-", Domain.PB),
-    CPD_TEXT_BLOCKS("cpd-text-block-", Domain.PB),
-    SYNTAX_HIGHLIGHTINGS("syntax-highlightings-", Domain.PB),
-    CHANGESETS("changesets-", Domain.PB),
-    SYMBOLS("symbols-", Domain.PB),
-    COVERAGES("coverages-", Domain.PB),
-    TESTS("tests-", Domain.PB),
-    COVERAGE_DETAILS("coverage-details-", Domain.PB),
-    SOURCE("source-", ".txt");
+    ISSUES("issues-", Domain.PB, true),
+    COMPONENT("component-", Domain.PB, true),
+    MEASURES("measures-", Domain.PB, true),
+    DUPLICATIONS("duplications-", Domain.PB, true),
+    CPD_TEXT_BLOCKS("cpd-text-block-", Domain.PB, true),
+    SYNTAX_HIGHLIGHTINGS("syntax-highlightings-", Domain.PB, true),
+    CHANGESETS("changesets-", Domain.PB, true),
+    SYMBOLS("symbols-", Domain.PB, true),
+    COVERAGES("coverages-", Domain.PB, true),
+    TESTS("tests-", Domain.PB, false),
+    COVERAGE_DETAILS("coverage-details-", Domain.PB, false),
+    SOURCE("source-", ".txt", false);
 
     private static final String PB = ".pb";
     private final String filePrefix;
     private final String fileSuffix;
+    private final boolean segmented;
 
-    Domain(String filePrefix, String fileSuffix) {
+    Domain(String filePrefix, String fileSuffix, boolean segmented) {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
+      this.segmented = segmented;
+    }
+
+    /**
+     * Data of segmented domains is stored in a single data file for all the components, plus
+     * an index file. Other domains have one file per component.
+     */
+    public boolean isSegmented() {
+      return segmented;
     }
   }
 
@@ -71,14 +81,44 @@ public class FileStructure {
     return new File(dir, "activerules.pb");
   }
 
+  /**
+   * File of a component for the domains that are not segmented.
+   * @throws IllegalArgumentException if the domain is segmented
+   * @see #segmentFile(Domain)
+   */
   public File fileFor(Domain domain, int componentRef) {
+    if (domain.segmented) {
+      throw new IllegalArgumentException("Data of domain " + domain + " is stored in a segment file");
+    }
     return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
   }
 
+  /**
+   * Append-only file containing the data of all the components for a segmented domain
+   */
+  public File segmentFile(Domain domain) {
+    checkSegmented(domain);
+    return new File(dir, domain.filePrefix + "segment" + domain.fileSuffix);
+  }
+
+  /**
+   * Append-only index of {@link #segmentFile(Domain)}, giving the location of the data of each component
+   */
+  public File segmentIndexFile(Domain domain) {
+    checkSegmented(domain);
+    return new File(dir, domain.filePrefix + "segment.idx");
+  }
+
+  private static void checkSegmented(Domain domain) {
+    if (!domain.segmented) {
+      throw new IllegalArgumentException("Domain " + domain + " is not segmented");
+    }
+  }
+
   public File contextProperties() {
     return new File(dir, "context-props.pb");
   }
-  
+
   public File root() {
     return dir;
   }
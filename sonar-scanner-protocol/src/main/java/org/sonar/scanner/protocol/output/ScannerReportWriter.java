@@ -19,22 +19,29 @@
  */
 package org.sonar.scanner.protocol.output;
 
-import java.io.BufferedOutputStream;
+import com.google.protobuf.Message;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import org.sonar.core.util.ContextException;
+import java.util.EnumMap;
+import java.util.Map;
 import org.sonar.core.util.Protobuf;
 
+import static java.util.Collections.singletonList;
+
 public class ScannerReportWriter {
 
   private final FileStructure fileStructure;
+  private final Map<FileStructure.Domain, SegmentWriter> segments = new EnumMap<>(FileStructure.Domain.class);
 
   public ScannerReportWriter(File dir) {
     if (!dir.exists() && !dir.mkdirs()) {
       throw new IllegalStateException("Unable to create directory: " + dir);
     }
     this.fileStructure = new FileStructure(dir);
+    for (FileStructure.Domain domain : FileStructure.Domain.values()) {
+      if (domain.isSegmented()) {
+        segments.put(domain, new SegmentWriter(fileStructure.segmentFile(domain), fileStructure.segmentIndexFile(domain)));
+      }
+    }
   }
 
   public FileStructure getFileStructure() {
@@ -42,6 +49,9 @@ public class ScannerReportWriter {
   }
 
   public boolean hasComponentData(FileStructure.Domain domain, int componentRef) {
+    if (domain.isSegmented()) {
+      return segments.get(domain).contains(componentRef);
+    }
     File file = fileStructure.fileFor(domain, componentRef);
     return file.exists() && file.isFile();
   }
@@ -60,66 +70,43 @@ public class ScannerReportWriter {
   }
 
   public File writeComponent(ScannerReport.Component component) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, component.getRef());
-    Protobuf.write(component, file);
-    return file;
+    return writeSegment(FileStructure.Domain.COMPONENT, component.getRef(), singletonList(component), false);
   }
 
   public File writeComponentIssues(int componentRef, Iterable<ScannerReport.Issue> issues) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    Protobuf.writeStream(issues, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.ISSUES, componentRef, issues, false);
   }
 
   public void appendComponentIssue(int componentRef, ScannerReport.Issue issue) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true))) {
-      issue.writeDelimitedTo(out);
-    } catch (Exception e) {
-      throw ContextException.of("Unable to write issue", e).addContext("file", file);
-    }
+    writeSegment(FileStructure.Domain.ISSUES, componentRef, singletonList(issue), true);
   }
 
   public File writeComponentMeasures(int componentRef, Iterable<ScannerReport.Measure> measures) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    Protobuf.writeStream(measures, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.MEASURES, componentRef, measures, false);
   }
 
   public File writeComponentChangesets(ScannerReport.Changesets changesets) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, changesets.getComponentRef());
-    Protobuf.write(changesets, file);
-    return file;
+    return writeSegment(FileStructure.Domain.CHANGESETS, changesets.getComponentRef(), singletonList(changesets), false);
   }
 
   public File writeComponentDuplications(int componentRef, Iterable<ScannerReport.Duplication> duplications) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    Protobuf.writeStream(duplications, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.DUPLICATIONS, componentRef, duplications, false);
   }
 
   public File writeCpdTextBlocks(int componentRef, Iterable<ScannerReport.CpdTextBlock> blocks) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    Protobuf.writeStream(blocks, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, blocks, false);
   }
 
   public File writeComponentSymbols(int componentRef, Iterable<ScannerReport.Symbol> symbols) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    Protobuf.writeStream(symbols, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.SYMBOLS, componentRef, symbols, false);
   }
 
   public File writeComponentSyntaxHighlighting(int componentRef, Iterable<ScannerReport.SyntaxHighlightingRule> syntaxHighlightingRules) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    Protobuf.writeStream(syntaxHighlightingRules, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef, syntaxHighlightingRules, false);
   }
 
   public File writeComponentCoverage(int componentRef, Iterable<ScannerReport.LineCoverage> coverageList) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    Protobuf.writeStream(coverageList, file, false);
-    return file;
+    return writeSegment(FileStructure.Domain.COVERAGES, componentRef, coverageList, false);
   }
 
   public File writeTests(int componentRef, Iterable<ScannerReport.Test> tests) {
@@ -140,8 +127,20 @@ public class ScannerReportWriter {
     return file;
   }
 
+  /**
+   * Closes the files of segmented domains, which are kept open between writes. Must be called before
+   * compressing the report directory.
+   */
+  public void close() {
+    segments.values().forEach(SegmentWriter::close);
+  }
+
   public File getSourceFile(int componentRef) {
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
 
+  private File writeSegment(FileStructure.Domain domain, int componentRef, Iterable<? extends Message> messages, boolean append) {
+    return segments.get(domain).write(componentRef, messages, append);
+  }
+
 }
@@ -0,0 +1,196 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.ContextException;
+import org.sonar.core.util.Protobuf;
+
+import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
+
+/**
+ * Random access to the data of a segmented {@link FileStructure.Domain}. The index is loaded in memory
+ * and is refreshed when new entries are appended by {@link SegmentWriter}.
+ */
+class SegmentReader {
+
+  // component ref (int), offset (long), length (long), append flag (boolean)
+  private static final int INDEX_ENTRY_SIZE = 4 + 8 + 8 + 1;
+
+  private final File segmentFile;
+  private final File indexFile;
+  private final Map<Integer, List<Chunk>> chunksByRef = new HashMap<>();
+  private long loadedIndexLength = 0L;
+
+  SegmentReader(File segmentFile, File indexFile) {
+    this.segmentFile = segmentFile;
+    this.indexFile = indexFile;
+  }
+
+  boolean contains(int componentRef) {
+    return chunks(componentRef) != null;
+  }
+
+  /**
+   * Returns an empty iterator if there is no data for the component.
+   */
+  <M extends Message> CloseableIterator<M> readStream(int componentRef, Parser<M> parser) {
+    List<Chunk> chunks = chunks(componentRef);
+    if (chunks == null || chunks.isEmpty()) {
+      return emptyCloseableIterator();
+    }
+    try {
+      // the input stream is closed by the CloseableIterator
+      return Protobuf.readStream(new BufferedInputStream(new ChunksInputStream(segmentFile, chunks)), parser);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read messages", e).addContext("file", segmentFile);
+    }
+  }
+
+  /**
+   * Returns the first message written for the component, or {@code null} if there is no data for the component.
+   */
+  @CheckForNull
+  <M extends Message> M read(int componentRef, Parser<M> parser) {
+    try (CloseableIterator<M> messages = readStream(componentRef, parser)) {
+      return messages.hasNext() ? messages.next() : null;
+    }
+  }
+
+  @CheckForNull
+  private synchronized List<Chunk> chunks(int componentRef) {
+    refreshIndex();
+    List<Chunk> chunks = chunksByRef.get(componentRef);
+    return chunks == null ? null : new ArrayList<>(chunks);
+  }
+
+  private void refreshIndex() {
+    long indexLength = indexFile.length();
+    if (indexLength <= loadedIndexLength) {
+      return;
+    }
+    long entries = (indexLength - loadedIndexLength) / INDEX_ENTRY_SIZE;
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      skipFully(input, loadedIndexLength);
+      for (long i = 0; i < entries; i++) {
+        int componentRef = input.readInt();
+        Chunk chunk = new Chunk(input.readLong(), input.readLong());
+        boolean append = input.readBoolean();
+        List<Chunk> chunks = chunksByRef.computeIfAbsent(componentRef, ref -> new ArrayList<>(1));
+        if (!append) {
+          chunks.clear();
+        }
+        chunks.add(chunk);
+      }
+      loadedIndexLength += entries * INDEX_ENTRY_SIZE;
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read index", e).addContext("file", indexFile);
+    }
+  }
+
+  private static void skipFully(InputStream input, long bytes) throws IOException {
+    long remaining = bytes;
+    while (remaining > 0) {
+      long skipped = input.skip(remaining);
+      if (skipped <= 0) {
+        throw new EOFException();
+      }
+      remaining -= skipped;
+    }
+  }
+
+  private static class Chunk {
+    private final long offset;
+    private final long length;
+
+    private Chunk(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Concatenates the chunks of a component. Positional reads are used, so the stream never reads data
+   * of other components.
+   */
+  private static class ChunksInputStream extends InputStream {
+    private final FileChannel channel;
+    private final Iterator<Chunk> chunks;
+    private final byte[] singleByte = new byte[1];
+    private long position = 0L;
+    private long remaining = 0L;
+
+    private ChunksInputStream(File file, List<Chunk> chunks) throws IOException {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      this.chunks = chunks.iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = read(singleByte, 0, 1);
+      return read == -1 ? -1 : (singleByte[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (remaining == 0L) {
+        if (!chunks.hasNext()) {
+          return -1;
+        }
+        Chunk chunk = chunks.next();
+        position = chunk.offset;
+        remaining = chunk.length;
+      }
+      int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+      if (read < 0) {
+        throw new EOFException("Segment file is truncated");
+      }
+      position += read;
+      remaining -= read;
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
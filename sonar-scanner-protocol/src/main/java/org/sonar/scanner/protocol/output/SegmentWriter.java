@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import com.google.protobuf.Message;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.sonar.core.util.ContextException;
+
+/**
+ * Writes the data of a segmented {@link FileStructure.Domain}. Each write appends a chunk of delimited
+ * messages to the segment file, and an entry (component ref, offset, length, append flag) to the index file.
+ * <p>
+ * Both files are append-only and stay open until {@link #close()}. Each write is flushed, segment before index,
+ * so that chunks are visible to {@link SegmentReader} as soon as they are indexed.
+ *
+ * @see SegmentReader
+ */
+class SegmentWriter implements Closeable {
+
+  private final File segmentFile;
+  private final File indexFile;
+  private final BitSet refs = new BitSet();
+  private long segmentLengthAtOpening;
+  @CheckForNull
+  private CountingOutputStream segmentOutput;
+  @CheckForNull
+  private DataOutputStream indexOutput;
+
+  SegmentWriter(File segmentFile, File indexFile) {
+    this.segmentFile = segmentFile;
+    this.indexFile = indexFile;
+  }
+
+  synchronized boolean contains(int componentRef) {
+    return refs.get(componentRef);
+  }
+
+  /**
+   * @param append if {@code false}, the messages replace the ones previously written for the component
+   */
+  synchronized File write(int componentRef, Iterable<? extends Message> messages, boolean append) {
+    long offset;
+    long length;
+    try {
+      if (segmentOutput == null) {
+        segmentLengthAtOpening = segmentFile.length();
+        segmentOutput = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(segmentFile, true)));
+      }
+      offset = segmentLengthAtOpening + segmentOutput.getByteCount();
+      for (Message message : messages) {
+        message.writeDelimitedTo(segmentOutput);
+      }
+      segmentOutput.flush();
+      length = segmentLengthAtOpening + segmentOutput.getByteCount() - offset;
+    } catch (Exception e) {
+      throw ContextException.of("Unable to write messages", e).addContext("file", segmentFile);
+    }
+
+    try {
+      if (indexOutput == null) {
+        indexOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+      }
+      indexOutput.writeInt(componentRef);
+      indexOutput.writeLong(offset);
+      indexOutput.writeLong(length);
+      indexOutput.writeBoolean(append);
+      indexOutput.flush();
+    } catch (Exception e) {
+      throw ContextException.of("Unable to write index", e).addContext("file", indexFile);
+    }
+    refs.set(componentRef);
+    return segmentFile;
+  }
+
+  /**
+   * Closes the files. They are opened again by the next write, if any.
+   */
+  @Override
+  public synchronized void close() {
+    try {
+      if (segmentOutput != null) {
+        segmentOutput.close();
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to close file", e).addContext("file", segmentFile);
+    } finally {
+      segmentOutput = null;
+    }
+    try {
+      if (indexOutput != null) {
+        indexOutput.close();
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to close file", e).addContext("file", indexFile);
+    } finally {
+      indexOutput = null;
+    }
+  }
+}
@@ -61,14 +61,41 @@ public class FileStructureTest {
   public void locate_files() throws Exception {
     File dir = temp.newFolder();
     FileUtils.write(new File(dir, "metadata.pb"), "metadata content");
-    FileUtils.write(new File(dir, "issues-3.pb"), "issues of component 3");
-    FileUtils.write(new File(dir, "component-42.pb"), "details of component 42");
+    FileUtils.write(new File(dir, "tests-3.pb"), "tests of component 3");
+    FileUtils.write(new File(dir, "source-42.txt"), "source of component 42");
+    FileUtils.write(new File(dir, "issues-segment.pb"), "issues of all components");
+    FileUtils.write(new File(dir, "issues-segment.idx"), "index of issues");
 
     FileStructure structure = new FileStructure(dir);
     assertThat(structure.metadataFile()).exists().isFile();
-    assertThat(structure.fileFor(FileStructure.Domain.COMPONENT, 42)).exists().isFile();
-    assertThat(structure.fileFor(FileStructure.Domain.ISSUES, 3)).exists().isFile();
-    assertThat(structure.fileFor(FileStructure.Domain.ISSUES, 42)).doesNotExist();
+    assertThat(structure.fileFor(FileStructure.Domain.SOURCE, 42)).exists().isFile();
+    assertThat(structure.fileFor(FileStructure.Domain.TESTS, 3)).exists().isFile();
+    assertThat(structure.fileFor(FileStructure.Domain.TESTS, 42)).doesNotExist();
+    assertThat(structure.segmentFile(FileStructure.Domain.ISSUES)).exists().isFile();
+    assertThat(structure.segmentIndexFile(FileStructure.Domain.ISSUES)).exists().isFile();
+    assertThat(structure.segmentFile(FileStructure.Domain.MEASURES)).doesNotExist();
+  }
+
+  @Test
+  public void fail_to_locate_component_file_of_segmented_domain() throws Exception {
+    FileStructure structure = new FileStructure(temp.newFolder());
+    try {
+      structure.fileFor(FileStructure.Domain.ISSUES, 3);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Data of domain ISSUES is stored in a segment file");
+    }
+  }
+
+  @Test
+  public void fail_to_locate_segment_of_domain_not_segmented() throws Exception {
+    FileStructure structure = new FileStructure(temp.newFolder());
+    try {
+      structure.segmentFile(FileStructure.Domain.SOURCE);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Domain SOURCE is not segmented");
+    }
   }
 
   @Test
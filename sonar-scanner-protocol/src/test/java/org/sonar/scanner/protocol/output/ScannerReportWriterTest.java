@@ -87,9 +87,7 @@ public class ScannerReportWriterTest {
     underTest.writeComponent(component.build());
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.COMPONENT, 1);
-    assertThat(file).exists().isFile();
-    ScannerReport.Component read = Protobuf.read(file, ScannerReport.Component.parser());
+    ScannerReport.Component read = new ScannerReportReader(dir).readComponent(1);
     assertThat(read.getRef()).isEqualTo(1);
     assertThat(read.getChildRefList()).containsOnly(5, 42);
     assertThat(read.getName()).isEmpty();
@@ -109,13 +107,58 @@ public class ScannerReportWriterTest {
     underTest.writeComponentIssues(1, asList(issue));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.ISSUES, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Issue> read = Protobuf.readStream(file, ScannerReport.Issue.parser())) {
+    try (CloseableIterator<ScannerReport.Issue> read = new ScannerReportReader(dir).readComponentIssues(1)) {
       assertThat(Iterators.size(read)).isEqualTo(1);
     }
   }
 
+  @Test
+  public void append_issues_of_several_components_to_the_same_segment() {
+    underTest.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setMsg("first").build());
+    underTest.appendComponentIssue(2, ScannerReport.Issue.newBuilder().setMsg("other").build());
+    underTest.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setMsg("second").build());
+
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isTrue();
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 2)).isTrue();
+    assertThat(underTest.getFileStructure().segmentFile(FileStructure.Domain.ISSUES)).exists().isFile();
+    assertThat(dir.list()).doesNotContain("issues-1.pb", "issues-2.pb");
+    ScannerReportReader reader = new ScannerReportReader(dir);
+    try (CloseableIterator<ScannerReport.Issue> read = reader.readComponentIssues(1)) {
+      assertThat(read).extracting(ScannerReport.Issue::getMsg).containsExactly("first", "second");
+    }
+    try (CloseableIterator<ScannerReport.Issue> read = reader.readComponentIssues(2)) {
+      assertThat(read).extracting(ScannerReport.Issue::getMsg).containsExactly("other");
+    }
+  }
+
+  @Test
+  public void write_replaces_data_previously_written_for_the_component() {
+    underTest.writeComponentMeasures(1, asList(ScannerReport.Measure.newBuilder().setMetricKey("lines").build()));
+    underTest.writeComponentMeasures(2, asList(ScannerReport.Measure.newBuilder().setMetricKey("ncloc").build()));
+    underTest.writeComponentMeasures(1, asList(ScannerReport.Measure.newBuilder().setMetricKey("complexity").build()));
+
+    try (CloseableIterator<ScannerReport.Measure> read = new ScannerReportReader(dir).readComponentMeasures(1)) {
+      assertThat(read).extracting(ScannerReport.Measure::getMetricKey).containsExactly("complexity");
+    }
+  }
+
+  @Test
+  public void write_after_close_appends_to_existing_segment() {
+    underTest.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setMsg("first").build());
+    underTest.close();
+    underTest.appendComponentIssue(2, ScannerReport.Issue.newBuilder().setMsg("other").build());
+    underTest.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setMsg("second").build());
+    underTest.close();
+
+    ScannerReportReader reader = new ScannerReportReader(dir);
+    try (CloseableIterator<ScannerReport.Issue> read = reader.readComponentIssues(1)) {
+      assertThat(read).extracting(ScannerReport.Issue::getMsg).containsExactly("first", "second");
+    }
+    try (CloseableIterator<ScannerReport.Issue> read = reader.readComponentIssues(2)) {
+      assertThat(read).extracting(ScannerReport.Issue::getMsg).containsExactly("other");
+    }
+  }
+
   @Test
   public void write_measures() {
     assertThat(underTest.hasComponentData(FileStructure.Domain.MEASURES, 1)).isFalse();
@@ -127,9 +170,7 @@ public class ScannerReportWriterTest {
     underTest.writeComponentMeasures(1, asList(measure));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.MEASURES, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.MEASURES, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Measure> read = Protobuf.readStream(file, ScannerReport.Measure.parser())) {
+    try (CloseableIterator<ScannerReport.Measure> read = new ScannerReportReader(dir).readComponentMeasures(1)) {
       assertThat(Iterators.size(read)).isEqualTo(1);
     }
   }
@@ -150,9 +191,7 @@ public class ScannerReportWriterTest {
     underTest.writeComponentChangesets(scm);
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.CHANGESETS, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.CHANGESETS, 1);
-    assertThat(file).exists().isFile();
-    ScannerReport.Changesets read = Protobuf.read(file, ScannerReport.Changesets.parser());
+    ScannerReport.Changesets read = new ScannerReportReader(dir).readChangesets(1);
     assertThat(read.getComponentRef()).isEqualTo(1);
     assertThat(read.getChangesetCount()).isEqualTo(1);
     assertThat(read.getChangesetList()).hasSize(1);
@@ -179,9 +218,7 @@ public class ScannerReportWriterTest {
     underTest.writeComponentDuplications(1, asList(duplication));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.DUPLICATIONS, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.DUPLICATIONS, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Duplication> duplications = Protobuf.readStream(file, ScannerReport.Duplication.parser())) {
+    try (CloseableIterator<ScannerReport.Duplication> duplications = new ScannerReportReader(dir).readComponentDuplications(1)) {
       ScannerReport.Duplication dup = duplications.next();
       assertThat(dup.getOriginPosition()).isNotNull();
       assertThat(dup.getDuplicateList()).hasSize(1);
@@ -202,9 +239,7 @@ public class ScannerReportWriterTest {
     underTest.writeCpdTextBlocks(1, asList(duplicationBlock));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.CPD_TEXT_BLOCKS, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.CpdTextBlock> duplicationBlocks = Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser())) {
+    try (CloseableIterator<ScannerReport.CpdTextBlock> duplicationBlocks = new ScannerReportReader(dir).readCpdTextBlocks(1)) {
       ScannerReport.CpdTextBlock duplicationBlockResult = duplicationBlocks.next();
       assertThat(duplicationBlockResult.getHash()).isEqualTo("abcdefghijklmnop");
       assertThat(duplicationBlockResult.getStartLine()).isEqualTo(1);
@@ -239,9 +274,7 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.SYMBOLS, 1)).isTrue();
 
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.SYMBOLS, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Symbol> read = Protobuf.readStream(file, ScannerReport.Symbol.parser())) {
+    try (CloseableIterator<ScannerReport.Symbol> read = new ScannerReportReader(dir).readComponentSymbols(1)) {
       assertThat(read).hasSize(1);
     }
   }
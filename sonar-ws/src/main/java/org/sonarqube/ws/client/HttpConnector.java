@@ -22,10 +22,13 @@ package org.sonarqube.ws.client;
 import java.io.IOException;
 import java.net.Proxy;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
 import okhttp3.FormBody;
 import okhttp3.HttpUrl;
@@ -45,11 +48,20 @@ import static java.lang.String.format;
  * Connect to any SonarQube server available through HTTP or HTTPS.
  * <p>TLS 1.0, 1.1 and 1.2 are supported on both Java 7 and 8. SSLv3 is not supported.</p>
  * <p>The JVM system proxies are used.</p>
+ * <p>Connections are kept alive in a pool shared by all the connectors, unless a dedicated
+ * pool is set with {@link Builder#connectionPool(ConnectionPool)}. HTTP/2 is negotiated when
+ * the server and the JVM support ALPN. Responses are transparently decompressed when the
+ * server compresses them.</p>
  */
 public class HttpConnector implements WsConnector {
 
   public static final int DEFAULT_CONNECT_TIMEOUT_MILLISECONDS = 30_000;
   public static final int DEFAULT_READ_TIMEOUT_MILLISECONDS = 60_000;
+  public static final int DEFAULT_MAX_RETRIES = 0;
+  public static final long DEFAULT_RETRY_BACKOFF_MILLISECONDS = 500L;
+  public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+  private static final int RETRY_BUDGET_MAX_BALANCE = 10;
+  private static final ConnectionPool SHARED_CONNECTION_POOL = new ConnectionPool();
 
   /**
    * Base URL with trailing slash, for instance "https://localhost/sonarqube/".
@@ -81,6 +93,14 @@ public class HttpConnector implements WsConnector {
     okHttpClientBuilder.setReadTimeoutMs(builder.readTimeoutMs);
     okHttpClientBuilder.setSSLSocketFactory(builder.sslSocketFactory);
     okHttpClientBuilder.setTrustManager(builder.sslTrustManager);
+    okHttpClientBuilder.setConnectionPool(builder.connectionPool != null ? builder.connectionPool : SHARED_CONNECTION_POOL);
+    if (builder.maxRequestsPerHost > 0) {
+      okHttpClientBuilder.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+    }
+    if (builder.maxRetries > 0) {
+      RetryBudget retryBudget = new RetryBudget(builder.retryBudgetRatio, RETRY_BUDGET_MAX_BALANCE);
+      okHttpClientBuilder.addInterceptor(new RetryInterceptor(builder.maxRetries, builder.retryBackoffMs, retryBudget));
+    }
     this.okHttpClient = okHttpClientBuilder.build();
   }
 
@@ -95,6 +115,39 @@ public class HttpConnector implements WsConnector {
 
   @Override
   public WsResponse call(WsRequest httpRequest) {
+    return doCall(newOkRequest(httpRequest));
+  }
+
+  /**
+   * Executes the request in the thread pool of OkHttp. The number of concurrent requests
+   * on the same server is limited, see {@link Builder#maxRequestsPerHost(int)}. Cancelling the
+   * returned future cancels the HTTP call.
+   */
+  @Override
+  public CompletableFuture<WsResponse> callAsync(WsRequest httpRequest) {
+    Request okRequest = newOkRequest(httpRequest);
+    Call call = okHttpClient.newCall(okRequest);
+    CompletableFuture<WsResponse> future = new CompletableFuture<>();
+    future.whenComplete((response, failure) -> {
+      if (future.isCancelled()) {
+        call.cancel();
+      }
+    });
+    call.enqueue(new Callback() {
+      @Override
+      public void onFailure(Call failedCall, IOException e) {
+        future.completeExceptionally(new IllegalStateException("Fail to request " + okRequest.url(), e));
+      }
+
+      @Override
+      public void onResponse(Call successfulCall, Response okResponse) {
+        future.complete(new OkHttpResponse(okResponse));
+      }
+    });
+    return future;
+  }
+
+  private Request newOkRequest(WsRequest httpRequest) {
     if (httpRequest instanceof GetRequest) {
       return get((GetRequest) httpRequest);
     }
@@ -104,15 +157,15 @@ public class HttpConnector implements WsConnector {
     throw new IllegalArgumentException(format("Unsupported implementation: %s", httpRequest.getClass()));
   }
 
-  private WsResponse get(GetRequest getRequest) {
+  private Request get(GetRequest getRequest) {
     HttpUrl.Builder urlBuilder = prepareUrlBuilder(getRequest);
     completeUrlQueryParameters(getRequest, urlBuilder);
 
     Request.Builder okRequestBuilder = prepareOkRequestBuilder(getRequest, urlBuilder).get();
-    return doCall(okRequestBuilder.build());
+    return okRequestBuilder.build();
   }
 
-  private WsResponse post(PostRequest postRequest) {
+  private Request post(PostRequest postRequest) {
     HttpUrl.Builder urlBuilder = prepareUrlBuilder(postRequest);
 
     RequestBody body;
@@ -140,7 +193,7 @@ public class HttpConnector implements WsConnector {
       body = bodyBuilder.build();
     }
     Request.Builder reqBuilder = prepareOkRequestBuilder(postRequest, urlBuilder);
-    return doCall(reqBuilder.post(body).build());
+    return reqBuilder.post(body).build();
   }
 
   private HttpUrl.Builder prepareUrlBuilder(WsRequest wsRequest) {
@@ -164,6 +217,8 @@ public class HttpConnector implements WsConnector {
     if (credentials != null) {
       okHttpRequestBuilder.header("Authorization", credentials);
     }
+    getRequest.getHeaders().getNames()
+      .forEach(name -> getRequest.getHeaders().getValue(name).ifPresent(value -> okHttpRequestBuilder.header(name, value)));
     return okHttpRequestBuilder;
   }
 
@@ -196,6 +251,11 @@ public class HttpConnector implements WsConnector {
     private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MILLISECONDS;
     private SSLSocketFactory sslSocketFactory = null;
     private X509TrustManager sslTrustManager = null;
+    private ConnectionPool connectionPool = null;
+    private int maxRequestsPerHost = -1;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long retryBackoffMs = DEFAULT_RETRY_BACKOFF_MILLISECONDS;
+    private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
 
     /**
      * Private since 5.5.
@@ -285,6 +345,60 @@ public class HttpConnector implements WsConnector {
       return this;
     }
 
+    /**
+     * Optional pool of connections. By default a pool is shared by all the connectors.
+     * @since 6.5
+     */
+    public Builder connectionPool(@Nullable ConnectionPool connectionPool) {
+      this.connectionPool = connectionPool;
+      return this;
+    }
+
+    /**
+     * Maximum number of requests executed concurrently on the same server by {@link HttpConnector#callAsync(WsRequest)}.
+     * Default value is defined by OkHttp (5 in OkHttp 3.7).
+     * @since 6.5
+     */
+    public Builder maxRequestsPerHost(int i) {
+      checkArgument(i > 0, "Max requests per host must be at least 1. Got %s", i);
+      this.maxRequestsPerHost = i;
+      return this;
+    }
+
+    /**
+     * Maximum number of retries of a GET request that fails because of a connectivity problem or because
+     * the server is temporarily unavailable (HTTP codes 429, 502, 503 and 504). Default value is
+     * {@link #DEFAULT_MAX_RETRIES}, which disables retries.
+     * @since 6.5
+     */
+    public Builder maxRetries(int i) {
+      checkArgument(i >= 0, "Max retries must be positive. Got %s", i);
+      this.maxRetries = i;
+      return this;
+    }
+
+    /**
+     * Base of the exponential backoff between two retries, in milliseconds. The effective delay is
+     * randomized (full jitter). Default value is {@link #DEFAULT_RETRY_BACKOFF_MILLISECONDS}.
+     * @since 6.5
+     */
+    public Builder retryBackoffMilliseconds(long l) {
+      checkArgument(l >= 0L, "Retry backoff must be positive. Got %s", l);
+      this.retryBackoffMs = l;
+      return this;
+    }
+
+    /**
+     * Maximum ratio of retries over requests, for example 0.1 to allow one retry every 10 requests, plus
+     * a burst of 10 retries. Default value is {@link #DEFAULT_RETRY_BUDGET_RATIO}.
+     * @since 6.5
+     */
+    public Builder retryBudgetRatio(double d) {
+      checkArgument(d >= 0.0, "Retry budget ratio must be positive. Got %s", d);
+      this.retryBudgetRatio = d;
+      return this;
+    }
+
     public HttpConnector build() {
       checkArgument(!isNullOrEmpty(url), "Server URL is not defined");
       return new HttpConnector(this);
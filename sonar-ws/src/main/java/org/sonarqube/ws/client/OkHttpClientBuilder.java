@@ -30,7 +30,9 @@ import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.net.ssl.KeyManager;
@@ -40,8 +42,10 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -69,6 +73,9 @@ public class OkHttpClientBuilder {
   private long readTimeoutMs = -1;
   private SSLSocketFactory sslSocketFactory = null;
   private X509TrustManager sslTrustManager = null;
+  private ConnectionPool connectionPool = null;
+  private int maxRequestsPerHost = -1;
+  private final List<Interceptor> interceptors = new ArrayList<>();
 
   /**
    * Optional User-Agent. If set, then all the requests sent by the
@@ -149,6 +156,36 @@ public class OkHttpClientBuilder {
     return this;
   }
 
+  /**
+   * Optional pool of connections. Clients sharing the same pool reuse the connections
+   * to the same server. If not set, then each {@link OkHttpClient} has its own pool.
+   */
+  public OkHttpClientBuilder setConnectionPool(@Nullable ConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+    return this;
+  }
+
+  /**
+   * Maximum number of asynchronous requests executed concurrently on the same host.
+   * Default is defined by OkHttp (5 in OkHttp 3.7).
+   */
+  public OkHttpClientBuilder setMaxRequestsPerHost(int i) {
+    if (i < 1) {
+      throw new IllegalArgumentException("Max requests per host must be at least 1. Got " + i);
+    }
+    this.maxRequestsPerHost = i;
+    return this;
+  }
+
+  /**
+   * Adds an application interceptor, which is called once per request, even if
+   * the request is redirected.
+   */
+  public OkHttpClientBuilder addInterceptor(Interceptor interceptor) {
+    this.interceptors.add(interceptor);
+    return this;
+  }
+
   public OkHttpClient build() {
     OkHttpClient.Builder builder = new OkHttpClient.Builder();
     builder.proxy(proxy);
@@ -158,6 +195,16 @@ public class OkHttpClientBuilder {
     if (readTimeoutMs >= 0) {
       builder.readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
     }
+    if (connectionPool != null) {
+      builder.connectionPool(connectionPool);
+    }
+    if (maxRequestsPerHost > 0) {
+      Dispatcher dispatcher = new Dispatcher();
+      dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+      dispatcher.setMaxRequests(Math.max(dispatcher.getMaxRequests(), maxRequestsPerHost));
+      builder.dispatcher(dispatcher);
+    }
+    interceptors.forEach(builder::addInterceptor);
     builder.addNetworkInterceptor(this::addUserAgent);
     if (proxyLogin != null) {
       builder.proxyAuthenticator((route, response) -> {
@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Limits the number of retries relatively to the number of requests, so that retries
+ * do not overload a server that is already in trouble. Each request deposits {@code ratio}
+ * token, each retry withdraws one token. The balance can't exceed {@code maxBalance}
+ * tokens, which is also the initial balance.
+ */
+class RetryBudget {
+
+  private final double ratio;
+  private final double maxBalance;
+  private double balance;
+
+  RetryBudget(double ratio, int maxBalance) {
+    checkArgument(ratio >= 0.0, "Retry ratio must be positive. Got %s", ratio);
+    checkArgument(maxBalance >= 0, "Maximum number of retries must be positive. Got %s", maxBalance);
+    this.ratio = ratio;
+    this.maxBalance = maxBalance;
+    this.balance = maxBalance;
+  }
+
+  synchronized void deposit() {
+    balance = Math.min(maxBalance, balance + ratio);
+  }
+
+  synchronized boolean tryWithdraw() {
+    if (balance >= 1.0) {
+      balance -= 1.0;
+      return true;
+    }
+    return false;
+  }
+}
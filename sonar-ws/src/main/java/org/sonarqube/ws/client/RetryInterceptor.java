@@ -0,0 +1,137 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static java.net.HttpURLConnection.HTTP_BAD_GATEWAY;
+import static java.net.HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+
+/**
+ * Retries the GET requests that fail because of a connectivity problem or because the server
+ * is temporarily unavailable. Delay between two attempts is an exponential backoff with
+ * full jitter, unless the server requests a delay with the header {@code Retry-After}.
+ * Retries are limited by a {@link RetryBudget} shared by all the requests of the connector.
+ */
+class RetryInterceptor implements Interceptor {
+
+  static final long MAX_BACKOFF_MILLISECONDS = 30_000L;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+  private final int maxRetries;
+  private final long initialBackoffMs;
+  private final RetryBudget budget;
+
+  RetryInterceptor(int maxRetries, long initialBackoffMs, RetryBudget budget) {
+    this.maxRetries = maxRetries;
+    this.initialBackoffMs = initialBackoffMs;
+    this.budget = budget;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    budget.deposit();
+    if (!"GET".equals(request.method())) {
+      return chain.proceed(request);
+    }
+
+    int attempt = 0;
+    while (true) {
+      Response response = null;
+      IOException failure = null;
+      try {
+        response = chain.proceed(request);
+      } catch (IOException e) {
+        failure = e;
+      }
+      boolean retryable = failure != null || isRetryable(response.code());
+      long delayMs = retryable ? delayMs(attempt, response) : 0L;
+      if (!retryable || attempt >= maxRetries || delayMs > MAX_BACKOFF_MILLISECONDS || !budget.tryWithdraw()) {
+        if (failure != null) {
+          throw failure;
+        }
+        return response;
+      }
+      if (response != null) {
+        response.close();
+      }
+      sleep(delayMs);
+      attempt++;
+    }
+  }
+
+  /**
+   * The delay requested by the server, if any, else the backoff. A delay greater than
+   * {@link #MAX_BACKOFF_MILLISECONDS} is not waited for: the response is returned to the caller.
+   */
+  long delayMs(int attempt, @Nullable Response response) {
+    String retryAfter = response == null ? null : response.header(RETRY_AFTER_HEADER);
+    Long requestedDelayMs = retryAfter == null ? null : parseRetryAfterMs(retryAfter.trim());
+    return requestedDelayMs == null ? backoffMs(attempt) : requestedDelayMs;
+  }
+
+  /**
+   * The value of {@code Retry-After} is either a number of seconds or an HTTP date.
+   */
+  @CheckForNull
+  private static Long parseRetryAfterMs(String retryAfter) {
+    try {
+      return Math.max(0L, Long.parseLong(retryAfter) * 1_000L);
+    } catch (NumberFormatException e) {
+      // not a number of seconds
+    }
+    try {
+      return Math.max(0L, ZonedDateTime.parse(retryAfter, RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis());
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  long backoffMs(int attempt) {
+    long cap = Math.min(MAX_BACKOFF_MILLISECONDS, initialBackoffMs << Math.min(attempt, 20));
+    return ThreadLocalRandom.current().nextLong(cap + 1);
+  }
+
+  private static boolean isRetryable(int code) {
+    return code == HTTP_UNAVAILABLE || code == HTTP_BAD_GATEWAY || code == HTTP_GATEWAY_TIMEOUT || code == HTTP_TOO_MANY_REQUESTS;
+  }
+
+  private static void sleep(long ms) throws InterruptedIOException {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for retry");
+    }
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonarqube.ws.client;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @since 5.3
  */
@@ -37,4 +39,15 @@ public interface WsConnector {
    */
   WsResponse call(WsRequest wsRequest);
 
+  /**
+   * Executes the request asynchronously. The future completes exceptionally with an
+   * {@link IllegalStateException} in the same cases as {@link #call(WsRequest)}.
+   * <p>The default implementation executes {@link #call(WsRequest)} in the common
+   * {@link java.util.concurrent.ForkJoinPool}.</p>
+   * @since 6.5
+   */
+  default CompletableFuture<WsResponse> callAsync(WsRequest wsRequest) {
+    return CompletableFuture.supplyAsync(() -> call(wsRequest));
+  }
+
 }
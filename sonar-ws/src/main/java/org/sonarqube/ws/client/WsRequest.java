@@ -43,6 +43,15 @@ public interface WsRequest {
 
   Parameters getParameters();
 
+  /**
+   * Empty by default, for implementations that do not support headers.
+   *
+   * @since 6.5
+   */
+  default Headers getHeaders() {
+    return Headers.empty();
+  }
+
   enum Method {
     GET, POST
   }
@@ -22,6 +22,7 @@ package org.sonarqube.ws.client;
 import java.io.Closeable;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Optional;
 
 /**
  * @since 5.3
@@ -51,6 +52,16 @@ public interface WsResponse extends Closeable {
 
   String contentType();
 
+  /**
+   * Value of a response header, for example {@code "ETag"}. Empty by default, for implementations that do not
+   * support headers.
+   *
+   * @since 6.5
+   */
+  default Optional<String> header(String name) {
+    return Optional.empty();
+  }
+
   boolean hasContent();
 
   InputStream contentStream();
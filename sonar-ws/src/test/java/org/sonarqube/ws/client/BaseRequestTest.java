@@ -96,6 +96,17 @@ public class BaseRequestTest {
     underTest.setParam(null, "val");
   }
 
+  @Test
+  public void set_and_remove_headers() {
+    underTest.setHeader("If-None-Match", "\"abc\"");
+    assertThat(underTest.getHeaders().getNames()).containsExactly("If-None-Match");
+    assertThat(underTest.getHeaders().getValue("If-None-Match")).hasValue("\"abc\"");
+
+    underTest.setHeader("If-None-Match", null);
+    assertThat(underTest.getHeaders().getNames()).isEmpty();
+    assertThat(underTest.getHeaders().getValue("If-None-Match")).isEmpty();
+  }
+
   private void assertParameters(MapEntry<String, String>... values) {
     Parameters parameters = underTest.getParameters();
     assertThat(parameters.getKeys()).extracting(key -> MapEntry.entry(key, parameters.getValue(key))).containsExactly(values);
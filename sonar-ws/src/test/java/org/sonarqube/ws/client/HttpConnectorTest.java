@@ -23,7 +23,11 @@ import java.io.File;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLSocketFactory;
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -95,6 +99,21 @@ public class HttpConnectorTest {
     assertThat(recordedRequest.getHeader("Accept-Encoding")).isEqualTo("gzip");
   }
 
+  @Test
+  public void send_request_headers_and_read_response_headers() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"abc\""));
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    GetRequest request = new GetRequest("api/metrics/search").setHeader("If-None-Match", "\"abc\"");
+    WsResponse response = underTest.call(request);
+
+    assertThat(response.code()).isEqualTo(304);
+    assertThat(response.header("ETag")).hasValue("\"abc\"");
+    assertThat(response.header("Unknown")).isEmpty();
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertThat(recordedRequest.getHeader("If-None-Match")).isEqualTo("\"abc\"");
+  }
+
   @Test
   public void use_basic_authentication() throws Exception {
     answerHelloWorld();
@@ -319,6 +338,120 @@ public class HttpConnectorTest {
     assertThat(underTest.call(request).requestUrl()).isEqualTo(serverUrl + "sonar/api/issues/search");
   }
 
+  @Test
+  public void call_asynchronously() throws Exception {
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxRequestsPerHost(2).build();
+
+    WsResponse response = underTest.callAsync(new GetRequest("api/issues/search")).get(10, TimeUnit.SECONDS);
+
+    assertThat(response.content()).isEqualTo("hello, world!");
+    assertThat(underTest.okHttpClient().dispatcher().getMaxRequestsPerHost()).isEqualTo(2);
+  }
+
+  @Test
+  public void asynchronous_call_fails_if_server_is_down() throws Exception {
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+    server.close();
+
+    CompletableFuture<WsResponse> future = underTest.callAsync(new GetRequest("api/issues/search"));
+
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class).hasMessageStartingWith("Fail to request " + serverUrl);
+    }
+  }
+
+  @Test
+  public void connectors_share_the_connection_pool_by_default() {
+    HttpConnector connector1 = HttpConnector.newBuilder().url(serverUrl).build();
+    HttpConnector connector2 = HttpConnector.newBuilder().url(serverUrl).build();
+    ConnectionPool pool = new ConnectionPool(2, 1, TimeUnit.MINUTES);
+    HttpConnector connector3 = HttpConnector.newBuilder().url(serverUrl).connectionPool(pool).build();
+
+    assertThat(connector1.okHttpClient().connectionPool()).isSameAs(connector2.okHttpClient().connectionPool());
+    assertThat(connector3.okHttpClient().connectionPool()).isSameAs(pool);
+  }
+
+  @Test
+  public void do_not_retry_by_default() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.code()).isEqualTo(503);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void retry_get_request_when_server_is_unavailable() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setResponseCode(502));
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxRetries(2).retryBackoffMilliseconds(1L).build();
+
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(response.content()).isEqualTo("hello, world!");
+    assertThat(server.getRequestCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void return_last_response_when_retries_are_exhausted() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setResponseCode(503));
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxRetries(1).retryBackoffMilliseconds(1L).build();
+
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.code()).isEqualTo(503);
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void wait_for_delay_requested_by_server_before_retrying() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxRetries(1).retryBackoffMilliseconds(1L).build();
+
+    long start = System.currentTimeMillis();
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(server.getRequestCount()).isEqualTo(2);
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(1_000L);
+  }
+
+  @Test
+  public void do_not_retry_if_server_requests_a_delay_longer_than_max_backoff() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "3600"));
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxRetries(1).retryBackoffMilliseconds(1L).build();
+
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.code()).isEqualTo(503);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void do_not_retry_post_request() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxRetries(2).retryBackoffMilliseconds(1L).build();
+
+    WsResponse response = underTest.call(new PostRequest("api/issues/do_transition"));
+
+    assertThat(response.code()).isEqualTo(503);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
   @Test
   public void support_tls_versions_of_java8() {
     underTest = HttpConnector.newBuilder().url(serverUrl).build();
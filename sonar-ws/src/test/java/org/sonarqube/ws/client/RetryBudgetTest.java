@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryBudgetTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void initial_balance_allows_a_burst_of_retries() {
+    RetryBudget underTest = new RetryBudget(0.1, 2);
+
+    assertThat(underTest.tryWithdraw()).isTrue();
+    assertThat(underTest.tryWithdraw()).isTrue();
+    assertThat(underTest.tryWithdraw()).isFalse();
+  }
+
+  @Test
+  public void requests_refill_the_budget() {
+    RetryBudget underTest = new RetryBudget(0.5, 1);
+    assertThat(underTest.tryWithdraw()).isTrue();
+
+    underTest.deposit();
+    assertThat(underTest.tryWithdraw()).isFalse();
+
+    underTest.deposit();
+    underTest.deposit();
+    assertThat(underTest.tryWithdraw()).isTrue();
+  }
+
+  @Test
+  public void balance_is_capped() {
+    RetryBudget underTest = new RetryBudget(1.0, 1);
+
+    underTest.deposit();
+    underTest.deposit();
+
+    assertThat(underTest.tryWithdraw()).isTrue();
+    assertThat(underTest.tryWithdraw()).isFalse();
+  }
+
+  @Test
+  public void fail_if_negative_ratio() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Retry ratio must be positive. Got -1.0");
+
+    new RetryBudget(-1.0, 1);
+  }
+}